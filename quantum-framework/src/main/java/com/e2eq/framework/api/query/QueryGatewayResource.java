@@ -2,11 +2,13 @@ package com.e2eq.framework.api.query;
 
 import com.e2eq.framework.annotations.FunctionalAction;
 import com.e2eq.framework.annotations.FunctionalMapping;
+import com.e2eq.framework.model.persistent.base.SortField;
 import com.e2eq.framework.model.persistent.base.UnversionedBaseModel;
 import com.e2eq.framework.exceptions.ReferentialIntegrityViolationException;
 import com.e2eq.framework.model.persistent.morphia.BaseMorphiaRepo;
 import com.e2eq.framework.model.persistent.morphia.DeleteValidationService;
 import com.e2eq.framework.model.persistent.morphia.ImportSessionRowRepo;
+import com.e2eq.framework.model.persistent.morphia.KeysetPagination;
 import com.e2eq.framework.model.persistent.morphia.MorphiaDataStoreWrapper;
 import com.e2eq.framework.model.persistent.morphia.MorphiaUtils;
 import com.e2eq.framework.model.persistent.morphia.planner.LogicalPlan;
@@ -21,12 +23,16 @@ import com.e2eq.framework.model.securityrules.SecurityContext;
 import com.e2eq.framework.rest.models.Collection;
 import com.e2eq.framework.csv.CSVExportHelper;
 import com.e2eq.framework.csv.CSVImportHelper;
+import com.e2eq.framework.util.JsonStreamingOutput;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mongodb.client.MongoCursor;
 import dev.morphia.Datastore;
 import dev.morphia.MorphiaDatastore;
 import dev.morphia.mapping.Mapper;
 import dev.morphia.mapping.codec.pojo.EntityModel;
 import dev.morphia.query.FindOptions;
+import dev.morphia.query.MorphiaCursor;
+import dev.morphia.query.Sort;
 import dev.morphia.query.Query;
 import dev.morphia.query.filters.Filters;
 import io.quarkus.logging.Log;
@@ -68,6 +74,7 @@ import java.util.Map;
  *   <li><b>GET /api/query/rootTypes</b> - Lists all available entity types</li>
  *   <li><b>POST /api/query/plan</b> - Returns query execution plan (FILTER vs AGGREGATION mode)</li>
  *   <li><b>POST /api/query/find</b> - Executes a query and returns matching entities</li>
+ *   <li><b>POST /api/query/find/stream</b> - Same as find, streaming rows as NDJSON or JSON</li>
  *   <li><b>POST /api/query/save</b> - Saves (inserts or updates) an entity</li>
  *   <li><b>POST /api/query/delete</b> - Deletes an entity by ID</li>
  *   <li><b>POST /api/query/deleteMany</b> - Deletes multiple entities matching a query</li>
@@ -197,6 +204,30 @@ public class QueryGatewayResource {
     @Path("/find")
     @FunctionalAction("find")
     public Response find(FindRequest req) {
+        return executeFind(req, null);
+    }
+
+    /**
+     * Executes the same query as {@link #find(FindRequest)} but writes rows to the response as
+     * they come off the cursor instead of collecting the page into a list first. The format is
+     * taken from {@code req.format} ("ndjson" or "json"), then the Accept header, and defaults
+     * to NDJSON.
+     */
+    @POST
+    @Path("/find/stream")
+    @Produces({JsonStreamingOutput.NDJSON_MEDIA_TYPE, MediaType.APPLICATION_JSON})
+    @FunctionalAction("find")
+    public Response findStream(FindRequest req, @HeaderParam("Accept") String accept) {
+        JsonStreamingOutput.Format format;
+        try {
+            format = JsonStreamingOutput.Format.of(req.format, accept);
+        } catch (IllegalArgumentException e) {
+            return badRequest(e.getMessage());
+        }
+        return executeFind(req, format);
+    }
+
+    private Response executeFind(FindRequest req, JsonStreamingOutput.Format streamFormat) {
         Class<? extends UnversionedBaseModel> root = resolveRoot(req.rootType);
         // Build planned query, passing paging/sort through so the compiler can emit root stages
         java.util.List<LogicalPlan.SortSpec.Field> sortFields = null;
@@ -210,8 +241,32 @@ public class QueryGatewayResource {
         }
         Integer limit = (req.page != null) ? req.page.limit : null;
         Integer skip = (req.page != null) ? req.page.skip : null;
+
+        // Keyset pagination: page after the row the token was issued for, on the sort plus _id
+        String pageToken = (req.page != null) ? req.page.pageToken : null;
+        boolean keyset = pageToken != null;
+        List<SortField> keysetSort = null;
+        org.bson.Document keysetAfter = null;
+        if (keyset) {
+            if (skip != null && skip > 0) {
+                return badRequest("page.skip cannot be combined with page.pageToken");
+            }
+            keysetSort = KeysetPagination.normalizeSort(toSortFields(sortFields));
+            sortFields = new java.util.ArrayList<>();
+            for (SortField sf : keysetSort) {
+                sortFields.add(new LogicalPlan.SortSpec.Field(sf.getFieldName(),
+                        sf.getSortDirection() == SortField.SortDirection.DESC ? -1 : 1));
+            }
+            if (!pageToken.isBlank()) {
+                try {
+                    keysetAfter = KeysetPagination.toMatch(keysetSort, pageToken);
+                } catch (IllegalArgumentException e) {
+                    return badRequest(e.getMessage());
+                }
+            }
+        }
         Map<String, String> variableMap = variableMapForQuery(req.realm);
-        PlannedQuery planned = MorphiaUtils.convertToPlannedQuery(req.query, root, limit, skip, sortFields, variableMap);
+        PlannedQuery planned = MorphiaUtils.convertToPlannedQuery(req.query, root, limit, skip, sortFields, variableMap, keysetAfter);
         if (planned.getMode() == PlannerResult.Mode.AGGREGATION) {
             if (!aggregationExecutionEnabled) {
                 Map<String, Object> body = new HashMap<>();
@@ -251,12 +306,29 @@ public class QueryGatewayResource {
             int effLimit = (limit != null) ? limit : 50;
             int effSkip = (skip != null) ? skip : 0;
 
+            if (streamFormat != null) {
+                MongoCursor<org.bson.Document> cursor = ds.getDatabase()
+                        .getCollection(rootCollection)
+                        .aggregate(clean, org.bson.Document.class)
+                        .cursor();
+                JsonStreamingOutput<org.bson.Document> output =
+                        new JsonStreamingOutput<>(objectMapper, cursor, cursor, streamFormat);
+                if (keyset) {
+                    List<SortField> pageSort = keysetSort;
+                    output.withNextPageToken(effLimit, last -> KeysetPagination.nextToken(pageSort, last));
+                }
+                return streamed(output, effSkip, effLimit, req.query, realm);
+            }
+
             // Run aggregation and wrap results
             List<org.bson.Document> rows = ds.getDatabase()
                     .getCollection(rootCollection)
                     .aggregate(clean, org.bson.Document.class)
                     .into(new java.util.ArrayList<>());
             Collection<org.bson.Document> col = new Collection<>(rows, effSkip, effLimit, req.query);
+            if (keyset && rows.size() == effLimit) {
+                col.setNextPageToken(KeysetPagination.nextToken(keysetSort, rows.get(rows.size() - 1)));
+            }
             return Response.ok(col).build();
         }
         // FILTER path using Morphia
@@ -269,11 +341,64 @@ public class QueryGatewayResource {
         int fLimit = req.page != null && req.page.limit != null ? req.page.limit : 50;
         int fSkip = req.page != null && req.page.skip != null ? req.page.skip : 0;
         FindOptions fo = new FindOptions().limit(fLimit).skip(fSkip);
+        if (keyset) {
+            if (!pageToken.isBlank()) {
+                q = q.filter(KeysetPagination.toFilter(keysetSort, pageToken));
+            }
+            List<Sort> sorts = new ArrayList<>();
+            for (SortField sf : keysetSort) {
+                sorts.add(sf.getSortDirection() == SortField.SortDirection.DESC
+                        ? Sort.descending(sf.getFieldName()) : Sort.ascending(sf.getFieldName()));
+            }
+            fo.sort(sorts.toArray(new Sort[0]));
+        }
+        if (streamFormat != null) {
+            MorphiaCursor<? extends UnversionedBaseModel> cursor = q.iterator(fo);
+            JsonStreamingOutput<? extends UnversionedBaseModel> output = keysetStream(cursor, streamFormat, keysetSort, fLimit);
+            return streamed(output, fSkip, fLimit, req.query, realm);
+        }
         List<?> rows = q.iterator(fo).toList();
         Collection<?> col = new Collection<>(rows, fSkip, fLimit, req.query);
+        if (keyset && rows.size() == fLimit) {
+            col.setNextPageToken(KeysetPagination.nextToken(keysetSort, rows.get(rows.size() - 1)));
+        }
         return Response.ok(col).build();
     }
 
+    private <E> JsonStreamingOutput<E> keysetStream(MorphiaCursor<E> cursor, JsonStreamingOutput.Format format,
+                                                    List<SortField> keysetSort, int limit) {
+        JsonStreamingOutput<E> output = new JsonStreamingOutput<>(objectMapper, cursor, cursor, format);
+        if (keysetSort != null) {
+            output.withNextPageToken(limit, last -> KeysetPagination.nextToken(keysetSort, last));
+        }
+        return output;
+    }
+
+    private static List<SortField> toSortFields(List<LogicalPlan.SortSpec.Field> fields) {
+        List<SortField> result = new ArrayList<>();
+        if (fields != null) {
+            for (LogicalPlan.SortSpec.Field f : fields) {
+                result.add(new SortField(f.name, f.dir < 0 ? SortField.SortDirection.DESC : SortField.SortDirection.ASC));
+            }
+        }
+        return result;
+    }
+
+    private static Response badRequest(String message) {
+        Map<String, Object> body = new HashMap<>();
+        body.put("error", "BadRequest");
+        body.put("message", message);
+        return Response.status(Response.Status.BAD_REQUEST).type(MediaType.APPLICATION_JSON).entity(body).build();
+    }
+
+    private static Response streamed(JsonStreamingOutput<?> output, int skip, int limit, String query, String realm) {
+        output.withEnvelopeField("offset", skip)
+                .withEnvelopeField("limit", limit)
+                .withEnvelopeField("filter", query)
+                .withEnvelopeField("realm", realm);
+        return Response.ok(output, output.getFormat().mediaType()).build();
+    }
+
     // ========================================================================
     // COUNT ENDPOINT
     // ========================================================================
@@ -1007,9 +1132,15 @@ public class QueryGatewayResource {
         public Page page;
         public String realm; // optional; if absent default realm is used
         public java.util.List<SortSpec> sort; // optional; if present, applied; query string sort takes precedence when parsed in future
+        public String format; // optional; /find/stream only: "ndjson" or "json"
     }
     @RegisterForReflection
-    public static class Page { public Integer limit; public Integer skip; }
+    public static class Page {
+        public Integer limit;
+        public Integer skip;
+        /** Keyset pagination: empty for the first page, then the previous response's nextPageToken; replaces skip. */
+        public String pageToken;
+    }
     @RegisterForReflection
     public static class SortSpec { public String field; public String dir; } // dir: ASC|DESC
 
@@ -46,8 +46,8 @@ public class MigrationCheckRequestFilter implements ContainerRequestFilter {
 
         try {
             String effectiveRealm = resolveMigrationRealm(requestContext);
-            migrationService.checkInitialized(effectiveRealm);
-           migrationService.checkInitialized(envConfigUtils.getSystemRealm());
+            migrationService.checkInitializedCached(effectiveRealm);
+            migrationService.checkInitializedCached(envConfigUtils.getSystemRealm());
 
         } catch (DatabaseMigrationException e) {
             Log.warn("!! Migration check failed: " + e.getMessage());
@@ -59,7 +59,7 @@ public class MigrationCheckRequestFilter implements ContainerRequestFilter {
         if (failRequest && (requestContext.getUriInfo().getPath().contains("login") ||
                   requestContext.getUriInfo().getPath().contains("migration"))) {
             try {
-                migrationService.checkInitialized(envConfigUtils.getSystemRealm());
+                migrationService.checkInitializedCached(envConfigUtils.getSystemRealm());
             } catch (DatabaseMigrationException e) {
                 Log.warn("!! System Migration check failed: " + e.getMessage());
                 Log.warnf(" Execution of Request:%s caused this error", requestContext.getUriInfo().getPath());
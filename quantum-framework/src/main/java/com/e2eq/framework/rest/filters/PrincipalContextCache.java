@@ -0,0 +1,242 @@
+package com.e2eq.framework.rest.filters;
+
+import com.e2eq.framework.model.persistent.morphia.PostDeleteHook;
+import com.e2eq.framework.model.persistent.morphia.PostPersistHook;
+import com.e2eq.framework.model.security.CredentialUserIdPassword;
+import com.e2eq.framework.model.security.Realm;
+import com.e2eq.framework.model.security.UserGroup;
+import com.e2eq.framework.model.security.UserProfile;
+import com.e2eq.framework.model.securityrules.PrincipalContext;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import io.quarkus.logging.Log;
+import jakarta.enterprise.context.ApplicationScoped;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cross-request cache of the PrincipalContext that {@link SecurityFilter} resolves for a credential.
+ *
+ * Resolving a principal costs a credential lookup, a realm listing when X-Realm is set, the
+ * UserProfile/UserGroup role resolution and the realm override lookup. The result only depends on
+ * the token (or authenticated identity) and the requested realm, so it is cached under that key
+ * with a short TTL and a size bound. Impersonation requests are never cached.
+ *
+ * The cache registers itself as a repo lifecycle hook: saving a credential evicts the entries
+ * resolved for it, and saving or deleting a credential, user profile, user group or realm
+ * otherwise drops every entry, since any of those can change the roles or data domain of
+ * principals already cached. Writes that bypass the lifecycle hooks are bounded by the TTL.
+ *
+ * Also keeps per-stage timings of principal resolution, see {@link #getSummary()}.
+ */
+@ApplicationScoped
+public class PrincipalContextCache implements PostPersistHook, PostDeleteHook {
+
+    /** Stages of principal resolution that are timed. */
+    public enum Stage {
+        CREDENTIAL_LOOKUP("credentialLookup"),
+        REALM_VALIDATION("realmValidation"),
+        ROLE_RESOLUTION("roleResolution"),
+        REALM_OVERRIDE("realmOverride"),
+        PROPERTY_RESOLUTION("propertyResolution"),
+        TOTAL("total");
+
+        final String metricName;
+
+        Stage(String metricName) {
+            this.metricName = metricName;
+        }
+    }
+
+    @ConfigProperty(name = "quantum.security.principalCache.enabled", defaultValue = "true")
+    boolean enabled = true;
+
+    @ConfigProperty(name = "quantum.security.principalCache.maxEntries", defaultValue = "10000")
+    long maxEntries = 10000;
+
+    @ConfigProperty(name = "quantum.security.principalCache.ttlSeconds", defaultValue = "60")
+    long ttlSeconds = 60;
+
+    private volatile Cache<String, Entry> cache;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong stores = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    private final AtomicLong[] stageCount = new AtomicLong[Stage.values().length];
+    private final AtomicLong[] stageNanos = new AtomicLong[Stage.values().length];
+    private final AtomicLong[] stageMaxNanos = new AtomicLong[Stage.values().length];
+
+    public PrincipalContextCache() {
+        for (int i = 0; i < stageCount.length; i++) {
+            stageCount[i] = new AtomicLong();
+            stageNanos[i] = new AtomicLong();
+            stageMaxNanos[i] = new AtomicLong();
+        }
+    }
+
+    /**
+     * A resolved principal context plus the credential it was resolved from.
+     */
+    static final class Entry {
+        final PrincipalContext context;
+        final CredentialUserIdPassword credentials;
+
+        Entry(PrincipalContext context, CredentialUserIdPassword credentials) {
+            this.context = context;
+            this.credentials = credentials;
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    private Cache<String, Entry> cache() {
+        Cache<String, Entry> c = cache;
+        if (c == null) {
+            synchronized (this) {
+                c = cache;
+                if (c == null) {
+                    CacheBuilder<Object, Object> builder = CacheBuilder.newBuilder()
+                            .maximumSize(Math.max(1L, maxEntries));
+                    if (ttlSeconds > 0) {
+                        builder.expireAfterWrite(ttlSeconds, TimeUnit.SECONDS);
+                    }
+                    c = builder.build();
+                    cache = c;
+                }
+            }
+        }
+        return c;
+    }
+
+    /**
+     * Builds the cache key for a token or identity and the requested realm override.
+     *
+     * @param principalKey the token id (or subject/issued-at) or the authenticated identity
+     * @param realmOverride the X-Realm header value, may be null
+     * @return the key, or null when the principal cannot be keyed
+     */
+    static String key(String principalKey, String realmOverride) {
+        if (principalKey == null) {
+            return null;
+        }
+        return principalKey + '\u0000' + (realmOverride != null ? realmOverride : "");
+    }
+
+    Entry get(String key) {
+        if (!enabled || key == null) {
+            return null;
+        }
+        Entry entry = cache().getIfPresent(key);
+        if (entry == null) {
+            misses.incrementAndGet();
+        } else {
+            hits.incrementAndGet();
+        }
+        return entry;
+    }
+
+    void put(String key, PrincipalContext context, CredentialUserIdPassword credentials) {
+        if (!enabled || key == null || context == null) {
+            return;
+        }
+        cache().put(key, new Entry(context, credentials));
+        stores.incrementAndGet();
+    }
+
+    /**
+     * Drops the entries resolved for the given credential.
+     */
+    public void evictCredential(String userId, String subject) {
+        Cache<String, Entry> c = cache;
+        if (c == null) {
+            return;
+        }
+        c.asMap().values().removeIf(e -> e.credentials != null
+                && (Objects.equals(e.credentials.getUserId(), userId)
+                    || (subject != null && Objects.equals(e.credentials.getSubject(), subject))));
+        evictions.incrementAndGet();
+    }
+
+    /**
+     * Drops every cached principal context.
+     */
+    public void invalidateAll() {
+        Cache<String, Entry> c = cache;
+        if (c != null) {
+            c.invalidateAll();
+        }
+        evictions.incrementAndGet();
+    }
+
+    @Override
+    public void afterPersist(String realmId, Object entity) {
+        if (entity instanceof CredentialUserIdPassword creds) {
+            evictCredential(creds.getUserId(), creds.getSubject());
+        } else if (entity instanceof UserGroup || entity instanceof UserProfile || entity instanceof Realm) {
+            Log.debugf("PrincipalContextCache: %s saved in realm %s, invalidating cached principals",
+                    entity.getClass().getSimpleName(), realmId);
+            invalidateAll();
+        }
+    }
+
+    @Override
+    public void afterDelete(String realmId, Class<?> entityClass, String idAsString) {
+        // only the ref name or id is known here, so drop everything
+        if (entityClass != null && (CredentialUserIdPassword.class.isAssignableFrom(entityClass)
+                || UserGroup.class.isAssignableFrom(entityClass)
+                || UserProfile.class.isAssignableFrom(entityClass)
+                || Realm.class.isAssignableFrom(entityClass))) {
+            invalidateAll();
+        }
+    }
+
+    /**
+     * Records the time spent in a stage of principal resolution.
+     *
+     * @param stage the stage
+     * @param startNanos the {@link System#nanoTime()} taken when the stage started
+     */
+    void recordStage(Stage stage, long startNanos) {
+        long elapsed = System.nanoTime() - startNanos;
+        int i = stage.ordinal();
+        stageCount[i].incrementAndGet();
+        stageNanos[i].addAndGet(elapsed);
+        stageMaxNanos[i].accumulateAndGet(elapsed, Math::max);
+    }
+
+    /**
+     * Gets principal cache metrics and per-stage resolution timings as a map.
+     *
+     * @return map of metric names to values
+     */
+    public Map<String, Object> getSummary() {
+        Map<String, Object> summary = new HashMap<>();
+        Cache<String, Entry> c = cache;
+        long h = hits.get();
+        long m = misses.get();
+        summary.put("principalCacheEnabled", enabled);
+        summary.put("principalCacheSize", c != null ? c.size() : 0L);
+        summary.put("principalCacheHits", h);
+        summary.put("principalCacheMisses", m);
+        summary.put("principalCacheHitRatio", (h + m) == 0 ? 0.0d : (double) h / (h + m));
+        summary.put("principalCacheStores", stores.get());
+        summary.put("principalCacheEvictions", evictions.get());
+        for (Stage stage : Stage.values()) {
+            int i = stage.ordinal();
+            long count = stageCount[i].get();
+            summary.put(stage.metricName + "Count", count);
+            summary.put(stage.metricName + "AvgMicros", count == 0 ? 0.0d : stageNanos[i].get() / 1000.0d / count);
+            summary.put(stage.metricName + "MaxMicros", stageMaxNanos[i].get() / 1000L);
+        }
+        return summary;
+    }
+}
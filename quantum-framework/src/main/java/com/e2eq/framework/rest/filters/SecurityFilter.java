@@ -13,6 +13,7 @@ import com.e2eq.framework.model.securityrules.ResourceContext;
 import com.e2eq.framework.model.securityrules.SecurityContext;
 import com.e2eq.framework.model.security.CredentialUserIdPassword;
 import com.e2eq.framework.model.persistent.morphia.CredentialRepo;
+import com.e2eq.framework.model.persistent.morphia.RealmCatalog;
 import com.e2eq.framework.model.persistent.morphia.RealmRepo;
 import com.e2eq.framework.util.EnvConfigUtils;
 import com.e2eq.framework.util.SecurityUtils;
@@ -110,6 +111,12 @@ public class SecurityFilter implements ContainerRequestFilter, jakarta.ws.rs.con
     @Inject
     jakarta.enterprise.inject.Instance<com.e2eq.framework.model.securityrules.PrincipalContextPropertiesResolver> propertyResolvers;
 
+    @Inject
+    PrincipalContextCache principalContextCache;
+
+    @Inject
+    RealmCatalog realmCatalog;
+
     private static final java.util.concurrent.atomic.AtomicBoolean WARNED_PERMISSIVE = new java.util.concurrent.atomic.AtomicBoolean(false);
 
 
@@ -533,21 +540,88 @@ public class SecurityFilter implements ContainerRequestFilter, jakarta.ws.rs.con
     }
 
     protected PrincipalContext determinePrincipalContext(ContainerRequestContext requestContext) {
+        long start = System.nanoTime();
         validateContextInputs(requestContext);
 
         String realm = requestContext.getHeaderString("X-Realm");
         String authHeader = requestContext.getHeaderString(HttpHeaders.AUTHORIZATION);
 
-        // Build context and track credentials for property resolvers
-        ContextBuildResult buildResult = buildBaseContextWithCredentials(authHeader, realm);
-        PrincipalContext baseContext = buildResult.context;
-        CredentialUserIdPassword credentials = buildResult.credentials;
+        // Reuse the context resolved for this token and realm by an earlier request
+        String cacheKey = principalCacheKey(requestContext, authHeader, realm);
+        PrincipalContextCache.Entry cached = (cacheKey != null) ? principalContextCache.get(cacheKey) : null;
 
-        PrincipalContext contextWithImpersonation = handleImpersonation(requestContext, baseContext);
-        PrincipalContext contextWithRealm = applyRealmOverride(contextWithImpersonation, realm);
+        PrincipalContext contextWithRealm;
+        CredentialUserIdPassword credentials;
+        if (cached != null) {
+            // copies the cached context and applies this request's acting-on-behalf-of headers
+            contextWithRealm = handleImpersonation(requestContext, cached.context);
+            credentials = cached.credentials;
+        } else {
+            // Build context and track credentials for property resolvers
+            ContextBuildResult buildResult = buildBaseContextWithCredentials(authHeader, realm);
+            PrincipalContext baseContext = buildResult.context;
+            credentials = buildResult.credentials;
+
+            PrincipalContext contextWithImpersonation = handleImpersonation(requestContext, baseContext);
+            long overrideStart = System.nanoTime();
+            contextWithRealm = applyRealmOverride(contextWithImpersonation, realm);
+            recordStage(PrincipalContextCache.Stage.REALM_OVERRIDE, overrideStart);
+
+            if (cacheKey != null) {
+                principalContextCache.put(cacheKey, contextWithRealm, credentials);
+            }
+        }
+
+        // Apply custom property resolvers; these see the request so they always run
+        long propertiesStart = System.nanoTime();
+        PrincipalContext context = applyCustomProperties(requestContext, contextWithRealm, credentials);
+        recordStage(PrincipalContextCache.Stage.PROPERTY_RESOLUTION, propertiesStart);
+        recordStage(PrincipalContextCache.Stage.TOTAL, start);
+        return context;
+    }
+
+    /**
+     * Key for the principal context cache: the token id (or subject and issued-at time) of the
+     * bearer token, or the name and roles of the authenticated identity, plus the X-Realm header.
+     * Returns null when the request must not be served from the cache: the cache is disabled,
+     * impersonation was requested or the caller is anonymous.
+     */
+    private String principalCacheKey(ContainerRequestContext requestContext, String authHeader, String realm) {
+        if (principalContextCache == null || !principalContextCache.isEnabled()) {
+            return null;
+        }
+        if (requestContext.getHeaderString("X-Impersonate-Subject") != null
+                || requestContext.getHeaderString("X-Impersonate-UserId") != null) {
+            return null;
+        }
+        try {
+            if (authHeader != null && jwt != null) {
+                String sub = jwt.getClaim("sub");
+                if (sub == null) {
+                    return null;
+                }
+                String tokenId = jwt.getTokenID();
+                String principalKey = (tokenId != null)
+                        ? "jti:" + jwt.getIssuer() + "|" + tokenId
+                        : "sub:" + jwt.getIssuer() + "|" + sub + "|" + jwt.getIssuedAtTime();
+                return PrincipalContextCache.key(principalKey, realm);
+            }
+            if (securityIdentity != null && !securityIdentity.isAnonymous() && securityIdentity.getPrincipal() != null) {
+                // identity roles are merged into the effective roles, so they are part of the key
+                String principalKey = "identity:" + securityIdentity.getPrincipal().getName()
+                        + "|" + new TreeSet<>(securityIdentity.getRoles());
+                return PrincipalContextCache.key(principalKey, realm);
+            }
+        } catch (RuntimeException e) {
+            Log.debugf(e, "Principal context cache key could not be built; resolving without cache");
+        }
+        return null;
+    }
 
-        // Apply custom property resolvers
-        return applyCustomProperties(requestContext, contextWithRealm, credentials);
+    private void recordStage(PrincipalContextCache.Stage stage, long startNanos) {
+        if (principalContextCache != null) {
+            principalContextCache.recordStage(stage, startNanos);
+        }
     }
 
     /**
@@ -591,7 +665,9 @@ public class SecurityFilter implements ContainerRequestFilter, jakarta.ws.rs.con
         Log.debugf("buildIdentityContextWithCredentials: principalName=%s, realmOverride=%s", principalName, realmOverride);
 
         // Credentials are looked up from the configured system realm (global credential store)
+        long lookupStart = System.nanoTime();
         Optional<CredentialUserIdPassword> ocreds = credentialRepo.findByUserId(principalName, envConfigUtils.getSystemRealm(), true);
+        recordStage(PrincipalContextCache.Stage.CREDENTIAL_LOOKUP, lookupStart);
 
         if (ocreds.isPresent()) {
             CredentialUserIdPassword creds = ocreds.get();
@@ -652,10 +728,12 @@ public class SecurityFilter implements ContainerRequestFilter, jakarta.ws.rs.con
         }
 
         // Credentials are looked up from the configured system realm (global credential store)
+        long lookupStart = System.nanoTime();
         Optional<CredentialUserIdPassword> ocreds = credentialRepo.findBySubject(sub, envConfigUtils.getSystemRealm(), true);
         if (!ocreds.isPresent()) {
             ocreds = findCredentialByPrincipalClaims(sub);
         }
+        recordStage(PrincipalContextCache.Stage.CREDENTIAL_LOOKUP, lookupStart);
 
         if (!ocreds.isPresent()) {
             throw new IllegalStateException(String.format(
@@ -871,7 +949,10 @@ public class SecurityFilter implements ContainerRequestFilter, jakarta.ws.rs.con
     private String[] resolveEffectiveRoles(SecurityIdentity identity, CredentialUserIdPassword credential, String realm) {
         // Delegate to centralized resolver to keep logic consistent across endpoints and filter
         if (identityRoleResolver != null) {
-            return identityRoleResolver.resolveEffectiveRoles(identity, credential, realm);
+            long start = System.nanoTime();
+            String[] roles = identityRoleResolver.resolveEffectiveRoles(identity, credential, realm);
+            recordStage(PrincipalContextCache.Stage.ROLE_RESOLUTION, start);
+            return roles;
         }
         // Fallback for unit tests that construct SecurityFilter without CDI injection
         java.util.Set<String> rolesSet = new java.util.LinkedHashSet<>();
@@ -905,8 +986,10 @@ public class SecurityFilter implements ContainerRequestFilter, jakarta.ws.rs.con
 
     private void validateRealmAccess(CredentialUserIdPassword creds, String realm) {
         if (realm != null) {
-            List<Realm> realmsAvailable = realmRepo.getAllListWithIgnoreRules(envConfigUtils.getSystemRealm());
-            List<String> realmRefNamesAvailable = new java.util.ArrayList<>(realmsAvailable.stream().map(Realm::getRefName).toList());
+            long start = System.nanoTime();
+            List<String> realmRefNamesAvailable = (realmCatalog != null)
+                ? realmCatalog.getRefNames()
+                : realmRepo.getAllListWithIgnoreRules(envConfigUtils.getSystemRealm()).stream().map(Realm::getRefName).toList();
 
             if (!realmRefNamesAvailable.contains(realm)) {
                 if (Log.isDebugEnabled()) {
@@ -921,6 +1004,7 @@ public class SecurityFilter implements ContainerRequestFilter, jakarta.ws.rs.con
                 throw new IllegalArgumentException(String.format(
                     "The user %s is not authorized to access realm %s", creds.getUserId(), realm));
             }
+            recordStage(PrincipalContextCache.Stage.REALM_VALIDATION, start);
         }
     }
 
@@ -1045,13 +1129,16 @@ public class SecurityFilter implements ContainerRequestFilter, jakarta.ws.rs.con
         }
 
         // Look up the target realm to get its default DomainContext
-        // Use system realm for the lookup since realms are typically stored there
-        Optional<com.e2eq.framework.model.security.Realm> targetRealmOpt =
-            realmRepo.findByRefName(realm, true, envConfigUtils.getSystemRealm());
+        // Realms are stored in the system realm; the catalog serves them from memory
+        Optional<com.e2eq.framework.model.security.Realm> targetRealmOpt = (realmCatalog != null)
+            ? realmCatalog.findByRefName(realm)
+            : realmRepo.findByRefName(realm, true, envConfigUtils.getSystemRealm());
 
         // If not found by refName, try by databaseName (they're often the same)
         if (targetRealmOpt.isEmpty()) {
-            targetRealmOpt = realmRepo.findByDatabaseName(realm, true, envConfigUtils.getSystemRealm());
+            targetRealmOpt = (realmCatalog != null)
+                ? realmCatalog.findByDatabaseName(realm)
+                : realmRepo.findByDatabaseName(realm, true, envConfigUtils.getSystemRealm());
         }
 
         if (targetRealmOpt.isEmpty()) {
@@ -13,7 +13,11 @@ import com.e2eq.framework.csv.CSVExportHelper;
 import com.e2eq.framework.csv.CSVImportHelper;
 import com.e2eq.framework.rest.query.FilterUtils;
 import com.e2eq.framework.util.JSONUtils;
+import com.e2eq.framework.util.JsonStreamingOutput;
+import com.e2eq.framework.model.securityrules.FieldPolicyEnforcer;
+import com.e2eq.framework.rest.filters.FieldPolicyResponseInterceptor;
 import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.module.jsonSchema.jakarta.JsonSchema;
 
 import dev.morphia.query.ValidationException;
@@ -68,6 +72,9 @@ public class BaseResource<T extends UnversionedBaseModel, R extends BaseMorphiaR
    @Inject
    protected RuleContext ruleContext;
 
+   @Inject
+   protected ObjectMapper objectMapper;
+
    private static final int MAXIMUM_REJECTS_SHOWN = 5;
 
    @Inject
@@ -242,6 +249,39 @@ public class BaseResource<T extends UnversionedBaseModel, R extends BaseMorphiaR
       return response;
    }
 
+   @Path("id/{id}/history")
+   @GET
+   @Produces(MediaType.APPLICATION_JSON)
+   @SecurityRequirement(name = "bearerAuth")
+   @APIResponses(value = {
+           @APIResponse(responseCode = "200", description = "Persistence events of the entity, newest first", content = @Content(mediaType = "application/json", schema = @Schema(implementation = Collection.class))),
+           @APIResponse(responseCode = "404", description = "Entity not found", content = @Content(mediaType = "application/json", schema = @Schema(implementation = RestError.class)))
+   })
+   public Response persistentEventHistory(
+           @Context HttpHeaders headers,
+           @Parameter(description = "Id of the entity", required = true)
+           @PathParam("id") String id,
+           @DefaultValue("0") @QueryParam("skip") int skip,
+           @DefaultValue("50") @QueryParam("limit") int limit) {
+      if (id == null || id.isEmpty() || !ObjectId.isValid(id)) {
+         throw new WebApplicationException("id is required to be a valid object id", Response.Status.BAD_REQUEST);
+      }
+      String realmId = headers.getHeaderString("X-Realm");
+      // resolve the entity first so the caller's read rules apply to its history too
+      Optional<T> opModel = (realmId == null) ? repo.findById(id) : repo.findById(id, realmId);
+      if (opModel.isEmpty()) {
+         RestError error = RestError.builder()
+                 .status(Response.Status.NOT_FOUND.getStatusCode())
+                 .statusMessage("Id:" + id + " was not found").build();
+         return Response.status(Response.Status.NOT_FOUND).entity(error).build();
+      }
+      ObjectId oid = new ObjectId(id);
+      List<PersistentEvent> events = repo.getPersistentEventHistory(realmId, oid, skip, limit);
+      Collection<PersistentEvent> collection = new Collection<>(events, skip, limit, null,
+              repo.getPersistentEventCount(realmId, oid));
+      return Response.ok(collection).build();
+   }
+
    protected List<SortField> convertToSortField(String sort) {
       List<SortField> sortFields = new ArrayList<>();
       if (sort != null) {
@@ -810,9 +850,17 @@ public class BaseResource<T extends UnversionedBaseModel, R extends BaseMorphiaR
                                 @QueryParam("filter") String filter,
                                 @QueryParam("sort") String sort,
                                 @QueryParam("projection") String projection,
-                                @QueryParam("uiActions") Boolean uiActions) {
+                                @QueryParam("uiActions") Boolean uiActions,
+                                @Parameter(description = "keyset pagination: empty for the first page, then the nextPageToken"
+                                        + " of the previous page; replaces skip")
+                                @QueryParam("pageToken") String pageToken) {
 
       try {
+         boolean keyset = pageToken != null;
+         if (keyset && skip > 0) {
+            throw new IllegalArgumentException("skip cannot be combined with pageToken");
+         }
+         String afterToken = (keyset && !pageToken.isBlank()) ? pageToken : null;
          List<ProjectionField> projectionFields = null;
          List<SortField> sortFields = null;
          if (sort != null || projection != null) {
@@ -857,7 +905,13 @@ public class BaseResource<T extends UnversionedBaseModel, R extends BaseMorphiaR
                projectionFields.add(new ProjectionField("dataDomain", ProjectionField.ProjectionType.INCLUDE));
             }
          }
-         if (realmId == null) {
+         if (keyset) {
+            ups = (realmId == null)
+                    ? repo.getListByQuery(afterToken, limit, filter, sortFields, projectionFields)
+                    : repo.getListByQuery(realmId, afterToken, limit, filter, sortFields, projectionFields);
+            count = (realmId == null) ? repo.getCount(filter) : repo.getCount(realmId, filter);
+         }
+         else if (realmId == null) {
             ups = repo.getListByQuery(skip, limit, filter, sortFields, projectionFields);
             count =repo.getCount(filter);
          }
@@ -879,6 +933,9 @@ public class BaseResource<T extends UnversionedBaseModel, R extends BaseMorphiaR
          }
          collection.setFilter(filter);
          collection.setRealm(realmId == null ? repo.getDatabaseName() : realmId);
+         if (keyset && limit > 0 && ups.size() == limit) {
+            collection.setNextPageToken(repo.nextPageToken(sortFields, ups.get(ups.size() - 1)));
+         }
 
          return collection;
       } catch (IllegalArgumentException | ValidationException e) {
@@ -891,6 +948,20 @@ public class BaseResource<T extends UnversionedBaseModel, R extends BaseMorphiaR
 
    }
 
+   /**
+    * Overload for subclasses and callers that use the signature without keyset pagination.
+    * Like the overload below it has no JAX-RS annotations.
+    */
+   public Collection<T> getList(@Context HttpHeaders headers,
+                                @DefaultValue("0") @QueryParam("skip") int skip,
+                                @DefaultValue("50") @QueryParam("limit") int limit,
+                                @QueryParam("filter") String filter,
+                                @QueryParam("sort") String sort,
+                                @QueryParam("projection") String projection,
+                                @QueryParam("uiActions") Boolean uiActions) {
+      return getList(headers, skip, limit, filter, sort, projection, uiActions, null);
+   }
+
    /**
     * Backward-compatible overload for subclasses and callers that use the historical signature
     * (without the uiActions parameter). This method intentionally has no JAX-RS annotations to
@@ -908,7 +979,98 @@ public class BaseResource<T extends UnversionedBaseModel, R extends BaseMorphiaR
                                 @QueryParam("filter") String filter,
                                 @QueryParam("sort") String sort,
                                 @QueryParam("projection") String projection) {
-      return getList(headers, skip, limit, filter, sort, projection, null);
+      return getList(headers, skip, limit, filter, sort, projection, null, null);
+   }
+
+   /**
+    * Streams the matching entities as they are read from the database cursor instead of
+    * materializing the page. Rows are written as NDJSON (one entity per line) by default, or as
+    * a single JSON object shaped like {@link Collection} (envelope, then {@code rows}, then
+    * {@code rowCount}) when {@code format=json} or only application/json is accepted.
+    *
+    * Memory use stays flat regardless of {@code limit}, so large pages and exports should use
+    * this endpoint. UI actions are not computed and the total count is not returned; use
+    * {@code list} and {@code count} for those.
+    */
+   @Path("list/stream")
+   @GET
+   @Produces({JsonStreamingOutput.NDJSON_MEDIA_TYPE, MediaType.APPLICATION_JSON})
+   @SecurityRequirement(name = "bearerAuth")
+   @Operation(summary = "Stream a list of entities",
+           description = "Streams entities as NDJSON (default) or a JSON collection without buffering the page in memory.")
+   @APIResponses(value = {
+           @APIResponse(responseCode = "200", description = "Success"),
+           @APIResponse(responseCode = "400", description = "Bad Request / bad argument", content = @Content(mediaType = "application/json", schema = @Schema(implementation = RestError.class)))
+   })
+   public Response streamList(@Context HttpHeaders headers,
+                              @DefaultValue("0")
+                              @QueryParam("skip") int skip,
+                              @DefaultValue("50") @QueryParam("limit") int limit,
+                              @QueryParam("filter") String filter,
+                              @QueryParam("sort") String sort,
+                              @QueryParam("projection") String projection,
+                              @Parameter(description = "ndjson or json; defaults from the Accept header, then ndjson")
+                              @QueryParam("format") String format,
+                              @Parameter(description = "keyset pagination: empty for the first page, then the nextPageToken"
+                                      + " of the previous page (returned in json format); replaces skip")
+                              @QueryParam("pageToken") String pageToken) {
+      try {
+         boolean keyset = pageToken != null;
+         if (keyset && skip > 0) {
+            throw new IllegalArgumentException("skip cannot be combined with pageToken");
+         }
+         String afterToken = (keyset && !pageToken.isBlank()) ? pageToken : null;
+         JsonStreamingOutput.Format streamFormat =
+                 JsonStreamingOutput.Format.of(format, headers.getHeaderString(HttpHeaders.ACCEPT));
+         List<SortField> sortFields = (sort != null) ? convertToSortField(sort) : null;
+         List<ProjectionField> projectionFields = (projection != null)
+                 ? FilterUtils.convertProjectionFields(projection) : null;
+
+         // resolve the field policy before the request scope ends; rows are written afterwards
+         Set<String> excluded = Collections.emptySet();
+         if (com.e2eq.framework.model.securityrules.SecurityContext.getPrincipalContext().isPresent()
+                 && com.e2eq.framework.model.securityrules.SecurityContext.getResourceContext().isPresent()) {
+            excluded = ruleContext.getExcludedFieldPaths(
+                    com.e2eq.framework.model.securityrules.SecurityContext.getPrincipalContext().get(),
+                    com.e2eq.framework.model.securityrules.SecurityContext.getResourceContext().get());
+         }
+
+         // open the cursor here so query errors surface as a 400 rather than a truncated stream
+         String realmId = headers.getHeaderString("X-Realm");
+         CloseableIterator<T> rows;
+         if (keyset) {
+            rows = (realmId == null)
+                    ? repo.getStreamByQuery(afterToken, limit, filter, sortFields, projectionFields)
+                    : repo.getStreamByQuery(realmId, afterToken, limit, filter, sortFields, projectionFields);
+         } else {
+            rows = (realmId == null)
+                    ? repo.getStreamByQuery(skip, limit, filter, sortFields, projectionFields)
+                    : repo.getStreamByQuery(realmId, skip, limit, filter, sortFields, projectionFields);
+         }
+
+         JsonStreamingOutput<T> output = new JsonStreamingOutput<>(objectMapper, rows, streamFormat)
+                 .withEnvelopeField("offset", skip)
+                 .withEnvelopeField("limit", limit)
+                 .withEnvelopeField("asOf", new Date())
+                 .withEnvelopeField("filter", filter)
+                 .withEnvelopeField("realm", realmId == null ? repo.getDatabaseName() : realmId);
+         if (keyset) {
+            List<SortField> pageSort = sortFields;
+            output.withNextPageToken(limit, last -> repo.nextPageToken(pageSort, last));
+         }
+         Response.ResponseBuilder response = Response.ok().type(streamFormat.mediaType());
+         if (!excluded.isEmpty()) {
+            Set<String> masked = excluded;
+            output.withRowProcessor(row -> FieldPolicyEnforcer.mask(row, masked));
+            response.header(FieldPolicyResponseInterceptor.FIELD_POLICY_HEADER, String.join(",", masked));
+         }
+         return response.entity(output).build();
+      } catch (IllegalArgumentException | ValidationException e) {
+         RestError error = RestError.builder()
+                 .status(Response.Status.BAD_REQUEST.getStatusCode())
+                 .statusMessage(e.getMessage()).build();
+         throw new WebApplicationException(Response.status(Response.Status.BAD_REQUEST).entity(error).build());
+      }
    }
 
    @Path("schema")
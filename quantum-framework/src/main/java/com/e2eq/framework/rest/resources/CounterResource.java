@@ -5,8 +5,10 @@ import com.e2eq.framework.rest.models.CounterResponse;
 import com.e2eq.framework.rest.models.RestError;
 import com.e2eq.framework.model.persistent.base.DataDomain;
 import com.e2eq.framework.model.securityrules.SecurityContext;
+import com.e2eq.framework.model.persistent.morphia.CounterAllocator;
 import com.e2eq.framework.model.persistent.morphia.CounterRepo;
 import jakarta.annotation.security.RolesAllowed;
+import jakarta.inject.Inject;
 import jakarta.ws.rs.GET;
 import jakarta.ws.rs.Path;
 import jakarta.ws.rs.QueryParam;
@@ -18,6 +20,9 @@ import org.eclipse.microprofile.openapi.annotations.tags.Tag;
 @Tag(name = "integration", description = "Operations related integrating into the system")
 public class CounterResource extends BaseResource<Counter, CounterRepo> {
 
+    @Inject
+    CounterAllocator counterAllocator;
+
     protected CounterResource(CounterRepo repo) {
         super(repo);
     }
@@ -29,7 +34,7 @@ public class CounterResource extends BaseResource<Counter, CounterRepo> {
         if (SecurityContext.getPrincipalContext().isPresent()) {
             DataDomain dd = SecurityContext.getPrincipalDataDomain().get();
             try {
-                var cv = repo.getAndIncrementEncoded(counterName, dd, 1L, base);
+                var cv = counterAllocator.nextEncoded(counterName, dd, base);
                 CounterResponse response = new CounterResponse();
                 response.setValue(cv.getValue());
                 response.setBase(cv.getBase());
@@ -62,9 +62,6 @@ public class HierarchyResource<
         super(repo);
     }
 
-    @Inject
-    protected ObjectMapper objectMapper;
-
     @Inject
     protected TR hierarchicalRepo;
 
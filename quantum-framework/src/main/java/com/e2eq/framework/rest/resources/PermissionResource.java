@@ -662,9 +662,9 @@ public class PermissionResource {
 
       if (hasAllDataDomainFields) {
          DataDomain dd = new DataDomain(req.orgRefName, req.accountNumber, req.tenantId, req.dataSegment, req.ownerId);
-         idx = ruleContext.exportScopedAccessMatrixForIdentities(identities, dd);
+         idx = ruleContext.exportScopedAccessMatrixForIdentities(identities, dd, realm);
       } else {
-         idx = ruleContext.exportScopedAccessMatrixForIdentities(identities, null);
+         idx = ruleContext.exportScopedAccessMatrixForIdentities(identities, null, realm);
       }
       return Response.ok(idx).build();
    }
@@ -819,7 +819,7 @@ public class PermissionResource {
       }
 
       // Export optimized index snapshot for these identities scoped to dd
-      RuleIndexSnapshot snap = ruleContext.exportScopedAccessMatrixForIdentities(identities, dd);
+      RuleIndexSnapshot snap = ruleContext.exportScopedAccessMatrixForIdentities(identities, dd, realm);
 
       Map<String, Map<String, List<String>>> allow = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
       Map<String, Map<String, List<String>>> deny = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
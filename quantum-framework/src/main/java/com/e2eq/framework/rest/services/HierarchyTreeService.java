@@ -10,7 +10,9 @@ import jakarta.enterprise.context.ApplicationScoped;
 import org.bson.types.ObjectId;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 @ApplicationScoped
 public class HierarchyTreeService {
@@ -19,23 +21,32 @@ public class HierarchyTreeService {
     GenericHierarchyDto buildTree(ObjectId rootId, HierarchicalRepo<T, O, L, ?, ?> repo, int maxDepth) {
         T root = repo.findById(rootId).orElse(null);
         if (root == null) return null;
-        return toDtoRecursive(root, repo, 0, Math.max(0, maxDepth));
+        int depth = Math.max(0, maxDepth);
+        // load every node down to maxDepth at once, then assemble in descendants order
+        Map<ObjectId, T> byId = new HashMap<>();
+        for (T node : repo.getSubtree(rootId, depth)) {
+            byId.put(node.getId(), node);
+        }
+        return toDtoRecursive(root, byId, 0, depth);
     }
 
     private <T extends HierarchicalModel<T, O, L>, O extends UnversionedBaseModel, L extends StaticDynamicList<O>>
-    GenericHierarchyDto toDtoRecursive(T node, HierarchicalRepo<T, O, L, ?, ?> repo, int depth, int maxDepth) {
+    GenericHierarchyDto toDtoRecursive(T node, Map<ObjectId, T> byId, int depth, int maxDepth) {
         List<GenericHierarchyDto> childDtos = List.of();
         if (depth < maxDepth) {
             List<T> children = new ArrayList<>();
             if (node.getDescendants() != null && !node.getDescendants().isEmpty()) {
                 for (ObjectId childId : node.getDescendants()) {
-                    repo.findById(childId).ifPresent(children::add);
+                    T child = byId.get(childId);
+                    if (child != null) {
+                        children.add(child);
+                    }
                 }
             }
 
             childDtos = new ArrayList<>(children.size());
             for (T child : children) {
-                childDtos.add(toDtoRecursive(child, repo, depth + 1, maxDepth));
+                childDtos.add(toDtoRecursive(child, byId, depth + 1, maxDepth));
             }
         }
         return HierarchyMapper.toDto(node, childDtos);
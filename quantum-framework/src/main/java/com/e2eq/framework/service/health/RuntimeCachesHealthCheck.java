@@ -0,0 +1,93 @@
+package com.e2eq.framework.service.health;
+
+import com.e2eq.framework.model.persistent.morphia.CounterAllocator;
+import com.e2eq.framework.model.persistent.morphia.PersistentEventLog;
+import com.e2eq.framework.model.persistent.morphia.QueryParseCache;
+import com.e2eq.framework.model.persistent.morphia.RealmCatalog;
+import com.e2eq.framework.model.persistent.morphia.ReferenceTracker;
+import com.e2eq.framework.rest.filters.PrincipalContextCache;
+import com.e2eq.framework.security.runtime.RuleContext;
+import io.quarkus.logging.Log;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.health.HealthCheck;
+import org.eclipse.microprofile.health.HealthCheckResponse;
+import org.eclipse.microprofile.health.HealthCheckResponseBuilder;
+import org.eclipse.microprofile.health.Readiness;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Publishes the metrics of the runtime caches on the readiness endpoint: the BIAPI parse cache,
+ * the rule decision cache and script engine, the principal cache, the realm catalog, the counter
+ * allocator, reference tracking and the persistent event log. Each component's
+ * {@code getSummary()} is reported under its own prefix, e.g. {@code queryParse.hits}.
+ *
+ * The check is informational and always up.
+ */
+@Readiness
+@ApplicationScoped
+public class RuntimeCachesHealthCheck implements HealthCheck {
+
+    @Inject
+    RuleContext ruleContext;
+
+    @Inject
+    PrincipalContextCache principalContextCache;
+
+    @Inject
+    RealmCatalog realmCatalog;
+
+    @Inject
+    CounterAllocator counterAllocator;
+
+    @Inject
+    ReferenceTracker referenceTracker;
+
+    @Inject
+    PersistentEventLog persistentEventLog;
+
+    @Override
+    public HealthCheckResponse call() {
+        HealthCheckResponseBuilder builder = HealthCheckResponse.named("Runtime Caches").up();
+        withSummary(builder, "queryParse", QueryParseCache.getSummary());
+        withSummary(builder, "ruleDecisionCache", ruleContext.getDecisionCacheMetrics());
+        withSummary(builder, "ruleScripts", ruleContext.getScriptEngineMetrics());
+        withSummary(builder, "principalCache", principalContextCache.getSummary());
+        withSummary(builder, "realmCatalog", realmCatalog.getSummary());
+        withSummary(builder, "counters", counterAllocator.getSummary());
+        withSummary(builder, "references", referenceTracker.getSummary());
+        withSummary(builder, "eventLog", persistentEventLog.getSummary());
+        return builder.build();
+    }
+
+    /**
+     * Adds a component summary to the response as {@code prefix.name} entries. Whole numbers and
+     * booleans keep their type; fractions and anything else are reported as text.
+     */
+    public static void withSummary(HealthCheckResponseBuilder builder, String prefix, Map<String, Object> summary) {
+        if (summary == null) {
+            return;
+        }
+        try {
+            for (Map.Entry<String, Object> e : new TreeMap<>(summary).entrySet()) {
+                String key = prefix + "." + e.getKey();
+                Object value = e.getValue();
+                if (value instanceof Boolean b) {
+                    builder.withData(key, b);
+                } else if (value instanceof Double || value instanceof Float) {
+                    builder.withData(key, String.format(Locale.ROOT, "%.4f", ((Number) value).doubleValue()));
+                } else if (value instanceof Number n) {
+                    builder.withData(key, n.longValue());
+                } else {
+                    builder.withData(key, String.valueOf(value));
+                }
+            }
+        } catch (RuntimeException ex) {
+            Log.warnf(ex, "RuntimeCachesHealthCheck: could not report %s metrics", prefix);
+            builder.withData(prefix + ".error", String.valueOf(ex.getMessage()));
+        }
+    }
+}
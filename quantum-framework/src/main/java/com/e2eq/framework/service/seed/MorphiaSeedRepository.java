@@ -12,8 +12,15 @@ import com.fasterxml.jackson.databind.JsonMappingException;
 import com.mongodb.client.MongoClient;
 import com.mongodb.client.MongoCollection;
 import com.mongodb.client.MongoDatabase;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.client.model.BulkWriteOptions;
 import com.mongodb.client.model.IndexOptions;
+import com.mongodb.client.model.InsertOneModel;
+import com.mongodb.client.model.ReplaceOneModel;
 import com.mongodb.client.model.ReplaceOptions;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.UpdateOptions;
+import com.mongodb.client.model.WriteModel;
 import dev.morphia.Datastore;
 import dev.morphia.query.Query;
 import dev.morphia.query.filters.Filter;
@@ -206,6 +213,311 @@ public class MorphiaSeedRepository implements SeedRepository {
         }
     }
 
+    @Override
+    public void upsertBatch(SeedContext context, SeedPackManifest.Dataset dataset, List<Map<String, Object>> records) {
+        applyBatch(context, dataset, records);
+    }
+
+    @Override
+    public void insertBatch(SeedContext context, SeedPackManifest.Dataset dataset, List<Map<String, Object>> records) {
+        applyBatch(context, dataset, records);
+    }
+
+    /**
+     * Applies a batch with the same semantics as calling {@link #upsertRecord} per record, but with one
+     * natural-key lookup and one write for the whole batch. Existing entities are prefetched with a
+     * single {@code $in} (or {@code $or} for composite keys) query and the merged entities are saved
+     * through the repo's list save, so validation, interceptors and reference tracking still run.
+     * Records of the same batch sharing a natural key are merged into one entity.
+     */
+    @SuppressWarnings("unchecked")
+    private void applyBatch(SeedContext context, SeedPackManifest.Dataset dataset, List<Map<String, Object>> records) {
+        if (records == null || records.isEmpty()) {
+            return;
+        }
+        Optional<BaseMorphiaRepo<? extends UnversionedBaseModel>> repoOpt = resolveRepo(dataset);
+        ensureCollectionSet(dataset, repoOpt);
+        if (repoOpt.isEmpty()) {
+            Log.warnf("!!! Could not resolve repo for dataset:%s modelClass:%s", dataset.getFile(), dataset.getModelClass());
+            applyDocumentBatch(context, dataset, records);
+            return;
+        }
+
+        BaseMorphiaRepo<UnversionedBaseModel> repo = (BaseMorphiaRepo<UnversionedBaseModel>) repoOpt.get();
+        Class<? extends UnversionedBaseModel> modelClass = repo.getPersistentClass();
+        Datastore datastore = morphiaDataStoreWrapper.getDataStore(context.getRealm());
+
+        List<PendingRecord> pending = new ArrayList<>(records.size());
+        for (Map<String, Object> record : records) {
+            Map<String, Object> adapted = adaptForModel(record, dataset, modelClass, context);
+            UnversionedBaseModel entity = (UnversionedBaseModel) objectMapper.convertValue(adapted, modelClass);
+            hydrateResolvedModelReferences(adapted, dataset, modelClass, entity);
+            List<String> naturalKey = effectiveNaturalKey(dataset, modelClass, record);
+            pending.add(new PendingRecord(record, adapted, entity, naturalKey, naturalKeyValue(record, naturalKey)));
+        }
+
+        Map<List<String>, UnversionedBaseModel> existingByKey =
+                prefetchByNaturalKey(repo, context.getRealm(), datastore, modelClass, pending);
+        Map<ObjectId, UnversionedBaseModel> existingById = prefetchById(datastore, modelClass, pending, existingByKey);
+
+        // one slot per entity to save: keyed by natural key value, else by id, else unique
+        Map<Object, UnversionedBaseModel> toSave = new LinkedHashMap<>();
+        for (PendingRecord p : pending) {
+            Object slot = p.keyValue() != null ? p.keyValue()
+                    : p.entity().getId() != null ? p.entity().getId() : new Object();
+            UnversionedBaseModel existing = toSave.get(slot);
+            if (existing == null && p.keyValue() != null) {
+                existing = existingByKey.get(p.keyValue());
+            }
+            if (existing == null && p.entity().getId() != null) {
+                existing = existingById.get(p.entity().getId());
+            }
+            if (existing == null) {
+                toSave.put(slot, p.entity());
+                continue;
+            }
+            if (!dataset.isUpsert()) {
+                Log.debugf("Skipping insert-only record for %s (natural key already exists)", dataset.getCollection());
+                continue;
+            }
+            toSave.put(slot, merge(existing, p, dataset, modelClass));
+        }
+        if (toSave.isEmpty()) {
+            return;
+        }
+
+        List<UnversionedBaseModel> saved = repo.save(datastore, new ArrayList<>(toSave.values()));
+        for (UnversionedBaseModel entity : saved) {
+            syncTrackedReferences(context, dataset, modelClass, entity);
+        }
+    }
+
+    /** A record of a batch, adapted and converted, with its natural key value (null when it has none). */
+    private record PendingRecord(Map<String, Object> record,
+                                 Map<String, Object> adapted,
+                                 UnversionedBaseModel entity,
+                                 List<String> naturalKey,
+                                 List<String> keyValue) {
+    }
+
+    /**
+     * Merges the record INTO the existing entity and keeps its id, like {@link #upsertRecord}.
+     */
+    private UnversionedBaseModel merge(UnversionedBaseModel existing,
+                                       PendingRecord p,
+                                       SeedPackManifest.Dataset dataset,
+                                       Class<? extends UnversionedBaseModel> modelClass) {
+        ObjectId currentId = existing.getId();
+        try {
+            objectMapper.updateValue(existing, p.adapted());
+            hydrateResolvedModelReferences(p.adapted(), dataset, modelClass, existing);
+            existing.setId(currentId);
+            return existing;
+        } catch (IllegalArgumentException | JsonMappingException e) {
+            // Fall back to id-carry-over if merge fails for any reason
+            p.entity().setId(currentId);
+            return p.entity();
+        }
+    }
+
+    /**
+     * Loads the existing entities matching the natural keys of the batch with one query per distinct
+     * key definition. When a loaded entity cannot be matched back to a record (e.g. the stored value
+     * has a type the record's value does not compare equal to), the unmatched records fall back to a
+     * lookup each so no existing entity is ever mistaken for a new one.
+     */
+    private Map<List<String>, UnversionedBaseModel> prefetchByNaturalKey(BaseMorphiaRepo<? extends UnversionedBaseModel> repo,
+                                                                        String realm,
+                                                                        Datastore datastore,
+                                                                        Class<? extends UnversionedBaseModel> modelClass,
+                                                                        List<PendingRecord> pending) {
+        Map<List<String>, List<PendingRecord>> byKeyFields = new LinkedHashMap<>();
+        for (PendingRecord p : pending) {
+            if (p.keyValue() != null) {
+                byKeyFields.computeIfAbsent(p.naturalKey(), k -> new ArrayList<>()).add(p);
+            }
+        }
+        Map<List<String>, UnversionedBaseModel> found = new HashMap<>();
+        for (Map.Entry<List<String>, List<PendingRecord>> group : byKeyFields.entrySet()) {
+            List<String> fields = group.getKey();
+            Filter filter;
+            if (fields.size() == 1) {
+                Set<Object> values = new LinkedHashSet<>();
+                group.getValue().forEach(p -> values.add(p.record().get(fields.get(0))));
+                filter = Filters.in(fields.get(0), values);
+            } else {
+                List<Filter> alternatives = new ArrayList<>();
+                for (PendingRecord p : group.getValue()) {
+                    List<Filter> eqs = new ArrayList<>(fields.size());
+                    fields.forEach(f -> eqs.add(Filters.eq(f, p.record().get(f))));
+                    alternatives.add(Filters.and(eqs.toArray(new Filter[0])));
+                }
+                filter = Filters.or(alternatives.toArray(new Filter[0]));
+            }
+            // Use datastore directly to query (bypassing security rules for seed operations)
+            List<? extends UnversionedBaseModel> existing = datastore.find(modelClass).filter(filter).iterator().toList();
+            int unmatched = 0;
+            for (UnversionedBaseModel entity : existing) {
+                List<String> key = entityKeyValue(entity, fields);
+                if (key == null || found.putIfAbsent(key, entity) != null) {
+                    unmatched++;
+                }
+            }
+            if (unmatched == 0) {
+                continue;
+            }
+            for (PendingRecord p : group.getValue()) {
+                if (!found.containsKey(p.keyValue())) {
+                    findExistingByNaturalKey(repo, realm, modelClass, p.record(), fields)
+                            .ifPresent(entity -> found.put(p.keyValue(), entity));
+                }
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Loads, with one {@code $in} query, the entities whose id is carried by records that did not match
+     * by natural key.
+     */
+    private Map<ObjectId, UnversionedBaseModel> prefetchById(Datastore datastore,
+                                                            Class<? extends UnversionedBaseModel> modelClass,
+                                                            List<PendingRecord> pending,
+                                                            Map<List<String>, UnversionedBaseModel> existingByKey) {
+        Set<ObjectId> ids = new LinkedHashSet<>();
+        for (PendingRecord p : pending) {
+            if (p.entity().getId() != null && (p.keyValue() == null || !existingByKey.containsKey(p.keyValue()))) {
+                ids.add(p.entity().getId());
+            }
+        }
+        if (ids.isEmpty()) {
+            return Map.of();
+        }
+        Map<ObjectId, UnversionedBaseModel> found = new HashMap<>();
+        for (UnversionedBaseModel entity : datastore.find(modelClass).filter(Filters.in("_id", ids)).iterator().toList()) {
+            found.put(entity.getId(), entity);
+        }
+        return found;
+    }
+
+    /**
+     * The natural key value of a record in comparable form, or null when it has no natural key or
+     * lacks one of its fields (such records can never match, as in {@link #findExistingByNaturalKey}).
+     */
+    private static List<String> naturalKeyValue(Map<String, Object> record, List<String> naturalKey) {
+        if (naturalKey == null || naturalKey.isEmpty()) {
+            return null;
+        }
+        List<String> value = new ArrayList<>(naturalKey.size());
+        for (String key : naturalKey) {
+            String part = keyPart(record.get(key));
+            if (part == null) {
+                return null;
+            }
+            value.add(part);
+        }
+        return value;
+    }
+
+    private List<String> entityKeyValue(Object entity, List<String> naturalKey) {
+        List<String> value = new ArrayList<>(naturalKey.size());
+        for (String key : naturalKey) {
+            Object current = entity;
+            for (String part : key.split("\\.")) {
+                if (current == null) {
+                    break;
+                }
+                if (current instanceof Map<?, ?> map) {
+                    current = map.get(part);
+                    continue;
+                }
+                Field field = findField(current.getClass(), part);
+                current = field == null ? null : readFieldValue(field, current);
+            }
+            String part = keyPart(current);
+            if (part == null) {
+                return null;
+            }
+            value.add(part);
+        }
+        return value;
+    }
+
+    private static String keyPart(Object value) {
+        if (value == null) {
+            return null;
+        }
+        if (value instanceof Number n) {
+            try {
+                return new java.math.BigDecimal(n.toString()).stripTrailingZeros().toPlainString();
+            } catch (NumberFormatException e) {
+                return n.toString();
+            }
+        }
+        if (value instanceof Enum<?> e) {
+            return e.name();
+        }
+        return String.valueOf(value);
+    }
+
+    /**
+     * Fallback batch path when no modelClass/repo resolves: the same per-record rules as
+     * {@link #upsertRecord} expressed as one unordered {@code bulkWrite}. Insert-only records use
+     * {@code $setOnInsert} upserts, so existing documents are left untouched without a lookup.
+     */
+    private void applyDocumentBatch(SeedContext context, SeedPackManifest.Dataset dataset, List<Map<String, Object>> records) {
+        MongoCollection<org.bson.Document> collection = mongoClient.getDatabase(context.getRealm())
+                .getCollection(dataset.getCollection());
+        List<String> naturalKey = dataset.getNaturalKey();
+        List<WriteModel<org.bson.Document>> ops = new ArrayList<>(records.size());
+        ReplaceOptions upsert = new ReplaceOptions().upsert(true);
+        for (Map<String, Object> record : records) {
+            org.bson.Document document = new org.bson.Document();
+            for (Map.Entry<String, Object> e : record.entrySet()) {
+                document.append(e.getKey(), convertScalar(e.getValue()));
+            }
+            if (naturalKey == null || naturalKey.isEmpty()) {
+                Object refName = document.get("refName");
+                if (refName != null) {
+                    ops.add(new ReplaceOneModel<>(new org.bson.Document("refName", refName), document, upsert));
+                } else if (document.containsKey("_id")) {
+                    ops.add(new ReplaceOneModel<>(new org.bson.Document("_id", document.get("_id")), document, upsert));
+                } else {
+                    ops.add(new InsertOneModel<>(document));
+                }
+                continue;
+            }
+            org.bson.Document filter = new org.bson.Document();
+            for (String key : naturalKey) {
+                Object v = document.get(key);
+                if (v == null) {
+                    filter = null;
+                    break;
+                }
+                filter.append(key, v);
+            }
+            if (filter == null) {
+                // Cannot match; in insert-only mode skip; in upsert mode insert
+                if (dataset.isUpsert()) {
+                    ops.add(new InsertOneModel<>(document));
+                }
+            } else if (dataset.isUpsert()) {
+                ops.add(new ReplaceOneModel<>(filter, document, upsert));
+            } else {
+                ops.add(new UpdateOneModel<>(filter, new org.bson.Document("$setOnInsert", document),
+                        new UpdateOptions().upsert(true)));
+            }
+        }
+        if (ops.isEmpty()) {
+            return;
+        }
+        try {
+            collection.bulkWrite(ops, new BulkWriteOptions().ordered(false));
+        } catch (MongoBulkWriteException bwx) {
+            throw new SeedLoadingException("MongoDB bulk write failed for collection " + dataset.getCollection() + ": " + bwx.getMessage(), bwx);
+        }
+    }
+
     /**
      * Determine the effective natural key to use for upsert operations.
      * If the dataset explicitly defines a naturalKey, use it; otherwise,
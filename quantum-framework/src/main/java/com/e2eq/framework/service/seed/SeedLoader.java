@@ -10,7 +10,6 @@ import java.security.NoSuchAlgorithmException;
 import java.security.DigestInputStream;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.Comparator;
 import java.util.Deque;
 import java.util.HashMap;
@@ -26,12 +25,7 @@ import java.util.Set;
 import com.e2eq.framework.service.seed.SeedPackManifest.Archetype;
 import com.e2eq.framework.service.seed.SeedPackManifest.Dataset;
 import com.e2eq.framework.service.seed.SeedPackManifest.Transform;
-import com.fasterxml.jackson.core.JsonParser;
-import com.fasterxml.jackson.core.JsonToken;
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.node.ArrayNode;
 
 import io.quarkus.logging.Log;
 
@@ -51,7 +45,6 @@ public final class SeedLoader {
     private final SeedConflictPolicy conflictPolicy;
     private final int batchSize;
     private final SeedMetrics seedMetrics;
-    private static final TypeReference<Map<String, Object>> MAP_TYPE = new TypeReference<>() {};
     private final SeedDatasetValidator seedDatasetValidator;
     private final List<SeedRecordListener> recordListeners;
 
@@ -183,23 +176,15 @@ public final class SeedLoader {
                         + descriptor.identity());
             }
             Log.infov("Applying seed dataset {0}/{1} into realm {2}", descriptor.getManifest().getSeedPack(), dataset.getCollection(), context.getRealm());
-            long parseStart = System.currentTimeMillis();
-            DatasetPayload payload = readDataset(descriptor, dataset);
-            long parseDur = System.currentTimeMillis() - parseStart;
-            if (seedMetrics != null) {
-                seedMetrics.recordDatasetParse(
-                        descriptor.getManifest().getSeedPack(),
-                        dataset.getCollection(),
-                        context.getRealm(),
-                        parseDur,
-                        payload.records().size());
-            }
+            long checksumStart = System.currentTimeMillis();
+            String checksum = checksumDataset(descriptor, dataset);
+            long checksumDur = System.currentTimeMillis() - checksumStart;
 
             // Determine previous checksum if any, to decide conflict handling
             Optional<String> last = seedRegistry.getLastAppliedChecksum(context, descriptor.getManifest(), dataset);
             if (last.isPresent()) {
                 String lastChecksum = last.get();
-                if (Objects.equals(lastChecksum, payload.checksum())) {
+                if (Objects.equals(lastChecksum, checksum)) {
                     Log.debugf("Dataset %s already applied with matching checksum", dataset.getCollection());
                     if (seedMetrics != null) {
                         seedMetrics.recordDatasetSkipped(
@@ -213,7 +198,7 @@ public final class SeedLoader {
                 // Conflict: previously applied dataset differs from current
                 switch (conflictPolicy) {
                     case EXISTING_WINS -> {
-                        Log.warnf("Skipping dataset %s because existing checksum %s differs from incoming %s and policy is EXISTING_WINS", dataset.getCollection(), lastChecksum, payload.checksum());
+                        Log.warnf("Skipping dataset %s because existing checksum %s differs from incoming %s and policy is EXISTING_WINS", dataset.getCollection(), lastChecksum, checksum);
                         if (seedMetrics != null) {
                             seedMetrics.recordDatasetSkipped(
                                     descriptor.getManifest().getSeedPack(),
@@ -224,15 +209,15 @@ public final class SeedLoader {
                         continue;
                     }
                     case ERROR -> {
-                        throw new SeedLoadingException(String.format("Conflict applying dataset %s: existing checksum %s differs from incoming %s. Set conflictPolicy=SEED_WINS to override or EXISTING_WINS to skip.", dataset.getCollection(), lastChecksum, payload.checksum()));
+                        throw new SeedLoadingException(String.format("Conflict applying dataset %s: existing checksum %s differs from incoming %s. Set conflictPolicy=SEED_WINS to override or EXISTING_WINS to skip.", dataset.getCollection(), lastChecksum, checksum));
                     }
                     case SEED_WINS -> {
-                        Log.warnf("Overwriting dataset %s despite checksum conflict (existing %s vs incoming %s) due to policy SEED_WINS", dataset.getCollection(), lastChecksum, payload.checksum());
+                        Log.warnf("Overwriting dataset %s despite checksum conflict (existing %s vs incoming %s) due to policy SEED_WINS", dataset.getCollection(), lastChecksum, checksum);
                     }
                 }
             } else {
                 // No prior record; for backward compatibility also respect registry's shouldApply if implemented differently
-                if (!seedRegistry.shouldApply(context, descriptor.getManifest(), dataset, payload.checksum())) {
+                if (!seedRegistry.shouldApply(context, descriptor.getManifest(), dataset, checksum)) {
                     Log.debugf("Dataset %s already applied with matching checksum", dataset.getCollection());
                     if (seedMetrics != null) {
                         seedMetrics.recordDatasetSkipped(
@@ -272,83 +257,62 @@ public final class SeedLoader {
                 }
             });
             List<SeedTransform> transforms = buildTransforms(dataset);
+            boolean notify = hasListeners(dataset, context);
             int appliedCount = 0;
             int dropCount = 0;
+            int batchCount = 0;
+            long applyStart = System.currentTimeMillis();
             List<Map<String, Object>> buffer = new ArrayList<>(Math.max(16, batchSize));
-            // Track all applied records for listener notification
-            List<Map<String, Object>> allAppliedRecords = new ArrayList<>();
-            for (Map<String, Object> record : payload.records()) {
-                Map<String, Object> current = new LinkedHashMap<>(record);
-                for (SeedTransform transform : transforms) {
-                    if (current == null) {
-                        break;
+            try (SeedRecordReader reader = openRecords(descriptor, dataset)) {
+                while (reader.hasNext()) {
+                    Map<String, Object> current = new LinkedHashMap<>(reader.next());
+                    for (SeedTransform transform : transforms) {
+                        if (current == null) {
+                            break;
+                        }
+                        current = transform.apply(current, context, dataset);
+                        if (current == null) {
+                            // A transform decided to drop the record; log warning with minimal context
+                            Log.warnf("Seed record dropped by transform %s for collection %s (seedPack=%s)",
+                                    transform.getClass().getSimpleName(),
+                                    dataset.getCollection(),
+                                    descriptor.getManifest().getSeedPack());
+                            dropCount++;
+                        }
                     }
-                    current = transform.apply(current, context, dataset);
-                    if (current == null) {
-                        // A transform decided to drop the record; log warning with minimal context
-                        Log.warnf("Seed record dropped by transform %s for collection %s (seedPack=%s)",
-                                transform.getClass().getSimpleName(),
-                                dataset.getCollection(),
-                                descriptor.getManifest().getSeedPack());
-                        dropCount++;
+                    if (current == null || current.isEmpty()) {
+                        continue;
                     }
-                }
-                if (current == null || current.isEmpty()) {
-                    continue;
-                }
-                buffer.add(current);
-                allAppliedRecords.add(current);
-                if (buffer.size() >= batchSize) {
-                    long bwStart = System.currentTimeMillis();
-                    boolean up = dataset.isUpsert();
-                    if (up) {
-                        seedRepository.upsertBatch(context, dataset, buffer);
-                    } else {
-                        seedRepository.insertBatch(context, dataset, buffer);
+                    buffer.add(current);
+                    if (buffer.size() >= batchSize) {
+                        appliedCount += writeBatch(descriptor, dataset, context, buffer, notify);
+                        batchCount++;
                     }
-                    long bwDur = System.currentTimeMillis() - bwStart;
-                    if (seedMetrics != null) {
-                        seedMetrics.recordBatchWrite(
-                                descriptor.getManifest().getSeedPack(),
-                                dataset.getCollection(),
-                                context.getRealm(),
-                                up,
-                                bwDur,
-                                buffer.size());
-                    }
-                    appliedCount += buffer.size();
-                    buffer.clear();
                 }
-            }
-            if (!buffer.isEmpty()) {
-                long bwStart = System.currentTimeMillis();
-                boolean up = dataset.isUpsert();
-                if (up) {
-                    seedRepository.upsertBatch(context, dataset, buffer);
-                } else {
-                    seedRepository.insertBatch(context, dataset, buffer);
+                if (!buffer.isEmpty()) {
+                    appliedCount += writeBatch(descriptor, dataset, context, buffer, notify);
+                    batchCount++;
                 }
-                long bwDur = System.currentTimeMillis() - bwStart;
                 if (seedMetrics != null) {
-                    seedMetrics.recordBatchWrite(
+                    seedMetrics.recordDatasetParse(
                             descriptor.getManifest().getSeedPack(),
                             dataset.getCollection(),
                             context.getRealm(),
-                            up,
-                            bwDur,
-                            buffer.size());
+                            checksumDur + reader.readMillis(),
+                            reader.recordsRead());
                 }
-                appliedCount += buffer.size();
-                buffer.clear();
             }
-            seedRegistry.recordApplied(context, descriptor.getManifest(), dataset, payload.checksum(), appliedCount);
+            seedRegistry.recordApplied(context, descriptor.getManifest(), dataset, checksum, appliedCount);
 
-            // Notify listeners after all records have been persisted
-            if (!allAppliedRecords.isEmpty()) {
-                notifyListeners(descriptor, dataset, context, allAppliedRecords);
-            }
-            Log.infov("Applied {0} records to {1}", appliedCount, dataset.getCollection());
+            long applyDur = System.currentTimeMillis() - applyStart;
+            Log.infov("Applied {0} records to {1} in {2} batch(es), {3} ms", appliedCount, dataset.getCollection(), batchCount, applyDur);
             if (seedMetrics != null) {
+                seedMetrics.recordDatasetThroughput(
+                        descriptor.getManifest().getSeedPack(),
+                        dataset.getCollection(),
+                        context.getRealm(),
+                        applyDur,
+                        appliedCount);
                 seedMetrics.recordDatasetApplication(
                         descriptor.getManifest().getSeedPack(),
                         dataset.getCollection(),
@@ -539,76 +503,84 @@ public final class SeedLoader {
         }
     }
 
-   private DatasetPayload readDataset(SeedPackDescriptor descriptor, Dataset dataset) {
-       // check if the dataset.getFile() actually exists or not
-
-      /*if (!Files.exists(Path.of(dataset.getFile()))) {
-            throw new SeedLoadingException("Dataset file '" + dataset.getFile() + "' does not exist in seed pack " + descriptor.identity());
-         } */
-
-       // Read all bytes from the dataset file, compute the SHA-256 checksum, and parse the dataset into records
-       // The stream is read only once and the original dataset file is not touched again.
-      try (InputStream raw = resourceRouter.open(descriptor, dataset.getFile())) {
-         // Read all bytes once
-         byte[] data = raw.readAllBytes();
-
-         // Compute SHA-256
-         MessageDigest md = MessageDigest.getInstance("SHA-256");
-         String checksum = HexFormat.of().formatHex(md.digest(data));
+    /**
+     * Writes one batch, reports it to the metrics and, when a listener is interested, to the
+     * listeners, then clears the buffer.
+     *
+     * @return the number of records written
+     */
+    private int writeBatch(SeedPackDescriptor descriptor,
+                           Dataset dataset,
+                           SeedContext context,
+                           List<Map<String, Object>> buffer,
+                           boolean notify) {
+        long bwStart = System.currentTimeMillis();
+        boolean up = dataset.isUpsert();
+        if (up) {
+            seedRepository.upsertBatch(context, dataset, buffer);
+        } else {
+            seedRepository.insertBatch(context, dataset, buffer);
+        }
+        long bwDur = System.currentTimeMillis() - bwStart;
+        if (seedMetrics != null) {
+            seedMetrics.recordBatchWrite(
+                    descriptor.getManifest().getSeedPack(),
+                    dataset.getCollection(),
+                    context.getRealm(),
+                    up,
+                    bwDur,
+                    buffer.size());
+        }
+        int written = buffer.size();
+        if (notify) {
+            notifyListeners(descriptor, dataset, context, List.copyOf(buffer));
+        }
+        buffer.clear();
+        return written;
+    }
 
-         // Parse from the same bytes without touching the original stream again
-         List<Map<String, Object>> records = parseDatasetStream(new ByteArrayInputStream(data), dataset);
+    private boolean hasListeners(Dataset dataset, SeedContext context) {
+        for (SeedRecordListener listener : recordListeners) {
+            try {
+                if (listener.appliesTo(dataset.getCollection(), context)) {
+                    return true;
+                }
+            } catch (Exception e) {
+                Log.warnf("Seed record listener %s failed for %s: %s",
+                        listener.getClass().getSimpleName(), dataset.getCollection(), e.getMessage());
+            }
+        }
+        return false;
+    }
 
-         return new DatasetPayload(checksum, records);
-      } catch (IOException | NoSuchAlgorithmException e) {
-         throw new SeedLoadingException("Failed to read dataset " + dataset.getFile() + " for seed pack " + descriptor.identity(), e);
-      }
-   }
+    /**
+     * Computes the SHA-256 checksum of a dataset file by streaming it, without holding the file in memory.
+     */
+    private String checksumDataset(SeedPackDescriptor descriptor, Dataset dataset) {
+        try (InputStream raw = resourceRouter.open(descriptor, dataset.getFile());
+             DigestInputStream in = new DigestInputStream(raw, MessageDigest.getInstance("SHA-256"))) {
+            byte[] chunk = new byte[8192];
+            while (in.read(chunk) != -1) {
+                // digest only
+            }
+            return HexFormat.of().formatHex(in.getMessageDigest().digest());
+        } catch (IOException | NoSuchAlgorithmException e) {
+            throw new SeedLoadingException("Failed to read dataset " + dataset.getFile() + " for seed pack " + descriptor.identity(), e);
+        }
+    }
 
-    private List<Map<String, Object>> parseDatasetStream(InputStream in, Dataset dataset) {
+    /**
+     * Opens the dataset file a second time and streams its records; the checksum pass has already
+     * read it once, so records are never buffered beyond the current batch.
+     */
+    private SeedRecordReader openRecords(SeedPackDescriptor descriptor, Dataset dataset) {
+        InputStream raw;
         try {
-            // Peek first non-whitespace byte to detect JSON array ('[') vs JSONL
-            in.mark(1);
-            int first;
-            do {
-                in.mark(1);
-                first = in.read();
-            } while (first != -1 && Character.isWhitespace(first));
-            if (first == -1) {
-                return List.of();
-            }
-            // Reset to the start of the detected token
-            in.reset();
-
-            if (first == '[') {
-                // Stream parse JSON array
-                List<Map<String, Object>> records = new ArrayList<>();
-                try (JsonParser parser = objectMapper.getFactory().createParser(in)) {
-                    if (parser.nextToken() != JsonToken.START_ARRAY) {
-                        throw new SeedLoadingException("Expected JSON array for dataset '" + dataset.getCollection() + "'");
-                    }
-                    while (parser.nextToken() != JsonToken.END_ARRAY) {
-                        Map<String, Object> rec = parser.readValueAs(MAP_TYPE);
-                        records.add(rec);
-                    }
-                }
-                return records;
-            } else {
-                // Treat as JSONL: one JSON object per line
-                List<Map<String, Object>> records = new ArrayList<>();
-                try (BufferedReader br = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
-                    String line;
-                    while ((line = br.readLine()) != null) {
-                        if (line.isBlank()) continue;
-                        JsonNode node = objectMapper.readTree(line);
-                        records.add(objectMapper.convertValue(node, MAP_TYPE));
-                    }
-                }
-                return records;
-            }
+            raw = resourceRouter.open(descriptor, dataset.getFile());
         } catch (IOException e) {
-            throw new SeedLoadingException("Invalid dataset format for collection " + dataset.getCollection() + ": " + e.getMessage(), e);
+            throw new SeedLoadingException("Failed to read dataset " + dataset.getFile() + " for seed pack " + descriptor.identity(), e);
         }
+        return SeedRecordReader.open(raw, dataset, objectMapper);
     }
 
     // Derive collection from modelClass annotation if missing
@@ -665,24 +637,6 @@ public final class SeedLoader {
         return new SeedResolution(descriptors);
     }
 
-    private static final class DatasetPayload {
-        private final String checksum;
-        private final List<Map<String, Object>> records;
-
-        private DatasetPayload(String checksum, List<Map<String, Object>> records) {
-            this.checksum = checksum;
-            this.records = Collections.unmodifiableList(records);
-        }
-
-        public String checksum() {
-            return checksum;
-        }
-
-        public List<Map<String, Object>> records() {
-            return records;
-        }
-    }
-
     private static final class SeedResolution {
         private final Map<String, List<SeedPackDescriptor>> byName;
 
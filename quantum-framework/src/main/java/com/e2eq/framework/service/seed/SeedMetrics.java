@@ -18,6 +18,8 @@ public class SeedMetrics {
     private final ConcurrentHashMap<String, AtomicLong> counters = new ConcurrentHashMap<>();
     private final ConcurrentHashMap<String, AtomicLong> timers = new ConcurrentHashMap<>();
     private final ConcurrentHashMap<String, AtomicLong> recordCounts = new ConcurrentHashMap<>();
+    // kept apart from recordCounts so throughput does not inflate totalRecordsApplied
+    private final ConcurrentHashMap<String, AtomicLong> writtenCounts = new ConcurrentHashMap<>();
 
     // Helper to build dataset-scoped keys
     private static String dsKey(String seedPack, String dataset, String realm) {
@@ -117,6 +119,19 @@ public class SeedMetrics {
         recordCounts.computeIfAbsent(base + "rows." + key, k -> new AtomicLong(0)).addAndGet(batchSize);
     }
 
+    /**
+     * Records how long applying a dataset took end to end (read, transform and write), so
+     * throughput can be reported as records per second.
+     */
+    public void recordDatasetThroughput(String seedPack, String dataset, String realm,
+                                        long durationMs, int recordsWritten) {
+        String key = dsKey(seedPack, dataset, realm);
+        timers.computeIfAbsent("seed.dataset.apply." + key, k -> new AtomicLong(0)).addAndGet(durationMs);
+        writtenCounts.computeIfAbsent("seed.dataset.written." + key, k -> new AtomicLong(0)).addAndGet(recordsWritten);
+        Log.debugf("SeedMetrics: applied %s in %dms (%d records, %d records/s)",
+                key, durationMs, recordsWritten, recordsPerSecond(recordsWritten, durationMs));
+    }
+
     /**
      * Records seed discovery operation.
      *
@@ -170,6 +185,13 @@ public class SeedMetrics {
         summary.put("totalFailure", getTotalFailureCount());
         summary.put("totalRecordsApplied", getTotalRecordsApplied());
         summary.put("totalDiscoveries", getCounterValue("seed.discoveries"));
+        long written = sum(writtenCounts, "seed.dataset.written.");
+        long applyMs = sum(timers, "seed.dataset.apply.");
+        summary.put("totalBatches", getCounterValue("seed.dataset.batch.upsert.count")
+                + getCounterValue("seed.dataset.batch.insert.count"));
+        summary.put("totalRecordsWritten", written);
+        summary.put("totalApplyMillis", applyMs);
+        summary.put("recordsPerSecond", recordsPerSecond(written, applyMs));
         return summary;
     }
 
@@ -178,6 +200,17 @@ public class SeedMetrics {
         counters.computeIfAbsent(fullKey, k -> new AtomicLong(0)).incrementAndGet();
     }
 
+    private static long sum(java.util.Map<String, AtomicLong> values, String prefix) {
+        return values.entrySet().stream()
+                .filter(e -> e.getKey().startsWith(prefix))
+                .mapToLong(e -> e.getValue().get())
+                .sum();
+    }
+
+    private static long recordsPerSecond(long records, long durationMs) {
+        return durationMs <= 0 ? records : records * 1000L / durationMs;
+    }
+
     private long getCounterValue(String category) {
         return counters.entrySet().stream()
                 .filter(e -> e.getKey().startsWith(category + "."))
@@ -0,0 +1,248 @@
+package com.e2eq.framework.service.seed;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.supercsv.io.CsvMapReader;
+import org.supercsv.io.ICsvMapReader;
+import org.supercsv.prefs.CsvPreference;
+
+/**
+ * Reads the records of a dataset file one at a time, so a dataset of any size is applied with
+ * constant memory.
+ *
+ * Three formats are understood:
+ * <ul>
+ *    <li>a JSON array of objects, detected by a leading {@code [}</li>
+ *    <li>CSV with a header row, for files ending in {@code .csv}; a header such as
+ *    {@code dataDomain.tenantId} produces a nested map and empty cells are left out</li>
+ *    <li>otherwise NDJSON, one JSON object per line</li>
+ * </ul>
+ */
+final class SeedRecordReader implements Iterator<Map<String, Object>>, Closeable {
+
+    private static final TypeReference<Map<String, Object>> MAP_TYPE = new TypeReference<>() {};
+
+    private interface Source extends Closeable {
+        /** @return the next record, or null at the end of the dataset */
+        Map<String, Object> read() throws IOException;
+    }
+
+    private final Source source;
+    private final String collection;
+    private Map<String, Object> next;
+    private boolean done;
+    private int recordsRead;
+    private long readNanos;
+
+    private SeedRecordReader(Source source, String collection) {
+        this.source = source;
+        this.collection = collection;
+    }
+
+    /**
+     * Opens a reader over the dataset stream; the reader owns and closes the stream.
+     */
+    static SeedRecordReader open(InputStream in, SeedPackManifest.Dataset dataset, ObjectMapper objectMapper) {
+        String collection = dataset.getCollection();
+        try {
+            BufferedInputStream buffered = new BufferedInputStream(in);
+            String file = dataset.getFile();
+            if (file != null && file.toLowerCase(Locale.ROOT).endsWith(".csv")) {
+                return new SeedRecordReader(csv(buffered), collection);
+            }
+            // Peek first non-whitespace byte to detect JSON array ('[') vs JSONL
+            int first;
+            do {
+                buffered.mark(1);
+                first = buffered.read();
+            } while (first != -1 && Character.isWhitespace(first));
+            if (first == -1) {
+                buffered.close();
+                return new SeedRecordReader(empty(), collection);
+            }
+            buffered.reset();
+            if (first == '[') {
+                return new SeedRecordReader(jsonArray(buffered, objectMapper, collection), collection);
+            }
+            return new SeedRecordReader(jsonLines(buffered, objectMapper), collection);
+        } catch (IOException e) {
+            throw invalid(collection, e);
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next != null) {
+            return true;
+        }
+        if (done) {
+            return false;
+        }
+        long start = System.nanoTime();
+        try {
+            next = source.read();
+        } catch (IOException e) {
+            throw invalid(collection, e);
+        } finally {
+            readNanos += System.nanoTime() - start;
+        }
+        if (next == null) {
+            done = true;
+            return false;
+        }
+        recordsRead++;
+        return true;
+    }
+
+    @Override
+    public Map<String, Object> next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        Map<String, Object> current = next;
+        next = null;
+        return current;
+    }
+
+    /** @return the number of records read so far */
+    int recordsRead() {
+        return recordsRead;
+    }
+
+    /** @return the time spent reading and parsing so far, in milliseconds */
+    long readMillis() {
+        return readNanos / 1_000_000L;
+    }
+
+    @Override
+    public void close() {
+        try {
+            source.close();
+        } catch (IOException ignore) {
+        }
+    }
+
+    private static SeedLoadingException invalid(String collection, IOException e) {
+        return new SeedLoadingException("Invalid dataset format for collection " + collection + ": " + e.getMessage(), e);
+    }
+
+    private static Source empty() {
+        return new Source() {
+            @Override
+            public Map<String, Object> read() {
+                return null;
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+    }
+
+    private static Source jsonArray(InputStream in, ObjectMapper objectMapper, String collection) throws IOException {
+        JsonParser parser = objectMapper.getFactory().createParser(in);
+        if (parser.nextToken() != JsonToken.START_ARRAY) {
+            parser.close();
+            throw new SeedLoadingException("Expected JSON array for dataset '" + collection + "'");
+        }
+        return new Source() {
+            @Override
+            public Map<String, Object> read() throws IOException {
+                JsonToken token = parser.nextToken();
+                if (token == null || token == JsonToken.END_ARRAY) {
+                    return null;
+                }
+                return parser.readValueAs(MAP_TYPE);
+            }
+
+            @Override
+            public void close() throws IOException {
+                parser.close();
+            }
+        };
+    }
+
+    private static Source jsonLines(InputStream in, ObjectMapper objectMapper) {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        return new Source() {
+            @Override
+            public Map<String, Object> read() throws IOException {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (!line.isBlank()) {
+                        return objectMapper.readValue(line, MAP_TYPE);
+                    }
+                }
+                return null;
+            }
+
+            @Override
+            public void close() throws IOException {
+                reader.close();
+            }
+        };
+    }
+
+    private static Source csv(InputStream in) throws IOException {
+        ICsvMapReader reader = new CsvMapReader(new InputStreamReader(in, StandardCharsets.UTF_8),
+                CsvPreference.STANDARD_PREFERENCE);
+        String[] header = reader.getHeader(true);
+        return new Source() {
+            @Override
+            public Map<String, Object> read() throws IOException {
+                if (header == null) {
+                    return null;
+                }
+                Map<String, String> row = reader.read(header);
+                if (row == null) {
+                    return null;
+                }
+                Map<String, Object> record = new LinkedHashMap<>();
+                for (String column : header) {
+                    String value = row.get(column);
+                    if (column == null || value == null || value.isEmpty()) {
+                        continue;
+                    }
+                    put(record, column.trim(), value);
+                }
+                return record;
+            }
+
+            @Override
+            public void close() throws IOException {
+                reader.close();
+            }
+        };
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void put(Map<String, Object> record, String path, Object value) {
+        Map<String, Object> target = record;
+        String[] parts = path.split("\\.");
+        for (int i = 0; i < parts.length - 1; i++) {
+            Object child = target.get(parts[i]);
+            if (!(child instanceof Map)) {
+                child = new LinkedHashMap<String, Object>();
+                target.put(parts[i], child);
+            }
+            target = (Map<String, Object>) child;
+        }
+        target.put(parts[parts.length - 1], value);
+    }
+}
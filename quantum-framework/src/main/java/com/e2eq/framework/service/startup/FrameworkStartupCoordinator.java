@@ -12,6 +12,8 @@ import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.enterprise.event.Observes;
 import jakarta.inject.Inject;
 
+import java.util.concurrent.CompletableFuture;
+
 /**
  * Drives the framework's startup sequence. Mode-aware per the control-plane
  * split (CONTROL_PLANE_SPLIT_DESIGN.md; wp3 tier 2): in embedded mode
@@ -58,6 +60,31 @@ public class FrameworkStartupCoordinator {
         if (embedded) {
             baselineIdentityStartupService.onStart();
         }
+        // with quantum.migration.startup.readiness=system the tenant realms may still be migrating;
+        // seeds and bootstrap packs then follow them in the background
+        CompletableFuture<Void> realms = migrationService.getStartupMigrations();
+        if (realms.isDone() && !realms.isCompletedExceptionally()) {
+            applyStartupPacks();
+        } else {
+            if (!realms.isDone()) {
+                Log.info("FrameworkStartupCoordinator: seeds and bootstrap packs will run once the startup realms are migrated");
+            }
+            realms.whenComplete((v, e) -> {
+                if (e != null) {
+                    // seeds and packs assume migrated realms; they run on the next start instead
+                    Log.errorf(e, "FrameworkStartupCoordinator: startup realm migrations failed; skipping seeds and bootstrap packs");
+                    return;
+                }
+                try {
+                    applyStartupPacks();
+                } catch (RuntimeException ex) {
+                    Log.errorf(ex, "FrameworkStartupCoordinator: applying seeds and bootstrap packs after the startup migrations failed");
+                }
+            });
+        }
+    }
+
+    private void applyStartupPacks() {
         seedStartupRunner.onStart();
         bootstrapPackStartupRunner.onStart();
         pendingSeedsStartupLogger.onStart();
@@ -0,0 +1,36 @@
+package com.e2eq.framework.service.startup;
+
+import com.e2eq.framework.model.persistent.migration.base.MigrationService;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.health.HealthCheck;
+import org.eclipse.microprofile.health.HealthCheckResponse;
+import org.eclipse.microprofile.health.HealthCheckResponseBuilder;
+import org.eclipse.microprofile.health.Readiness;
+
+/**
+ * Reports the state and duration of each realm's startup migration. Down when one failed; realms
+ * still migrating in the background ({@code quantum.migration.startup.readiness=system}) are listed
+ * as RUNNING without failing readiness.
+ */
+@Readiness
+@ApplicationScoped
+public class MigrationStartupHealthCheck implements HealthCheck {
+
+    @Inject
+    MigrationService migrationService;
+
+    @Override
+    public HealthCheckResponse call() {
+        HealthCheckResponseBuilder builder = HealthCheckResponse.named("Startup Migrations").up();
+        boolean up = true;
+        for (MigrationService.RealmStartupStatus status : migrationService.getStartupStatus().values()) {
+            builder.withData(status.realm(), status.state() + " " + status.elapsedMillis() + "ms");
+            if ("FAILED".equals(status.state())) {
+                up = false;
+            }
+        }
+        builder.withData("backgroundComplete", migrationService.getStartupMigrations().isDone());
+        return up ? builder.build() : builder.down().build();
+    }
+}
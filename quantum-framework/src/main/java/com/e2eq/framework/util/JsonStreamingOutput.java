@@ -0,0 +1,190 @@
+package com.e2eq.framework.util;
+
+import com.e2eq.framework.model.persistent.base.CloseableIterator;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.quarkus.logging.Log;
+import jakarta.ws.rs.WebApplicationException;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.StreamingOutput;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Writes the rows of an iterator to the response as they are read, instead of materializing the
+ * page as a list and a {@link com.e2eq.framework.rest.models.Collection} first.
+ *
+ * Two formats are supported:
+ * <ul>
+ *   <li>{@link Format#NDJSON}: one JSON document per row, each terminated by a newline
+ *   ({@value #NDJSON_MEDIA_TYPE});</li>
+ *   <li>{@link Format#JSON}: a single object shaped like a Collection, with the envelope fields
+ *   first, then the {@code rows} array, the {@code rowCount} and, for keyset pages, the
+ *   {@code nextPageToken}.</li>
+ * </ul>
+ *
+ * All rows go through one JsonGenerator and ObjectWriter. The generator is flushed every
+ * {@link #FLUSH_EVERY} rows; writes block while the client is not reading, which in turn stops
+ * rows from being pulled off the cursor, so memory use does not grow with the page size. The
+ * iterator is closed when writing ends, including on failure.
+ */
+public class JsonStreamingOutput<T> implements StreamingOutput {
+
+    public static final String NDJSON_MEDIA_TYPE = "application/x-ndjson";
+
+    static final int FLUSH_EVERY = 100;
+
+    public enum Format {
+        NDJSON, JSON;
+
+        /**
+         * Resolves the format from an explicit {@code format} parameter ("ndjson" or "json"),
+         * falling back to the Accept header, and to NDJSON when neither decides.
+         */
+        public static Format of(String format, String accept) {
+            if (format != null && !format.isBlank()) {
+                if ("json".equalsIgnoreCase(format.trim())) return JSON;
+                if ("ndjson".equalsIgnoreCase(format.trim())) return NDJSON;
+                throw new IllegalArgumentException("Unsupported stream format: " + format + " (expected ndjson or json)");
+            }
+            if (accept != null && accept.contains(MediaType.APPLICATION_JSON) && !accept.contains(NDJSON_MEDIA_TYPE)) {
+                return JSON;
+            }
+            return NDJSON;
+        }
+
+        public String mediaType() {
+            return this == JSON ? MediaType.APPLICATION_JSON : NDJSON_MEDIA_TYPE;
+        }
+    }
+
+    private final ObjectMapper mapper;
+    private final Iterator<T> rows;
+    private final AutoCloseable resource;
+    private final Format format;
+    private final Map<String, Object> envelope = new LinkedHashMap<>();
+    private Consumer<T> rowProcessor;
+    private int pageLimit;
+    private Function<T, String> nextPageToken;
+
+    /**
+     * @param mapper the mapper used to serialize rows
+     * @param rows rows to write; closed once writing ends
+     * @param format the output format
+     */
+    public JsonStreamingOutput(ObjectMapper mapper, CloseableIterator<T> rows, Format format) {
+        this(mapper, rows, rows, format);
+    }
+
+    /**
+     * @param mapper the mapper used to serialize rows
+     * @param rows rows to write
+     * @param resource resource backing the rows (e.g. a cursor); closed once writing ends, may be null
+     * @param format the output format
+     */
+    public JsonStreamingOutput(ObjectMapper mapper, Iterator<T> rows, AutoCloseable resource, Format format) {
+        this.mapper = mapper;
+        this.rows = rows;
+        this.resource = resource;
+        this.format = format;
+    }
+
+    /**
+     * Adds a field written ahead of the rows in {@link Format#JSON}; ignored for NDJSON.
+     */
+    public JsonStreamingOutput<T> withEnvelopeField(String name, Object value) {
+        envelope.put(name, value);
+        return this;
+    }
+
+    /**
+     * Sets a callback applied to every row just before it is written (e.g. field masking).
+     */
+    public JsonStreamingOutput<T> withRowProcessor(Consumer<T> rowProcessor) {
+        this.rowProcessor = rowProcessor;
+        return this;
+    }
+
+    /**
+     * Writes {@code nextPageToken}, built from the last row, after the rows in {@link Format#JSON}
+     * when a full page of {@code limit} rows was written.
+     */
+    public JsonStreamingOutput<T> withNextPageToken(int limit, Function<T, String> tokenForLastRow) {
+        this.pageLimit = limit;
+        this.nextPageToken = tokenForLastRow;
+        return this;
+    }
+
+    public Format getFormat() {
+        return format;
+    }
+
+    @Override
+    public void write(OutputStream output) throws IOException, WebApplicationException {
+        ObjectWriter writer = mapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        int count = 0;
+        T last = null;
+        try (JsonGenerator gen = mapper.getFactory().createGenerator(output)) {
+            // the container owns the response stream
+            gen.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            if (format == Format.JSON) {
+                gen.writeStartObject();
+                for (Map.Entry<String, Object> e : envelope.entrySet()) {
+                    gen.writeFieldName(e.getKey());
+                    writer.writeValue(gen, e.getValue());
+                }
+                gen.writeArrayFieldStart("rows");
+            } else {
+                // rows are newline-terminated below, no separator between root values
+                gen.setRootValueSeparator(null);
+            }
+
+            while (rows.hasNext()) {
+                T row = rows.next();
+                if (row == null) continue;
+                if (rowProcessor != null) rowProcessor.accept(row);
+                writer.writeValue(gen, row);
+                last = row;
+                if (format == Format.NDJSON) {
+                    gen.writeRaw('\n');
+                }
+                if (++count % FLUSH_EVERY == 0) {
+                    gen.flush();
+                }
+            }
+
+            if (format == Format.JSON) {
+                gen.writeEndArray();
+                gen.writeNumberField("rowCount", count);
+                if (nextPageToken != null && pageLimit > 0 && count == pageLimit && last != null) {
+                    gen.writeStringField("nextPageToken", nextPageToken.apply(last));
+                }
+                gen.writeEndObject();
+            }
+            gen.flush();
+        } catch (IOException | RuntimeException e) {
+            // the status line is already out; the client sees a truncated stream
+            Log.warnf(e, "Streaming response aborted after %d rows", count);
+            throw e;
+        } finally {
+            closeResource();
+        }
+    }
+
+    private void closeResource() {
+        if (resource == null) return;
+        try {
+            resource.close();
+        } catch (Exception e) {
+            Log.debugf(e, "Failed to close streamed rows");
+        }
+    }
+}
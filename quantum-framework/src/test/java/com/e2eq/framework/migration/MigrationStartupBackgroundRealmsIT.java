@@ -0,0 +1,84 @@
+package com.e2eq.framework.migration;
+
+import com.e2eq.framework.model.persistent.migration.base.MigrationService;
+import com.e2eq.framework.service.startup.MigrationStartupHealthCheck;
+import com.e2eq.framework.util.EnvConfigUtils;
+import com.mongodb.client.MongoClient;
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.TestProfile;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.health.HealthCheckResponse;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+@QuarkusTest
+@TestProfile(MigrationStartupBackgroundRealmsTestProfile.class)
+public class MigrationStartupBackgroundRealmsIT {
+
+    private static final List<String> REALMS = MigrationStartupBackgroundRealmsTestProfile.EXTRA_REALMS;
+
+    @Inject
+    MigrationService migrationService;
+
+    @Inject
+    MigrationStartupHealthCheck healthCheck;
+
+    @Inject
+    EnvConfigUtils envConfigUtils;
+
+    @Inject
+    MongoClient mongoClient;
+
+    @Test
+    public void systemReadinessReturnsOnceTheSystemRealmIsMigrated() throws Exception {
+        REALMS.forEach(realm -> mongoClient.getDatabase(realm).drop());
+
+        migrationService.initializeStartupRealms();
+
+        Map<String, MigrationService.RealmStartupStatus> status = migrationService.getStartupStatus();
+        Assertions.assertEquals("DONE", status.get(envConfigUtils.getSystemRealm()).state());
+        for (String realm : REALMS) {
+            Assertions.assertTrue(Set.of("RUNNING", "DONE").contains(status.get(realm).state()),
+                    "Background realm " + realm + " should be running or done: " + status.get(realm));
+        }
+        HealthCheckResponse running = healthCheck.call();
+        Assertions.assertEquals(HealthCheckResponse.Status.UP, running.getStatus());
+        Assertions.assertTrue(running.getData().orElseThrow().containsKey("backgroundComplete"));
+
+        migrationService.getStartupMigrations().get(2, TimeUnit.MINUTES);
+
+        status = migrationService.getStartupStatus();
+        for (String realm : REALMS) {
+            Assertions.assertEquals("DONE", status.get(realm).state());
+            Assertions.assertTrue(migrationService.getCurrentDatabaseVersion(realm).isPresent());
+        }
+        HealthCheckResponse done = healthCheck.call();
+        Assertions.assertEquals(HealthCheckResponse.Status.UP, done.getStatus());
+        Assertions.assertEquals(Boolean.TRUE, done.getData().orElseThrow().get("backgroundComplete"));
+    }
+
+    @Test
+    public void startupRealmsMigrateInParallel() throws Exception {
+        REALMS.forEach(realm -> mongoClient.getDatabase(realm).drop());
+
+        long start = System.nanoTime();
+        migrationService.initializeStartupRealms();
+        migrationService.getStartupMigrations().get(2, TimeUnit.MINUTES);
+        long wallMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        Map<String, MigrationService.RealmStartupStatus> status = migrationService.getStartupStatus();
+        long realmMillis = 0;
+        for (String realm : REALMS) {
+            Assertions.assertEquals("DONE", status.get(realm).state());
+            realmMillis += status.get(realm).elapsedMillis();
+        }
+        // one thread per realm: the realms overlap, so together they took longer than the whole run
+        Assertions.assertTrue(realmMillis > wallMillis,
+                "Realms should migrate concurrently: " + realmMillis + "ms of realm time in " + wallMillis + "ms");
+    }
+}
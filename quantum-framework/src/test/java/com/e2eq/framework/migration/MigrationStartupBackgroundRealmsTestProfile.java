@@ -0,0 +1,27 @@
+package com.e2eq.framework.migration;
+
+import io.quarkus.test.junit.QuarkusTestProfile;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class MigrationStartupBackgroundRealmsTestProfile implements QuarkusTestProfile {
+
+    public static final List<String> EXTRA_REALMS = List.of(
+            "startup-background-a-it-com",
+            "startup-background-b-it-com",
+            "startup-background-c-it-com");
+
+    @Override
+    public Map<String, String> getConfigOverrides() {
+        Map<String, String> cfg = new HashMap<>();
+        cfg.put("quarkus.http.test-port", "0");
+        cfg.put("quarkus.http.ssl-port", "0");
+        cfg.put("quarkus.devservices.enabled", "false");
+        cfg.put("quantum.migration.apply.realms", String.join(",", EXTRA_REALMS));
+        cfg.put("quantum.migration.startup.parallelism", String.valueOf(EXTRA_REALMS.size()));
+        cfg.put("quantum.migration.startup.readiness", "system");
+        return cfg;
+    }
+}
@@ -28,5 +28,7 @@ public class MigrationStartupRealmsConfigIT {
         Assertions.assertTrue(
                 migrationService.getCurrentDatabaseVersion(realm).isPresent(),
                 "Configured startup migration realm should be initialized before seed startup evaluation");
+        Assertions.assertTrue(migrationService.getStartupMigrations().isDone());
+        Assertions.assertEquals("DONE", migrationService.getStartupStatus().get(realm).state());
     }
 }
@@ -1,6 +1,7 @@
 package com.e2eq.framework.persistent;
 
 import com.e2eq.framework.exceptions.ReferentialIntegrityViolationException;
+import com.e2eq.framework.model.persistent.base.PersistentEvent;
 import com.e2eq.framework.security.runtime.SecuritySession;
 import com.e2eq.framework.test.ParentModel;
 import io.quarkus.test.junit.QuarkusTest;
@@ -8,6 +9,7 @@ import jakarta.inject.Inject;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
+import java.util.List;
 import java.util.Optional;
 
 @QuarkusTest
@@ -32,13 +34,25 @@ public class TestAuditEvents extends BaseRepoTest {
             testParentEntity.setDisplayName("Test Audit Entity");
             testParentEntity = testService.save(testParentEntity);
 
-            Assertions.assertNotNull(testParentEntity.getPersistentEvents());
-            Assertions.assertTrue(testParentEntity.getPersistentEvents().size() == 1);
+            // events are kept in the persistent event log, not in the entity document
+            Assertions.assertNull(testParentEntity.getPersistentEvents());
+            List<PersistentEvent> events = testService.getPersistentEventHistory(null, testParentEntity.getId(), 0, 10);
+            Assertions.assertEquals(1, events.size());
+            Assertions.assertEquals("PERSIST", events.get(0).getEventType());
 
             Optional<ParentModel> optionalTestParentModel =  testService.findByRefName("test-audit");
             Assertions.assertTrue(optionalTestParentModel.isPresent());
-            Assertions.assertTrue(optionalTestParentModel.get().getPersistentEvents() != null &&
-                    optionalTestParentModel.get().getPersistentEvents().size() == 1);
+            Assertions.assertNull(optionalTestParentModel.get().getPersistentEvents());
+
+            ParentModel updated = optionalTestParentModel.get();
+            updated.setDisplayName("Test Audit Entity Updated");
+            updated = testService.save(updated);
+
+            Assertions.assertEquals(2, testService.getPersistentEventCount(null, updated.getId()));
+            events = testService.getPersistentEventHistory(null, updated.getId(), 0, 1);
+            Assertions.assertEquals(1, events.size());
+            Assertions.assertEquals(updated.getVersion(), events.get(0).getVersion());
+            testParentEntity = updated;
 
             testParentRepo.delete(testParentEntity);
 
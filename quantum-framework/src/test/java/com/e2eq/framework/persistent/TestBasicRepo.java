@@ -77,6 +77,25 @@ public class TestBasicRepo extends BaseRepoTest{
       }
    }
 
+   @Test
+   public void testCredentialPageTokenQueriesReadTheSystemRealm() {
+      // pContext's default realm is the test realm; credentials live in the system realm
+      try(final SecuritySession s = new SecuritySession(pContext, rContext)) {
+         String query = "userId:" + envConfigUtils.getSystemUserId();
+         List<CredentialUserIdPassword> bySkip = credentialRepo.getListByQuery(0, 10, query, null, null);
+         List<CredentialUserIdPassword> byToken = credentialRepo.getListByQuery((String) null, 10, query, null, null);
+
+         assertTrue(!byToken.isEmpty(), "page token query should find the system user's credential");
+         Assertions.assertEquals(bySkip.stream().map(CredentialUserIdPassword::getId).toList(),
+                 byToken.stream().map(CredentialUserIdPassword::getId).toList());
+         try (var stream = credentialRepo.getStreamByQuery((String) null, 10, query, null, null)) {
+            assertTrue(stream.hasNext());
+         }
+         String next = credentialRepo.nextPageToken(null, byToken.get(byToken.size() - 1));
+         assertTrue(credentialRepo.getListByQuery(next, 10, query, null, null).isEmpty());
+      }
+   }
+
    @Test
    public void testUserProfileLegacyCredentialReferenceLookupBySubject() {
       PrincipalContext pContext = securityUtils.getSystemPrincipalContext();
@@ -0,0 +1,83 @@
+package com.e2eq.framework.persistent;
+
+import com.e2eq.framework.model.persistent.base.Counter;
+import com.e2eq.framework.model.persistent.base.DataDomain;
+import com.e2eq.framework.model.persistent.morphia.CounterRepo;
+import com.e2eq.framework.model.securityrules.SecurityContext;
+import com.e2eq.framework.security.runtime.SecuritySession;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+@QuarkusTest
+public class TestCounterRepo extends BaseRepoTest {
+
+    @Inject
+    CounterRepo counterRepo;
+
+    @Test
+    public void testFirstCallCreatesCounterThroughSave() {
+        try (final SecuritySession ignored = new SecuritySession(pContext, rContext)) {
+            DataDomain dd = SecurityContext.getPrincipalDataDomain().get();
+            String counterName = "test-counter-create-" + System.nanoTime();
+
+            Assertions.assertEquals(0L, counterRepo.getAndIncrement(counterName, dd, 5L));
+            Assertions.assertEquals(5L, counterRepo.getAndIncrement(counterName, dd, 1L));
+
+            Optional<Counter> stored = counterRepo.findByRefName(counterName);
+            Assertions.assertTrue(stored.isPresent());
+            Counter counter = stored.get();
+            Assertions.assertEquals(6L, counter.getCurrentValue());
+            Assertions.assertEquals(counterName, counter.getDisplayName());
+            Assertions.assertNotNull(counter.getAuditInfo(), "a new counter is created through save()");
+            Assertions.assertEquals(dd.getOwnerId(), counter.getDataDomain().getOwnerId());
+            Assertions.assertEquals(dd.getTenantId(), counter.getDataDomain().getTenantId());
+        }
+    }
+
+    @Test
+    public void testConcurrentFirstCallsRetryOnDuplicateKey() throws Exception {
+        String counterName = "test-counter-race-" + System.nanoTime();
+        int callers = 8;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(callers);
+        try {
+            List<Future<Long>> results = new ArrayList<>();
+            for (int i = 0; i < callers; i++) {
+                results.add(executor.submit(() -> {
+                    try (final SecuritySession ignored = new SecuritySession(pContext, rContext)) {
+                        DataDomain dd = SecurityContext.getPrincipalDataDomain().get();
+                        start.await();
+                        return counterRepo.getAndIncrement(counterName, dd, 1L);
+                    }
+                }));
+            }
+            start.countDown();
+
+            // every caller gets its own number even though all but one lose the insert
+            Set<Long> values = new TreeSet<>();
+            for (Future<Long> result : results) {
+                values.add(result.get(30, TimeUnit.SECONDS));
+            }
+            Assertions.assertEquals(Set.of(0L, 1L, 2L, 3L, 4L, 5L, 6L, 7L), values);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        try (final SecuritySession ignored = new SecuritySession(pContext, rContext)) {
+            Assertions.assertEquals(8L, counterRepo.findByRefName(counterName).get().getCurrentValue());
+        }
+    }
+}
@@ -3,18 +3,33 @@ package com.e2eq.framework.persistent;
 import com.e2eq.framework.model.persistent.morphia.MenuHierarchyRepo;
 import com.e2eq.framework.model.persistent.morphia.MenuItemRepo;
 import com.e2eq.framework.model.persistent.morphia.MenuItemStaticDynamicListRepo;
+import com.e2eq.framework.model.persistent.morphia.PolicyRepo;
+import com.e2eq.framework.model.persistent.base.DataDomain;
+import com.e2eq.framework.model.security.Policy;
+import com.e2eq.framework.model.security.Rule;
+import com.e2eq.framework.model.securityrules.*;
+import com.e2eq.framework.rest.dto.GenericHierarchyDto;
+import com.e2eq.framework.rest.services.HierarchyTreeService;
 import com.e2eq.framework.security.runtime.SecuritySession;
 import com.e2eq.framework.model.general.MenuHierarchyModel;
 import com.e2eq.framework.model.general.MenuItemModel;
 import com.e2eq.framework.model.general.MenuItemStaticDynamicList;
+import com.e2eq.framework.util.SecurityUtils;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Updates;
 import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.security.TestSecurity;
+import org.apache.commons.lang3.tuple.Pair;
 import jakarta.inject.Inject;
 
+import com.e2eq.framework.model.TreeNode;
+import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
 import java.util.*;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Collectors;
 
 @QuarkusTest
 public class TestHierarchyPersistence extends BaseRepoTest {
@@ -27,6 +42,15 @@ public class TestHierarchyPersistence extends BaseRepoTest {
     @Inject
     MenuItemStaticDynamicListRepo menuStaticDynamicListRepo;
 
+    @Inject
+    HierarchyTreeService hierarchyTreeService;
+
+    @Inject
+    PolicyRepo policyRepo;
+
+    @Inject
+    SecurityUtils securityUtils;
+
     protected MenuHierarchyModel getOrCreateHierarchy(String name) {
         Optional<MenuHierarchyModel> oroot = menuHierarchyRepo.findByRefName(name);
         MenuHierarchyModel root;
@@ -99,4 +123,188 @@ public class TestHierarchyPersistence extends BaseRepoTest {
 
 
     }
+
+    @Test
+    public void testMaterializedPaths() {
+        try (final SecuritySession ss = new SecuritySession(pContext, rContext)) {
+            MenuHierarchyModel top = getOrCreateHierarchy("pathTop");
+            MenuHierarchyModel middle = getOrCreateHierarchy("pathMiddle");
+            middle.setParent(top.createEntityReference());
+            middle = menuHierarchyRepo.save(middle);
+            MenuHierarchyModel leaf = getOrCreateHierarchy("pathLeaf");
+            leaf.setParent(middle.createEntityReference());
+            leaf = menuHierarchyRepo.save(leaf);
+
+            Assertions.assertEquals(List.of(top.getId(), middle.getId()), leaf.getAncestors());
+            Assertions.assertEquals("/" + top.getId().toHexString() + "/" + middle.getId().toHexString() + "/", leaf.getPath());
+            Assertions.assertEquals(List.of("pathTop", "pathMiddle", "pathLeaf"),
+                    menuHierarchyRepo.getPathToNode(leaf.getId()).stream().map(MenuHierarchyModel::getRefName).toList());
+            Assertions.assertEquals(2, menuHierarchyRepo.getSubtree(top.getId(), -1).size());
+            Assertions.assertEquals(1, menuHierarchyRepo.getSubtree(top.getId(), 1).size());
+            Assertions.assertEquals(2, menuHierarchyRepo.getAllChildren(top.getId()).size());
+
+            // moving the middle node to the root re-bases its subtree
+            middle = menuHierarchyRepo.findById(middle.getId()).orElseThrow();
+            middle.setParent(null);
+            menuHierarchyRepo.save(middle);
+            leaf = menuHierarchyRepo.findById(leaf.getId()).orElseThrow();
+            Assertions.assertEquals(List.of(middle.getId()), leaf.getAncestors());
+            Assertions.assertEquals("/" + middle.getId().toHexString() + "/", leaf.getPath());
+            Assertions.assertTrue(menuHierarchyRepo.getAllChildren(top.getId()).isEmpty());
+        }
+    }
+
+    @Test
+    public void testPartlyBackfilledTreeFallsBackToDescendantLinks() {
+        try (final SecuritySession ss = new SecuritySession(pContext, rContext)) {
+            MenuHierarchyModel top = getOrCreateHierarchy("backfillTop");
+            MenuHierarchyModel middle = getOrCreateHierarchy("backfillMiddle");
+            middle.setParent(top.createEntityReference());
+            middle = menuHierarchyRepo.save(middle);
+            MenuHierarchyModel leaf = getOrCreateHierarchy("backfillLeaf");
+            leaf.setParent(middle.createEntityReference());
+            leaf = menuHierarchyRepo.save(leaf);
+
+            // the leaf predates materialized paths while its ancestors have been backfilled
+            menuHierarchyRepo.getMorphiaDataStore().getCollection(MenuHierarchyModel.class)
+                    .updateOne(Filters.eq("_id", leaf.getId()),
+                            Updates.combine(Updates.unset("ancestors"), Updates.unset("path")));
+            // written outside the repository
+            menuHierarchyRepo.invalidateTreeCache();
+
+            Set<String> below = menuHierarchyRepo.getAllChildren(top.getId()).stream()
+                    .map(MenuHierarchyModel::getRefName).collect(Collectors.toSet());
+            Assertions.assertEquals(Set.of("backfillMiddle", "backfillLeaf"), below);
+            Assertions.assertEquals(2, menuHierarchyRepo.getSubtree(top.getId(), -1).size());
+
+            // once the backfill has run the ancestors index answers again
+            menuHierarchyRepo.rebuildMaterializedPaths(menuHierarchyRepo.getMorphiaDataStore());
+            leaf = menuHierarchyRepo.findById(leaf.getId()).orElseThrow();
+            Assertions.assertEquals(List.of(top.getId(), middle.getId()), leaf.getAncestors());
+            Assertions.assertEquals(2, menuHierarchyRepo.getAllChildren(top.getId()).size());
+        }
+    }
+
+    @Test
+    public void testTreeCache() {
+        try (final SecuritySession ss = new SecuritySession(pContext, rContext)) {
+            MenuHierarchyModel top = getOrCreateHierarchy("cacheTop");
+            MenuHierarchyModel middle = getOrCreateHierarchy("cacheMiddle");
+            middle.setParent(top.createEntityReference());
+            middle = menuHierarchyRepo.save(middle);
+            MenuHierarchyModel leaf = getOrCreateHierarchy("cacheLeaf");
+            leaf.setParent(middle.createEntityReference());
+            leaf = menuHierarchyRepo.save(leaf);
+
+            // pruning to a branch makes it the top of the visible tree
+            List<TreeNode> pruned = menuHierarchyRepo.getTrees(Set.of(middle.getId(), leaf.getId()));
+            Assertions.assertEquals(1, pruned.size());
+            Assertions.assertEquals(middle.getId().toHexString(), pruned.get(0).key);
+            Assertions.assertEquals(1, pruned.get(0).children.size());
+
+            // moving the middle node to the root refreshes the cached trees
+            middle = menuHierarchyRepo.findById(middle.getId()).orElseThrow();
+            middle.setParent(null);
+            menuHierarchyRepo.save(middle);
+            String middleKey = middle.getId().toHexString();
+            Assertions.assertTrue(menuHierarchyRepo.getTrees().stream().anyMatch(t -> middleKey.equals(t.key)));
+        }
+    }
+
+    @Test
+    @TestSecurity(user = "sysAdmin@system-com", roles = {"admin"})
+    public void testTreeCacheRefreshesAfterPartialUpdate() throws Exception {
+        try (final SecuritySession ss = new SecuritySession(pContext, rContext)) {
+            MenuHierarchyModel node = getOrCreateHierarchy("cacheRenamed");
+            String key = node.getId().toHexString();
+            // load the cached trees before the update
+            Assertions.assertTrue(menuHierarchyRepo.getTrees().stream().anyMatch(t -> key.equals(t.key)));
+
+            String label = "Renamed " + System.nanoTime();
+            menuHierarchyRepo.update(node.getId(), Pair.of("displayName", label));
+
+            TreeNode renamed = menuHierarchyRepo.getTrees().stream()
+                    .filter(t -> key.equals(t.key)).findFirst().orElseThrow();
+            Assertions.assertEquals(label, renamed.label);
+        }
+    }
+
+    @Test
+    public void testTreeAndPathReadsApplyRuleFilters() throws Exception {
+        String realm = testUtils.getTestRealm();
+        MenuHierarchyModel top;
+        MenuHierarchyModel leaf;
+        try (final SecuritySession ss = new SecuritySession(pContext, rContext)) {
+            top = getOrCreateHierarchy("ruleTop");
+            MenuHierarchyModel visible = getOrCreateHierarchy("ruleVisibleChild");
+            visible.setParent(top.createEntityReference());
+            menuHierarchyRepo.save(visible);
+            MenuHierarchyModel hidden = getOrCreateHierarchy("ruleHiddenChild");
+            hidden.setParent(top.createEntityReference());
+            hidden = menuHierarchyRepo.save(hidden);
+            leaf = getOrCreateHierarchy("ruleHiddenLeaf");
+            leaf.setParent(hidden.createEntityReference());
+            leaf = menuHierarchyRepo.save(leaf);
+
+            // a reader whose only rule hides one child
+            Policy policy = policyRepo.findByRefName("hierarchy-reader-policy", realm).orElseGet(Policy::new);
+            policy.setRefName("hierarchy-reader-policy");
+            policy.setDisplayName("Hierarchy Reader Policy");
+            policy.setPrincipalId("hierarchyReader");
+            policy.setDataDomain(securityUtils.getSystemDataDomain());
+            SecurityURIHeader hdr = new SecurityURIHeader.Builder()
+                    .withIdentity("hierarchyReader").withArea("hierarchyTest")
+                    .withFunctionalDomain("menuHierarchy").withAction("view").build();
+            SecurityURIBody bdy = new SecurityURIBody.Builder()
+                    .withRealm("*").withOrgRefName("*").withAccountNumber("*")
+                    .withTenantId("*").withOwnerId("*").withDataSegment("*")
+                    .withResourceId("*").build();
+            policy.getRules().clear();
+            policy.getRules().add(new Rule.Builder()
+                    .withName("hierarchy-reader-hides-one-child")
+                    .withSecurityURI(new SecurityURI(hdr, bdy))
+                    .withAndFilterString("refName:!ruleHiddenChild")
+                    .withEffect(RuleEffect.ALLOW)
+                    .withPriority(100)
+                    .withFinalRule(true)
+                    .build());
+            policyRepo.save(realm, policy);
+            ruleContext.reloadFromRepo(realm);
+        }
+
+        PrincipalContext reader = new PrincipalContext.Builder()
+                .withDefaultRealm(realm)
+                .withUserId("reader@end2endlogic.com")
+                .withRoles(new String[]{"hierarchyReader"})
+                .withDataDomain(DataDomain.builder()
+                        .orgRefName(testUtils.getTestOrgRefName())
+                        .accountNum(testUtils.getTestAccountNumber())
+                        .tenantId(realm)
+                        .dataSegment(0)
+                        .ownerId("reader@end2endlogic.com")
+                        .build())
+                .withScope("AUTHENTICATED")
+                .build();
+        ResourceContext view = new ResourceContext.Builder()
+                .withArea("hierarchyTest").withFunctionalDomain("menuHierarchy").withAction("view")
+                .withResourceId("*").build();
+        try (final SecuritySession ss = new SecuritySession(reader, view)) {
+            GenericHierarchyDto tree = hierarchyTreeService.buildTree(top.getId(), menuHierarchyRepo, 3);
+            Assertions.assertNotNull(tree);
+            Assertions.assertEquals(List.of("ruleVisibleChild"),
+                    tree.children.stream().map(c -> c.refName).toList());
+
+            // the path stops below the hidden ancestor
+            Assertions.assertEquals(List.of("ruleHiddenLeaf"),
+                    menuHierarchyRepo.getPathToNode(leaf.getId()).stream().map(MenuHierarchyModel::getRefName).toList());
+        } finally {
+            try (final SecuritySession ss = new SecuritySession(pContext, rContext)) {
+                Optional<Policy> policy = policyRepo.findByRefName("hierarchy-reader-policy", realm);
+                if (policy.isPresent()) {
+                    policyRepo.delete(realm, policy.get());
+                }
+                ruleContext.reloadFromRepo(realm);
+            }
+        }
+    }
 }
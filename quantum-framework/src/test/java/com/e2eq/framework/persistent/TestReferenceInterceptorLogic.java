@@ -208,4 +208,41 @@ public class TestReferenceInterceptorLogic extends BaseRepoTest{
             Assertions.assertTrue(ochild.isEmpty());
         }
     }
+
+    @Test
+    public void testBatchSaveTracksReferencesWithoutResavingParent() throws ReferentialIntegrityViolationException {
+
+        try (final SecuritySession ss = new SecuritySession(pContext, rContext)) {
+            clearCollections();
+            ParentModel parent = createParent("BatchParent");
+            Long parentVersion = parent.getVersion();
+
+            List<ChildModel> children = new ArrayList<>();
+            for (int i = 0; i < 5; i++) {
+                ChildModel child = new ChildModel();
+                child.setRefName("BatchChild" + i);
+                child.setDataDomain(testUtils.getTestDataDomain());
+                child.setAuditInfo(testUtils.createAuditInfo());
+                child.setParent(parent);
+                children.add(child);
+            }
+            children = childRepo.save(children);
+
+            ParentModel reloaded = parentRepo.findByRefName("BatchParent").orElseThrow();
+            // back-references are added with $addToSet, the parent document itself is not re-saved
+            Assertions.assertEquals(parentVersion, reloaded.getVersion());
+            Assertions.assertEquals(5, reloaded.getReferences().size());
+            for (ChildModel child : children) {
+                Assertions.assertTrue(reloaded.getReferences().contains(new ReferenceEntry(child.getId(),
+                        ChildModel.class.getTypeName(), child.getRefName())));
+            }
+
+            // deleting a child pulls its entry
+            childRepo.delete(children.get(0));
+            reloaded = parentRepo.findByRefName("BatchParent").orElseThrow();
+            Assertions.assertEquals(4, reloaded.getReferences().size());
+
+            clearCollections();
+        }
+    }
 }
@@ -85,6 +85,26 @@ class MigrationCheckRequestFilterTest {
         assertEquals(List.of("configured-default-realm", "system-com"), migrationService.checkedRealms);
     }
 
+    @Test
+    void reusesMigrationStatusBetweenRequests() throws Exception {
+        TestMigrationService migrationService = new TestMigrationService();
+        MigrationCheckRequestFilter filter = buildFilter(
+            identity("tenant-admin@example.com"),
+            testEnvConfig(),
+            new TestCredentialRepo("tenant-admin@example.com", "tenant-home-realm"),
+            migrationService,
+            null
+        );
+
+        filter.filter(new StubRequestContext("/api/orders", "GET"));
+        filter.filter(new StubRequestContext("/api/orders", "GET"));
+        assertEquals(List.of("tenant-home-realm", "system-com"), migrationService.checkedRealms);
+
+        migrationService.invalidateMigrationStatus("tenant-home-realm");
+        filter.filter(new StubRequestContext("/api/orders", "GET"));
+        assertEquals(List.of("tenant-home-realm", "system-com", "tenant-home-realm"), migrationService.checkedRealms);
+    }
+
     private static MigrationCheckRequestFilter buildFilter(
         SecurityIdentity identity,
         EnvConfigUtils envConfigUtils,
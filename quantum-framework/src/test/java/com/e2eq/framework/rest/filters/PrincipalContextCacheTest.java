@@ -0,0 +1,98 @@
+package com.e2eq.framework.rest.filters;
+
+import com.e2eq.framework.model.persistent.base.DataDomain;
+import com.e2eq.framework.model.security.CredentialUserIdPassword;
+import com.e2eq.framework.model.security.DomainContext;
+import com.e2eq.framework.model.security.UserGroup;
+import com.e2eq.framework.model.securityrules.PrincipalContext;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Date;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the cross-request PrincipalContext cache used by SecurityFilter.
+ */
+public class PrincipalContextCacheTest {
+
+    private PrincipalContextCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new PrincipalContextCache();
+    }
+
+    private static CredentialUserIdPassword credential(String userId, String subject) {
+        return CredentialUserIdPassword.builder()
+                .userId(userId)
+                .subject(subject)
+                .domainContext(DomainContext.builder()
+                        .tenantId("t1").defaultRealm("realmA").orgRefName("org1").accountId("acct1").build())
+                .lastUpdate(new Date())
+                .roles(new String[]{"user"})
+                .build();
+    }
+
+    private static PrincipalContext context(String userId) {
+        return new PrincipalContext.Builder()
+                .withDefaultRealm("realmA")
+                .withDataDomain(new DataDomain("org1", "acct1", "t1", 0, userId))
+                .withUserId(userId)
+                .withRoles(new String[]{"user"})
+                .withScope("AUTHENTICATED")
+                .build();
+    }
+
+    @Test
+    void keyIncludesRealmOverride() {
+        assertNotEquals(PrincipalContextCache.key("jti:abc", null), PrincipalContextCache.key("jti:abc", "realmB"));
+        assertEquals(PrincipalContextCache.key("jti:abc", "realmB"), PrincipalContextCache.key("jti:abc", "realmB"));
+        assertNull(PrincipalContextCache.key(null, "realmB"));
+    }
+
+    @Test
+    void cachedContextIsReturnedUntilTheCredentialIsSaved() {
+        String aliceKey = PrincipalContextCache.key("jti:alice-token", null);
+        String bobKey = PrincipalContextCache.key("jti:bob-token", null);
+        cache.put(aliceKey, context("alice"), credential("alice", "sub-alice"));
+        cache.put(bobKey, context("bob"), credential("bob", "sub-bob"));
+
+        assertNotNull(cache.get(aliceKey));
+
+        cache.afterPersist("system-com", credential("alice", "sub-alice"));
+
+        assertNull(cache.get(aliceKey));
+        assertNotNull(cache.get(bobKey), "other credentials should stay cached");
+    }
+
+    @Test
+    void userGroupWritesInvalidateEveryEntry() {
+        String aliceKey = PrincipalContextCache.key("jti:alice-token", "realmB");
+        cache.put(aliceKey, context("alice"), credential("alice", "sub-alice"));
+
+        cache.afterPersist("realmB", new UserGroup());
+        assertNull(cache.get(aliceKey));
+
+        cache.put(aliceKey, context("alice"), credential("alice", "sub-alice"));
+        cache.afterDelete("realmB", UserGroup.class, "admins");
+        assertNull(cache.get(aliceKey));
+    }
+
+    @Test
+    void summaryReportsHitsAndStageTimings() {
+        String key = PrincipalContextCache.key("jti:alice-token", null);
+        cache.get(key);
+        cache.put(key, context("alice"), credential("alice", "sub-alice"));
+        cache.get(key);
+        cache.recordStage(PrincipalContextCache.Stage.CREDENTIAL_LOOKUP, System.nanoTime());
+
+        Map<String, Object> summary = cache.getSummary();
+        assertEquals(1L, summary.get("principalCacheHits"));
+        assertEquals(1L, summary.get("principalCacheMisses"));
+        assertEquals(1L, summary.get("credentialLookupCount"));
+        assertEquals(0L, summary.get("roleResolutionCount"));
+    }
+}
@@ -0,0 +1,47 @@
+package com.e2eq.framework.service.health;
+
+import com.e2eq.framework.model.persistent.morphia.QueryParseCache;
+import org.eclipse.microprofile.health.HealthCheckResponse;
+import org.eclipse.microprofile.health.HealthCheckResponseBuilder;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RuntimeCachesHealthCheckTest {
+
+    @Test
+    void summariesArePublishedUnderTheirPrefix() {
+        QueryParseCache.parse("refName:health-check");
+        QueryParseCache.parse("refName:health-check");
+
+        HealthCheckResponseBuilder builder = HealthCheckResponse.named("test").up();
+        RuntimeCachesHealthCheck.withSummary(builder, "queryParse", QueryParseCache.getSummary());
+        Map<String, Object> data = builder.build().getData().orElseThrow();
+
+        assertTrue(((Number) data.get("queryParse.hits")).longValue() >= 1L);
+        assertTrue(data.containsKey("queryParse.misses"));
+        assertTrue(data.get("queryParse.hitRate") instanceof String);
+    }
+
+    @Test
+    void valuesKeepTheirType() {
+        Map<String, Object> summary = new HashMap<>();
+        summary.put("enabled", true);
+        summary.put("size", 3);
+        summary.put("ratio", 0.5d);
+        summary.put("mode", "SYNC");
+
+        HealthCheckResponseBuilder builder = HealthCheckResponse.named("test").up();
+        RuntimeCachesHealthCheck.withSummary(builder, "c", summary);
+        Map<String, Object> data = builder.build().getData().orElseThrow();
+
+        assertEquals(true, data.get("c.enabled"));
+        assertEquals(3L, data.get("c.size"));
+        assertEquals("0.5000", data.get("c.ratio"));
+        assertEquals("SYNC", data.get("c.mode"));
+    }
+}
@@ -0,0 +1,71 @@
+package com.e2eq.framework.service.seed;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SeedRecordReaderTest {
+
+    private static List<Map<String, Object>> readAll(String file, String content) {
+        SeedPackManifest.Dataset dataset = new SeedPackManifest.Dataset();
+        dataset.setFile(file);
+        dataset.setCollection("codeLists");
+        List<Map<String, Object>> records = new ArrayList<>();
+        try (SeedRecordReader reader = SeedRecordReader.open(
+                new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)), dataset, new ObjectMapper())) {
+            reader.forEachRemaining(records::add);
+            assertEquals(records.size(), reader.recordsRead());
+        }
+        return records;
+    }
+
+    @Test
+    void readsJsonArray() {
+        List<Map<String, Object>> records = readAll("datasets/codes.json",
+                "  [ {\"refName\":\"A\",\"n\":1}, {\"refName\":\"B\",\"n\":2} ]");
+
+        assertEquals(2, records.size());
+        assertEquals("B", records.get(1).get("refName"));
+        assertEquals(2, records.get(1).get("n"));
+    }
+
+    @Test
+    void readsNdjsonSkippingBlankLines() {
+        List<Map<String, Object>> records = readAll("datasets/codes.ndjson",
+                "{\"refName\":\"A\"}\n\n{\"refName\":\"B\"}\n");
+
+        assertEquals(List.of("A", "B"), records.stream().map(r -> r.get("refName")).toList());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void readsCsvWithNestedHeaders() {
+        List<Map<String, Object>> records = readAll("datasets/codes.csv",
+                "refName,displayName,dataDomain.tenantId\nA,\"Alpha, Inc\",t1\nB,,t2\n");
+
+        assertEquals(2, records.size());
+        assertEquals("Alpha, Inc", records.get(0).get("displayName"));
+        assertEquals("t1", ((Map<String, Object>) records.get(0).get("dataDomain")).get("tenantId"));
+        assertFalse(records.get(1).containsKey("displayName"));
+    }
+
+    @Test
+    void emptyDatasetHasNoRecords() {
+        assertTrue(readAll("datasets/codes.ndjson", "  \n ").isEmpty());
+    }
+
+    @Test
+    void rejectsMalformedRecords() {
+        assertThrows(SeedLoadingException.class, () -> readAll("datasets/codes.ndjson", "{\"refName\":\n"));
+    }
+}
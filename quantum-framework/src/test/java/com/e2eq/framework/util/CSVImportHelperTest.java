@@ -83,6 +83,8 @@ public class CSVImportHelperTest {
         @Override public java.util.Optional<TestItem> findByRefName(dev.morphia.Datastore datastore, String refName) { throw new UnsupportedOperationException(); }
        @Override public java.util.Optional<TestItem> findByRefName(dev.morphia.Datastore datastore, String refName, boolean ignoreRules) { throw new UnsupportedOperationException(); }
         @Override public com.fasterxml.jackson.module.jsonSchema.jakarta.JsonSchema getSchema() { throw new UnsupportedOperationException(); }
+        @Override public List<com.e2eq.framework.model.persistent.base.PersistentEvent> getPersistentEventHistory(String realmId, ObjectId id, int skip, int limit) { throw new UnsupportedOperationException(); }
+        @Override public long getPersistentEventCount(String realmId, ObjectId id) { throw new UnsupportedOperationException(); }
         @Override public List<TestItem> getAllList() { return new ArrayList<>(store.values()); }
         @Override public List<TestItem> getAllList(String realmId) { return getAllList(); }
         @Override public List<TestItem> getAllList(dev.morphia.Datastore datastore) { return getAllList(); }
@@ -90,6 +92,10 @@ public class CSVImportHelperTest {
         @Override public List<TestItem> getListByQuery(int skip, int limit, String filter, List<com.e2eq.framework.model.persistent.base.SortField> sortFields, List<com.e2eq.framework.model.persistent.base.ProjectionField> projectedProperties) { return getAllList(); }
         @Override public List<TestItem> getListByQuery(String realmId, int skip, int limit, String query, List<com.e2eq.framework.model.persistent.base.SortField> sortFields, List<com.e2eq.framework.model.persistent.base.ProjectionField> projectionFields) { return getAllList(); }
         @Override public List<TestItem> getListByQuery(dev.morphia.Datastore datastore, int skip, int limit, String query, List<com.e2eq.framework.model.persistent.base.SortField> sortFields, List<com.e2eq.framework.model.persistent.base.ProjectionField> projectionFields) { return getAllList(); }
+        @Override public List<TestItem> getListByQuery(String pageToken, int limit, String query, List<com.e2eq.framework.model.persistent.base.SortField> sortFields, List<com.e2eq.framework.model.persistent.base.ProjectionField> projectionFields) { return getAllList(); }
+        @Override public List<TestItem> getListByQuery(String realmId, String pageToken, int limit, String query, List<com.e2eq.framework.model.persistent.base.SortField> sortFields, List<com.e2eq.framework.model.persistent.base.ProjectionField> projectionFields) { return getAllList(); }
+        @Override public List<TestItem> getListByQuery(dev.morphia.Datastore datastore, String pageToken, int limit, String query, List<com.e2eq.framework.model.persistent.base.SortField> sortFields, List<com.e2eq.framework.model.persistent.base.ProjectionField> projectionFields) { return getAllList(); }
+        @Override public String nextPageToken(List<com.e2eq.framework.model.persistent.base.SortField> sortFields, TestItem lastRow) { return null; }
         @Override public List<TestItem> getList(int skip, int limit, List<dev.morphia.query.filters.Filter> filters, List<com.e2eq.framework.model.persistent.base.SortField> sortFields) { return getAllList(); }
         @Override public List<TestItem> getList(String realmId, int skip, int limit, List<dev.morphia.query.filters.Filter> filters, List<com.e2eq.framework.model.persistent.base.SortField> sortFields) { return getAllList(); }
         @Override public List<TestItem> getList(dev.morphia.Datastore datastore, int skip, int limit, List<dev.morphia.query.filters.Filter> filters, List<com.e2eq.framework.model.persistent.base.SortField> sortFields) { return getAllList(); }
@@ -106,6 +112,10 @@ public class CSVImportHelperTest {
         @Override public List<TestItem> getListFromReferences(dev.morphia.Datastore datastore, List<com.e2eq.framework.model.persistent.base.EntityReference> references) { throw new UnsupportedOperationException(); }
         @Override public com.e2eq.framework.model.persistent.base.CloseableIterator<TestItem> getStreamByQuery(int skip, int limit, String query, List<com.e2eq.framework.model.persistent.base.SortField> sortFields, List<com.e2eq.framework.model.persistent.base.ProjectionField> projectionFields) { throw new UnsupportedOperationException(); }
         @Override public com.e2eq.framework.model.persistent.base.CloseableIterator<TestItem> getStreamByQuery(dev.morphia.Datastore datastore, int skip, int limit, String query, List<com.e2eq.framework.model.persistent.base.SortField> sortFields, List<com.e2eq.framework.model.persistent.base.ProjectionField> projectionFields) { throw new UnsupportedOperationException(); }
+        @Override public com.e2eq.framework.model.persistent.base.CloseableIterator<TestItem> getStreamByQuery(String realmId, int skip, int limit, String query, List<com.e2eq.framework.model.persistent.base.SortField> sortFields, List<com.e2eq.framework.model.persistent.base.ProjectionField> projectionFields) { throw new UnsupportedOperationException(); }
+        @Override public com.e2eq.framework.model.persistent.base.CloseableIterator<TestItem> getStreamByQuery(String pageToken, int limit, String query, List<com.e2eq.framework.model.persistent.base.SortField> sortFields, List<com.e2eq.framework.model.persistent.base.ProjectionField> projectionFields) { throw new UnsupportedOperationException(); }
+        @Override public com.e2eq.framework.model.persistent.base.CloseableIterator<TestItem> getStreamByQuery(String realmId, String pageToken, int limit, String query, List<com.e2eq.framework.model.persistent.base.SortField> sortFields, List<com.e2eq.framework.model.persistent.base.ProjectionField> projectionFields) { throw new UnsupportedOperationException(); }
+        @Override public com.e2eq.framework.model.persistent.base.CloseableIterator<TestItem> getStreamByQuery(dev.morphia.Datastore datastore, String pageToken, int limit, String query, List<com.e2eq.framework.model.persistent.base.SortField> sortFields, List<com.e2eq.framework.model.persistent.base.ProjectionField> projectionFields) { throw new UnsupportedOperationException(); }
         @Override public long getCount(String realmId, String filter) { return store.size(); }
         @Override public long getCount(String filter) { return store.size(); }
         @Override public long getCount(dev.morphia.Datastore datastore, String filter) { return store.size(); }
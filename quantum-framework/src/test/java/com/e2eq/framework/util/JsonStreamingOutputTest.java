@@ -0,0 +1,90 @@
+package com.e2eq.framework.util;
+
+import com.e2eq.framework.model.persistent.base.CloseableIterator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class JsonStreamingOutputTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    private static final class ListIterator<T> implements CloseableIterator<T> {
+        private final Iterator<T> delegate;
+        boolean closed;
+
+        ListIterator(List<T> rows) {
+            this.delegate = rows.iterator();
+        }
+
+        @Override public boolean hasNext() { return delegate.hasNext(); }
+        @Override public T next() { return delegate.next(); }
+        @Override public void close() { closed = true; }
+    }
+
+    private static List<Map<String, Object>> rows(int n) {
+        List<Map<String, Object>> rows = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("refName", "r" + i);
+            row.put("secret", "s" + i);
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    @Test
+    void ndjsonWritesOneRowPerLineAndClosesTheIterator() throws Exception {
+        ListIterator<Map<String, Object>> it = new ListIterator<>(rows(250));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        new JsonStreamingOutput<>(mapper, it, JsonStreamingOutput.Format.NDJSON)
+                .withEnvelopeField("offset", 0)
+                .write(out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(250, lines.length);
+        assertEquals("r0", mapper.readTree(lines[0]).get("refName").asText());
+        assertEquals("r249", mapper.readTree(lines[249]).get("refName").asText());
+        assertTrue(it.closed);
+    }
+
+    @Test
+    void jsonWritesTheEnvelopeRowsAndRowCount() throws Exception {
+        ListIterator<Map<String, Object>> it = new ListIterator<>(rows(3));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        new JsonStreamingOutput<>(mapper, it, JsonStreamingOutput.Format.JSON)
+                .withEnvelopeField("offset", 10)
+                .withEnvelopeField("filter", "refName:r*")
+                .withRowProcessor(row -> row.remove("secret"))
+                .write(out);
+
+        JsonNode json = mapper.readTree(out.toByteArray());
+        assertEquals(10, json.get("offset").asInt());
+        assertEquals("refName:r*", json.get("filter").asText());
+        assertEquals(3, json.get("rows").size());
+        assertEquals(3, json.get("rowCount").asInt());
+        assertFalse(json.get("rows").get(0).has("secret"));
+        assertTrue(it.closed);
+    }
+
+    @Test
+    void formatFollowsParameterThenAcceptHeader() {
+        assertEquals(JsonStreamingOutput.Format.JSON, JsonStreamingOutput.Format.of("json", null));
+        assertEquals(JsonStreamingOutput.Format.NDJSON, JsonStreamingOutput.Format.of(null, "application/x-ndjson, application/json"));
+        assertEquals(JsonStreamingOutput.Format.JSON, JsonStreamingOutput.Format.of(null, "application/json"));
+        assertEquals(JsonStreamingOutput.Format.NDJSON, JsonStreamingOutput.Format.of(null, null));
+        assertThrows(IllegalArgumentException.class, () -> JsonStreamingOutput.Format.of("xml", null));
+    }
+}
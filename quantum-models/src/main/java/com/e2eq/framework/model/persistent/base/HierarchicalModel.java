@@ -4,6 +4,9 @@ import com.fasterxml.jackson.annotation.JsonBackReference;
 import com.fasterxml.jackson.annotation.JsonManagedReference;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import dev.morphia.annotations.Entity;
+import dev.morphia.annotations.Field;
+import dev.morphia.annotations.Index;
+import dev.morphia.annotations.Indexes;
 import dev.morphia.annotations.PrePersist;
 import io.quarkus.logging.Log;
 import io.quarkus.runtime.annotations.RegisterForReflection;
@@ -19,6 +22,9 @@ import java.util.List;
 // O - The baseModel that is used in at each level
 // L - the static dynamic list of type O
 @Entity
+@Indexes({
+        @Index(fields = @Field("ancestors"))
+})
 @Data
 @EqualsAndHashCode(callSuper = true)
 @RegisterForReflection
@@ -42,6 +48,14 @@ public abstract class HierarchicalModel<T extends HierarchicalModel<T, O, L>,
     @Schema(implementation = EntityReference.class, description = "The parent of the HierarchicalModel, null if it is a root node")
     protected EntityReference parent;
 
+    @Schema(implementation = String.class, readOnly = true,
+            description = "ids of the ancestors of this node, root first; maintained by the repository")
+    protected List<ObjectId> ancestors;
+
+    @Schema(readOnly = true,
+            description = "materialized path of the ancestors, e.g. /rootId/parentId/; '/' for a root node; maintained by the repository")
+    protected String path;
+
     @PrePersist
     void beforeSave() {
         if (children != null) {
@@ -102,7 +102,8 @@ public abstract  class UnversionedBaseModel {
     protected Set<ReferenceEntry> references;
 
     /**
-     * this is a calculated field and should not be changed during save
+     * events embedded by earlier versions; new events are written to the persistent event log
+     * and read with the repo's getPersistentEventHistory
      */
     protected List<PersistentEvent> persistentEvents;
 
@@ -29,6 +29,9 @@ public  class Collection<T> {
    protected String filter;
    protected String realm;
 
+   // keyset pagination: token for the page after this one, null when there is none
+   protected String nextPageToken;
+
    @Transient
    protected UIActionList actionList = new UIActionList();
 
@@ -0,0 +1,153 @@
+package com.e2eq.framework.security.runtime;
+
+import com.e2eq.framework.model.persistent.base.DataDomain;
+import com.e2eq.framework.model.security.Rule;
+import com.e2eq.framework.model.securityrules.PrincipalContext;
+import com.e2eq.framework.model.securityrules.ResourceContext;
+import com.e2eq.framework.model.securityrules.RuleEffect;
+import com.e2eq.framework.model.securityrules.SecurityURI;
+import com.e2eq.framework.model.securityrules.SecurityURIBody;
+import com.e2eq.framework.model.securityrules.SecurityURIHeader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Candidate-rule lookup for one permission check in realms of 100, 1k and 10k rules, most of
+ * them per-tenant policies: the compiled {@link RuleIndex} against the list scan RuleContext
+ * used when the index was off (all rules of the principal's identities, each matched against
+ * the principal URIs).
+ *
+ * Run with {@code mvn -pl quantum-morphia-repos -Pbenchmarks test-compile exec:java}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RuleIndexBenchmark {
+
+    private static final String[] ROLES = {"user", "admin", "auditor"};
+    private static final String[] AREAS = {"orders", "catalog", "security", "billing"};
+    private static final String[] ACTIONS = {"view", "create", "update", "delete", "list"};
+
+    @Param({"100", "1000", "10000"})
+    int ruleCount;
+
+    private RuleIndex index;
+    private Map<String, List<Rule>> rulesByIdentity;
+    private PrincipalContext principal;
+    private ResourceContext resource;
+    private List<PrincipalUri> principalUris;
+
+    @Setup
+    public void setUp() {
+        int tenants = Math.max(1, ruleCount / 20);
+        List<Rule> rules = new ArrayList<>(ruleCount);
+        rulesByIdentity = new HashMap<>();
+        for (int i = 0; i < ruleCount; i++) {
+            String identity = ROLES[i % ROLES.length];
+            // a handful of realm-wide rules, the rest scoped to a single tenant
+            String tenant = i % 50 == 0 ? "*" : "tenant-" + (i % tenants);
+            Rule r = rule("rule-" + i, identity, AREAS[i % AREAS.length], "*", ACTIONS[i % ACTIONS.length], tenant, i % 10);
+            rules.add(r);
+            rulesByIdentity.computeIfAbsent(identity, k -> new ArrayList<>()).add(r);
+        }
+        index = RuleIndex.build(rules);
+
+        principal = new PrincipalContext.Builder()
+                .withDefaultRealm("b2bi")
+                .withDataDomain(new DataDomain("acme.com", "0000000001", "tenant-3", 0, "u1@acme.com"))
+                .withUserId("u1@acme.com")
+                .withRoles(new String[]{"user", "admin"})
+                .build();
+        resource = new ResourceContext.Builder()
+                .withArea("orders")
+                .withFunctionalDomain("order")
+                .withAction("view")
+                .withResourceId("order-1")
+                .build();
+        principalUris = new ArrayList<>();
+        for (String role : principal.getRoles()) {
+            principalUris.add(PrincipalUri.of(role, "orders", "order", "view", principal, resource));
+        }
+        principalUris.add(PrincipalUri.of(principal.getUserId(), "orders", "order", "view", principal, resource));
+    }
+
+    @Benchmark
+    public List<Rule> indexLookup() {
+        return index.getApplicableRules(principal, resource);
+    }
+
+    @Benchmark
+    public List<Rule> listScan() {
+        List<Rule> candidates = new ArrayList<>();
+        List<Rule> own = rulesByIdentity.get(principal.getUserId());
+        if (own != null) candidates.addAll(own);
+        for (String role : principal.getRoles()) {
+            List<Rule> roleRules = rulesByIdentity.get(role);
+            if (roleRules != null) candidates.addAll(roleRules);
+        }
+        candidates.sort(Comparator.comparingInt(Rule::getPriority));
+        List<Rule> matched = new ArrayList<>();
+        for (Rule r : candidates) {
+            RuleUriMatcher matcher = RuleUriMatcher.forRule(r);
+            for (PrincipalUri uri : principalUris) {
+                if (matcher.matches(uri)) {
+                    matched.add(r);
+                    break;
+                }
+            }
+        }
+        return matched;
+    }
+
+    private static Rule rule(String name, String identity, String area, String domain, String action, String tenant, int priority) {
+        SecurityURIHeader header = new SecurityURIHeader.Builder()
+                .withIdentity(identity)
+                .withArea(area)
+                .withFunctionalDomain(domain)
+                .withAction(action)
+                .build();
+        SecurityURIBody body = new SecurityURIBody.Builder()
+                .withRealm("b2bi")
+                .withOrgRefName("*")
+                .withAccountNumber("*")
+                .withTenantId(tenant)
+                .withOwnerId("*")
+                .withDataSegment("*")
+                .withResourceId("*")
+                .build();
+        return new Rule.Builder()
+                .withName(name)
+                .withSecurityURI(new SecurityURI(header, body))
+                .withEffect(RuleEffect.ALLOW)
+                .withPriority(priority)
+                .build();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(RuleIndexBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
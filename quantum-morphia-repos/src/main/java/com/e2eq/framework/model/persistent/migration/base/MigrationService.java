@@ -33,6 +33,14 @@ import org.semver4j.Semver;
 
 import java.util.*;
 import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 
 @ApplicationScoped
@@ -64,6 +72,30 @@ public class MigrationService {
    @ConfigProperty(name = "quantum.migration.apply.realms")
    Optional<String> startupRealmsCsv;
 
+   /**
+    * How long a realm's migration status is trusted by {@link #checkInitializedCached(String)} before
+    * it is read from the database again; 0 disables the cache.
+    */
+   @ConfigProperty(name = "quantum.database.migration.statusCacheSeconds", defaultValue = "30")
+   protected long statusCacheSeconds = 30;
+
+   /** Number of realms migrated at the same time on startup; each realm still runs under its migration lock. */
+   @ConfigProperty(name = "quantum.migration.startup.parallelism", defaultValue = "4")
+   protected int startupParallelism = 4;
+
+   /** Number of collections whose indexes are built at the same time within one realm. */
+   @ConfigProperty(name = "quantum.migration.startup.indexParallelism", defaultValue = "4")
+   protected int indexParallelism = 4;
+
+   /**
+    * {@code all} (default): startup waits until every startup realm is migrated and fails on the first
+    * realm that fails; realms not started by then are reported as SKIPPED.
+    * {@code system}: startup waits for the system realm only; the other realms finish in the
+    * background and {@link #getStartupMigrations()} completes when they are done.
+    */
+   @ConfigProperty(name = "quantum.migration.startup.readiness", defaultValue = "all")
+   protected String startupReadiness = "all";
+
    @Inject
    DatabaseVersionRepo databaseVersionRepo;
 
@@ -82,6 +114,20 @@ public class MigrationService {
    @Inject
    MorphiaDataStoreWrapper morphiaDataStoreWrapper;
 
+   /** The outcome of the last {@link #checkInitialized(String)} of a realm; failure is null when it passed. */
+   private record RealmStatus(long checkedAtNanos, DatabaseMigrationException failure) {
+   }
+
+   private final Map<String, RealmStatus> realmStatus = new ConcurrentHashMap<>();
+   private final Map<String, Integer> migrationsInFlight = new ConcurrentHashMap<>();
+
+   /** Progress of one realm's startup migration. */
+   public record RealmStartupStatus(String realm, String state, long elapsedMillis, String error) {
+   }
+
+   private final Map<String, RealmStartupStatus> startupStatus = new ConcurrentHashMap<>();
+   private volatile CompletableFuture<Void> startupMigrations = CompletableFuture.completedFuture(null);
+
    public void initializeStartupRealms() {
       initializeStartupRealms(true);
    }
@@ -105,11 +151,102 @@ public class MigrationService {
       List<String> databaseNames = mongoClient.listDatabaseNames().into(new ArrayList<>());
       List<String> startupRealms = resolveStartupRealms(databaseNames, includeSystemRealm);
       Log.infof(">> Migration startup realms: %s", startupRealms);
-      for (String realm : startupRealms) {
-         ensureRealmInitializedOnStartup(realm, databaseNames.contains(realm));
+
+      // the system realm goes first, other realms may read from it while they migrate
+      List<String> otherRealms = new ArrayList<>(startupRealms);
+      if (otherRealms.remove(systemRealm)) {
+         initializeStartupRealm(systemRealm, databaseNames.contains(systemRealm));
+      }
+      if (otherRealms.isEmpty()) {
+         startupMigrations = CompletableFuture.completedFuture(null);
+         return;
+      }
+
+      boolean background = "system".equalsIgnoreCase(startupReadiness);
+      int threads = Math.max(1, Math.min(startupParallelism, otherRealms.size()));
+      ExecutorService pool = Executors.newFixedThreadPool(threads, namedDaemonThreads("realm-migration"));
+      // completes exceptionally with the first realm that fails instead of waiting for all of them
+      CompletableFuture<Void> migrations = new CompletableFuture<>();
+      List<CompletableFuture<Void>> futures = new ArrayList<>();
+      for (String realm : otherRealms) {
+         boolean exists = databaseNames.contains(realm);
+         CompletableFuture<Void> future = CompletableFuture.runAsync(() -> {
+            // startup is failing anyway; realms still queued are not started, running ones finish under their lock
+            if (!background && migrations.isCompletedExceptionally()) {
+               startupStatus.put(realm, new RealmStartupStatus(realm, "SKIPPED", 0L, null));
+               return;
+            }
+            initializeStartupRealm(realm, exists);
+         }, pool);
+         future.whenComplete((v, e) -> {
+            if (e != null) {
+               migrations.completeExceptionally(e instanceof CompletionException && e.getCause() != null ? e.getCause() : e);
+            }
+         });
+         futures.add(future);
+      }
+      CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]))
+         .whenComplete((v, e) -> {
+            pool.shutdown();
+            migrations.complete(null);
+         });
+      startupMigrations = migrations;
+
+      if (background) {
+         Log.infof(">> Migration: %d realm(s) continue in the background (quantum.migration.startup.readiness=system)", otherRealms.size());
+         startupMigrations.whenComplete((v, e) -> Log.infof(">> Migration: background startup realms finished: %s", startupStatus.values()));
+         return;
+      }
+      try {
+         migrations.join();
+      } catch (CompletionException e) {
+         if (e.getCause() instanceof RuntimeException re) {
+            throw re;
+         }
+         throw e;
+      }
+   }
+
+   /**
+    * Completes when the realms migrated on startup are done; completes exceptionally as soon as one
+    * fails, without waiting for the realms that are still running.
+    */
+   public CompletableFuture<Void> getStartupMigrations() {
+      return startupMigrations;
+   }
+
+   /**
+    * Gets the state and duration of each realm's startup migration.
+    */
+   public Map<String, RealmStartupStatus> getStartupStatus() {
+      return new TreeMap<>(startupStatus);
+   }
+
+   private void initializeStartupRealm(String realm, boolean realmExists) {
+      long start = System.nanoTime();
+      startupStatus.put(realm, new RealmStartupStatus(realm, "RUNNING", 0L, null));
+      try {
+         ensureRealmInitializedOnStartup(realm, realmExists);
+         long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+         startupStatus.put(realm, new RealmStartupStatus(realm, "DONE", millis, null));
+         Log.infof(">> Migration: realm %s ready in %d ms", realm, millis);
+      } catch (RuntimeException e) {
+         long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+         startupStatus.put(realm, new RealmStartupStatus(realm, "FAILED", millis, e.getMessage()));
+         Log.errorf(e, ">> Migration: realm %s failed after %d ms", realm, millis);
+         throw e;
       }
    }
 
+   private static ThreadFactory namedDaemonThreads(String prefix) {
+      AtomicInteger counter = new AtomicInteger();
+      return r -> {
+         Thread t = new Thread(r, prefix + "-" + counter.incrementAndGet());
+         t.setDaemon(true);
+         return t;
+      };
+   }
+
    List<String> resolveStartupRealms(List<String> existingDatabaseNames) {
       return resolveStartupRealms(existingDatabaseNames, true);
    }
@@ -238,6 +375,58 @@ public class MigrationService {
       }
    }
 
+   /**
+    * Same check as {@link #checkInitialized(String)}, answered from a per-realm status kept for
+    * {@code quantum.database.migration.statusCacheSeconds}, so request filters do not read the
+    * database on every call. The status is refreshed when a migration of the realm completes on this
+    * node; while one is running the realm is reported as not ready.
+    *
+    * @throws DatabaseMigrationException when the realm is not initialized, is out of date, or is being migrated
+    */
+   public void checkInitializedCached (String realm) {
+      if (migrationsInFlight.containsKey(realm)) {
+         throw new DatabaseMigrationException(String.format("Migration in progress for realm: %s", realm));
+      }
+      RealmStatus status = realmStatus.get(realm);
+      if (status == null || System.nanoTime() - status.checkedAtNanos() > TimeUnit.SECONDS.toNanos(statusCacheSeconds)) {
+         status = refreshMigrationStatus(realm);
+      }
+      if (status.failure() != null) {
+         // a new instance per caller; the cached one is shared between threads
+         throw new DatabaseMigrationException(status.failure().getMessage());
+      }
+   }
+
+   /**
+    * Forgets the cached migration status of a realm; the next cached check reads it again.
+    */
+   public void invalidateMigrationStatus (String realm) {
+      realmStatus.remove(realm);
+   }
+
+   private RealmStatus refreshMigrationStatus (String realm) {
+      RealmStatus status;
+      try {
+         checkInitialized(realm);
+         status = new RealmStatus(System.nanoTime(), null);
+      } catch (DatabaseMigrationException e) {
+         status = new RealmStatus(System.nanoTime(), e);
+      }
+      if (statusCacheSeconds > 0) {
+         realmStatus.put(realm, status);
+      }
+      return status;
+   }
+
+   private void migrationStarted (String realm) {
+      migrationsInFlight.merge(realm, 1, Integer::sum);
+   }
+
+   private void migrationFinished (String realm) {
+      migrationsInFlight.computeIfPresent(realm, (r, n) -> n > 1 ? n - 1 : null);
+      realmStatus.remove(realm);
+   }
+
    public void dropIndexOnCollection (String realm, String collectionName) {
       mongoClient.getDatabase(realm).getCollection(collectionName).dropIndexes();
    }
@@ -266,16 +455,28 @@ public class MigrationService {
       var datastore = morphiaDataStoreWrapper.getDataStore(realmId);
       var entities = datastore.getMapper().getMappedEntities();
       Log.infof("applyAllIndexes: ensuring indexes for %d mapped entity types in realm %s", entities.size(), realmId);
-      for (var entity : entities) {
-         try {
-            datastore.ensureIndexes(entity.getType());
-            Log.debugf("applyAllIndexes: ensured indexes for %s in %s", entity.collectionName(), realmId);
-         } catch (Exception e) {
-            Log.warnf(e, "applyAllIndexes: failed to ensure indexes for %s in %s", entity.collectionName(), realmId);
+      long start = System.nanoTime();
+      // index builds of different collections do not depend on each other
+      int threads = Math.max(1, Math.min(indexParallelism, entities.size()));
+      ExecutorService pool = Executors.newFixedThreadPool(threads, namedDaemonThreads("index-" + realmId));
+      try {
+         List<CompletableFuture<Void>> builds = new ArrayList<>();
+         for (var entity : entities) {
+            builds.add(CompletableFuture.runAsync(() -> {
+               try {
+                  datastore.ensureIndexes(entity.getType());
+                  Log.debugf("applyAllIndexes: ensured indexes for %s in %s", entity.collectionName(), realmId);
+               } catch (Exception e) {
+                  Log.warnf(e, "applyAllIndexes: failed to ensure indexes for %s in %s", entity.collectionName(), realmId);
+               }
+            }, pool));
          }
+         CompletableFuture.allOf(builds.toArray(new CompletableFuture[0])).join();
+      } finally {
+         pool.shutdown();
       }
       datastore.applyIndexes();
-      Log.infof("applyAllIndexes: completed for realm %s", realmId);
+      Log.infof("applyAllIndexes: completed for realm %s in %d ms", realmId, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
    }
 
    public void dropAllIndexes (String realmId) {
@@ -372,7 +573,9 @@ public class MigrationService {
          dbVersion.setRefName(datastore.getDatabase().getName());
       }
 
-      return databaseVersionRepo.save(datastore, dbVersion);
+      DatabaseVersion saved = databaseVersionRepo.save(datastore, dbVersion);
+      invalidateMigrationStatus(datastore.getDatabase().getName());
+      return saved;
    }
 
    public List<ChangeSetBean> getAllChangeSetBeans () {
@@ -518,6 +721,7 @@ public class MigrationService {
       DistributedLock lock = getMigrationLock(realm);
       log(String.format("-- Got Migration Lock Executing change sets on database / realm:%s --", realm), emitter);
       lock.runLocked(() -> {
+         migrationStarted(realm);
          MorphiaSession ds = morphiaDataStoreWrapper.getDataStore(realm).startSession();
          try {
             log(String.format("        Executing Change Set: %s in realm %s", changeSetBean.getName(), realm), emitter);
@@ -532,6 +736,7 @@ public class MigrationService {
             updateChangeLog(ds, realm, changeSetBean, emitter);
          } finally {
             ds.close();
+            migrationFinished(realm);
          }
       });
    }
@@ -551,79 +756,86 @@ public class MigrationService {
          DistributedLock lock = getMigrationLock(realm);
          log(String.format("-- Got Migration Lock Executing change sets on database / realm:%s --", realm), emitter);
          lock.runLocked(() -> {
-            changeSetList.forEach(changeSetBean -> {
-               log(String.format("    checking for previous execution of Change Set: %s, in database %s", changeSetBean.getName(), realm ), emitter);
-               // first check if this change set has run already or not
-               Optional<ChangeSetRecord> changeSetRec = changesetRecordRepo.findLatestByChangeSetName(morphiaDataStoreWrapper.getDataStore(realm), changeSetBean.getName());
-               boolean shouldRun = !changeSetRec.isPresent() ||
-                                   changeSetRec.get().getChangeSetVersion() < changeSetBean.getChangeSetVersion() ||
-                                   (changeSetBean.getChecksum() != null && !changeSetBean.getChecksum().equals(changeSetRec.get().getChecksum()));
-               if (changeSetRec.isPresent()) {
-                  log(String.format("    Found existing record for %s: version=%d, checksum=%s; Bean: version=%d, checksum=%s",
-                     changeSetBean.getName(), changeSetRec.get().getChangeSetVersion(), changeSetRec.get().getChecksum(),
-                     changeSetBean.getChangeSetVersion(), changeSetBean.getChecksum()), emitter);
-               }
-               if (shouldRun) {
-
-                  if ((changeSetBean.getApplicableDatabases() == null) ||
-                         (changeSetBean.getApplicableDatabases() != null && changeSetBean.getApplicableDatabases().contains(realm))
-                  ) {
-                     Log.infof("Executing Change Set:%s", changeSetBean.getName());
-                     emitter.emit(String.format("Executing Change Set:%s", changeSetBean.getName()));
-
-                     if (changeSetBean.isOverrideDatabase() && changeSetBean.getOverrideDatabaseName() != null &&
-                            !changeSetBean.getOverrideDatabaseName().isEmpty() && !changeSetBean.getOverrideDatabaseName().equalsIgnoreCase(realm)) {
-                        log(String.format("Overridden Database for changeSetBean:%s, to database:%s from default:%s", changeSetBean.getName(), changeSetBean.getOverrideDatabaseName(), realm), emitter);
-                        MorphiaSession ods = morphiaDataStoreWrapper.getDataStore(changeSetBean.getOverrideDatabaseName()).startSession();
-
-                        DistributedLock olock = getMigrationLock(changeSetBean.getOverrideDatabaseName());
-                        olock.runLocked(() -> {
+            migrationStarted(realm);
+            try {
+               changeSetList.forEach(changeSetBean -> {
+                  log(String.format("    checking for previous execution of Change Set: %s, in database %s", changeSetBean.getName(), realm ), emitter);
+                  // first check if this change set has run already or not
+                  Optional<ChangeSetRecord> changeSetRec = changesetRecordRepo.findLatestByChangeSetName(morphiaDataStoreWrapper.getDataStore(realm), changeSetBean.getName());
+                  boolean shouldRun = !changeSetRec.isPresent() ||
+                                      changeSetRec.get().getChangeSetVersion() < changeSetBean.getChangeSetVersion() ||
+                                      (changeSetBean.getChecksum() != null && !changeSetBean.getChecksum().equals(changeSetRec.get().getChecksum()));
+                  if (changeSetRec.isPresent()) {
+                     log(String.format("    Found existing record for %s: version=%d, checksum=%s; Bean: version=%d, checksum=%s",
+                        changeSetBean.getName(), changeSetRec.get().getChangeSetVersion(), changeSetRec.get().getChecksum(),
+                        changeSetBean.getChangeSetVersion(), changeSetBean.getChecksum()), emitter);
+                  }
+                  if (shouldRun) {
+
+                     if ((changeSetBean.getApplicableDatabases() == null) ||
+                            (changeSetBean.getApplicableDatabases() != null && changeSetBean.getApplicableDatabases().contains(realm))
+                     ) {
+                        Log.infof("Executing Change Set:%s", changeSetBean.getName());
+                        emitter.emit(String.format("Executing Change Set:%s", changeSetBean.getName()));
+
+                        if (changeSetBean.isOverrideDatabase() && changeSetBean.getOverrideDatabaseName() != null &&
+                               !changeSetBean.getOverrideDatabaseName().isEmpty() && !changeSetBean.getOverrideDatabaseName().equalsIgnoreCase(realm)) {
+                           log(String.format("Overridden Database for changeSetBean:%s, to database:%s from default:%s", changeSetBean.getName(), changeSetBean.getOverrideDatabaseName(), realm), emitter);
+                           MorphiaSession ods = morphiaDataStoreWrapper.getDataStore(changeSetBean.getOverrideDatabaseName()).startSession();
+
+                           DistributedLock olock = getMigrationLock(changeSetBean.getOverrideDatabaseName());
+                           olock.runLocked(() -> {
+                              migrationStarted(changeSetBean.getOverrideDatabaseName());
+                              try {
+                                 Log.infof("        Starting Transaction for Change Set:%s on database: %s", changeSetBean.getName(), changeSetBean.getOverrideDatabaseName());
+                                 emitter.emit(String.format("        Starting Transaction for Change Set:%s", changeSetBean.getName()));
+
+                                 ods.startTransaction();
+                                 changeSetBean.execute(ods, mongoClient, emitter);
+                                 updateChangeLog(ods, changeSetBean.getOverrideDatabaseName(), changeSetBean, emitter);
+                                 ods.commitTransaction();
+                                 Log.infof("        Committed Transaction for Change Set:%s", changeSetBean.getName());
+                                 emitter.emit(String.format("        Commited Transaction for Change Set:%s", changeSetBean.getName()));
+                              } catch (Throwable e) {
+                                 emitter.fail(e);
+                                 e.printStackTrace();
+                                 ods.abortTransaction();
+                                 throw new RuntimeException(e);
+                              } finally {
+                                 ods.close();
+                                 migrationFinished(changeSetBean.getOverrideDatabaseName());
+                              }
+                           });
+                        } else {
+                           MorphiaSession ds = morphiaDataStoreWrapper.getDataStore(realm).startSession();
                            try {
-                              Log.infof("        Starting Transaction for Change Set:%s on database: %s", changeSetBean.getName(), changeSetBean.getOverrideDatabaseName());
-                              emitter.emit(String.format("        Starting Transaction for Change Set:%s", changeSetBean.getName()));
+                              log(String.format("        Starting Transaction for Change Set:%s on database", changeSetBean.getName(), realm), emitter);
 
-                              ods.startTransaction();
-                              changeSetBean.execute(ods, mongoClient, emitter);
-                              updateChangeLog(ods, changeSetBean.getOverrideDatabaseName(), changeSetBean, emitter);
-                              ods.commitTransaction();
+                              ds.startTransaction();
+                              changeSetBean.execute(ds, mongoClient, emitter);
+                              updateChangeLog(ds, realm, changeSetBean, emitter);
+                              ds.commitTransaction();
                               Log.infof("        Committed Transaction for Change Set:%s", changeSetBean.getName());
                               emitter.emit(String.format("        Commited Transaction for Change Set:%s", changeSetBean.getName()));
                            } catch (Throwable e) {
                               emitter.fail(e);
                               e.printStackTrace();
-                              ods.abortTransaction();
+                              ds.abortTransaction();
                               throw new RuntimeException(e);
                            } finally {
-                              ods.close();
+                              ds.close();
                            }
-                        });
-                     } else {
-                        MorphiaSession ds = morphiaDataStoreWrapper.getDataStore(realm).startSession();
-                        try {
-                           log(String.format("        Starting Transaction for Change Set:%s on database", changeSetBean.getName(), realm), emitter);
-
-                           ds.startTransaction();
-                           changeSetBean.execute(ds, mongoClient, emitter);
-                           updateChangeLog(ds, realm, changeSetBean, emitter);
-                           ds.commitTransaction();
-                           Log.infof("        Committed Transaction for Change Set:%s", changeSetBean.getName());
-                           emitter.emit(String.format("        Commited Transaction for Change Set:%s", changeSetBean.getName()));
-                        } catch (Throwable e) {
-                           emitter.fail(e);
-                           e.printStackTrace();
-                           ds.abortTransaction();
-                           throw new RuntimeException(e);
-                        } finally {
-                           ds.close();
                         }
+                     } else {
+                        log(String.format("Ignoring Change Set:%s because it is not applicable to realm:%s", changeSetBean.getName(), realm), emitter);
                      }
                   } else {
-                     log(String.format("Ignoring Change Set:%s because it is not applicable to realm:%s", changeSetBean.getName(), realm), emitter);
+                     Log.infof("Change Set:%s has already been executed on database %s", changeSetBean.getName(), realm);
                   }
-               } else {
-                  Log.infof("Change Set:%s has already been executed on database %s", changeSetBean.getName(), realm);
-               }
-               });
+                  });
+            } finally {
+               migrationFinished(realm);
+            }
                log(String.format("-- Lock Released --"), emitter);
                log("-- All Change Sets executed --", emitter);
                log(String.format("-------------- Migration Completed for: %s--------------", realm), emitter);
@@ -631,6 +843,13 @@ public class MigrationService {
          } else {
             log(String.format("-- No pending change sets found for realm: %s", realm), emitter);
          }
+         // the completed migration is the new status of the realm for request filters
+         try {
+            refreshMigrationStatus(realm);
+         } catch (RuntimeException e) {
+            invalidateMigrationStatus(realm);
+            Log.debugf("Could not refresh migration status of realm %s: %s", realm, e.getMessage());
+         }
    }
 
 
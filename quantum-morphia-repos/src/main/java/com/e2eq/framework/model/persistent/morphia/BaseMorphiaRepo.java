@@ -270,6 +270,43 @@ public interface BaseMorphiaRepo<T extends UnversionedBaseModel> {
     */
    List<T> getListByQuery(@NotNull Datastore datastore, int skip, int limit, @Nullable String query, @Nullable List<SortField> sortFields, @Nullable List<ProjectionField> projectionFields);
 
+   /**
+    * Returns one keyset page of entities in the default realm: the rows that sort after the row
+    * the page token was issued for, instead of skipping a number of rows. The sort is made total
+    * by appending {@code _id}. Pass a null token for the first page and
+    * {@link #nextPageToken(List, UnversionedBaseModel)} of the last row for the following ones.
+    *
+    * @param pageToken        token from the previous page, or {@code null} for the first page
+    * @param limit            page size; 0 or negative for all
+    * @param query            optional filter query
+    * @param sortFields       optional sort specification
+    * @param projectionFields optional projection; include projections are extended with the sort fields
+    * @return list of matching entities
+    * @throws IllegalArgumentException when the token is malformed or was issued for another sort
+    */
+   List<T> getListByQuery(@Nullable String pageToken, int limit, @Nullable String query, @Nullable List<SortField> sortFields, @Nullable List<ProjectionField> projectionFields);
+
+   /**
+    * Returns one keyset page of entities within a realm.
+    * @see #getListByQuery(String, int, String, List, List)
+    */
+   List<T> getListByQuery(String realmId, @Nullable String pageToken, int limit, @Nullable String query, @Nullable List<SortField> sortFields, @Nullable List<ProjectionField> projectionFields);
+
+   /**
+    * Returns one keyset page of entities using an explicit datastore.
+    * @see #getListByQuery(String, int, String, List, List)
+    */
+   List<T> getListByQuery(@NotNull Datastore datastore, @Nullable String pageToken, int limit, @Nullable String query, @Nullable List<SortField> sortFields, @Nullable List<ProjectionField> projectionFields);
+
+   /**
+    * Builds the keyset page token for the page following {@code lastRow}.
+    *
+    * @param sortFields the sort the page was read with
+    * @param lastRow the last row of the page
+    * @return the opaque token, or {@code null} when lastRow is null
+    */
+   String nextPageToken(@Nullable List<SortField> sortFields, @Nullable T lastRow);
+
    /**
     * Returns entities based on the given filters and sort fields in the default realm.
     * @param skip    must be 0 or greater
@@ -424,6 +461,36 @@ public interface BaseMorphiaRepo<T extends UnversionedBaseModel> {
     */
   CloseableIterator<T> getStreamByQuery(Datastore datastore, int skip, int limit, @Nullable String query, @Nullable List<SortField> sortFields, @Nullable List<ProjectionField> projectionFields);
 
+  /**
+    * Streams matching entities from the specified realm. The caller must close the iterator.
+    * @param realmId the realm identifier
+    * @param skip offset; must be 0 or greater
+    * @param limit page size; 0 or negative for all
+    * @param query optional filter query
+    * @param sortFields optional sort specification
+    * @param projectionFields optional projection fields
+    * @return a closeable iterator over matching entities
+    */
+  CloseableIterator<T> getStreamByQuery(String realmId, int skip, int limit, @Nullable String query, @Nullable List<SortField> sortFields, @Nullable List<ProjectionField> projectionFields);
+
+  /**
+    * Streams one keyset page of entities in the default realm. The caller must close the iterator.
+    * @see #getListByQuery(String, int, String, List, List)
+    */
+  CloseableIterator<T> getStreamByQuery(@Nullable String pageToken, int limit, @Nullable String query, @Nullable List<SortField> sortFields, @Nullable List<ProjectionField> projectionFields);
+
+  /**
+    * Streams one keyset page of entities from the specified realm. The caller must close the iterator.
+    * @see #getListByQuery(String, int, String, List, List)
+    */
+  CloseableIterator<T> getStreamByQuery(String realmId, @Nullable String pageToken, int limit, @Nullable String query, @Nullable List<SortField> sortFields, @Nullable List<ProjectionField> projectionFields);
+
+  /**
+    * Streams one keyset page of entities using an explicit datastore. The caller must close the iterator.
+    * @see #getListByQuery(String, int, String, List, List)
+    */
+  CloseableIterator<T> getStreamByQuery(Datastore datastore, @Nullable String pageToken, int limit, @Nullable String query, @Nullable List<SortField> sortFields, @Nullable List<ProjectionField> projectionFields);
+
    /**
     * Returns the count of matching entities within the specified realm.
     * @param realmId the realm identifier
@@ -445,6 +512,24 @@ public interface BaseMorphiaRepo<T extends UnversionedBaseModel> {
     */
    long getCount(@NotNull Datastore datastore,@Nullable String filter);
 
+   /**
+    * Returns a page of the persistence events recorded for an entity, newest first.
+    * Only entities annotated with {@link com.e2eq.framework.annotations.AuditPersistence} record events.
+    * @param realmId the realm identifier; null for the default realm
+    * @param id the entity identifier
+    * @param skip number of events to skip
+    * @param limit maximum number of events to return
+    * @return the events, newest first
+    */
+   List<PersistentEvent> getPersistentEventHistory(@Nullable String realmId, @NotNull ObjectId id, int skip, int limit);
+   /**
+    * Returns the number of persistence events recorded for an entity.
+    * @param realmId the realm identifier; null for the default realm
+    * @param id the entity identifier
+    * @return the event count
+    */
+   long getPersistentEventCount(@Nullable String realmId, @NotNull ObjectId id);
+
    // Write based API's
 
    /**
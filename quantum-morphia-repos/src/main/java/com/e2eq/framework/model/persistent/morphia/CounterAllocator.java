@@ -0,0 +1,123 @@
+package com.e2eq.framework.model.persistent.morphia;
+
+import com.e2eq.framework.model.persistent.base.DataDomain;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hands out counter values from blocks reserved in the database (hi/lo allocation).
+ *
+ * Each (realm, counter name, DataDomain) reserves {@code quantum.counters.blockSize} numbers at a
+ * time with one atomic increment of the Counter document and then serves them from memory, so
+ * only one call in a block touches MongoDB and writers on the same counter rarely contend.
+ * Values are unique across nodes and increasing per node, but not globally ordered, and the unused
+ * rest of a node's block is skipped when the node stops. Set {@code quantum.counters.gapFree} for
+ * counters that must not skip numbers; every value is then reserved individually, still as a single
+ * atomic update.
+ */
+@ApplicationScoped
+public class CounterAllocator {
+
+    @ConfigProperty(name = "quantum.counters.blockSize", defaultValue = "100")
+    int blockSize = 100;
+
+    @ConfigProperty(name = "quantum.counters.gapFree", defaultValue = "false")
+    boolean gapFree = false;
+
+    @Inject
+    CounterRepo counterRepo;
+
+    private final Map<BlockKey, Block> blocks = new ConcurrentHashMap<>();
+    private final AtomicLong served = new AtomicLong();
+    private final AtomicLong reservations = new AtomicLong();
+
+    private record BlockKey(String realmId, String name, String accountNum, String tenantId,
+                            String orgRefName, int dataSegment) {
+        static BlockKey of(String realmId, String name, DataDomain dd) {
+            return new BlockKey(realmId, name, dd.getAccountNum(), dd.getTenantId(), dd.getOrgRefName(), dd.getDataSegment());
+        }
+    }
+
+    /** The numbers [next, end) reserved by this node. */
+    private static final class Block {
+        long next;
+        long end;
+    }
+
+    /**
+     * Returns the next value of the counter in the current security context's realm.
+     */
+    public long next(@NotNull @NotEmpty String name, @Valid DataDomain dataDomain) {
+        return next(counterRepo.getSecurityContextRealmId(), name, dataDomain);
+    }
+
+    /**
+     * Returns the next value of the counter in the given realm.
+     */
+    public long next(@NotNull String realmId, @NotNull @NotEmpty String name, @Valid DataDomain dataDomain) {
+        Objects.requireNonNull(dataDomain, "dataDomain cannot be null");
+        served.incrementAndGet();
+        if (gapFree || blockSize <= 1) {
+            reservations.incrementAndGet();
+            return reserve(realmId, name, dataDomain, 1);
+        }
+        Block block = blocks.computeIfAbsent(BlockKey.of(realmId, name, dataDomain), k -> new Block());
+        synchronized (block) {
+            if (block.next >= block.end) {
+                reservations.incrementAndGet();
+                block.next = reserve(realmId, name, dataDomain, blockSize);
+                block.end = block.next + blockSize;
+            }
+            return block.next++;
+        }
+    }
+
+    /**
+     * Returns the next value of the counter, encoded in the given base when one is requested.
+     *
+     * @param base optional radix between 2 and 36
+     * @throws IllegalArgumentException when the base is outside 2-36
+     */
+    public CounterValue nextEncoded(@NotNull @NotEmpty String name, @Valid DataDomain dataDomain, Integer base) {
+        if (base != null && !CounterRepo.isValidBase(base)) {
+            throw new IllegalArgumentException("Invalid base; supported range is 2-36");
+        }
+        return CounterRepo.encoded(next(name, dataDomain), base);
+    }
+
+    /**
+     * Forgets the blocks reserved by this node; their unused numbers are skipped.
+     */
+    public void clear() {
+        blocks.clear();
+    }
+
+    /**
+     * Gets allocator metrics as a map.
+     *
+     * @return map of metric names to values
+     */
+    public Map<String, Object> getSummary() {
+        Map<String, Object> summary = new HashMap<>();
+        summary.put("blockSize", blockSize);
+        summary.put("gapFree", gapFree);
+        summary.put("counters", blocks.size());
+        summary.put("valuesServed", served.get());
+        summary.put("reservations", reservations.get());
+        return summary;
+    }
+
+    private long reserve(String realmId, String name, DataDomain dataDomain, long amount) {
+        return counterRepo.getAndIncrement(realmId, name, dataDomain, amount);
+    }
+}
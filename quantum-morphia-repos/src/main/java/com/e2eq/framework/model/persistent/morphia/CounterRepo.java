@@ -3,8 +3,11 @@ package com.e2eq.framework.model.persistent.morphia;
 import com.e2eq.framework.model.persistent.base.Counter;
 import com.e2eq.framework.model.persistent.base.DataDomain;
 import com.e2eq.framework.model.securityrules.SecurityContext;
+import com.mongodb.MongoException;
+import com.mongodb.client.model.ReturnDocument;
 import dev.morphia.Datastore;
 
+import dev.morphia.ModifyOptions;
 import dev.morphia.query.filters.Filters;
 import dev.morphia.query.updates.UpdateOperators;
 import jakarta.enterprise.context.ApplicationScoped;
@@ -16,6 +19,8 @@ import jakarta.validation.constraints.NotNull;
 @ApplicationScoped
 public class CounterRepo extends MorphiaRepo<Counter> {
 
+    private static final int DUPLICATE_KEY = 11000;
+
     public static boolean isValidBase(Integer base) {
         if (base == null) return false;
         int b = base.intValue();
@@ -32,46 +37,48 @@ public class CounterRepo extends MorphiaRepo<Counter> {
     }
 
 
+    /**
+     * Atomically adds {@code incrementAmount} to the counter and returns the value before the
+     * increment; numbers [previous, previous + incrementAmount) belong to the caller. A counter
+     * that does not exist yet is first created at 0 through {@link #save(Datastore, Counter)}, so it
+     * carries the audit info and defaults of any other saved model, and is then incremented with a
+     * single {@code findOneAndUpdate}.
+     */
     public long getAndIncrement(@NotNull Datastore ds, @NotNull @NotEmpty  String name, @Valid DataDomain dataDomain,
                                 long incrementAmount){
-
-        // Option 2: use a transactional approach to ensure an ObjectId is created on save,
-        // then perform the increment and return the previous value atomically.
-        return ds.withTransaction(session -> {
-            // Find existing counter within the transaction
-            Counter existing = ds.find(Counter.class).filter(
-                    Filters.eq("refName", name),
-                    Filters.eq("dataDomain.accountNum", dataDomain.getAccountNum()),
-                    Filters.eq("dataDomain.tenantId", dataDomain.getTenantId()),
-                    Filters.eq("dataDomain.orgRefName", dataDomain.getOrgRefName()),
-                    Filters.eq("dataDomain.dataSegment", dataDomain.getDataSegment())
-            ).first();
-
-            long previous;
-            if (existing == null) {
-                // Create the counter initialized at 0 with required fields
-                Counter created = new Counter();
-                created.setDisplayName(name);
-                created.setRefName(name);
-                created.setCurrentValue(0);
-                created.setDataDomain(dataDomain);
-                created = save(ds, created);
-                previous = 0L;
-            } else {
-                previous = existing.getCurrentValue();
+        Counter after = incrementCounter(ds, name, dataDomain, incrementAmount);
+        if (after != null) {
+            return after.getCurrentValue() - incrementAmount;
+        }
+        Counter created = new Counter();
+        created.setRefName(name);
+        created.setDisplayName(name);
+        created.setCurrentValue(0);
+        created.setDataDomain(dataDomain);
+        try {
+            save(ds, created);
+        } catch (MongoException e) {
+            // another caller created the counter first; increment theirs
+            if (e.getCode() != DUPLICATE_KEY) {
+                throw e;
             }
+        }
+        after = incrementCounter(ds, name, dataDomain, incrementAmount);
+        if (after == null) {
+            throw new IllegalStateException("Counter " + name + " could not be created");
+        }
+        return after.getCurrentValue() - incrementAmount;
+    }
 
-            // Now increment currentValue
-            ds.find(Counter.class).filter(
-                    Filters.eq("refName", name),
-                    Filters.eq("dataDomain.accountNum", dataDomain.getAccountNum()),
-                    Filters.eq("dataDomain.tenantId", dataDomain.getTenantId()),
-                    Filters.eq("dataDomain.orgRefName", dataDomain.getOrgRefName()),
-                    Filters.eq("dataDomain.dataSegment", dataDomain.getDataSegment())
-            ).modify(UpdateOperators.inc("currentValue", incrementAmount));
-
-            return previous;
-        });
+    private Counter incrementCounter(Datastore ds, String name, DataDomain dataDomain, long incrementAmount) {
+        return ds.find(Counter.class).filter(
+                Filters.eq("refName", name),
+                Filters.eq("dataDomain.accountNum", dataDomain.getAccountNum()),
+                Filters.eq("dataDomain.tenantId", dataDomain.getTenantId()),
+                Filters.eq("dataDomain.orgRefName", dataDomain.getOrgRefName()),
+                Filters.eq("dataDomain.dataSegment", dataDomain.getDataSegment())
+        ).modify(new ModifyOptions().returnDocument(ReturnDocument.AFTER),
+                UpdateOperators.inc("currentValue", incrementAmount));
     }
 
    public long getAndIncrement(@NotNull @NotEmpty  String name, @Valid DataDomain dataDomain,
@@ -80,12 +87,26 @@ public class CounterRepo extends MorphiaRepo<Counter> {
       return getAndIncrement(ds, name, dataDomain, incrementAmount);
    }
 
+   public long getAndIncrement(@NotNull String realmId, @NotNull @NotEmpty String name, @Valid DataDomain dataDomain,
+                               long incrementAmount) {
+      return getAndIncrement(morphiaDataStoreWrapper.getDataStore(realmId), name, dataDomain, incrementAmount);
+   }
+
    public CounterValue getAndIncrementEncoded(@NotNull @NotEmpty String name,
                                               @Valid DataDomain dataDomain,
                                               long incrementAmount,
                                               Integer base) {
       Datastore ds = morphiaDataStoreWrapper.getDataStore(getSecurityContextRealmId());
       long value = getAndIncrement(ds, name, dataDomain, incrementAmount);
+      return encoded(value, base);
+   }
+
+   /**
+    * Wraps a counter value, encoding it in the given base when one is requested.
+    *
+    * @throws IllegalArgumentException when the base is outside 2-36
+    */
+   public static CounterValue encoded(long value, Integer base) {
       if (base == null) {
          return new CounterValue(value);
       }
@@ -37,6 +37,9 @@ public class CredentialRepo extends MorphiaRepo<CredentialUserIdPassword> {
    @Inject
    RealmRepo realmRepo;
 
+   @Inject
+   RealmCatalog realmCatalog;
+
    @Inject
    com.e2eq.framework.util.SecurityUtils securityUtils;
 
@@ -71,7 +74,11 @@ public class CredentialRepo extends MorphiaRepo<CredentialUserIdPassword> {
 
       CredentialUserIdPassword credential = ocred.get();
 
-      List<Realm> realms = realmRepo.getAllListWithIgnoreRules(envConfigUtils.getSystemRealm());
+      // Read the collection directly when the catalog is absent or has not loaded any realm yet
+      List<Realm> realms = (realmCatalog != null) ? realmCatalog.getAll() : null;
+      if (realms == null || realms.isEmpty()) {
+         realms = realmRepo.getAllListWithIgnoreRules(envConfigUtils.getSystemRealm());
+      }
       List<String> candidateRefNames = realms.stream().map(Realm::getRefName).collect(Collectors.toList());
 
       List<String> allowedRefNames = securityUtils.computeAllowedRealmRefNames(credential, candidateRefNames);
@@ -267,6 +274,16 @@ public class CredentialRepo extends MorphiaRepo<CredentialUserIdPassword> {
    public List<CredentialUserIdPassword> getListByQuery(int skip, int limit, @Nullable String query, List<SortField> sortFields, @Nullable List<ProjectionField> projectionFields) {
       return getListByQuery(morphiaDataStoreWrapper.getDataStore(envConfigUtils.getSystemRealm()), skip, limit, query, sortFields, projectionFields);
    }
+   @Override
+   public List<CredentialUserIdPassword> getListByQuery(@Nullable String pageToken, int limit, @Nullable String query, @Nullable List<SortField> sortFields, @Nullable List<ProjectionField> projectionFields) {
+      return getListByQuery(morphiaDataStoreWrapper.getDataStore(envConfigUtils.getSystemRealm()), pageToken, limit, query, sortFields, projectionFields);
+   }
+
+   @Override
+   public CloseableIterator<CredentialUserIdPassword> getStreamByQuery(@Nullable String pageToken, int limit, @Nullable String query, @Nullable List<SortField> sortFields, @Nullable List<ProjectionField> projectionFields) {
+      return super.getStreamByQuery(morphiaDataStoreWrapper.getDataStore(envConfigUtils.getSystemRealm()), pageToken, limit, query, sortFields, projectionFields);
+   }
+
    @Override
    public List<CredentialUserIdPassword> getListFromReferences(List<EntityReference> references) {
       return getListFromReferences(morphiaDataStoreWrapper.getDataStore(envConfigUtils.getSystemRealm()), references);
@@ -0,0 +1,63 @@
+package com.e2eq.framework.model.persistent.morphia;
+
+import com.e2eq.framework.model.persistent.base.UnversionedBaseModel;
+import dev.morphia.query.filters.Filter;
+import org.antlr.v4.runtime.tree.ParseTree;
+import org.antlr.v4.runtime.tree.ParseTreeWalker;
+import org.apache.commons.text.StringSubstitutor;
+
+import java.util.Objects;
+
+/**
+ * A BIAPI filter string compiled once and bound to variables per request.
+ *
+ * Compiling runs the lexer and parser, which is where nearly all of the cost of
+ * {@link MorphiaUtils#convertToFilter(String, MorphiaUtils.VariableBundle, Class)} goes. The
+ * resulting parse tree is read-only and is shared between threads; {@link #bind} walks it with a
+ * fresh {@link QueryToFilterListener}, which substitutes the {@code ${...}} variables and resolves
+ * typed values, IN lists and ontology predicates against the request's VariableBundle.
+ *
+ * Rule filter strings are compiled through the realm's rule index, so templates live as long as
+ * the policies they came from.
+ */
+public final class FilterTemplate {
+
+    private final String source;
+    private final ParseTree tree;
+
+    private FilterTemplate(String source, ParseTree tree) {
+        this.source = source;
+        this.tree = tree;
+    }
+
+    /**
+     * Parses a filter string.
+     *
+     * @throws IllegalArgumentException when the string is empty or not valid BIAPI syntax
+     */
+    public static FilterTemplate compile(String queryString) {
+        String normalized = MorphiaUtils.normalizeOperators(queryString);
+        ParseTree tree = MorphiaUtils.validateQueryString(normalized)
+                .orElseThrow(() -> new IllegalArgumentException("syntax error in query string"));
+        return new FilterTemplate(queryString, tree);
+    }
+
+    /**
+     * Builds the filter for one request.
+     *
+     * @param vars the request's resolved variables
+     * @param modelClass the entity being queried; drives field type coercion
+     * @throws IllegalStateException when the string references variables the bundle cannot resolve
+     */
+    public Filter bind(MorphiaUtils.VariableBundle vars, Class<? extends UnversionedBaseModel> modelClass) {
+        Objects.requireNonNull(modelClass, "Model class cannot be null");
+        QueryToFilterListener listener = new QueryToFilterListener(vars.objects, vars.strings,
+                new StringSubstitutor(vars.strings), modelClass);
+        ParseTreeWalker.DEFAULT.walk(listener, tree);
+        return listener.getFilter();
+    }
+
+    public String getSource() {
+        return source;
+    }
+}
@@ -5,24 +5,36 @@ import com.e2eq.framework.model.TreeNode;
 import com.e2eq.framework.model.persistent.base.StaticDynamicList;
 import com.e2eq.framework.model.persistent.base.HierarchicalModel;
 import com.e2eq.framework.model.persistent.base.UnversionedBaseModel;
+import com.mongodb.client.MongoCollection;
 import com.mongodb.client.MongoCursor;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.Updates;
 import dev.morphia.Datastore;
 import dev.morphia.aggregation.Aggregation;
+import dev.morphia.query.Query;
+import dev.morphia.query.filters.Filter;
 import dev.morphia.transactions.MorphiaSession;
 import io.quarkus.logging.Log;
 import jakarta.inject.Inject;
 import jakarta.validation.Valid;
 import jakarta.ws.rs.NotFoundException;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.bson.Document;
 import org.bson.types.ObjectId;
 import org.jetbrains.annotations.NotNull;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
 import static dev.morphia.aggregation.stages.GraphLookup.graphLookup;
 import static dev.morphia.aggregation.stages.Match.match;
 import static dev.morphia.query.filters.Filters.eq;
+import static dev.morphia.query.filters.Filters.exists;
 import static dev.morphia.query.filters.Filters.in;
 
 // T - The hierarchical Model
@@ -51,6 +63,15 @@ public abstract class HierarchicalRepo<
     @Inject
     OR objectRepo;
 
+    @ConfigProperty(name = "quantum.hierarchy.tree-cache.max-age-seconds", defaultValue = "300")
+    long treeCacheMaxAgeSeconds = 300;
+
+    // per realm; any write through this repository bumps the generation, the max age bounds staleness across nodes
+    private final Map<String, TreeSnapshot<T>> treeSnapshots = new ConcurrentHashMap<>();
+    private final AtomicLong treeGeneration = new AtomicLong();
+    // databases in which every node carries its ancestors; saves keep it that way, so this only grows
+    private final Set<String> materializedDatabases = ConcurrentHashMap.newKeySet();
+
     @Override
     public long delete(@NotNull ObjectId id) throws ReferentialIntegrityViolationException {
         Optional<T> optionalExisting = findById(id);
@@ -88,8 +109,9 @@ public abstract class HierarchicalRepo<
         // create a transactional session
         try (MorphiaSession session = morphiaDataStoreWrapper.getDataStore(getSecurityContextRealmId()).startSession()) {
             // if updating, and parent changed, remove from old parent's descendants
+            T existing = null;
             if (value.getId() != null) {
-                T existing = this.findById(value.getId()).orElse(null);
+                existing = this.findById(value.getId()).orElse(null);
                 if (existing != null && existing.getParent() != null) {
                     ObjectId oldParentId = existing.getParent().getEntityId();
                     ObjectId newParentId = (value.getParent() != null) ? value.getParent().getEntityId() : null;
@@ -104,6 +126,7 @@ public abstract class HierarchicalRepo<
             }
 
             // Validate parent assignment (no self-parenting, no cycles, parent exists)
+            List<ObjectId> ancestors = new ArrayList<>();
             if (value.getParent() != null) {
                 ObjectId newParentId = value.getParent().getEntityId();
                 if (newParentId == null) {
@@ -111,7 +134,7 @@ public abstract class HierarchicalRepo<
                 }
 
                 // Parent must exist
-                this.findById(newParentId)
+                T parent = this.findById(newParentId)
                         .orElseThrow(() -> new NotFoundException("Parent node not found for id: " + newParentId));
 
                 // Self-parenting check
@@ -120,26 +143,24 @@ public abstract class HierarchicalRepo<
                 }
 
                 // Cycle check: parent must not be a descendant of value
-                if (value.getId() != null) {
-                    ObjectId cursor = newParentId;
-                    while (cursor != null) {
-                        if (cursor.equals(value.getId())) {
-                            throw new IllegalArgumentException(
-                                    "Invalid hierarchy: setting parent to a descendant would create a cycle (node="
-                                            + value.getId() + ", parent=" + newParentId + ")");
-                        }
-                        Optional<T> p = findById(cursor);
-                        if (!p.isPresent() || p.get().getParent() == null) {
-                            break; // reached root
-                        }
-                        cursor = p.get().getParent().getEntityId();
-                    }
+                ancestors = ancestorChainThrough(parent);
+                if (value.getId() != null && ancestors.contains(value.getId())) {
+                    throw new IllegalArgumentException(
+                            "Invalid hierarchy: setting parent to a descendant would create a cycle (node="
+                                    + value.getId() + ", parent=" + newParentId + ")");
                 }
             }
+            value.setAncestors(ancestors);
+            value.setPath(pathKey(ancestors));
 
             // Persist the node
             saved = super.save(session, value);
 
+            // A moved (or not yet materialized) node carries its subtree along
+            if (existing != null && !ancestors.equals(existing.getAncestors())) {
+                rewriteSubtreePaths(saved);
+            }
+
             // Ensure parent's descendants include this node
             if (saved.getParent() != null) {
                 Optional<T> oParent = findById(saved.getParent().getEntityId());
@@ -158,7 +179,131 @@ public abstract class HierarchicalRepo<
                 }
             }
             return saved;
+        } finally {
+            afterWrite();
+        }
+    }
+
+    /**
+     * The materialized path key for a chain of ancestors: {@code /rootId/.../parentId/}, or
+     * {@code /} for a root node.
+     */
+    public static String pathKey(List<ObjectId> ancestors) {
+        StringBuilder sb = new StringBuilder("/");
+        if (ancestors != null) {
+            for (ObjectId id : ancestors) {
+                sb.append(id.toHexString()).append('/');
+            }
+        }
+        return sb.toString();
+    }
+
+    // ids from the root down to and including the node; walks up the tree when the node predates materialized paths
+    private List<ObjectId> ancestorChainThrough(T node) {
+        List<ObjectId> chain;
+        if (node.getAncestors() != null) {
+            chain = new ArrayList<>(node.getAncestors());
+            chain.add(node.getId());
+        } else {
+            chain = getPathToNode(node.getId()).stream().map(T::getId).collect(Collectors.toCollection(ArrayList::new));
+        }
+        return chain;
+    }
+
+    // re-bases the ancestors of every node below the saved one in a single bulk write
+    private void rewriteSubtreePaths(T saved) {
+        // every node moves along, including those the principal cannot see
+        List<T> subtree = getMorphiaDataStore().find(getPersistentClass())
+                .filter(eq("ancestors", saved.getId()))
+                .iterator().toList();
+        if (subtree.isEmpty()) {
+            return;
+        }
+        List<ObjectId> prefix = new ArrayList<>(saved.getAncestors());
+        prefix.add(saved.getId());
+        List<UpdateOneModel<T>> updates = new ArrayList<>(subtree.size());
+        for (T node : subtree) {
+            List<ObjectId> old = node.getAncestors();
+            List<ObjectId> rebased = new ArrayList<>(prefix);
+            rebased.addAll(old.subList(old.indexOf(saved.getId()) + 1, old.size()));
+            updates.add(new UpdateOneModel<>(Filters.eq("_id", node.getId()),
+                    Updates.combine(Updates.set("ancestors", rebased), Updates.set("path", pathKey(rebased)))));
         }
+        getMorphiaDataStore().getCollection(getPersistentClass()).bulkWrite(updates, new BulkWriteOptions().ordered(false));
+    }
+
+    /**
+     * Recomputes the ancestors and path of every node in the collection from the parent references,
+     * e.g. to backfill trees saved before materialized paths were maintained. Nodes on a parent
+     * cycle are logged and left unchanged.
+     *
+     * @param datastore the datastore of the realm to update
+     * @return the number of nodes updated
+     */
+    public long rebuildMaterializedPaths(Datastore datastore) {
+        MongoCollection<Document> collection = datastore.getCollection(getPersistentClass()).withDocumentClass(Document.class);
+        Map<ObjectId, ObjectId> parentOf = new LinkedHashMap<>();
+        try (MongoCursor<Document> cursor = collection.find().projection(Projections.include("parent")).iterator()) {
+            while (cursor.hasNext()) {
+                Document doc = cursor.next();
+                Document parent = doc.get("parent", Document.class);
+                parentOf.put(doc.getObjectId("_id"), parent != null ? parent.getObjectId("entityId") : null);
+            }
+        }
+
+        Map<ObjectId, List<ObjectId>> chains = new HashMap<>();
+        List<UpdateOneModel<Document>> batch = new ArrayList<>();
+        long updated = 0;
+        boolean complete = true;
+        for (ObjectId id : parentOf.keySet()) {
+            List<ObjectId> ancestors = ancestorsOf(id, parentOf, chains);
+            if (ancestors == null) {
+                Log.warnf("Cycle in hierarchy %s at node id: %s; ancestors not materialized",
+                        getPersistentClass().getSimpleName(), id.toHexString());
+                complete = false;
+                continue;
+            }
+            batch.add(new UpdateOneModel<>(Filters.eq("_id", id),
+                    Updates.combine(Updates.set("ancestors", ancestors), Updates.set("path", pathKey(ancestors)))));
+            if (batch.size() == 500) {
+                updated += collection.bulkWrite(batch, new BulkWriteOptions().ordered(false)).getModifiedCount();
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            updated += collection.bulkWrite(batch, new BulkWriteOptions().ordered(false)).getModifiedCount();
+        }
+        invalidateTreeCache();
+        if (complete) {
+            materializedDatabases.add(datastore.getDatabase().getName());
+        }
+        return updated;
+    }
+
+    // root-first ancestors of id from the parent map, memoized; null when id is on a cycle
+    private static List<ObjectId> ancestorsOf(ObjectId id, Map<ObjectId, ObjectId> parentOf, Map<ObjectId, List<ObjectId>> chains) {
+        Deque<ObjectId> pending = new ArrayDeque<>();
+        Set<ObjectId> onPath = new HashSet<>();
+        ObjectId current = id;
+        // climb until a node with a known chain, a root, or a parent that no longer exists
+        while (current != null && parentOf.containsKey(current) && !chains.containsKey(current)) {
+            if (!onPath.add(current)) {
+                return null;
+            }
+            pending.push(current);
+            current = parentOf.get(current);
+        }
+        while (!pending.isEmpty()) {
+            ObjectId node = pending.pop();
+            ObjectId parent = parentOf.get(node);
+            List<ObjectId> nodeChain = new ArrayList<>();
+            if (parent != null && chains.containsKey(parent)) {
+                nodeChain.addAll(chains.get(parent));
+                nodeChain.add(parent);
+            }
+            chains.put(node, nodeChain);
+        }
+        return chains.get(id);
     }
 
     public List<T> getAllChildrenByRefName(String refName) {
@@ -187,46 +332,18 @@ public abstract class HierarchicalRepo<
      */
     public List<TreeNode> getTrees(Set<ObjectId> allowedIds) {
         List<TreeNode> nodes = new ArrayList<>();
-        if (allowedIds == null) {
-            Document query = new Document("parent", new Document("$exists", false));
-            try (MongoCursor<T> cursor = getMorphiaDataStore().getCollection(getPersistentClass()).find(query).iterator()) {
-                while (cursor.hasNext()) {
-                    T root = cursor.next();
-                    nodes.add(resolveToHierarchy(root, null));
-                }
-            }
+        if (allowedIds != null && allowedIds.isEmpty()) {
             return nodes;
         }
-        if (allowedIds.isEmpty()) {
-            return nodes;
-        }
-        // Bulk-load all allowed nodes in one IN query to avoid N+1 (and reuse for tree building)
-        List<T> allowedNodesList = getMorphiaDataStore().find(getPersistentClass())
-                .filter(in("_id", allowedIds))
-                .iterator().toList();
-        Map<ObjectId, T> allowedNodesById = new HashMap<>();
-        for (T n : allowedNodesList) {
-            if (n.getId() != null) {
-                allowedNodesById.put(n.getId(), n);
-            }
-        }
-        Set<ObjectId> effectiveRootIds = new HashSet<>();
-        for (ObjectId id : allowedIds) {
-            T node = allowedNodesById.get(id);
-            if (node == null) continue;
-            if (node.getParent() == null) {
-                effectiveRootIds.add(id);
-                continue;
-            }
-            ObjectId parentId = node.getParent().getEntityId();
-            if (parentId == null || !allowedIds.contains(parentId)) {
-                effectiveRootIds.add(id);
-            }
-        }
-        for (ObjectId rootId : effectiveRootIds) {
-            T root = allowedNodesById.get(rootId);
-            if (root != null) {
-                nodes.add(resolveToHierarchy(root, allowedIds, allowedNodesById));
+        // Assembled from the cached snapshot; pruning to allowedIds is an in-memory filter
+        TreeSnapshot<T> snapshot = treeSnapshot();
+        for (T node : snapshot.nodesById.values()) {
+            ObjectId parentId = node.getParent() != null ? node.getParent().getEntityId() : null;
+            boolean effectiveRoot = allowedIds == null
+                    ? node.getParent() == null
+                    : allowedIds.contains(node.getId()) && (parentId == null || !allowedIds.contains(parentId));
+            if (effectiveRoot) {
+                nodes.add(copyTree(snapshot, node.getId(), allowedIds, new HashSet<>()));
             }
         }
         return nodes;
@@ -262,58 +379,207 @@ public abstract class HierarchicalRepo<
         return data;
     }
 
-    private TreeNode resolveToHierarchy(T object) {
-        return resolveToHierarchy(object, null);
+    // copies the cached tree node and the allowed part of its subtree; a node reached twice is listed without children
+    private TreeNode copyTree(TreeSnapshot<T> snapshot, ObjectId id, Set<ObjectId> allowedIds, Set<ObjectId> visited) {
+        TreeNode source = snapshot.treeNodesById.get(id);
+        TreeNode copy = new TreeNode();
+        copy.key = source.key;
+        copy.label = source.label;
+        copy.icon = source.icon;
+        copy.data = source.data != null ? new HashMap<>(source.data) : null;
+        if (!visited.add(id)) {
+            return copy;
+        }
+        List<ObjectId> descendants = snapshot.nodesById.get(id).getDescendants();
+        if (descendants != null) {
+            for (ObjectId childId : descendants) {
+                if ((allowedIds == null || allowedIds.contains(childId)) && snapshot.treeNodesById.containsKey(childId)) {
+                    copy.children.add(copyTree(snapshot, childId, allowedIds, visited));
+                }
+            }
+        }
+        return copy;
     }
 
-    private TreeNode resolveToHierarchy(T object, Set<ObjectId> allowedIds) {
-        return resolveToHierarchy(object, allowedIds, null);
+    /**
+     * An immutable view of one realm's hierarchy: every node plus its pre-built tree node, and
+     * the filter strings computed for nodes so far.
+     */
+    private static final class TreeSnapshot<T> {
+        final long generation;
+        final long loadedAtMillis;
+        final Map<ObjectId, T> nodesById;
+        final Map<ObjectId, TreeNode> treeNodesById;
+        final Map<ObjectId, Optional<String>> effectiveFilters = new ConcurrentHashMap<>();
+        final Map<ObjectId, Optional<String>> accumulatedFilters = new ConcurrentHashMap<>();
+
+        TreeSnapshot(long generation, Map<ObjectId, T> nodesById, Map<ObjectId, TreeNode> treeNodesById) {
+            this.generation = generation;
+            this.loadedAtMillis = System.currentTimeMillis();
+            this.nodesById = Collections.unmodifiableMap(nodesById);
+            this.treeNodesById = Collections.unmodifiableMap(treeNodesById);
+        }
     }
 
-    private TreeNode resolveToHierarchy(T object, Set<ObjectId> allowedIds, Map<ObjectId, T> allowedNodesById) {
-        TreeNode node = toTreeNode(object);
-        node.data = buildTreeNodeData(object);
-        return resolveChildren(object, node, new java.util.HashSet<>(), allowedIds, allowedNodesById);
+    // the current realm's snapshot, loading it with one query when missing, invalidated or too old
+    private TreeSnapshot<T> treeSnapshot() {
+        String realm = getSecurityContextRealmId();
+        long generation = treeGeneration.get();
+        TreeSnapshot<T> snapshot = treeSnapshots.get(realm);
+        if (snapshot != null && snapshot.generation == generation
+                && System.currentTimeMillis() - snapshot.loadedAtMillis < treeCacheMaxAgeSeconds * 1000L) {
+            return snapshot;
+        }
+        Map<ObjectId, T> nodesById = new LinkedHashMap<>();
+        Map<ObjectId, TreeNode> treeNodesById = new HashMap<>();
+        try (MongoCursor<T> cursor = morphiaDataStoreWrapper.getDataStore(realm).getCollection(getPersistentClass()).find().iterator()) {
+            while (cursor.hasNext()) {
+                T node = cursor.next();
+                if (node.getId() != null) {
+                    nodesById.put(node.getId(), node);
+                    TreeNode treeNode = toTreeNode(node);
+                    treeNode.data = buildTreeNodeData(node);
+                    treeNodesById.put(node.getId(), treeNode);
+                }
+            }
+        }
+        snapshot = new TreeSnapshot<>(generation, nodesById, treeNodesById);
+        // a save racing with the load has bumped the generation; the next read reloads
+        treeSnapshots.put(realm, snapshot);
+        return snapshot;
+    }
+
+    /**
+     * Drops the cached trees and filters of every realm, and whether their paths are materialized;
+     * the next read reloads them. Call it after writing nodes other than through this repository.
+     */
+    public void invalidateTreeCache() {
+        dropTreeSnapshots();
+        materializedDatabases.clear();
+    }
+
+    // writes through this repository keep the ancestors materialized, so only the trees are dropped
+    @Override
+    protected void afterWrite() {
+        dropTreeSnapshots();
+    }
+
+    private void dropTreeSnapshots() {
+        treeGeneration.incrementAndGet();
+        treeSnapshots.clear();
     }
 
-    private TreeNode resolveChildren(T object, TreeNode node, java.util.Set<ObjectId> visited, Set<ObjectId> allowedIds, Map<ObjectId, T> allowedNodesById) {
-        if (object.getId() != null && !visited.add(object.getId())) {
-            return node;
+    // root-to-node path from the snapshot, stopping at a missing parent or a cycle like getPathToNode
+    private List<T> snapshotPath(TreeSnapshot<T> snapshot, ObjectId nodeId) {
+        List<T> path = new ArrayList<>();
+        Set<ObjectId> visited = new HashSet<>();
+        ObjectId currentId = nodeId;
+        while (currentId != null) {
+            if (!visited.add(currentId)) {
+                throw new IllegalStateException(
+                        "Cycle detected in hierarchy at node id: " + currentId.toHexString());
+            }
+            T node = snapshot.nodesById.get(currentId);
+            if (node == null) {
+                break;
+            }
+            path.add(node);
+            currentId = node.getParent() != null ? node.getParent().getEntityId() : null;
         }
-        if (object.getDescendants() != null && !object.getDescendants().isEmpty()) {
-            List<ObjectId> ids = object.getDescendants();
-            if (allowedIds != null && !allowedIds.isEmpty()) {
-                ids = ids.stream().filter(allowedIds::contains).collect(Collectors.toList());
+        Collections.reverse(path);
+        return path;
+    }
+
+    private Map<ObjectId, T> loadByIds(Collection<ObjectId> ids) {
+        Map<ObjectId, T> byId = new HashMap<>();
+        if (ids == null || ids.isEmpty()) {
+            return byId;
+        }
+        List<T> found = securedFind(in("_id", ids)).iterator().toList();
+        for (T n : found) {
+            if (n.getId() != null) {
+                byId.put(n.getId(), n);
             }
-            if (ids.isEmpty()) return node;
-            java.util.Map<ObjectId, T> byId;
-            if (allowedNodesById != null) {
-                byId = allowedNodesById;
-            } else {
-                List<T> children = getMorphiaDataStore().find(getPersistentClass())
-                        .filter(in("_id", ids))
-                        .iterator().toList();
-                byId = new java.util.HashMap<>();
-                for (T c : children) {
-                    if (c.getId() != null) {
-                        byId.put(c.getId(), c);
-                    }
-                }
+        }
+        return byId;
+    }
+
+    /**
+     * Returns the nodes below a node, down to {@code maxDepth} levels (children are level 1), with
+     * one query on the ancestors index. Falls back to loading level by level while some nodes
+     * predate materialized paths.
+     *
+     * @param nodeId the id of the subtree's root; the root itself is not returned
+     * @param maxDepth the number of levels to load; negative for no limit
+     * @return the nodes of the subtree, in no particular order
+     */
+    public List<T> getSubtree(ObjectId nodeId, int maxDepth) {
+        Objects.requireNonNull(nodeId, "nodeId cannot be null for getSubtree method");
+        if (maxDepth == 0) {
+            return new ArrayList<>();
+        }
+        T root = securedFind(eq("_id", nodeId)).first();
+        if (root == null) {
+            return new ArrayList<>();
+        }
+        if (root.getAncestors() != null && pathsMaterialized()) {
+            if (maxDepth < 0) {
+                return securedFind(eq("ancestors", nodeId)).iterator().toList();
             }
-            for (ObjectId id : ids) {
-                T childObject = byId.get(id);
-                if (childObject != null) {
-                    TreeNode childNode = toTreeNode(childObject);
-                    childNode.data = buildTreeNodeData(childObject);
-                    node.children.add(resolveChildren(childObject, childNode, visited, allowedIds, allowedNodesById));
+            // a node maxDepth levels down has root.ancestors.size() + maxDepth ancestors
+            return securedFind(eq("ancestors", nodeId),
+                    exists("ancestors." + (root.getAncestors().size() + maxDepth)).not()).iterator().toList();
+        }
+        List<T> subtree = new ArrayList<>();
+        Set<ObjectId> seen = new HashSet<>(List.of(nodeId));
+        List<T> level = List.of(root);
+        for (int depth = 0; (maxDepth < 0 || depth < maxDepth) && !level.isEmpty(); depth++) {
+            Set<ObjectId> next = new LinkedHashSet<>();
+            for (T n : level) {
+                if (n.getDescendants() != null) {
+                    n.getDescendants().stream().filter(seen::add).forEach(next::add);
                 }
             }
+            level = new ArrayList<>(loadByIds(next).values());
+            subtree.addAll(level);
         }
-        return node;
+        return subtree;
     }
 
+    // the principal's rule filters on top of the given ones, as findById applies them
+    private Query<T> securedFind(Filter... filters) {
+        return getMorphiaDataStore().find(getPersistentClass())
+                .filter(getFilterArray(new ArrayList<>(List.of(filters)), getPersistentClass()));
+    }
+
+    /**
+     * Whether every node of the current realm carries its ancestors. Until a backfill has reached
+     * all nodes, a query on the ancestors index would miss the descendants not yet materialized, so
+     * readers walk the descendant links instead. Checked once per realm: after the backfill has run,
+     * or the check found every node materialized, saves keep it so.
+     */
+    protected boolean pathsMaterialized() {
+        String database = getMorphiaDataStore().getDatabase().getName();
+        if (materializedDatabases.contains(database)) {
+            return true;
+        }
+        boolean materialized = getMorphiaDataStore().find(getPersistentClass())
+                .filter(exists("ancestors").not())
+                .first() == null;
+        if (materialized) {
+            materializedDatabases.add(database);
+        }
+        return materialized;
+    }
 
     public List<T> getAllChildren(ObjectId nodeId) {
+        // Materialized trees: every node below nodeId lists it among its ancestors
+        if (pathsMaterialized()) {
+            return getMorphiaDataStore().find(getPersistentClass())
+                    .filter(eq("ancestors", nodeId))
+                    .iterator().toList();
+        }
+        // A tree that has not been fully backfilled yet
         // Start the pipeline on the hierarchy collection for this entity class.
         // Use pipeline(match(), graphLookup()) so each stage is a separate pipeline element.
         // Chained .match().graphLookup() can produce a single stage with multiple fields and
@@ -532,12 +798,13 @@ public abstract class HierarchicalRepo<
      * If a parent has a static list and a later ancestor also has a static list,
      * the IDs are intersected (results must be in both lists).
      *
+     * @param snapshot the cached hierarchy to walk
      * @param nodeId the id of the target node
      * @param excludeCurrentNode if true, the current node's list is not included in the constraint
      * @return the accumulated constraint
      */
-    private AccumulatedConstraint buildAccumulatedConstraint(ObjectId nodeId, boolean excludeCurrentNode) {
-        List<T> path = getPathToNode(nodeId);
+    private AccumulatedConstraint buildAccumulatedConstraint(TreeSnapshot<T> snapshot, ObjectId nodeId, boolean excludeCurrentNode) {
+        List<T> path = snapshotPath(snapshot, nodeId);
         if (excludeCurrentNode && path.size() > 0) {
             path = path.subList(0, path.size() - 1);
         }
@@ -598,6 +865,24 @@ public abstract class HierarchicalRepo<
         Objects.requireNonNull(nodeId, "nodeId cannot be null for getPathToNode method");
 
         List<T> path = new ArrayList<>();
+        Optional<T> oStart = findById(nodeId);
+        if (oStart.isPresent() && oStart.get().getAncestors() != null) {
+            // Materialized: fetch all ancestors at once, keeping the unbroken chain above the node
+            T start = oStart.get();
+            Map<ObjectId, T> byId = loadByIds(start.getAncestors());
+            path.add(start);
+            List<ObjectId> ancestors = start.getAncestors();
+            for (int i = ancestors.size() - 1; i >= 0; i--) {
+                T ancestor = byId.get(ancestors.get(i));
+                if (ancestor == null) {
+                    break;
+                }
+                path.add(ancestor);
+            }
+            Collections.reverse(path);
+            return path;
+        }
+
         Set<ObjectId> visited = new HashSet<>();
         ObjectId currentId = nodeId;
 
@@ -635,8 +920,11 @@ public abstract class HierarchicalRepo<
      * @return list of filter strings from root to node (only includes non-empty filters)
      */
     public List<String> getFilterPathToNode(ObjectId nodeId) {
-        List<T> path = getPathToNode(nodeId);
-        return path.stream()
+        return filterPath(treeSnapshot(), nodeId);
+    }
+
+    private List<String> filterPath(TreeSnapshot<T> snapshot, ObjectId nodeId) {
+        return snapshotPath(snapshot, nodeId).stream()
                 .filter(node -> node.getStaticDynamicList() != null)
                 .filter(node -> node.getStaticDynamicList().isDynamic())
                 .map(node -> node.getStaticDynamicList().getFilterString())
@@ -672,8 +960,10 @@ public abstract class HierarchicalRepo<
      * @return the combined filter string, or null if no dynamic filters exist in the path
      */
     public String getAccumulatedFilterForNode(ObjectId nodeId) {
-        List<String> filterPath = getFilterPathToNode(nodeId);
-        return combineFilters(filterPath);
+        TreeSnapshot<T> snapshot = treeSnapshot();
+        return snapshot.accumulatedFilters
+                .computeIfAbsent(nodeId, id -> Optional.ofNullable(combineFilters(filterPath(snapshot, id))))
+                .orElse(null);
     }
 
     /**
@@ -685,6 +975,8 @@ public abstract class HierarchicalRepo<
      * Unlike getAccumulatedFilterForNode which only returns dynamic filters,
      * this method includes IN clauses for static list constraints.
      *
+     * The result is cached per node until the hierarchy changes.
+     *
      * @param nodeId the id of the hierarchy node
      * @return the effective filter string, or null if no constraints exist
      * @throws NotFoundException if the node is not found
@@ -697,11 +989,15 @@ public abstract class HierarchicalRepo<
             throw new NotFoundException("Hierarchy node not found for id: " + nodeId);
         }
 
-        T node = oNode.get();
-        StaticDynamicList<O> staticDynamicList = node.getStaticDynamicList();
+        TreeSnapshot<T> snapshot = treeSnapshot();
+        return snapshot.effectiveFilters
+                .computeIfAbsent(nodeId, id -> Optional.ofNullable(computeEffectiveFilter(snapshot, id)))
+                .orElse(null);
+    }
 
+    private String computeEffectiveFilter(TreeSnapshot<T> snapshot, ObjectId nodeId) {
         // Build accumulated constraint including the current node
-        AccumulatedConstraint constraint = buildAccumulatedConstraint(nodeId, false);
+        AccumulatedConstraint constraint = buildAccumulatedConstraint(snapshot, nodeId, false);
 
         // If constraint results in no possible matches, return a filter that matches nothing
         if (constraint.hasNoResults()) {
@@ -763,7 +1059,7 @@ public abstract class HierarchicalRepo<
         }
 
         // Build accumulated constraint from parents (excluding current node)
-        AccumulatedConstraint parentConstraint = buildAccumulatedConstraint(nodeId, true);
+        AccumulatedConstraint parentConstraint = buildAccumulatedConstraint(treeSnapshot(), nodeId, true);
 
         // If parent constraint results in no possible matches, return empty
         if (parentConstraint.hasNoResults()) {
@@ -0,0 +1,255 @@
+package com.e2eq.framework.model.persistent.morphia;
+
+import com.e2eq.framework.model.persistent.base.ProjectionField;
+import com.e2eq.framework.model.persistent.base.SortField;
+import com.e2eq.framework.model.persistent.base.UnversionedBaseModel;
+import dev.morphia.query.filters.Filter;
+import dev.morphia.query.filters.Filters;
+import org.apache.commons.lang3.reflect.FieldUtils;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keyset ("search after") pagination over a sort order.
+ *
+ * Instead of skipping rows, a page is requested with an opaque token carrying the sort key values
+ * of the last row of the previous page; the next page is the rows that sort strictly after it.
+ * Mongo then seeks on the sort index instead of scanning and discarding {@code skip} rows, so deep
+ * pages cost the same as the first one.
+ *
+ * The sort order is made total by appending {@code _id} ascending when the caller's sort does not
+ * already end on it. Tokens record the sort they were built for and are rejected when replayed
+ * against a different sort. Sort fields should be scalar root or embedded fields (strings,
+ * numbers, booleans, dates, ids, enums); missing and null values sort first, as in Mongo.
+ */
+public final class KeysetPagination {
+
+    public static final String ID_FIELD = "_id";
+
+    private static final String SORT_KEY = "s";
+    private static final String VALUES_KEY = "v";
+
+    private KeysetPagination() {
+    }
+
+    /**
+     * @return the sort fields with {@code id} spelled {@code _id} and an {@code _id} ascending
+     * tie-breaker appended when missing; never null
+     */
+    public static List<SortField> normalizeSort(List<SortField> sortFields) {
+        List<SortField> normalized = new ArrayList<>();
+        boolean hasId = false;
+        if (sortFields != null) {
+            for (SortField sf : sortFields) {
+                if (sf == null || sf.getFieldName() == null || sf.getFieldName().isBlank()) continue;
+                String name = "id".equals(sf.getFieldName()) ? ID_FIELD : sf.getFieldName();
+                SortField.SortDirection dir = sf.getSortDirection() != null ? sf.getSortDirection() : SortField.SortDirection.ASC;
+                normalized.add(new SortField(name, dir));
+                if (ID_FIELD.equals(name)) {
+                    hasId = true;
+                    // nothing after a unique key can change the order
+                    break;
+                }
+            }
+        }
+        if (!hasId) {
+            normalized.add(new SortField(ID_FIELD, SortField.SortDirection.ASC));
+        }
+        return normalized;
+    }
+
+    /**
+     * Makes sure an include projection keeps the sort fields, which the next token is built from.
+     *
+     * @return the projection to use; the argument itself when nothing needs adding
+     */
+    public static List<ProjectionField> ensureProjected(List<ProjectionField> projectionFields, List<SortField> sortFields) {
+        if (projectionFields == null || projectionFields.isEmpty()
+                || projectionFields.stream().noneMatch(pf -> pf.getProjectionType() == ProjectionField.ProjectionType.INCLUDE)) {
+            return projectionFields;
+        }
+        List<ProjectionField> result = new ArrayList<>(projectionFields);
+        for (SortField sf : sortFields) {
+            String name = sf.getFieldName();
+            if (ID_FIELD.equals(name)) continue; // always returned
+            boolean present = result.stream().anyMatch(pf -> name.equals(pf.getFieldName())
+                    || name.startsWith(pf.getFieldName() + "."));
+            if (!present) {
+                result.add(new ProjectionField(name, ProjectionField.ProjectionType.INCLUDE));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Builds the token for the page following {@code lastRow}.
+     *
+     * @param sortFields the normalized sort, see {@link #normalizeSort(List)}
+     * @param lastRow the last row of the current page: an entity, a {@link Document} or a Map
+     * @return the token, or null when there is no row
+     */
+    public static String nextToken(List<SortField> sortFields, Object lastRow) {
+        if (lastRow == null) {
+            return null;
+        }
+        List<Object> values = new ArrayList<>(sortFields.size());
+        for (SortField sf : sortFields) {
+            values.add(toBsonValue(valueOf(lastRow, sf.getFieldName())));
+        }
+        Document token = new Document(SORT_KEY, signature(sortFields)).append(VALUES_KEY, values);
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(token.toJson().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Builds the Morphia filter selecting the rows that sort after the token's row.
+     *
+     * @throws IllegalArgumentException when the token is malformed or was built for another sort
+     */
+    public static Filter toFilter(List<SortField> sortFields, String token) {
+        List<Object> values = decode(sortFields, token);
+        List<Filter> branches = new ArrayList<>();
+        for (int i = 0; i < sortFields.size(); i++) {
+            List<Filter> branch = new ArrayList<>();
+            for (int j = 0; j < i; j++) {
+                branch.add(Filters.eq(sortFields.get(j).getFieldName(), values.get(j)));
+            }
+            Filter after = afterFilter(sortFields.get(i), values.get(i));
+            if (after == null) continue;
+            branch.add(after);
+            branches.add(branch.size() == 1 ? branch.get(0) : Filters.and(branch.toArray(new Filter[0])));
+        }
+        if (branches.isEmpty()) {
+            // the token points at the very end of the order
+            return Filters.exists(ID_FIELD).not();
+        }
+        return branches.size() == 1 ? branches.get(0) : Filters.or(branches.toArray(new Filter[0]));
+    }
+
+    /**
+     * Same predicate as {@link #toFilter(List, String)} as a raw {@code $match} document for
+     * aggregation pipelines; field names are used as given.
+     *
+     * @throws IllegalArgumentException when the token is malformed or was built for another sort
+     */
+    public static Document toMatch(List<SortField> sortFields, String token) {
+        List<Object> values = decode(sortFields, token);
+        List<Document> branches = new ArrayList<>();
+        for (int i = 0; i < sortFields.size(); i++) {
+            Document branch = new Document();
+            for (int j = 0; j < i; j++) {
+                branch.append(sortFields.get(j).getFieldName(), new Document("$eq", values.get(j)));
+            }
+            Document after = afterMatch(sortFields.get(i), values.get(i));
+            if (after == null) continue;
+            List<Document> parts = new ArrayList<>();
+            if (!branch.isEmpty()) parts.add(branch);
+            parts.add(after);
+            branches.add(parts.size() == 1 ? parts.get(0) : new Document("$and", parts));
+        }
+        if (branches.isEmpty()) {
+            return new Document(ID_FIELD, new Document("$exists", false));
+        }
+        return branches.size() == 1 ? branches.get(0) : new Document("$or", branches);
+    }
+
+    // rows strictly after value in the field's direction; null when there are none
+    private static Filter afterFilter(SortField sf, Object value) {
+        String field = sf.getFieldName();
+        boolean asc = sf.getSortDirection() != SortField.SortDirection.DESC;
+        if (value == null) {
+            return asc ? Filters.ne(field, null) : null;
+        }
+        // $gt/$lt do not match null; nulls sort before everything, i.e. last when descending
+        return asc ? Filters.gt(field, value) : Filters.or(Filters.lt(field, value), Filters.eq(field, null));
+    }
+
+    private static Document afterMatch(SortField sf, Object value) {
+        String field = sf.getFieldName();
+        boolean asc = sf.getSortDirection() != SortField.SortDirection.DESC;
+        if (value == null) {
+            return asc ? new Document(field, new Document("$ne", null)) : null;
+        }
+        if (asc) {
+            return new Document(field, new Document("$gt", value));
+        }
+        return new Document("$or", List.of(
+                new Document(field, new Document("$lt", value)),
+                new Document(field, new Document("$eq", null))));
+    }
+
+    static List<Object> decode(List<SortField> sortFields, String token) {
+        if (token == null || token.isBlank()) {
+            throw new IllegalArgumentException("page token is empty");
+        }
+        Document doc;
+        try {
+            doc = Document.parse(new String(Base64.getUrlDecoder().decode(token.trim()), StandardCharsets.UTF_8));
+        } catch (RuntimeException e) {
+            // bad base64, bad JSON or not a document
+            throw new IllegalArgumentException("page token is malformed", e);
+        }
+        if (!signature(sortFields).equals(doc.getString(SORT_KEY))) {
+            throw new IllegalArgumentException("page token was issued for a different sort order");
+        }
+        Object values = doc.get(VALUES_KEY);
+        if (!(values instanceof List<?> list) || list.size() != sortFields.size()) {
+            throw new IllegalArgumentException("page token is malformed");
+        }
+        return new ArrayList<>(list);
+    }
+
+    private static String signature(List<SortField> sortFields) {
+        StringBuilder sb = new StringBuilder();
+        for (SortField sf : sortFields) {
+            if (sb.length() > 0) sb.append(',');
+            sb.append(sf);
+        }
+        return sb.toString();
+    }
+
+    private static Object valueOf(Object row, String path) {
+        Object current = row;
+        for (String segment : path.split("\\.")) {
+            if (current == null) return null;
+            if (ID_FIELD.equals(segment) && current instanceof UnversionedBaseModel model) {
+                current = model.getId();
+            } else if (current instanceof Map<?, ?> map) {
+                Object value = map.get(segment);
+                current = (value == null && ID_FIELD.equals(segment)) ? map.get("id") : value;
+            } else {
+                try {
+                    current = FieldUtils.readField(current, ID_FIELD.equals(segment) ? "id" : segment, true);
+                } catch (IllegalAccessException | IllegalArgumentException e) {
+                    throw new IllegalArgumentException("cannot read sort field " + path + " for keyset pagination", e);
+                }
+            }
+        }
+        return current;
+    }
+
+    // the representation Mongo stores and compares for the values we accept as sort keys
+    private static Object toBsonValue(Object value) {
+        if (value == null || value instanceof String || value instanceof Number || value instanceof Boolean
+                || value instanceof Date || value instanceof ObjectId) {
+            return value;
+        }
+        if (value instanceof Enum<?> e) return e.name();
+        if (value instanceof Instant i) return Date.from(i);
+        if (value instanceof LocalDateTime ldt) return Date.from(ldt.toInstant(ZoneOffset.UTC));
+        if (value instanceof LocalDate ld) return Date.from(ld.atStartOfDay(ZoneOffset.UTC).toInstant());
+        throw new IllegalArgumentException("sort values of type " + value.getClass().getSimpleName()
+                + " are not supported for keyset pagination");
+    }
+}
@@ -84,6 +84,14 @@ public  abstract class MorphiaRepo<T extends UnversionedBaseModel> implements Ba
         lifecycleHooks().callPostDeleteHooks(realmId, entityClass, idAsString);
     }
 
+    /**
+     * Called after every save, merge, update and delete through this repository, including the
+     * partial and bulk updates that bypass the lifecycle hooks. Repositories that cache state
+     * derived from their collection override it to drop that cache.
+     */
+    protected void afterWrite() {
+    }
+
     /**
      * Check if a field has the OntologyProperty annotation without requiring
      * the ontology module as a compile-time dependency.
@@ -129,6 +137,12 @@ public  abstract class MorphiaRepo<T extends UnversionedBaseModel> implements Ba
     @Inject
     protected StateGraphManager stateGraphManager;
 
+    @Inject
+    protected PersistentEventLog persistentEventLog;
+
+    @Inject
+    protected ReferenceTracker referenceTracker;
+
     private void ensureSecurityContextFromIdentity() {
         securityContextResolver().ensureSecurityContextFromIdentity();
     }
@@ -499,7 +513,25 @@ public  abstract class MorphiaRepo<T extends UnversionedBaseModel> implements Ba
         if (skip < 0) {
             throw new IllegalArgumentException("skip cannot be negative");
         }
+        return streamCursor(datastore, openQueryCursor(datastore, skip, limit, query, sortFields, projectionFields, null));
+    }
 
+    @Override
+    public CloseableIterator<T> getStreamByQuery(Datastore datastore, @Nullable String pageToken, int limit, @Nullable String query, @Nullable List<SortField> sortFields, @Nullable List<ProjectionField> projectionFields) {
+        List<SortField> keysetSort = KeysetPagination.normalizeSort(sortFields);
+        Filter after = (pageToken == null || pageToken.isBlank()) ? null : KeysetPagination.toFilter(keysetSort, pageToken);
+        return streamCursor(datastore, openQueryCursor(datastore, 0, limit, query, keysetSort,
+                KeysetPagination.ensureProjected(projectionFields, keysetSort), after));
+    }
+
+    /**
+     * Opens a secured cursor over the query.
+     *
+     * @param keysetFilter optional "rows after the page token" predicate, see {@link KeysetPagination}
+     */
+    private MorphiaCursor<T> openQueryCursor(Datastore datastore, int skip, int limit, @Nullable String query,
+                                             @Nullable List<SortField> sortFields, @Nullable List<ProjectionField> projectionFields,
+                                             @Nullable Filter keysetFilter) {
         List<Filter> filters = new ArrayList<>();
         filters = securityFilterBuilder().buildSecuredFilters(filters, getPersistentClass());
 
@@ -512,17 +544,24 @@ public  abstract class MorphiaRepo<T extends UnversionedBaseModel> implements Ba
                 filters.add(Filters.and(filter));
             }
         }
+        if (keysetFilter != null) {
+            filters.add(keysetFilter);
+        }
+        if (Log.isDebugEnabled()) {
+            Log.debugf("Running with filters:%s", filters.stream().map(Filter::toString).collect(Collectors.joining(",")));
+        }
 
         Filter[] filterArray = new Filter[filters.size()];
-        MorphiaCursor<T> cursor = datastore.find(getPersistentClass())
+        return datastore.find(getPersistentClass())
                 .filter(filters.toArray(filterArray))
                 .iterator(findOptions);
+    }
 
+    private CloseableIterator<T> streamCursor(Datastore datastore, MorphiaCursor<T> cursor) {
+        // Delegate straight to the cursor: the driver already fetches in batches, so only one
+        // server batch is held in memory no matter how many rows are streamed
+        String realm = datastore.getDatabase().getName();
         return new CloseableIterator<>() {
-            private static final int BATCH_SIZE = 1000; // Adjust this value as needed
-            private final List<T> batch = new ArrayList<>(BATCH_SIZE);
-            private int currentIndex = 0;
-
             @Override
             public void close() {
                 cursor.close();
@@ -530,35 +569,24 @@ public  abstract class MorphiaRepo<T extends UnversionedBaseModel> implements Ba
 
             @Override
             public boolean hasNext() {
-                if (currentIndex < batch.size()) {
-                    return true;
-                }
-                return fetchNextBatch();
+                return cursor.hasNext();
             }
 
             @Override
             public T next() {
-                if (currentIndex >= batch.size() && !fetchNextBatch()) {
+                if (!cursor.hasNext()) {
                     return null;
                 }
-                T model = batch.get(currentIndex++);
+                T model = cursor.next();
                 processModel(model);
                 return model;
             }
 
-            private boolean fetchNextBatch() {
-                batch.clear();
-                currentIndex = 0;
-                for (int i = 0; i < BATCH_SIZE && cursor.hasNext(); i++) {
-                    batch.add(cursor.next());
-                }
-                return !batch.isEmpty();
-            }
-
             private void processModel(T model) {
                 if (model != null) {
                     UIActionList uiActions = model.calculateStateBasedUIActions();
                     model.setActionList(uiActions);
+                    model.setModelSourceRealm(realm);
                 }
             }
         };
@@ -570,34 +598,23 @@ public  abstract class MorphiaRepo<T extends UnversionedBaseModel> implements Ba
         if (skip < 0 ) {
             throw new IllegalArgumentException("skip and or limit can not be negative");
         }
+        return toModelList(datastore, openQueryCursor(datastore, skip, limit, query, sortFields, projectionFields, null));
+    }
 
-        List<Filter> filters = new ArrayList<>();
-        filters = securityFilterBuilder().buildSecuredFilters(filters, getPersistentClass());
-
-
-        MorphiaCursor<T> cursor;
-
-        FindOptions findOptions = buildFindOptions(skip, limit, sortFields, projectionFields);
-
-        if (query != null && !query.isEmpty()) {
-            String cleanQuery = query.trim();
-            if (!cleanQuery.isEmpty()) {
-                Filter filter = MorphiaUtils.convertToFilter(query, getPersistentClass());
-                filters.add(Filters.and(filter));
-                Log.debugf("Running with filters:%s", filters.stream().map(Filter::toString).collect(Collectors.joining(",")));
+    @Override
+    public List<T> getListByQuery(@NotNull Datastore datastore, @Nullable String pageToken, int limit, @Nullable String query, @Nullable List<SortField> sortFields, @Nullable List<ProjectionField> projectionFields) {
+        List<SortField> keysetSort = KeysetPagination.normalizeSort(sortFields);
+        Filter after = (pageToken == null || pageToken.isBlank()) ? null : KeysetPagination.toFilter(keysetSort, pageToken);
+        return toModelList(datastore, openQueryCursor(datastore, 0, limit, query, keysetSort,
+                KeysetPagination.ensureProjected(projectionFields, keysetSort), after));
+    }
 
-            }
-            Filter[] filterArray = new Filter[filters.size()];
-            cursor = datastore.find(getPersistentClass())
-                    .filter(filters.toArray(filterArray))
-                    .iterator(findOptions);
-        } else {
-            Filter[] filterArray = new Filter[filters.size()];
-            cursor = datastore.find(getPersistentClass())
-                    .filter(filters.toArray(filterArray))
-                    .iterator(findOptions);
-        }
+    @Override
+    public String nextPageToken(@Nullable List<SortField> sortFields, @Nullable T lastRow) {
+        return KeysetPagination.nextToken(KeysetPagination.normalizeSort(sortFields), lastRow);
+    }
 
+    private List<T> toModelList(Datastore datastore, MorphiaCursor<T> cursor) {
         List<T> list = new ArrayList<>();
         String realm = datastore.getDatabase().getName();
         try (cursor) {
@@ -618,6 +635,31 @@ public  abstract class MorphiaRepo<T extends UnversionedBaseModel> implements Ba
         return getStreamByQuery(morphiaDataStoreWrapper.getDataStore(getSecurityContextRealmId()), skip, limit, query, sortFields, projectionFields);
     }
 
+    @Override
+    public CloseableIterator<T> getStreamByQuery(String realmId, int skip, int limit, @Nullable String query, @Nullable List<SortField> sortFields, @Nullable List<ProjectionField> projectionFields) {
+        return getStreamByQuery(morphiaDataStoreWrapper.getDataStore(realmId), skip, limit, query, sortFields, projectionFields);
+    }
+
+    @Override
+    public CloseableIterator<T> getStreamByQuery(@Nullable String pageToken, int limit, @Nullable String query, @Nullable List<SortField> sortFields, @Nullable List<ProjectionField> projectionFields) {
+        return getStreamByQuery(morphiaDataStoreWrapper.getDataStore(getSecurityContextRealmId()), pageToken, limit, query, sortFields, projectionFields);
+    }
+
+    @Override
+    public CloseableIterator<T> getStreamByQuery(String realmId, @Nullable String pageToken, int limit, @Nullable String query, @Nullable List<SortField> sortFields, @Nullable List<ProjectionField> projectionFields) {
+        return getStreamByQuery(morphiaDataStoreWrapper.getDataStore(realmId), pageToken, limit, query, sortFields, projectionFields);
+    }
+
+    @Override
+    public List<T> getListByQuery(@Nullable String pageToken, int limit, @Nullable String query, @Nullable List<SortField> sortFields, @Nullable List<ProjectionField> projectionFields) {
+        return getListByQuery(morphiaDataStoreWrapper.getDataStore(getSecurityContextRealmId()), pageToken, limit, query, sortFields, projectionFields);
+    }
+
+    @Override
+    public List<T> getListByQuery(String realmId, @Nullable String pageToken, int limit, @Nullable String query, @Nullable List<SortField> sortFields, @Nullable List<ProjectionField> projectionFields) {
+        return getListByQuery(morphiaDataStoreWrapper.getDataStore(realmId), pageToken, limit, query, sortFields, projectionFields);
+    }
+
    @Override
    public List<T> getListByQuery (String realmId, int skip, int limit, @Nullable String query, List<SortField> sortFields, @Nullable List<ProjectionField> projectionFields) {
       return getListByQuery(morphiaDataStoreWrapper.getDataStore(realmId), skip, limit, query, sortFields, projectionFields);
@@ -750,6 +792,22 @@ public  abstract class MorphiaRepo<T extends UnversionedBaseModel> implements Ba
     }
 
 
+   @Override
+   public List<PersistentEvent> getPersistentEventHistory(@Nullable String realmId, @NotNull ObjectId id, int skip, int limit) {
+      String realm = (realmId == null) ? getSecurityContextRealmId() : realmId;
+      return persistentEventLog.history(realm, persistentEventType(realm), id, skip, limit);
+   }
+
+   @Override
+   public long getPersistentEventCount(@Nullable String realmId, @NotNull ObjectId id) {
+      String realm = (realmId == null) ? getSecurityContextRealmId() : realmId;
+      return persistentEventLog.count(realm, persistentEventType(realm), id);
+   }
+
+   private String persistentEventType(String realm) {
+      return morphiaDataStoreWrapper.getDataStore(realm).getCollection(getPersistentClass()).getNamespace().getCollectionName();
+   }
+
    @Override
    public long getCount ( @Nullable String filter) {
       return getCount(getSecurityContextRealmId(), filter);
@@ -887,6 +945,7 @@ public  abstract class MorphiaRepo<T extends UnversionedBaseModel> implements Ba
        setDefaultValues(value);
         value.validate();
         T saved = session.save(value);
+        afterWrite();
         callPostPersistHooks(getSecurityContextRealmId(), saved);
         return saved;
     }
@@ -915,7 +974,12 @@ public  abstract class MorphiaRepo<T extends UnversionedBaseModel> implements Ba
           setDefaultValues(entity);
           entity.validate();
        });
-       List<T> saved = datastore.save(entities);
+       List<T> saved;
+       // back-references to shared parents are written once per parent, after the batch
+       try (ReferenceTracker.Batch refs = referenceTracker.begin()) {
+          saved = datastore.save(entities);
+       }
+       afterWrite();
        // invoke hooks for each saved entity
        String realmId = getSecurityContextRealmId();
        for (T e : saved) callPostPersistHooks(realmId, e);
@@ -937,7 +1001,11 @@ public  abstract class MorphiaRepo<T extends UnversionedBaseModel> implements Ba
           entity.validate();
        });
 
-       List<T> saved = session.save(entities);
+       List<T> saved;
+       try (ReferenceTracker.Batch refs = referenceTracker.begin()) {
+          saved = session.save(entities);
+       }
+       afterWrite();
        String realmId = getSecurityContextRealmId();
        for (T e : saved) callPostPersistHooks(realmId, e);
        return saved;
@@ -956,6 +1024,7 @@ public  abstract class MorphiaRepo<T extends UnversionedBaseModel> implements Ba
        setDefaultValues(value);
        value.validate();
        T saved = datastore.save(value);
+       afterWrite();
        callPostPersistHooks(getSecurityContextRealmId(), saved);
        return saved;
     }
@@ -977,40 +1046,36 @@ public  abstract class MorphiaRepo<T extends UnversionedBaseModel> implements Ba
 
         for (PropertyModel mappedField : mappedClass.getProperties()) {
             if (mappedField.isReference() && mappedField.hasAnnotation(TrackReferences.class)) {
-                if (mappedField.getAccessor().get(obj)!= null && BaseModel.class.isAssignableFrom(mappedField.getAccessor().get(obj).getClass())) {
-                    BaseModel baseModel = (mappedField.getAccessor().get(obj) != null) ? (BaseModel) mappedField.getAccessor().get(obj) : null;
-                    if (baseModel != null) {
-                        if (!baseModel.getReferences().contains(obj)) {
-                            baseModel.getReferences().remove(obj);
-                            session.save(mappedField.getAccessor().get(obj));
-                        }
-                    }
+                Object referenced = mappedField.getAccessor().get(obj);
+                if (referenced != null && BaseModel.class.isAssignableFrom(referenced.getClass())) {
+                    unlinkReference((BaseModel) referenced, obj, session);
                 } else
                     // if this is a collection of the class that is the same as us ( obj ) then see if its non null and if its annotated to track references
-                if (mappedField.getAccessor().get(obj)!=null &&
-                        java.util.Collection.class.isAssignableFrom(mappedField.getAccessor().get(obj).getClass()) &&
-                  mappedField.hasAnnotation(TrackReferences.class)) {
-                    {
-                        // if so we need for each item in the collection we  remove the reference to this class
-                        java.util.Collection<BaseModel> baseModels = (java.util.Collection<BaseModel>) mappedField.getAccessor().get(obj);
-                        if (baseModels != null) {
-                            for (BaseModel baseModel : baseModels) {
-                                ReferenceEntry entry = new ReferenceEntry(obj.getId(), obj.getClass().getTypeName(),
-                                        obj.getRefName());
-                                if (baseModel.getReferences().contains(entry)) {
-                                    if (!baseModel.getReferences().remove(entry)) {
-                                        Log.warn("Reference entry not found in baseModel: " + entry.toString());
-                                    }
-                                    session.save(baseModel);
-                                }
-                            }
-                        }
+                if (referenced != null && java.util.Collection.class.isAssignableFrom(referenced.getClass())) {
+                    // if so we need for each item in the collection we  remove the reference to this class
+                    for (BaseModel baseModel : (java.util.Collection<BaseModel>) referenced) {
+                        unlinkReference(baseModel, obj, session);
                     }
                 }
             }
         }
     }
 
+    /**
+     * Pulls every entry of obj from the parent's references with an atomic update, and mirrors the
+     * change on the in-memory parent.
+     */
+    private void unlinkReference(BaseModel parent, T obj, MorphiaSession session) {
+        if (parent == null || parent.getId() == null || obj.getId() == null) {
+            return;
+        }
+        if (parent.getReferences() != null &&
+                !parent.getReferences().removeIf(entry -> obj.getId().equals(entry.getReferencedId()))) {
+            Log.debugf("Reference entry for %s not found in parent %s", obj.getId(), parent.getId());
+        }
+        referenceTracker.removeReference(session, parent, obj.getId());
+    }
+
     @Override
     public long delete(T obj) throws ReferentialIntegrityViolationException {
        Objects.requireNonNull(obj, "Null argument passed to delete, api requires a non-null object");
@@ -1109,6 +1174,7 @@ public  abstract class MorphiaRepo<T extends UnversionedBaseModel> implements Ba
                     }
                 }
             }
+            afterWrite();
             return result.getDeletedCount();
         }
         Log.warn("Object not found for deletion: " + id);
@@ -1144,6 +1210,7 @@ public  abstract class MorphiaRepo<T extends UnversionedBaseModel> implements Ba
         if (obj.getReferences() == null || obj.getReferences().isEmpty()) {
                 removeReferenceConstraint(obj, session);
                 result = session.delete(obj);
+                afterWrite();
                 return result.getDeletedCount();
         } else {
             Set<ReferenceEntry> entriesToRemove = new HashSet<>();
@@ -1168,6 +1235,7 @@ public  abstract class MorphiaRepo<T extends UnversionedBaseModel> implements Ba
             if (obj.getReferences().isEmpty()) {
                 removeReferenceConstraint(obj, session);
                 result = session.delete(obj);
+                afterWrite();
                 return result.getDeletedCount();
             } else {
                 HashSet<String> referencingClasses = new HashSet<>();
@@ -1191,6 +1259,7 @@ public  abstract class MorphiaRepo<T extends UnversionedBaseModel> implements Ba
       UpdateResult update;
       update = datastore.find(getPersistentClass()).filter(Filters.eq("_id", id))
                      .update(updateOp);
+     afterWrite();
 
      return update.getMatchedCount();
    }
@@ -1287,6 +1356,7 @@ public  abstract class MorphiaRepo<T extends UnversionedBaseModel> implements Ba
             update = session.find(getPersistentClass()).filter(Filters.eq("_id", id))
                     .update(ops[0], Arrays.copyOfRange(ops, 1, ops.length));
         }
+        afterWrite();
 
         return update.getModifiedCount();
     }
@@ -1388,6 +1458,7 @@ public  abstract class MorphiaRepo<T extends UnversionedBaseModel> implements Ba
           update = datastore.find(getPersistentClass()).filter(Filters.eq("_id", id))
                       .update(ops[0], Arrays.copyOfRange(ops, 1, ops.length));
        }
+       afterWrite();
 
        return update.getModifiedCount();
     }
@@ -1436,6 +1507,7 @@ public  abstract class MorphiaRepo<T extends UnversionedBaseModel> implements Ba
             update = session.find(getPersistentClass()).filter(Filters.eq("_id", id))
                     .update(ops[0], Arrays.copyOfRange(ops, 1, ops.length));
         }
+        afterWrite();
 
         return update.getModifiedCount();
     }
@@ -1483,6 +1555,7 @@ public  abstract class MorphiaRepo<T extends UnversionedBaseModel> implements Ba
         UpdateOperator[] arr = ops.toArray(new UpdateOperator[0]);
         UpdateResult res = datastore.find(getPersistentClass()).filter(qfilters)
                 .update(new UpdateOptions().multi(true), arr[0], Arrays.copyOfRange(arr, 1, arr.length));
+        afterWrite();
         return res.getModifiedCount();
     }
 
@@ -1527,6 +1600,7 @@ public  abstract class MorphiaRepo<T extends UnversionedBaseModel> implements Ba
         UpdateOperator[] arr = ops.toArray(new UpdateOperator[0]);
         UpdateResult res = datastore.find(getPersistentClass()).filter(qfilters)
                 .update(new UpdateOptions().multi(true), arr[0], Arrays.copyOfRange(arr, 1, arr.length));
+        afterWrite();
         return res.getModifiedCount();
     }
 
@@ -1589,6 +1663,7 @@ public  abstract class MorphiaRepo<T extends UnversionedBaseModel> implements Ba
         UpdateOperator[] arr = ops.toArray(new UpdateOperator[0]);
         UpdateResult res = datastore.find(getPersistentClass()).filter(qfilters)
                 .update(new UpdateOptions().multi(true), arr[0], Arrays.copyOfRange(arr, 1, arr.length));
+        afterWrite();
         return res.getModifiedCount();
     }
 
@@ -1683,7 +1758,9 @@ public  abstract class MorphiaRepo<T extends UnversionedBaseModel> implements Ba
           }
        }
         entity = restorePolicyExcludedFields(datastore, entity);
-        return datastore.merge(entity);
+        T merged = datastore.merge(entity);
+        afterWrite();
+        return merged;
     }
 
     @Override
@@ -1695,7 +1772,9 @@ public  abstract class MorphiaRepo<T extends UnversionedBaseModel> implements Ba
              throw new RuntimeException("State transition validation failed", e);
           }
        }
-        return session.merge(entity);
+        T merged = session.merge(entity);
+        afterWrite();
+        return merged;
     }
 
     @Override
@@ -1705,7 +1784,9 @@ public  abstract class MorphiaRepo<T extends UnversionedBaseModel> implements Ba
 
     @Override
     public List<T> merge(Datastore datastore, List<T> entities) {
-        return datastore.merge(entities);
+        List<T> merged = datastore.merge(entities);
+        afterWrite();
+        return merged;
     }
 
     @Override
@@ -1719,7 +1800,9 @@ public  abstract class MorphiaRepo<T extends UnversionedBaseModel> implements Ba
              }
           }
        });
-        return session.merge(entities);
+        List<T> merged = session.merge(entities);
+        afterWrite();
+        return merged;
     }
 
     public T fillUIActions(@NotNull T model) {
@@ -1733,31 +1816,41 @@ public  abstract class MorphiaRepo<T extends UnversionedBaseModel> implements Ba
             return model;
         }
 
-        Map<DataDomain, UIActionList> actions = new HashMap<DataDomain, UIActionList>();
-        DataDomain dd = model.getDataDomain();
-
-        UIActionList uiactions = actions.get(dd);
-
-        if (uiactions == null) {
-            UIActionList mactions = new UIActionList(model.calculateStateBasedUIActions().size());
-            UIActionList alist = model.calculateStateBasedUIActions();
-
-            // Resolve functional mapping once per model (cached per class)
-            com.e2eq.framework.annotations.support.FunctionalMappingInfo mi =
-                    com.e2eq.framework.annotations.support.FunctionalMappingResolver.resolve(
-                            model.getClass(), model::bmFunctionalArea, model::bmFunctionalDomain);
-            String area = mi.area;
-            String domain = mi.domain;
+        // Resolve principal context once
+        PrincipalContext pcontext = SecurityContext.getPrincipalContext()
+                .orElseThrow(() -> new IllegalStateException("Principal Context should be non null"));
 
-            // Resolve principal context once
-            PrincipalContext pcontext = SecurityContext.getPrincipalContext()
-                    .orElseThrow(() -> new IllegalStateException("Principal Context should be non null"));
-
-            String resourceId = model.getRefName();
-
-            alist.forEach((UIAction action) -> {
-                String actionString = action.getLabel().toUpperCase().replace(" ", "_");
+        model.setActionList(allowedUIActions(model, model.calculateStateBasedUIActions(), pcontext, new HashMap<>(), true));
+        return model;
+    }
 
+    /**
+     * Filters the state-based actions of a model down to the ones the principal may perform.
+     *
+     * @param decisions memo of check results keyed by class and action, plus the resource id when perResource
+     * @param perResource whether check results may differ between resources of the same class
+     */
+    private UIActionList allowedUIActions(T model, UIActionList candidates, PrincipalContext pcontext,
+                                          Map<String, Boolean> decisions, boolean perResource) {
+        UIActionList allowed = new UIActionList(candidates.size());
+
+        // Resolve functional mapping once per model (cached per class)
+        com.e2eq.framework.annotations.support.FunctionalMappingInfo mi =
+                com.e2eq.framework.annotations.support.FunctionalMappingResolver.resolve(
+                        model.getClass(), model::bmFunctionalArea, model::bmFunctionalDomain);
+        String area = mi.area;
+        String domain = mi.domain;
+
+        String resourceId = model.getRefName();
+
+        for (UIAction action : candidates) {
+            String actionString = action.getLabel().toUpperCase().replace(" ", "_");
+            String decisionKey = perResource
+                    ? model.getClass().getName() + "|" + actionString + "|" + resourceId
+                    : model.getClass().getName() + "|" + actionString;
+
+            Boolean permitted = decisions.get(decisionKey);
+            if (permitted == null) {
                 ResourceContext rcontext = new ResourceContext.Builder()
                         .withFunctionalDomain(domain)
                         .withArea(area)
@@ -1766,29 +1859,55 @@ public  abstract class MorphiaRepo<T extends UnversionedBaseModel> implements Ba
                         .build();
 
                 SecurityCheckResponse sr = ruleContext.checkRules(pcontext, rcontext);
-                if (sr.getFinalEffect().equals(RuleEffect.ALLOW)) {
-                    mactions.add(action);
-                } else if (Log.isDebugEnabled()) {
-                    Log.debug("Action " + action.getLabel() + " is not allowed" + " for principal:" + pcontext.getUserId());
-                }
-            });
-
-            actions.put(dd, mactions);
-            uiactions = mactions;
+                permitted = sr.getFinalEffect().equals(RuleEffect.ALLOW);
+                decisions.put(decisionKey, permitted);
+            }
+            if (permitted) {
+                allowed.add(action);
+            } else if (Log.isDebugEnabled()) {
+                Log.debug("Action " + action.getLabel() + " is not allowed" + " for principal:" + pcontext.getUserId());
+            }
         }
-
-        model.setActionList(uiactions);
-        return model;
+        return allowed;
     }
 
+    /**
+     * Rows that share a class, data domain and state-based action list get the same actions;
+     * the resource id joins the key only when the realm's rules can tell resources apart.
+     */
+    private record UIActionGroup(Class<?> modelClass, DataDomain dataDomain, UIActionList candidates, String resourceId) {
+    }
 
     public Collection<T> fillUIActions(@NotNull Collection<T> collection) {
 
         Map<DataDomain, UIActionList> actions = new HashMap<>();
 
+        // Evaluate each distinct group of rows once and reuse the result for every row in it
+        Map<UIActionGroup, UIActionList> groups = new HashMap<>();
+        Map<String, Boolean> decisions = new HashMap<>();
+        PrincipalContext pcontext = null;
+        boolean perResource = true;
+
         for (T model : collection.getRows()) {
             // First, filter this model's actions based on permissions
-            fillUIActions(model);
+            if (model.getDataDomain() == null) {
+                fillUIActions(model);
+            } else {
+                if (pcontext == null) {
+                    pcontext = SecurityContext.getPrincipalContext()
+                            .orElseThrow(() -> new IllegalStateException("Principal Context should be non null"));
+                    perResource = ruleContext.isResourceIdSensitive(pcontext);
+                }
+                UIActionList candidates = model.calculateStateBasedUIActions();
+                UIActionGroup group = new UIActionGroup(model.getClass(), model.getDataDomain(), candidates,
+                        perResource ? model.getRefName() : null);
+                UIActionList allowed = groups.get(group);
+                if (allowed == null) {
+                    allowed = allowedUIActions(model, candidates, pcontext, decisions, perResource);
+                    groups.put(group, allowed);
+                }
+                model.setActionList(new UIActionList(allowed));
+            }
 
             DataDomain domain = model.getDataDomain();
             UIActionList modelActions = model.getActionList();
@@ -1,7 +1,5 @@
 package com.e2eq.framework.model.persistent.morphia;
 
-import com.e2eq.framework.grammar.BIAPIQueryLexer;
-import com.e2eq.framework.grammar.BIAPIQueryParser;
 import com.e2eq.framework.model.persistent.base.*;
 import com.e2eq.framework.model.security.DomainContext;
 import com.e2eq.framework.model.securityrules.PrincipalContext;
@@ -127,6 +125,24 @@ public class MorphiaUtils {
       return planner.plan(queryString, modelClass, limit, skip, sortFields, variableMap);
    }
 
+   /**
+    * Overload for keyset pages: {@code keysetAfter} is the predicate selecting the rows after the
+    * previous page, see {@link KeysetPagination#toMatch}. Only the aggregation path uses it.
+    */
+   public static <T extends UnversionedBaseModel> com.e2eq.framework.model.persistent.morphia.planner.PlannedQuery convertToPlannedQuery(
+           String queryString,
+           Class<T> modelClass,
+           Integer limit,
+           Integer skip,
+           java.util.List<com.e2eq.framework.model.persistent.morphia.planner.LogicalPlan.SortSpec.Field> sortFields,
+           java.util.Map<String, String> variableMap,
+           org.bson.Document keysetAfter
+   ) {
+      com.e2eq.framework.model.persistent.morphia.planner.QueryPlanner planner =
+              new com.e2eq.framework.model.persistent.morphia.planner.QueryPlanner();
+      return planner.plan(queryString, modelClass, limit, skip, sortFields, variableMap, keysetAfter);
+   }
+
    public static Map<String, String> createStandardVariableMapFrom(PrincipalContext pcontext, ResourceContext rcontext) {
       Map<String, String> variableMap = new HashMap<>();
       variableMap.put("principalId", pcontext.getUserId());
@@ -200,19 +216,16 @@ public class MorphiaUtils {
       return new VariableBundle(s, o);
    }
 
+   /**
+    * Parses and binds the query in one go; callers that see the same string repeatedly should
+    * keep a {@link FilterTemplate} instead.
+    */
    public static Filter convertToFilter(String queryString, VariableBundle vars, Class<? extends UnversionedBaseModel> modelClass) {
       Objects.requireNonNull(modelClass, "Model class cannot be null");
-      String normalized = normalizeOperators(queryString);
-      Optional<ParseTree> otree = validateQueryString(normalized);
-      ParseTree tree = otree.orElseThrow(() -> new IllegalArgumentException("syntax error in query string"));
-      ParseTreeWalker walker = new ParseTreeWalker();
-      StringSubstitutor sub = new StringSubstitutor(vars.strings);
-      QueryToFilterListener listener = new QueryToFilterListener(vars.objects, vars.strings, sub, modelClass);
-      walker.walk(listener, tree);
-      return listener.getFilter();
+      return FilterTemplate.compile(queryString).bind(vars, modelClass);
    }
 
-   private static String normalizeOperators(String q) {
+   static String normalizeOperators(String q) {
       if (q == null) return null;
       // Legacy normalization: historically ':=[' was used for IN. Normalize to the current ':^[' form.
       // Keep this for backward compatibility with stored rules; all other operators are now handled by the grammar.
@@ -223,17 +236,13 @@ public class MorphiaUtils {
    public static Filter convertToFilter(String queryString, @NotNull Map<String, String> variableMap, StringSubstitutor sub, Class<? extends UnversionedBaseModel> modelClass) {
       Objects.requireNonNull(modelClass, "Model class cannot be null");
       if (queryString != null && !queryString.isEmpty()) {
-         BIAPIQueryLexer lexer = new BIAPIQueryLexer(CharStreams.fromString(queryString));
-         BIAPIQueryParser parser = new BIAPIQueryParser(new CommonTokenStream(lexer));
-         parser.addErrorListener(new BaseErrorListener() {
-            @Override
-            public void syntaxError(Recognizer<?, ?> recognizer, Object offendingSymbol, int line,
-                                    int charPositionInLine, String msg, RecognitionException e) {
-               throw new IllegalArgumentException("Failed to parse " + queryString + " at position "
-                       + charPositionInLine + " due to " + msg, e);
-            }
-         });
-         ParseTree tree = parser.query();
+         ParseTree tree;
+         try {
+            tree = QueryParseCache.parse(queryString);
+         } catch (QueryParseCache.QuerySyntaxException e) {
+            throw new IllegalArgumentException("Failed to parse " + queryString + " at position "
+                    + e.getCharPositionInLine() + " due to " + e.getDetail(), e);
+         }
          ParseTreeWalker walker = new ParseTreeWalker();
          QueryToFilterListener listener;
          if (sub == null) {
@@ -255,17 +264,12 @@ public class MorphiaUtils {
          return Optional.empty();
       }
 
-      BIAPIQueryLexer lexer = new BIAPIQueryLexer(CharStreams.fromString(queryString));
-      BIAPIQueryParser parser = new BIAPIQueryParser(new CommonTokenStream(lexer));
-      parser.addErrorListener(new BaseErrorListener() {
-         @Override
-         public void syntaxError(Recognizer<?, ?> recognizer, Object offendingSymbol, int line,
-                                 int charPositionInLine, String msg, RecognitionException e) {
-            throw new IllegalArgumentException("syntax error in query string: Failed to parse " + queryString + " at position "
-                                                  + charPositionInLine + " due to " + msg, e);
-         }
-      });
-      return Optional.of(parser.query());
+      try {
+         return Optional.of(QueryParseCache.parse(queryString));
+      } catch (QueryParseCache.QuerySyntaxException e) {
+         throw new IllegalArgumentException("syntax error in query string: Failed to parse " + queryString + " at position "
+                                               + e.getCharPositionInLine() + " due to " + e.getDetail(), e);
+      }
    }
 
 
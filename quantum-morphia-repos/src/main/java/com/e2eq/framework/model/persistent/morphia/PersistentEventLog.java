@@ -0,0 +1,342 @@
+package com.e2eq.framework.model.persistent.morphia;
+
+import com.e2eq.framework.model.persistent.base.PersistentEvent;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.IndexOptions;
+import com.mongodb.client.model.Indexes;
+import com.mongodb.client.model.InsertManyOptions;
+import com.mongodb.client.model.Sorts;
+import io.quarkus.logging.Log;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.bson.types.ObjectId;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Append-only store of the persistence events of {@link com.e2eq.framework.annotations.AuditPersistence}
+ * entities.
+ *
+ * Events are kept in the {@value #COLLECTION} collection of each realm, one document per event linked
+ * to the entity by collection name, id and version, instead of growing a list inside the entity
+ * document. Writes go through a bounded queue drained by a background writer with unordered
+ * {@code insertMany} calls. {@code quantum.audit.persistence.mode} selects the durability:
+ * <ul>
+ *    <li>{@code sync} - every event is inserted before the save returns</li>
+ *    <li>{@code async} - the save returns once the event is queued; a crash can lose queued events</li>
+ *    <li>{@code async-flush-on-commit} (default) - events are batched with those of concurrent saves,
+ *    but each save waits until the batch holding its events is written</li>
+ * </ul>
+ * When the queue is full events are written by the caller, so a slow database slows saves down
+ * rather than dropping events.
+ */
+@ApplicationScoped
+public class PersistentEventLog {
+
+    public static final String COLLECTION = "persistentEventLog";
+
+    public enum Mode {
+        SYNC, ASYNC, ASYNC_FLUSH_ON_COMMIT;
+
+        static Mode parse(String value) {
+            return Mode.valueOf(value.trim().toUpperCase().replace('-', '_'));
+        }
+    }
+
+    @ConfigProperty(name = "quantum.audit.persistence.mode", defaultValue = "async-flush-on-commit")
+    String mode = "async-flush-on-commit";
+
+    @ConfigProperty(name = "quantum.audit.persistence.queueCapacity", defaultValue = "10000")
+    int queueCapacity = 10000;
+
+    @ConfigProperty(name = "quantum.audit.persistence.batchSize", defaultValue = "500")
+    int batchSize = 500;
+
+    @ConfigProperty(name = "quantum.audit.persistence.flushIntervalMillis", defaultValue = "200")
+    long flushIntervalMillis = 200;
+
+    @ConfigProperty(name = "quantum.audit.persistence.commitTimeoutMillis", defaultValue = "10000")
+    long commitTimeoutMillis = 10000;
+
+    @Inject
+    MongoClient mongoClient;
+
+    private record Pending(String realm, Document event, CompletableFuture<Void> written) {
+    }
+
+    private volatile BlockingQueue<Pending> queue;
+    private volatile Thread writer;
+    private volatile boolean stopped;
+    private final Set<String> indexedRealms = ConcurrentHashMap.newKeySet();
+
+    private final AtomicLong recorded = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong callerWrites = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+
+    /**
+     * Records one event of an entity.
+     *
+     * @param realm the realm (database) the entity was saved in
+     * @param entityType the entity's collection name
+     * @param entityId the entity's id
+     * @param event the event; its version should be the version that was saved
+     */
+    public void record(String realm, String entityType, ObjectId entityId, PersistentEvent event) {
+        Document doc = toDocument(entityType, entityId, event);
+        recorded.incrementAndGet();
+        Mode m = mode();
+        if (m == Mode.SYNC || stopped) {
+            write(realm, List.of(doc));
+            return;
+        }
+        Pending pending = new Pending(realm, doc, new CompletableFuture<>());
+        if (!queue().offer(pending)) {
+            callerWrites.incrementAndGet();
+            write(realm, List.of(doc));
+            return;
+        }
+        ensureWriter();
+        if (m == Mode.ASYNC_FLUSH_ON_COMMIT) {
+            awaitWritten(pending);
+        }
+    }
+
+    /**
+     * Returns a page of an entity's events, newest first.
+     *
+     * @param realm the realm the entity lives in
+     * @param entityType the entity's collection name
+     * @param entityId the entity's id
+     * @param skip number of events to skip
+     * @param limit maximum number of events to return; 0 or less means no limit
+     */
+    public List<PersistentEvent> history(String realm, String entityType, ObjectId entityId, int skip, int limit) {
+        List<PersistentEvent> events = new ArrayList<>();
+        for (Document doc : collection(realm).find(entityFilter(entityType, entityId))
+                .sort(Sorts.descending("eventDate", "_id"))
+                .skip(Math.max(0, skip))
+                .limit(Math.max(0, limit))) {
+            events.add(fromDocument(doc));
+        }
+        return events;
+    }
+
+    /**
+     * Counts the events recorded for an entity.
+     */
+    public long count(String realm, String entityType, ObjectId entityId) {
+        return collection(realm).countDocuments(entityFilter(entityType, entityId));
+    }
+
+    /**
+     * Writes every queued event before returning.
+     */
+    public void flush() {
+        List<Pending> batch = new ArrayList<>();
+        BlockingQueue<Pending> q = queue;
+        while (q != null && q.drainTo(batch, Math.max(1, batchSize)) > 0) {
+            writeBatch(batch);
+            batch.clear();
+        }
+    }
+
+    /**
+     * Gets audit log metrics as a map.
+     *
+     * @return map of metric names to values
+     */
+    public Map<String, Object> getSummary() {
+        Map<String, Object> summary = new HashMap<>();
+        summary.put("mode", mode().name());
+        summary.put("queued", queue == null ? 0 : queue.size());
+        summary.put("recorded", recorded.get());
+        summary.put("batches", batches.get());
+        summary.put("callerWrites", callerWrites.get());
+        summary.put("failures", failures.get());
+        return summary;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        stopped = true;
+        Thread t = writer;
+        if (t != null) {
+            t.interrupt();
+        }
+        flush();
+    }
+
+    private Mode mode() {
+        try {
+            return Mode.parse(mode);
+        } catch (IllegalArgumentException e) {
+            Log.warnf("Unknown quantum.audit.persistence.mode '%s'; using async-flush-on-commit", mode);
+            return Mode.ASYNC_FLUSH_ON_COMMIT;
+        }
+    }
+
+    private BlockingQueue<Pending> queue() {
+        if (queue == null) {
+            synchronized (this) {
+                if (queue == null) {
+                    queue = new ArrayBlockingQueue<>(Math.max(1, queueCapacity));
+                }
+            }
+        }
+        return queue;
+    }
+
+    private void ensureWriter() {
+        if (writer == null) {
+            synchronized (this) {
+                if (writer == null) {
+                    Thread t = new Thread(this::drainLoop, "persistent-event-log");
+                    t.setDaemon(true);
+                    t.start();
+                    writer = t;
+                }
+            }
+        }
+    }
+
+    private void drainLoop() {
+        List<Pending> batch = new ArrayList<>();
+        while (!stopped) {
+            try {
+                Pending first = queue.poll(flushIntervalMillis, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, Math.max(1, batchSize) - 1);
+                writeBatch(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (RuntimeException e) {
+                Log.errorf(e, "Persistent event writer failed");
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void writeBatch(List<Pending> batch) {
+        Map<String, List<Pending>> byRealm = new LinkedHashMap<>();
+        for (Pending p : batch) {
+            byRealm.computeIfAbsent(p.realm(), r -> new ArrayList<>()).add(p);
+        }
+        for (Map.Entry<String, List<Pending>> entry : byRealm.entrySet()) {
+            List<Document> docs = new ArrayList<>(entry.getValue().size());
+            entry.getValue().forEach(p -> docs.add(p.event()));
+            try {
+                write(entry.getKey(), docs);
+                entry.getValue().forEach(p -> p.written().complete(null));
+            } catch (RuntimeException e) {
+                Log.errorf(e, "Failed to write %d persistent events to realm %s", docs.size(), entry.getKey());
+                entry.getValue().forEach(p -> p.written().completeExceptionally(e));
+            }
+        }
+    }
+
+    private void write(String realm, List<Document> docs) {
+        try {
+            if (docs.size() == 1) {
+                collection(realm).insertOne(docs.get(0));
+            } else {
+                collection(realm).insertMany(docs, new InsertManyOptions().ordered(false));
+            }
+            batches.incrementAndGet();
+        } catch (MongoBulkWriteException e) {
+            // unordered: everything but the reported documents was written
+            failures.addAndGet(e.getWriteErrors().size());
+            throw e;
+        } catch (RuntimeException e) {
+            failures.addAndGet(docs.size());
+            throw e;
+        }
+    }
+
+    private void awaitWritten(Pending pending) {
+        try {
+            pending.written().get(commitTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (TimeoutException e) {
+            Log.warnf("Persistent event of %s not written after %d ms; it stays queued",
+                    pending.event().get("entityId"), commitTimeoutMillis);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Failed to write persistent event", e.getCause());
+        }
+    }
+
+    private MongoCollection<Document> collection(String realm) {
+        MongoCollection<Document> collection = mongoClient.getDatabase(realm).getCollection(COLLECTION);
+        if (indexedRealms.add(realm)) {
+            try {
+                collection.createIndex(Indexes.compoundIndex(Indexes.ascending("entityId", "entityType"),
+                        Indexes.descending("eventDate", "_id")), new IndexOptions().name("entity_history"));
+            } catch (RuntimeException e) {
+                indexedRealms.remove(realm);
+                Log.warnf(e, "Could not create the %s index in realm %s", COLLECTION, realm);
+            }
+        }
+        return collection;
+    }
+
+    private static Bson entityFilter(String entityType, ObjectId entityId) {
+        return Filters.and(Filters.eq("entityId", entityId), Filters.eq("entityType", entityType));
+    }
+
+    private static Document toDocument(String entityType, ObjectId entityId, PersistentEvent event) {
+        Document doc = new Document("_id", new ObjectId())
+                .append("entityType", entityType)
+                .append("entityId", entityId)
+                .append("version", event.getVersion())
+                .append("eventType", event.getEventType())
+                .append("eventDate", event.getEventDate() == null ? new Date() : event.getEventDate())
+                .append("userId", event.getUserId());
+        if (event.getEventMessage() != null) {
+            doc.append("eventMessage", event.getEventMessage());
+        }
+        if (event.getEventData() != null) {
+            doc.append("eventData", new Document(event.getEventData()));
+        }
+        return doc;
+    }
+
+    private static PersistentEvent fromDocument(Document doc) {
+        PersistentEvent event = new PersistentEvent();
+        event.setEventType(doc.getString("eventType"));
+        event.setEventMessage(doc.getString("eventMessage"));
+        event.setEventDate(doc.getDate("eventDate"));
+        event.setUserId(doc.getString("userId"));
+        Object version = doc.get("version");
+        event.setVersion(version instanceof Number n ? n.longValue() : null);
+        Document data = doc.get("eventData", Document.class);
+        event.setEventData(data == null ? null : new HashMap<>(data));
+        return event;
+    }
+}
@@ -0,0 +1,177 @@
+package com.e2eq.framework.model.persistent.morphia;
+
+import com.e2eq.framework.grammar.BIAPIQueryLexer;
+import com.e2eq.framework.grammar.BIAPIQueryParser;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.antlr.v4.runtime.BailErrorStrategy;
+import org.antlr.v4.runtime.BaseErrorListener;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.DefaultErrorStrategy;
+import org.antlr.v4.runtime.RecognitionException;
+import org.antlr.v4.runtime.Recognizer;
+import org.antlr.v4.runtime.Token;
+import org.antlr.v4.runtime.atn.PredictionMode;
+import org.antlr.v4.runtime.misc.ParseCancellationException;
+import org.antlr.v4.runtime.tree.ParseTree;
+import org.eclipse.microprofile.config.Config;
+import org.eclipse.microprofile.config.ConfigProvider;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded LRU cache of BIAPI query strings to their parse trees.
+ *
+ * List screens send the same handful of query strings over and over; each of them is lexed and
+ * parsed once and the read-only tree is shared by every caller (filter conversion, validation and
+ * the {@link com.e2eq.framework.model.persistent.morphia.planner.QueryPlanner}). Parsing runs in
+ * ANTLR's SLL prediction mode first, which is much cheaper and correct whenever it succeeds, and
+ * only falls back to full LL prediction, with normal error reporting, when SLL gives up.
+ *
+ * Syntax errors are reported as {@link QuerySyntaxException} and are not cached, so callers can
+ * translate them into their own exception types. The size is set with
+ * {@code quantum.query.parseCache.maxEntries} (0 disables caching).
+ */
+public final class QueryParseCache {
+
+    public static final long DEFAULT_MAX_ENTRIES = 2048L;
+
+    private static final Cache<String, ParseTree> TREES = CacheBuilder.newBuilder()
+            .maximumSize(configuredMaxEntries())
+            .build();
+
+    private static final AtomicLong HITS = new AtomicLong();
+    private static final AtomicLong MISSES = new AtomicLong();
+    private static final AtomicLong LL_FALLBACKS = new AtomicLong();
+    private static final AtomicLong SYNTAX_ERRORS = new AtomicLong();
+    private static final AtomicLong PARSE_NANOS = new AtomicLong();
+
+    private QueryParseCache() {
+    }
+
+    /**
+     * Reported when a query string is not valid BIAPI syntax.
+     */
+    public static final class QuerySyntaxException extends RuntimeException {
+        private final int line;
+        private final int charPositionInLine;
+        private final String detail;
+
+        QuerySyntaxException(int line, int charPositionInLine, String detail, RecognitionException cause) {
+            super("line " + line + ":" + charPositionInLine + " " + detail, cause);
+            this.line = line;
+            this.charPositionInLine = charPositionInLine;
+            this.detail = detail;
+        }
+
+        public int getLine() {
+            return line;
+        }
+
+        public int getCharPositionInLine() {
+            return charPositionInLine;
+        }
+
+        /** The parser's own message, without position. */
+        public String getDetail() {
+            return detail;
+        }
+    }
+
+    /**
+     * Returns the parse tree of the query, parsing it on first use.
+     *
+     * @param query a non-blank query string
+     * @throws QuerySyntaxException when the query is not valid BIAPI syntax
+     */
+    public static ParseTree parse(String query) {
+        ParseTree tree = TREES.getIfPresent(query);
+        if (tree != null) {
+            HITS.incrementAndGet();
+            return tree;
+        }
+        MISSES.incrementAndGet();
+        long start = System.nanoTime();
+        try {
+            tree = parseUncached(query);
+        } finally {
+            PARSE_NANOS.addAndGet(System.nanoTime() - start);
+        }
+        TREES.put(query, tree);
+        return tree;
+    }
+
+    private static ParseTree parseUncached(String query) {
+        CommonTokenStream tokens = new CommonTokenStream(new BIAPIQueryLexer(CharStreams.fromString(query)));
+        BIAPIQueryParser parser = new BIAPIQueryParser(tokens);
+        parser.removeErrorListeners();
+        parser.getInterpreter().setPredictionMode(PredictionMode.SLL);
+        parser.setErrorHandler(new BailErrorStrategy());
+        try {
+            ParseTree tree = parser.query();
+            // the bail strategy does not resync, so only trust SLL when it consumed everything
+            if (tokens.LA(1) == Token.EOF) {
+                return tree;
+            }
+        } catch (ParseCancellationException sllFailed) {
+            // either a real syntax error or a decision SLL cannot make; LL tells them apart
+        }
+        LL_FALLBACKS.incrementAndGet();
+        tokens.seek(0);
+        parser.reset();
+        parser.getInterpreter().setPredictionMode(PredictionMode.LL);
+        parser.setErrorHandler(new DefaultErrorStrategy());
+        parser.addErrorListener(new BaseErrorListener() {
+            @Override
+            public void syntaxError(Recognizer<?, ?> recognizer, Object offendingSymbol, int line,
+                                    int charPositionInLine, String msg, RecognitionException e) {
+                SYNTAX_ERRORS.incrementAndGet();
+                throw new QuerySyntaxException(line, charPositionInLine, msg, e);
+            }
+        });
+        return parser.query();
+    }
+
+    /**
+     * Drops every cached tree; metrics are kept.
+     */
+    public static void invalidateAll() {
+        TREES.invalidateAll();
+    }
+
+    /**
+     * Gets cache metrics as a map.
+     *
+     * @return map of metric names to values
+     */
+    public static Map<String, Object> getSummary() {
+        Map<String, Object> summary = new HashMap<>();
+        long hits = HITS.get();
+        long misses = MISSES.get();
+        summary.put("size", TREES.size());
+        summary.put("hits", hits);
+        summary.put("misses", misses);
+        summary.put("hitRate", hits + misses == 0 ? 0.0 : (double) hits / (hits + misses));
+        summary.put("llFallbacks", LL_FALLBACKS.get());
+        summary.put("syntaxErrors", SYNTAX_ERRORS.get());
+        summary.put("parseTimeMillis", PARSE_NANOS.get() / 1_000_000L);
+        summary.put("avgParseMicros", misses == 0 ? 0L : PARSE_NANOS.get() / misses / 1_000L);
+        return summary;
+    }
+
+    private static long configuredMaxEntries() {
+        try {
+            Config cfg = ConfigProvider.getConfig();
+            if (cfg != null) {
+                long max = cfg.getOptionalValue("quantum.query.parseCache.maxEntries", Long.class).orElse(DEFAULT_MAX_ENTRIES);
+                return Math.max(0L, max);
+            }
+        } catch (Throwable ignored) {
+            // no config available (plain unit tests); use the default
+        }
+        return DEFAULT_MAX_ENTRIES;
+    }
+}
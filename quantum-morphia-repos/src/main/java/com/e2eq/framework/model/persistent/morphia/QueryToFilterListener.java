@@ -17,6 +17,8 @@ import org.apache.commons.text.StringSubstitutor;
 import com.e2eq.framework.model.securityrules.PrincipalContext;
 import com.e2eq.framework.model.securityrules.ResourceContext;
 import org.bson.types.ObjectId;
+import org.eclipse.microprofile.config.Config;
+import org.eclipse.microprofile.config.ConfigProvider;
 
 
 import java.lang.annotation.Annotation;
@@ -33,6 +35,7 @@ import java.util.regex.Pattern;
 public class QueryToFilterListener extends BIAPIQueryBaseListener {
     private final Map<String, Object> objectVars = new HashMap<>();
     private static final Pattern SPECIAL_REGEX_CHARS = Pattern.compile("[{}()\\[\\].+*?^$\\\\|\\-]");
+    private static final int DEFAULT_MAX_EDGE_IDS = 10000;
 
     protected Stack<Filter> filterStack = new Stack<>();
     protected Stack<Integer> opTypeStack = new Stack<>();
@@ -53,6 +56,10 @@ public class QueryToFilterListener extends BIAPIQueryBaseListener {
 
     Class<? extends UnversionedBaseModel> modelClass=null;
 
+    // quantum.ontology.query.edge-join.max-ids and .mode, read on the first edge function
+    private Integer maxEdgeIds = null;
+    private String edgeJoinMode = null;
+
 
     public QueryToFilterListener(Map<String, String> variableMap, StringSubstitutor sub, Class<? extends UnversionedBaseModel> modelClass) {
         this.variableMap = variableMap;
@@ -1079,6 +1086,7 @@ public class QueryToFilterListener extends BIAPIQueryBaseListener {
                 // ignore and fail closed below
             }
         }
+        warnAboveEdgeIdLimit("hasEdge", predicate, dst, ids);
         if (ids == null || ids.isEmpty()) {
             filterStack.push(Filters.eq("_id", "__none__"));
         } else {
@@ -1175,6 +1183,7 @@ public class QueryToFilterListener extends BIAPIQueryBaseListener {
                 // ignore and fail closed below
             }
         }
+        warnAboveEdgeIdLimit("hasOutgoingEdge", predicate, dst, ids);
         if (ids == null || ids.isEmpty()) {
             filterStack.push(Filters.eq("_id", "__none__"));
         } else {
@@ -1304,6 +1313,7 @@ public class QueryToFilterListener extends BIAPIQueryBaseListener {
                 }
             }
         }
+        warnAboveEdgeIdLimit("hasIncomingEdge", predicate, src, ids);
         if (ids == null || ids.isEmpty()) {
             filterStack.push(Filters.eq("_id", "__none__"));
         } else {
@@ -1329,6 +1339,49 @@ public class QueryToFilterListener extends BIAPIQueryBaseListener {
         }
     }
 
+    // Edge functions become an _id/refName $in filter, and a find() cannot join the edges
+    // collection instead: a fan-out above max-ids is still materialized, and flagged unless
+    // quantum.ontology.query.edge-join.mode forces ids. Aggregation callers can use
+    // ListQueryRewriter.plan*(..), which joins server-side.
+    private void warnAboveEdgeIdLimit(String function, String predicate, String otherId, Set<String> ids) {
+        if (ids != null && ids.size() > maxEdgeIds() && !"ids".equals(edgeJoinMode())) {
+            Log.warnf("%s(%s, %s) materialized %d ids, above quantum.ontology.query.edge-join.max-ids=%d",
+                    function, predicate, otherId, ids.size(), maxEdgeIds());
+        }
+    }
+
+    private int maxEdgeIds() {
+        if (maxEdgeIds == null) {
+            int max = DEFAULT_MAX_EDGE_IDS;
+            try {
+                Config cfg = ConfigProvider.getConfig();
+                if (cfg != null) {
+                    max = cfg.getOptionalValue("quantum.ontology.query.edge-join.max-ids", Integer.class).orElse(DEFAULT_MAX_EDGE_IDS);
+                }
+            } catch (Throwable ignored) {
+                // no config available (plain unit tests); use the default
+            }
+            maxEdgeIds = max;
+        }
+        return maxEdgeIds;
+    }
+
+    private String edgeJoinMode() {
+        if (edgeJoinMode == null) {
+            String mode = "auto";
+            try {
+                Config cfg = ConfigProvider.getConfig();
+                if (cfg != null) {
+                    mode = cfg.getOptionalValue("quantum.ontology.query.edge-join.mode", String.class).orElse("auto");
+                }
+            } catch (Throwable ignored) {
+                // no config available (plain unit tests); use the default
+            }
+            edgeJoinMode = mode.trim().toLowerCase();
+        }
+        return edgeJoinMode;
+    }
+
     // Reflective helper: check if predicate range is compatible with modelClass (for hasIncomingEdge)
     private boolean isPredicateRangeApplicableToModel(Object registry, Class<?> regIface, String predicate, Class<?> modelClass) {
         try {
@@ -0,0 +1,326 @@
+package com.e2eq.framework.model.persistent.morphia;
+
+import com.e2eq.framework.model.security.Realm;
+import com.e2eq.framework.util.EnvConfigUtils;
+import com.mongodb.MongoException;
+import com.mongodb.client.MongoChangeStreamCursor;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import dev.morphia.MorphiaDatastore;
+import io.quarkus.logging.Log;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.bson.Document;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory catalog of the realms registered in the system realm.
+ *
+ * Realms change rarely but are read on the request path (X-Realm validation, realm override,
+ * tenant and email-domain lookups). The catalog keeps an immutable snapshot of the Realm
+ * collection indexed by refName, databaseName, tenantId and emailDomain, so those lookups are map
+ * reads. The snapshot is loaded on first use and refreshed:
+ * <ul>
+ *   <li>from a MongoDB change stream on the Realm collection when the deployment supports it
+ *   (replica sets and sharded clusters);</li>
+ *   <li>otherwise by polling a fingerprint of the collection's ids and {@code version} fields and
+ *   reloading when it changes;</li>
+ *   <li>immediately after a realm is saved or deleted through the repos on this node.</li>
+ * </ul>
+ *
+ * Realms handed out by the catalog are shared between callers and must be treated as read-only.
+ */
+@ApplicationScoped
+public class RealmCatalog implements PostPersistHook, PostDeleteHook {
+
+    @Inject
+    RealmRepo realmRepo;
+
+    @Inject
+    EnvConfigUtils envConfigUtils;
+
+    @ConfigProperty(name = "quantum.realmCatalog.enabled", defaultValue = "true")
+    boolean enabled = true;
+
+    @ConfigProperty(name = "quantum.realmCatalog.changeStream.enabled", defaultValue = "true")
+    boolean changeStreamEnabled = true;
+
+    @ConfigProperty(name = "quantum.realmCatalog.pollIntervalSeconds", defaultValue = "30")
+    long pollIntervalSeconds = 30;
+
+    /**
+     * Immutable view of the Realm collection at a point in time.
+     */
+    public static final class Snapshot {
+        final List<Realm> realms;
+        final Map<String, Realm> byRefName;
+        final Map<String, Realm> byDatabaseName;
+        final Map<String, Realm> byTenantId;
+        final Map<String, Realm> byEmailDomain;
+        final List<String> refNames;
+        final long fingerprint;
+
+        Snapshot(List<Realm> realms, long fingerprint) {
+            Map<String, Realm> refName = new HashMap<>();
+            Map<String, Realm> databaseName = new HashMap<>();
+            Map<String, Realm> tenantId = new HashMap<>();
+            Map<String, Realm> emailDomain = new HashMap<>();
+            for (Realm r : realms) {
+                // first one wins, matching the first() of the equivalent repo queries
+                if (r.getRefName() != null) refName.putIfAbsent(r.getRefName(), r);
+                if (r.getDatabaseName() != null) databaseName.putIfAbsent(r.getDatabaseName(), r);
+                if (r.getEmailDomain() != null) emailDomain.putIfAbsent(r.getEmailDomain(), r);
+                if (r.getDomainContext() != null && r.getDomainContext().getTenantId() != null) {
+                    tenantId.putIfAbsent(r.getDomainContext().getTenantId(), r);
+                }
+            }
+            this.realms = List.copyOf(realms);
+            this.byRefName = Map.copyOf(refName);
+            this.byDatabaseName = Map.copyOf(databaseName);
+            this.byTenantId = Map.copyOf(tenantId);
+            this.byEmailDomain = Map.copyOf(emailDomain);
+            this.refNames = this.realms.stream().map(Realm::getRefName).filter(Objects::nonNull).toList();
+            this.fingerprint = fingerprint;
+        }
+    }
+
+    private volatile Snapshot snapshot;
+    private volatile Thread refresher;
+    private volatile boolean running = true;
+
+    private final AtomicLong refreshes = new AtomicLong();
+
+    /**
+     * @return every realm in the system realm's Realm collection
+     */
+    public List<Realm> getAll() {
+        if (!enabled) {
+            return realmRepo.getAllListWithIgnoreRules(systemRealm());
+        }
+        return snapshot().realms;
+    }
+
+    /**
+     * @return the refNames of every realm, in collection order
+     */
+    public List<String> getRefNames() {
+        if (!enabled) {
+            return realmRepo.getAllListWithIgnoreRules(systemRealm()).stream().map(Realm::getRefName).toList();
+        }
+        return snapshot().refNames;
+    }
+
+    public Optional<Realm> findByRefName(String refName) {
+        if (refName == null) return Optional.empty();
+        if (!enabled) return realmRepo.findByRefName(refName, true, systemRealm());
+        return Optional.ofNullable(snapshot().byRefName.get(refName));
+    }
+
+    public Optional<Realm> findByDatabaseName(String databaseName) {
+        if (databaseName == null) return Optional.empty();
+        if (!enabled) return realmRepo.findByDatabaseName(databaseName, true, systemRealm());
+        return Optional.ofNullable(snapshot().byDatabaseName.get(databaseName));
+    }
+
+    /**
+     * Looks a realm up by the tenantId of its default domain context.
+     */
+    public Optional<Realm> findByTenantId(String tenantId) {
+        if (tenantId == null) return Optional.empty();
+        if (!enabled) return realmRepo.findByTenantId(tenantId, true);
+        return Optional.ofNullable(snapshot().byTenantId.get(tenantId));
+    }
+
+    public Optional<Realm> findByEmailDomain(String emailDomain) {
+        if (emailDomain == null) return Optional.empty();
+        if (!enabled) return realmRepo.findByEmailDomain(emailDomain, true, systemRealm());
+        return Optional.ofNullable(snapshot().byEmailDomain.get(emailDomain));
+    }
+
+    /**
+     * Reloads the snapshot from the database.
+     */
+    public void refresh() {
+        // read before the realms: a realm written in between then shows up as a changed fingerprint
+        long fingerprint;
+        try {
+            fingerprint = fingerprint();
+        } catch (RuntimeException e) {
+            fingerprint = 0L;
+        }
+        List<Realm> realms = realmRepo.getAllListWithIgnoreRules(systemRealm());
+        snapshot = new Snapshot(realms, fingerprint);
+        refreshes.incrementAndGet();
+        Log.debugf("RealmCatalog: loaded %d realms", realms.size());
+    }
+
+    /**
+     * Gets catalog metrics as a map.
+     *
+     * @return map of metric names to values
+     */
+    public Map<String, Object> getSummary() {
+        Map<String, Object> summary = new HashMap<>();
+        Snapshot s = snapshot;
+        summary.put("realmCatalogEnabled", enabled);
+        summary.put("realmCatalogSize", s != null ? s.realms.size() : 0);
+        summary.put("realmCatalogRefreshes", refreshes.get());
+        Thread t = refresher;
+        summary.put("realmCatalogRefresher", t != null ? t.getName() : "none");
+        return summary;
+    }
+
+    @Override
+    public void afterPersist(String realmId, Object entity) {
+        if (entity instanceof Realm && snapshot != null) {
+            refresh();
+        }
+    }
+
+    @Override
+    public void afterDelete(String realmId, Class<?> entityClass, String idAsString) {
+        if (entityClass != null && Realm.class.isAssignableFrom(entityClass) && snapshot != null) {
+            refresh();
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        running = false;
+        Thread t = refresher;
+        if (t != null) {
+            t.interrupt();
+        }
+    }
+
+    private String systemRealm() {
+        return envConfigUtils.getSystemRealm();
+    }
+
+    private Snapshot snapshot() {
+        Snapshot s = snapshot;
+        if (s == null) {
+            synchronized (this) {
+                s = snapshot;
+                if (s == null) {
+                    refresh();
+                    s = snapshot;
+                    startRefresher();
+                }
+            }
+        }
+        return s;
+    }
+
+    private MongoCollection<Document> realmCollection() {
+        MorphiaDatastore ds = realmRepo.getMorphiaDataStoreWrapper().getDataStore(systemRealm());
+        String collectionName = ds.getMapper().getEntityModel(Realm.class).collectionName();
+        return ds.getDatabase().getCollection(collectionName);
+    }
+
+    /**
+     * Order-independent hash of the (id, version) pairs of the Realm collection; every save bumps
+     * the version, and inserts and deletes change the set of ids.
+     */
+    private long fingerprint() {
+        long hash = 0L;
+        long count = 0L;
+        try (MongoCursor<Document> cursor = realmCollection().find()
+                .projection(Projections.include("_id", "version")).iterator()) {
+            while (cursor.hasNext()) {
+                Document d = cursor.next();
+                hash += 31L * Objects.hashCode(d.get("_id")) + Objects.hashCode(d.get("version"));
+                count++;
+            }
+        }
+        return 31L * hash + count;
+    }
+
+    private void startRefresher() {
+        if (refresher != null || (pollIntervalSeconds <= 0 && !changeStreamEnabled)) {
+            return;
+        }
+        Thread t = new Thread(this::refreshLoop, "realm-catalog-refresher");
+        t.setDaemon(true);
+        refresher = t;
+        t.start();
+    }
+
+    private void refreshLoop() {
+        if (changeStreamEnabled) {
+            try {
+                watchChanges();
+                return;
+            } catch (MongoException e) {
+                // e.g. standalone servers do not support change streams
+                Log.infof("RealmCatalog: change stream unavailable (%s); polling every %ds instead",
+                        e.getMessage(), pollIntervalSeconds);
+            } catch (RuntimeException e) {
+                if (!running) return;
+                Log.warnf(e, "RealmCatalog: change stream failed; polling every %ds instead", pollIntervalSeconds);
+            }
+        }
+        if (pollIntervalSeconds > 0) {
+            poll();
+        }
+    }
+
+    private void watchChanges() {
+        try (MongoChangeStreamCursor<ChangeStreamDocument<Document>> cursor =
+                     realmCollection().watch().maxAwaitTime(1, TimeUnit.SECONDS).cursor()) {
+            Log.infof("RealmCatalog: watching realm changes in %s", systemRealm());
+            // pick up anything written between the initial load and opening the stream
+            refresh();
+            while (running) {
+                ChangeStreamDocument<Document> change = cursor.tryNext();
+                if (change == null) continue;
+                // drain a burst of changes before reloading once
+                while (cursor.tryNext() != null) {
+                    // keep draining
+                }
+                refresh();
+            }
+        }
+    }
+
+    private void poll() {
+        while (running) {
+            try {
+                Thread.sleep(TimeUnit.SECONDS.toMillis(pollIntervalSeconds));
+                Snapshot s = snapshot;
+                if (s == null || fingerprint() != s.fingerprint) {
+                    refresh();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                Log.warnf(e, "RealmCatalog: realm poll failed; keeping the current snapshot");
+            }
+        }
+    }
+
+    /**
+     * Builds a snapshot from a list of realms; used by tests and callers that already hold the
+     * collection.
+     */
+    static Snapshot snapshotOf(List<Realm> realms) {
+        return new Snapshot(realms != null ? realms : Collections.emptyList(), 0L);
+    }
+
+    void setSnapshot(Snapshot snapshot) {
+        this.snapshot = snapshot;
+    }
+}
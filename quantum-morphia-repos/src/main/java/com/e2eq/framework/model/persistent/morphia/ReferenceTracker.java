@@ -0,0 +1,205 @@
+package com.e2eq.framework.model.persistent.morphia;
+
+import com.e2eq.framework.model.persistent.base.BaseModel;
+import com.e2eq.framework.model.persistent.base.ReferenceEntry;
+import com.mongodb.client.ClientSession;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.Updates;
+import com.mongodb.client.model.WriteModel;
+import dev.morphia.Datastore;
+import io.quarkus.logging.Log;
+import jakarta.enterprise.context.ApplicationScoped;
+import org.bson.BsonDocument;
+import org.bson.BsonDocumentWrapper;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.bson.types.ObjectId;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Maintains the {@code references} back-reference arrays of {@link com.e2eq.framework.annotations.TrackReferences}
+ * parents with atomic {@code $addToSet} / {@code $pull} updates instead of re-saving the parent document.
+ *
+ * Outside a batch every change is written immediately. Inside a {@link #begin() batch} (opened by the
+ * repo's list saves) the changes are collected per parent and written when the batch closes, so a
+ * bulk import of children pointing at the same parent costs one update of that parent. Writes made
+ * through a {@link dev.morphia.transactions.MorphiaSession} join its transaction.
+ */
+@ApplicationScoped
+public class ReferenceTracker {
+
+    private static final String REFERENCES = "references";
+
+    private static final ThreadLocal<Batch> CURRENT = new ThreadLocal<>();
+
+    private final AtomicLong entriesAdded = new AtomicLong();
+    private final AtomicLong entriesRemoved = new AtomicLong();
+    private final AtomicLong parentUpdates = new AtomicLong();
+
+    private record ParentKey(Class<?> type, ObjectId id) {
+    }
+
+    private record Target(Datastore datastore, Class<?> type) {
+    }
+
+    /** The changes to one parent's references array. */
+    private static final class Changes {
+        final Datastore datastore;
+        final Set<ReferenceEntry> added = new LinkedHashSet<>();
+        final Set<ObjectId> removed = new LinkedHashSet<>();
+
+        Changes(Datastore datastore) {
+            this.datastore = datastore;
+        }
+    }
+
+    /**
+     * Collects reference changes until closed; nested batches join the outermost one.
+     */
+    public final class Batch implements AutoCloseable {
+        private final Map<ParentKey, Changes> changes = new LinkedHashMap<>();
+        private int depth = 1;
+
+        private Batch() {
+        }
+
+        @Override
+        public void close() {
+            if (--depth > 0) {
+                return;
+            }
+            CURRENT.remove();
+            flush(changes);
+        }
+    }
+
+    /**
+     * Opens a batch on the current thread, or joins the one already open.
+     */
+    public Batch begin() {
+        Batch batch = CURRENT.get();
+        if (batch != null) {
+            batch.depth++;
+            return batch;
+        }
+        batch = new Batch();
+        CURRENT.set(batch);
+        return batch;
+    }
+
+    /**
+     * Records that the child described by the entry references the parent. Any entry of the same
+     * child under another refName is replaced.
+     */
+    public void addReference(Datastore datastore, BaseModel parent, ReferenceEntry entry) {
+        Batch batch = CURRENT.get();
+        Changes c = changes(batch, datastore, parent);
+        c.added.add(entry);
+        if (batch == null) {
+            flush(Map.of(key(parent), c));
+        }
+    }
+
+    /**
+     * Records that the child no longer references the parent.
+     */
+    public void removeReference(Datastore datastore, BaseModel parent, ObjectId childId) {
+        Batch batch = CURRENT.get();
+        Changes c = changes(batch, datastore, parent);
+        c.added.removeIf(e -> childId.equals(e.getReferencedId()));
+        c.removed.add(childId);
+        if (batch == null) {
+            flush(Map.of(key(parent), c));
+        }
+    }
+
+    /**
+     * Gets reference tracking metrics as a map.
+     *
+     * @return map of metric names to values
+     */
+    public Map<String, Object> getSummary() {
+        Map<String, Object> summary = new HashMap<>();
+        summary.put("entriesAdded", entriesAdded.get());
+        summary.put("entriesRemoved", entriesRemoved.get());
+        summary.put("parentUpdates", parentUpdates.get());
+        return summary;
+    }
+
+    private static ParentKey key(BaseModel parent) {
+        return new ParentKey(parent.getClass(), parent.getId());
+    }
+
+    private static Changes changes(Batch batch, Datastore datastore, BaseModel parent) {
+        if (batch == null) {
+            return new Changes(datastore);
+        }
+        return batch.changes.computeIfAbsent(key(parent), k -> new Changes(datastore));
+    }
+
+    private void flush(Map<ParentKey, Changes> pending) {
+        if (pending == null || pending.isEmpty()) {
+            return;
+        }
+        Map<Target, List<WriteModel<Document>>> opsByTarget = new LinkedHashMap<>();
+        for (Map.Entry<ParentKey, Changes> e : pending.entrySet()) {
+            Changes c = e.getValue();
+            Target target = new Target(c.datastore, e.getKey().type());
+            MongoCollection<Document> collection = collection(target);
+            List<WriteModel<Document>> ops = opsByTarget.computeIfAbsent(target, t -> new ArrayList<>());
+            Bson byId = Filters.eq("_id", e.getKey().id());
+
+            // $pull and $addToSet cannot target the same array in one update, so stale entries go first
+            List<Bson> stale = new ArrayList<>();
+            for (ObjectId childId : c.removed) {
+                stale.add(Filters.eq("referencedId", childId));
+            }
+            for (ReferenceEntry entry : c.added) {
+                stale.add(Filters.and(Filters.eq("referencedId", entry.getReferencedId()),
+                        Filters.ne("refName", entry.getRefName())));
+            }
+            if (!stale.isEmpty()) {
+                ops.add(new UpdateOneModel<>(byId, Updates.pull(REFERENCES,
+                        stale.size() == 1 ? stale.get(0) : Filters.or(stale))));
+            }
+            if (!c.added.isEmpty()) {
+                List<BsonDocument> encoded = new ArrayList<>(c.added.size());
+                for (ReferenceEntry entry : c.added) {
+                    encoded.add(BsonDocumentWrapper.asBsonDocument(entry, collection.getCodecRegistry()));
+                }
+                ops.add(new UpdateOneModel<>(byId, Updates.addEachToSet(REFERENCES, encoded)));
+            }
+            entriesAdded.addAndGet(c.added.size());
+            entriesRemoved.addAndGet(c.removed.size());
+        }
+        for (Map.Entry<Target, List<WriteModel<Document>>> e : opsByTarget.entrySet()) {
+            if (e.getValue().isEmpty()) {
+                continue;
+            }
+            MongoCollection<Document> collection = collection(e.getKey());
+            BulkWriteOptions options = new BulkWriteOptions().ordered(true);
+            if (e.getKey().datastore() instanceof ClientSession session) {
+                collection.bulkWrite(session, e.getValue(), options);
+            } else {
+                collection.bulkWrite(e.getValue(), options);
+            }
+            parentUpdates.addAndGet(e.getValue().size());
+            Log.debugf("ReferenceTracker: %d reference updates on %s", e.getValue().size(), e.getKey().type().getSimpleName());
+        }
+    }
+
+    private static MongoCollection<Document> collection(Target target) {
+        return target.datastore().getCollection(target.type()).withDocumentClass(Document.class);
+    }
+}
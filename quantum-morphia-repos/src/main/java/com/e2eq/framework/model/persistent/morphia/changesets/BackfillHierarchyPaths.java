@@ -0,0 +1,85 @@
+package com.e2eq.framework.model.persistent.morphia.changesets;
+
+import com.e2eq.framework.model.persistent.migration.base.ChangeSetBase;
+import com.e2eq.framework.model.persistent.morphia.HierarchicalRepo;
+import com.mongodb.client.MongoClient;
+import dev.morphia.transactions.MorphiaSession;
+import io.quarkus.runtime.Startup;
+import io.smallrye.mutiny.subscription.MultiEmitter;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.inject.Any;
+import jakarta.enterprise.inject.Instance;
+import jakarta.inject.Inject;
+
+/**
+ * Materializes the ancestors array and path key of every node of every hierarchy, so trees saved
+ * before HierarchicalRepo maintained them can be loaded with single indexed queries. Safe to re-run:
+ * the values are recomputed from the parent references.
+ */
+@Startup
+@ApplicationScoped
+public class BackfillHierarchyPaths extends ChangeSetBase {
+
+    @Inject
+    @Any
+    Instance<HierarchicalRepo<?, ?, ?, ?, ?>> hierarchicalRepos;
+
+    @Override
+    public String getId() {
+        return "00006";
+    }
+
+    @Override
+    public String getDbFromVersion() {
+        return "1.0.3";
+    }
+
+    @Override
+    public int getDbFromVersionInt() {
+        return 103;
+    }
+
+    @Override
+    public String getDbToVersion() {
+        return "1.0.4";
+    }
+
+    @Override
+    public int getDbToVersionInt() {
+        return 104;
+    }
+
+    @Override
+    public int getPriority() {
+        return 200;
+    }
+
+    @Override
+    public String getAuthor() {
+        return "Michael Ingardia";
+    }
+
+    @Override
+    public String getName() {
+        return "Backfill Hierarchy Paths";
+    }
+
+    @Override
+    public String getDescription() {
+        return "Materialize ancestors and path on hierarchical models";
+    }
+
+    @Override
+    public String getScope() {
+        return "ALL";
+    }
+
+    @Override
+    public void execute(MorphiaSession session, MongoClient mongoClient, MultiEmitter<? super String> emitter) throws Exception {
+        log(String.format("Backfilling hierarchy paths in realm: %s", session.getDatabase().getName()), emitter);
+        for (HierarchicalRepo<?, ?, ?, ?, ?> repo : hierarchicalRepos) {
+            long updated = repo.rebuildMaterializedPaths(session);
+            log(String.format(".  %s: %d nodes updated", repo.getPersistentClass().getSimpleName(), updated), emitter);
+        }
+    }
+}
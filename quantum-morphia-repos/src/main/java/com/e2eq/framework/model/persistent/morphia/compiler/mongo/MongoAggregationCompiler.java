@@ -27,6 +27,11 @@ public class MongoAggregationCompiler {
             pipeline.add(new Document("$match", match));
         }
 
+        // 1.4) Keyset page: rows after the previous page's last sort key (must precede $sort so it can use the index)
+        if (plan.page != null && plan.page.after != null && !plan.page.after.isEmpty()) {
+            pipeline.add(new Document("$match", plan.page.after));
+        }
+
         // 1.5) Root stages: $sort → $skip → $limit (apply before lookups when present)
         if (plan.sort != null && plan.sort.fields != null && !plan.sort.fields.isEmpty()) {
             Document sort = new Document();
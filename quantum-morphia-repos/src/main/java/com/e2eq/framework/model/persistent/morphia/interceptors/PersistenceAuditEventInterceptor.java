@@ -5,22 +5,29 @@ import com.e2eq.framework.annotations.AuditPersistence;
 import com.e2eq.framework.model.persistent.base.BaseModel;
 import com.e2eq.framework.model.persistent.base.PersistentEvent;
 import com.e2eq.framework.model.persistent.base.UnversionedBaseModel;
+import com.e2eq.framework.model.persistent.morphia.PersistentEventLog;
 import com.e2eq.framework.model.securityrules.SecurityContext;
 import dev.morphia.Datastore;
 import dev.morphia.EntityListener;
-import dev.morphia.annotations.PrePersist;
+import dev.morphia.annotations.PostPersist;
 import io.quarkus.logging.Log;
 
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
 import org.bson.Document;
 
 import java.lang.annotation.Annotation;
-import java.util.ArrayList;
-import java.util.List;
 
+/**
+ * Records a PERSIST event in the {@link PersistentEventLog} every time an {@link AuditPersistence}
+ * entity is saved. Events are linked to the entity by id and saved version rather than embedded in
+ * the entity document, so the document does not grow with its history.
+ */
 @ApplicationScoped
 public class PersistenceAuditEventInterceptor implements EntityListener<Object> {
 
+    @Inject
+    PersistentEventLog persistentEventLog;
 
     @Override
     public boolean hasAnnotation(Class<? extends Annotation> type) {
@@ -37,27 +44,17 @@ public class PersistenceAuditEventInterceptor implements EntityListener<Object>
 
     }
 
+    @PostPersist
     @Override
     public void postPersist(Object entity, Document document, Datastore datastore) {
-
-    }
-
-    @Override
-    public void preLoad(Object entity, Document document, Datastore datastore) {
-
-    }
-
-    @PrePersist
-    @Override
-    public void prePersist(Object entity, Document document, Datastore datastore) {
         if (UnversionedBaseModel.class.isAssignableFrom(entity.getClass())) {
             UnversionedBaseModel baseModel = (UnversionedBaseModel) entity;
 
-            if (!entity.getClass().isAnnotationPresent(AuditPersistence.class)) {
+            if (!entity.getClass().isAnnotationPresent(AuditPersistence.class) || baseModel.getId() == null) {
                 return;
             }
 
-            Log.debug("AuditPersistenceInterceptor prePersist: " + baseModel.getId());
+            Log.debug("AuditPersistenceInterceptor postPersist: " + baseModel.getId());
             PersistentEvent event = new PersistentEvent();
             event.setEventType("PERSIST");
             event.setEventDate(new java.util.Date());
@@ -66,15 +63,18 @@ public class PersistenceAuditEventInterceptor implements EntityListener<Object>
                 event.setVersion(((BaseModel)entity).getVersion());
             }
 
-            List<PersistentEvent> events = baseModel.getPersistentEvents();
-            if (events == null) {
-                events = new ArrayList<>();
-            }
-
-            events.add(event);
-            document.put("persistentEvents", events);
-            baseModel.setPersistentEvents(events);
+            String collection = datastore.getCollection(entity.getClass()).getNamespace().getCollectionName();
+            persistentEventLog.record(datastore.getDatabase().getName(), collection, baseModel.getId(), event);
         }
+    }
+
+    @Override
+    public void preLoad(Object entity, Document document, Datastore datastore) {
+
+    }
+
+    @Override
+    public void prePersist(Object entity, Document document, Datastore datastore) {
 
     }
 }
@@ -4,6 +4,7 @@ import com.e2eq.framework.annotations.TrackReferences;
 import com.e2eq.framework.model.persistent.base.BaseModel;
 import com.e2eq.framework.model.persistent.base.ReferenceEntry;
 
+import com.e2eq.framework.model.persistent.morphia.ReferenceTracker;
 import com.e2eq.framework.model.persistent.morphia.RepoUtils;
 import dev.morphia.Datastore;
 import dev.morphia.EntityListener;
@@ -30,6 +31,9 @@ public class ReferenceInterceptor implements EntityListener<Object> {
     @Inject
     RepoUtils repoUtils;
 
+    @Inject
+    ReferenceTracker referenceTracker;
+
     public ReferenceInterceptor() {
         // Default constructor
     }
@@ -64,24 +68,7 @@ public class ReferenceInterceptor implements EntityListener<Object> {
                         if (BaseModel.class.isAssignableFrom(childEntity.getClass())){
                             ReferenceEntry entry = new ReferenceEntry(((BaseModel)childEntity).getId(), childField.getEntityModel().getType().getTypeName(),
                                     ((BaseModel)childEntity).getRefName()   );
-
-
-                            if (parentBaseModel.getReferences() == null || !parentBaseModel.getReferences().contains(entry)){
-                                if (parentBaseModel.getReferences() == null){
-                                    parentBaseModel.setReferences(new HashSet<>());
-                                }
-                                // check if there is already a reference for this object and its refName if so remove it as this is replacing it
-                                for (ReferenceEntry referenceEntry : parentBaseModel.getReferences()) {
-                                    if (referenceEntry.getRefName().equals(((BaseModel)childEntity).getRefName()) && referenceEntry.getType().equals(childField.getEntityModel().getType()) &&
-                                            !referenceEntry.getReferencedId().equals(((BaseModel)childEntity).getId())) {
-                                        Log.warnf(" >> Duplicate reference entry found  entry to be added: %s   existing reference:%s",  entry.toString(), referenceEntry.toString());
-                                        parentBaseModel.getReferences().remove(referenceEntry);
-                                    }
-                                }
-
-                                parentBaseModel.getReferences().add(entry);
-                                datastore.save(childField.getAccessor().get(childEntity));
-                            }
+                            trackReference(datastore, parentBaseModel, entry);
                         }
                     } else {
                         Reference ref = childField.getAnnotation(Reference.class);
@@ -104,13 +91,7 @@ public class ReferenceInterceptor implements EntityListener<Object> {
                                 ReferenceEntry entry = new ReferenceEntry(((BaseModel)childEntity).getId(),
                                                         childField.getEntityModel().getType().getTypeName(),
                                                         ((BaseModel)childEntity).getRefName());
-                                if (parentBaseModel.getReferences() == null || !parentBaseModel.getReferences().contains(entry)){
-                                    if (parentBaseModel.getReferences() == null){
-                                        parentBaseModel.setReferences(new HashSet<>());
-                                    }
-                                    parentBaseModel.getReferences().add(entry);
-                                    datastore.save(parentBaseModel);
-                                }
+                                trackReference(datastore, parentBaseModel, entry);
                             }
                         }
                     }
@@ -119,6 +100,28 @@ public class ReferenceInterceptor implements EntityListener<Object> {
         }
     }
 
+    /**
+     * Adds the entry to the parent's references, in memory and in the database. Parents that were never
+     * saved are saved whole; saved parents get an atomic $addToSet, batched by the ReferenceTracker.
+     */
+    private void trackReference(Datastore datastore, BaseModel parentBaseModel, ReferenceEntry entry) {
+        if (parentBaseModel.getReferences() != null && parentBaseModel.getReferences().contains(entry)) {
+            return;
+        }
+        if (parentBaseModel.getReferences() == null){
+            parentBaseModel.setReferences(new HashSet<>());
+        }
+        // an entry of the same child under an old refName is replaced
+        parentBaseModel.getReferences().removeIf(existing -> entry.getReferencedId() != null &&
+                entry.getReferencedId().equals(existing.getReferencedId()));
+        parentBaseModel.getReferences().add(entry);
+        if (parentBaseModel.getId() == null || entry.getReferencedId() == null) {
+            datastore.save(parentBaseModel);
+        } else {
+            referenceTracker.addReference(datastore, parentBaseModel, entry);
+        }
+    }
+
     @Override
     public boolean hasAnnotation(@NotNull Class<? extends Annotation> type) {
         return false;
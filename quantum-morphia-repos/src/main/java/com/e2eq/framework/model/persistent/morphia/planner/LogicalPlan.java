@@ -82,9 +82,14 @@ public class LogicalPlan {
     public static class PageSpec {
         public final Integer limit;
         public final Integer skip;
+        public final org.bson.Document after; // keyset predicate: rows sorting after the previous page, may be null
         public PageSpec(Integer limit, Integer skip) {
+            this(limit, skip, null);
+        }
+        public PageSpec(Integer limit, Integer skip, org.bson.Document after) {
             this.limit = limit;
             this.skip = skip;
+            this.after = after;
         }
     }
 }
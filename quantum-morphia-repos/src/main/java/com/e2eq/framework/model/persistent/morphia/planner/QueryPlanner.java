@@ -1,13 +1,11 @@
 package com.e2eq.framework.model.persistent.morphia.planner;
 
-import com.e2eq.framework.grammar.BIAPIQueryLexer;
-import com.e2eq.framework.grammar.BIAPIQueryParser;
 import com.e2eq.framework.model.persistent.base.UnversionedBaseModel;
 import com.e2eq.framework.model.persistent.morphia.MorphiaUtils;
+import com.e2eq.framework.model.persistent.morphia.QueryParseCache;
 import com.e2eq.framework.model.persistent.morphia.compiler.mongo.MongoAggregationCompiler;
 import dev.morphia.query.filters.Filter;
 import io.quarkus.logging.Log;
-import org.antlr.v4.runtime.*;
 import org.antlr.v4.runtime.tree.ParseTree;
 import org.antlr.v4.runtime.tree.ParseTreeWalker;
 import org.bson.conversions.Bson;
@@ -73,16 +71,13 @@ public class QueryPlanner {
         if (parseable.isBlank()) {
             return new PlannerResult(PlannerResult.Mode.FILTER, List.of());
         }
-        BIAPIQueryLexer lexer = new BIAPIQueryLexer(CharStreams.fromString(parseable));
-        BIAPIQueryParser parser = new BIAPIQueryParser(new CommonTokenStream(lexer));
-        parser.addErrorListener(new BaseErrorListener() {
-            @Override
-            public void syntaxError(Recognizer<?, ?> recognizer, Object offendingSymbol, int line,
-                                    int charPositionInLine, String msg, RecognitionException e) {
-                throw new IllegalStateException("Failed to parse query at line " + line + ": " + msg, e);
-            }
-        });
-        ParseTree tree = parser.query();
+        // Shares the tree with the filter conversion in plan(), which parses the same text
+        ParseTree tree;
+        try {
+            tree = QueryParseCache.parse(parseable);
+        } catch (QueryParseCache.QuerySyntaxException e) {
+            throw new IllegalStateException("Failed to parse query at line " + e.getLine() + ": " + e.getDetail(), e);
+        }
         QueryAnalysisListener analysis = new QueryAnalysisListener();
         ParseTreeWalker.DEFAULT.walk(analysis, tree);
         PlannerResult.Mode mode = analysis.hasExpansions() ? PlannerResult.Mode.AGGREGATION : PlannerResult.Mode.FILTER;
@@ -148,6 +143,25 @@ public class QueryPlanner {
             Integer skip,
             List<LogicalPlan.SortSpec.Field> sortFields,
             Map<String, String> variableMap
+    ) {
+        return plan(query, modelClass, limit, skip, sortFields, variableMap, null);
+    }
+
+    /**
+     * Plans the query for a keyset page. In AGGREGATION mode {@code keysetAfter} (see
+     * {@link com.e2eq.framework.model.persistent.morphia.KeysetPagination#toMatch}) is emitted as a
+     * root {@code $match} ahead of the sort; in FILTER mode the caller adds the equivalent filter.
+     *
+     * @param keysetAfter optional predicate selecting the rows after the previous page; may be null
+     */
+    public <T extends UnversionedBaseModel> PlannedQuery plan(
+            String query,
+            Class<T> modelClass,
+            Integer limit,
+            Integer skip,
+            List<LogicalPlan.SortSpec.Field> sortFields,
+            Map<String, String> variableMap,
+            org.bson.Document keysetAfter
     ) {
         PlannerResult result = analyze(query);
         if (result.getMode() == PlannerResult.Mode.FILTER) {
@@ -194,7 +208,8 @@ public class QueryPlanner {
             }
         }
         LogicalPlan.SortSpec sort = (sortFields != null && !sortFields.isEmpty()) ? new LogicalPlan.SortSpec(sortFields) : null;
-        LogicalPlan.PageSpec page = (limit != null || skip != null) ? new LogicalPlan.PageSpec(limit, skip) : null;
+        LogicalPlan.PageSpec page = (limit != null || skip != null || keysetAfter != null)
+                ? new LogicalPlan.PageSpec(limit, skip, keysetAfter) : null;
         // Build root filter by stripping expand(...) and fields:[...] from the original query
         Filter rootFilter = null;
         String filterOnly = stripExpandAndProjection(query);
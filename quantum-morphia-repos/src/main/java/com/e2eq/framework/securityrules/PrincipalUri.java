@@ -0,0 +1,116 @@
+package com.e2eq.framework.security.runtime;
+
+import com.e2eq.framework.model.securityrules.PrincipalContext;
+import com.e2eq.framework.model.securityrules.ResourceContext;
+import com.e2eq.framework.model.securityrules.SecurityURI;
+import com.e2eq.framework.model.securityrules.SecurityURIBody;
+import com.e2eq.framework.model.securityrules.SecurityURIHeader;
+
+import java.util.Locale;
+
+/**
+ * A principal-side security URI split into its lower-cased segments, built once per request and
+ * identity so rule matching by {@link RuleUriMatcher} needs no string concatenation. The flat
+ * {@code header|body} string is only materialized on demand (debug output, match events).
+ */
+final class PrincipalUri {
+
+    /** identity:area:domain:action | realm:org:account:tenant:segment:owner:resourceId */
+    static final int SEGMENTS = 11;
+    static final int HEADER_SEGMENTS = 4;
+
+    private final String[] segments;
+    private final boolean plain;
+    private String uriString;
+
+    private PrincipalUri(String[] segments) {
+        this.segments = segments;
+        boolean noSeparators = true;
+        for (String s : segments) {
+            if (s.indexOf(':') >= 0 || s.indexOf('|') >= 0) {
+                noSeparators = false;
+                break;
+            }
+        }
+        this.plain = noSeparators;
+    }
+
+    /**
+     * Builds the principal URI from an expanded {@link SecurityURI} (see
+     * {@code RuleContext.expandURIPrincipalIdentities}).
+     */
+    static PrincipalUri of(SecurityURI uri) {
+        SecurityURIHeader h = uri.getHeader();
+        SecurityURIBody b = uri.getBody();
+        String[] segments = new String[SEGMENTS];
+        segments[0] = fold(h.getIdentity(), "null");
+        segments[1] = fold(h.getArea(), "null");
+        segments[2] = fold(h.getFunctionalDomain(), "null");
+        segments[3] = fold(h.getAction(), "null");
+        segments[4] = fold(b.getRealm(), "null");
+        segments[5] = fold(b.getOrgRefName(), "null");
+        segments[6] = fold(b.getAccountNumber(), "null");
+        segments[7] = fold(b.getTenantId(), "null");
+        segments[8] = fold(b.getDataSegment(), "null");
+        segments[9] = fold(b.getOwnerId(), "null");
+        segments[10] = fold(b.getResourceId(), "*");
+        return new PrincipalUri(segments);
+    }
+
+    /**
+     * Builds the principal URI used by the {@link RuleIndex} for a single identity; missing values
+     * are treated as {@code *}.
+     */
+    static PrincipalUri of(String identity, String area, String domain, String action, PrincipalContext pc, ResourceContext rc) {
+        String[] segments = new String[SEGMENTS];
+        segments[0] = fold(identity, "*");
+        segments[1] = fold(area, "*");
+        segments[2] = fold(domain, "*");
+        segments[3] = fold(action, "*");
+        segments[4] = fold(pc != null ? pc.getDefaultRealm() : null, "*");
+        boolean dd = pc != null && pc.getDataDomain() != null;
+        segments[5] = fold(dd ? pc.getDataDomain().getOrgRefName() : null, "*");
+        segments[6] = fold(dd ? pc.getDataDomain().getAccountNum() : null, "*");
+        segments[7] = fold(dd ? pc.getDataDomain().getTenantId() : null, "*");
+        segments[8] = dd ? Integer.toString(pc.getDataDomain().getDataSegment()) : "*";
+        segments[9] = segments[0];
+        segments[10] = fold(rc != null ? rc.getResourceId() : null, "*");
+        return new PrincipalUri(segments);
+    }
+
+    String segment(int index) {
+        return segments[index];
+    }
+
+    /**
+     * True when no segment contains a separator character, i.e. segment-wise matching is
+     * equivalent to glob matching the flat URI string.
+     */
+    boolean isPlain() {
+        return plain;
+    }
+
+    String uriString() {
+        String s = uriString;
+        if (s == null) {
+            s = join(segments);
+            uriString = s;
+        }
+        return s;
+    }
+
+    static String join(String[] segments) {
+        StringBuilder sb = new StringBuilder(96);
+        for (int i = 0; i < segments.length; i++) {
+            if (i > 0) {
+                sb.append(i == HEADER_SEGMENTS ? '|' : ':');
+            }
+            sb.append(segments[i]);
+        }
+        return sb.toString();
+    }
+
+    static String fold(String value, String ifNull) {
+        return value == null ? ifNull : value.toLowerCase(Locale.ROOT);
+    }
+}
@@ -1,15 +1,14 @@
 package com.e2eq.framework.security.runtime;
 
 import com.e2eq.framework.model.persistent.base.UnversionedBaseModel;
+import com.e2eq.framework.model.persistent.morphia.FilterTemplate;
 import com.e2eq.framework.model.persistent.morphia.MorphiaUtils;
 import com.e2eq.framework.model.persistent.morphia.PolicyRepo;
 import com.e2eq.framework.model.security.Policy;
 import com.e2eq.framework.model.security.Rule;
 import com.e2eq.framework.model.securityrules.*;
 import com.e2eq.framework.util.EnvConfigUtils;
-import com.e2eq.framework.util.IOCase;
 import com.e2eq.framework.util.SecurityUtils;
-import com.e2eq.framework.util.WildCardMatcher;
 import com.google.common.collect.Ordering;
 import dev.morphia.query.filters.Filter;
 import dev.morphia.query.filters.Filters;
@@ -88,15 +87,15 @@ public class RuleContext {
      */
     private final java.util.concurrent.ConcurrentHashMap<String, List<Rule>> defaultSystemRules = new java.util.concurrent.ConcurrentHashMap<>();
 
-    // Optional compiled discrimination index (off by default)
-    // When enabled, uses RuleIndex trie for faster rule lookups
+    // Compiled discrimination index (on by default)
+    // When enabled, uses the per-realm RuleIndex trie for all rule lookups
     // When disabled, uses cachedEffectiveRules map for simple list-based lookups
-    @ConfigProperty(name = "quantum.security.rules.index.enabled", defaultValue = "false")
-    boolean indexEnabled;
+    @ConfigProperty(name = "quantum.security.rules.index.enabled", defaultValue = "true")
+    boolean indexEnabled = true;
 
     // Maximum number of realms to cache (applies to both index and rules cache)
     @ConfigProperty(name = "quantum.security.rules.index.maxRealms", defaultValue = "10")
-    int indexMaxRealms;
+    int indexMaxRealms = 10;
 
     // Enable/disable per-realm caching of effective rules
     // When disabled, queries only fetch policies matching the user's identities (userId + roles)
@@ -137,10 +136,27 @@ public class RuleContext {
     @ConfigProperty(name = "quantum.security.scripting.allowAllAccess", defaultValue = "false")
     boolean scriptingAllowAllAccess;
 
+    // Prime the script engine at startup instead of on the first scripted rule
+    @ConfigProperty(name = "quantum.security.scripting.pool.warmup", defaultValue = "true")
+    boolean scriptingPoolWarmup;
+
     // Enable/disable per-request memoization of permission checks
     @ConfigProperty(name = "quantum.security.rules.requestCache.enabled", defaultValue = "true")
     boolean requestCacheEnabled;
 
+    // Cross-request decision cache keyed by principal shape (roles + data domain) and resource context
+    @ConfigProperty(name = "quantum.security.rules.decisionCache.enabled", defaultValue = "true")
+    boolean decisionCacheEnabled = true;
+
+    @ConfigProperty(name = "quantum.security.rules.decisionCache.maxEntries", defaultValue = "10000")
+    long decisionCacheMaxEntries = 10000L;
+
+    @ConfigProperty(name = "quantum.security.rules.decisionCache.ttlSeconds", defaultValue = "600")
+    long decisionCacheTtlSeconds = 600L;
+
+    // Created on first use so the configured size/ttl are in place
+    private volatile RuleDecisionCache decisionCache;
+
     // Policy for handling rules with filters when no concrete resource is provided on single-resource checks
     // Values: DEFER (legacy-compatible, default), CONSERVATIVE_NA (strict)
     @ConfigProperty(name = "security.rules.noResourceFilterPolicy", defaultValue = "DEFER")
@@ -158,6 +174,48 @@ public class RuleContext {
         return RuleContextRequestCache.shouldSkip();
     }
 
+    private RuleDecisionCache decisionCache() {
+        RuleDecisionCache cache = decisionCache;
+        if (cache == null) {
+            synchronized (this) {
+                cache = decisionCache;
+                if (cache == null) {
+                    cache = new RuleDecisionCache(decisionCacheMaxEntries, decisionCacheTtlSeconds);
+                    decisionCache = cache;
+                }
+            }
+        }
+        return cache;
+    }
+
+    private RuleDecisionCache.Key buildDecisionCacheKey(PrincipalContext pctx, ResourceContext rctx, RuleEffect defaultEffect) {
+        String realm = pctx.getDefaultRealm() != null ? pctx.getDefaultRealm() : defaultRealm;
+        // without an index we cannot tell whether this user has rules of their own, so key per user
+        RuleIndex realmIndex = indexForRealm(realm);
+        boolean userSpecific = realmIndex == null || realmIndex.isUserSpecific(pctx.getUserId());
+        return RuleDecisionCache.key(realm, pctx, rctx, defaultEffect, getEvalModeForThread(), policyVersion, userSpecific);
+    }
+
+    private void invalidateDecisionCache(String realm) {
+        RuleDecisionCache cache = decisionCache;
+        if (cache != null) {
+            if (realm == null) {
+                cache.invalidateAll();
+            } else {
+                cache.invalidateRealm(realm);
+            }
+        }
+    }
+
+    /**
+     * Metrics for the cross-request decision cache (size, hits/misses, hit ratio, stores,
+     * non-cacheable decisions and invalidations). Empty until the cache has been used.
+     */
+    public Map<String, Object> getDecisionCacheMetrics() {
+        RuleDecisionCache cache = decisionCache;
+        return cache != null ? cache.getSummary() : new HashMap<>();
+    }
+
     private String buildPermissionCacheKey(
             com.e2eq.framework.model.securityrules.PrincipalContext pctx,
             com.e2eq.framework.model.securityrules.ResourceContext rctx,
@@ -353,39 +411,47 @@ public class RuleContext {
     }
 
     /**
-     * Export a scoped access matrix for the provided identities and optional requested data domain.
+     * Export a scoped access matrix for the provided identities and optional requested data domain,
+     * using the rules of the default realm.
      * This materializes server-side precedence into a client-usable structure.
      */
     public com.e2eq.framework.model.securityrules.RuleIndexSnapshot exportScopedAccessMatrixForIdentities(java.util.Collection<String> identities, com.e2eq.framework.model.persistent.base.DataDomain requested) {
+        return exportScopedAccessMatrixForIdentities(identities, requested, defaultRealm);
+    }
+
+    /**
+     * Export a scoped access matrix for the provided identities and optional requested data domain,
+     * using the effective rules (system defaults + database policies) of the given realm as
+     * resolved through the realm's compiled index.
+     * This materializes server-side precedence into a client-usable structure.
+     */
+    public com.e2eq.framework.model.securityrules.RuleIndexSnapshot exportScopedAccessMatrixForIdentities(java.util.Collection<String> identities, com.e2eq.framework.model.persistent.base.DataDomain requested, String realm) {
         com.e2eq.framework.model.securityrules.RuleIndexSnapshot snap = new com.e2eq.framework.model.securityrules.RuleIndexSnapshot();
-        long snapshotVersion = (compiledIndex != null) ? compiledIndex.getVersion() : getPolicyVersion();
+        RuleIndex realmIndex = indexForRealm(realm != null ? realm : defaultRealm);
+        long snapshotVersion = (realmIndex != null) ? realmIndex.getVersion() : getPolicyVersion();
         snap.setVersion(snapshotVersion);
         snap.setPolicyVersion(getPolicyVersion());
         if (identities != null) snap.getSources().addAll(identities);
 
+        java.util.List<Rule> identityRules = rulesForIdentities(identities, realmIndex);
+
         // Bucket rules by scope key derived from body
         java.util.Map<String, java.util.List<Rule>> byScope = new java.util.HashMap<>();
-        if (identities != null) {
-            for (String id : identities) {
-                java.util.List<Rule> list = defaultSystemRules.get(id);
-                if (list == null) continue;
-                for (Rule r : list) {
-                    if (r == null || r.getSecurityURI() == null) continue;
-                    com.e2eq.framework.model.securityrules.SecurityURI suri = r.getSecurityURI();
-                    com.e2eq.framework.model.securityrules.SecurityURIBody body = suri.getBody();
-                    com.e2eq.framework.model.securityrules.SecurityURIHeader header = suri.getHeader();
-                    if (header == null) continue;
-                    // Skip rules that require runtime scripts
-                    if (hasDynamic(r)) {
-                        snap.setRequiresServer(true);
-                        // don't add to materialized buckets
-                        continue;
-                    }
-                    String scopeKey = toScopeKey(body);
-                    if (scopeKey == null) scopeKey = globalScopeKey();
-                    byScope.computeIfAbsent(scopeKey, k -> new java.util.ArrayList<>()).add(r);
-                }
+        for (Rule r : identityRules) {
+            if (r == null || r.getSecurityURI() == null) continue;
+            com.e2eq.framework.model.securityrules.SecurityURI suri = r.getSecurityURI();
+            com.e2eq.framework.model.securityrules.SecurityURIBody body = suri.getBody();
+            com.e2eq.framework.model.securityrules.SecurityURIHeader header = suri.getHeader();
+            if (header == null) continue;
+            // Skip rules that require runtime scripts
+            if (hasDynamic(r)) {
+                snap.setRequiresServer(true);
+                // don't add to materialized buckets
+                continue;
             }
+            String scopeKey = toScopeKey(body);
+            if (scopeKey == null) scopeKey = globalScopeKey();
+            byScope.computeIfAbsent(scopeKey, k -> new java.util.ArrayList<>()).add(r);
         }
 
         // For each scope, compute matrix winners
@@ -404,12 +470,8 @@ public class RuleContext {
 
         // Preserve legacy rules list (for compatibility)
         if (identities != null) {
-            for (String id : identities) {
-                java.util.List<Rule> list = defaultSystemRules.get(id);
-                if (list == null) continue;
-                for (Rule r : list) {
-                    snap.getRules().add(com.e2eq.framework.model.securityrules.RuleIndexSnapshot.fromRule(r));
-                }
+            for (Rule r : identityRules) {
+                snap.getRules().add(com.e2eq.framework.model.securityrules.RuleIndexSnapshot.fromRule(r));
             }
             snap.getRules().sort((a, b) -> {
                 int c = Integer.compare(a.getPriority(), b.getPriority());
@@ -432,6 +494,25 @@ public class RuleContext {
         return snap;
     }
 
+    /**
+     * Rules registered for exactly the given identities: looked up in the realm's compiled index,
+     * or in the default system rules when the index is disabled.
+     */
+    private java.util.List<Rule> rulesForIdentities(java.util.Collection<String> identities, RuleIndex realmIndex) {
+        if (identities == null) {
+            return java.util.List.of();
+        }
+        if (realmIndex != null) {
+            return realmIndex.rulesForIdentities(identities);
+        }
+        java.util.List<Rule> rules = new java.util.ArrayList<>();
+        for (String id : identities) {
+            java.util.List<Rule> list = defaultSystemRules.get(id);
+            if (list != null) rules.addAll(list);
+        }
+        return rules;
+    }
+
     private static boolean hasDynamic(Rule r) {
         try {
             // Prefer getPostconditionScript if present; fall back to getScript if exists
@@ -588,6 +669,13 @@ public class RuleContext {
         } finally {
             bootstrapping = false;
         }
+        if (scriptingEnabled && scriptingPoolWarmup && !scriptingAllowAllAccess) {
+            try {
+                RuleScriptEnginePool.shared();
+            } catch (Throwable t) {
+                Log.warn("Script engine warmup failed; contexts will be created on first use", t);
+            }
+        }
     }
 
     /**
@@ -717,6 +805,7 @@ public class RuleContext {
         // Legacy fields
         compiledIndex = null;
         compiledIndexRealm = null;
+        invalidateDecisionCache(null);
         clearRequestCache();
     }
 
@@ -737,6 +826,7 @@ public class RuleContext {
                 compiledIndex = null;
                 compiledIndexRealm = null;
             }
+            invalidateDecisionCache(realm);
         }
         clearRequestCache();
     }
@@ -751,6 +841,9 @@ public class RuleContext {
 
     private volatile long policyVersion = 0L;
 
+    // Set while reloadFromRepo re-adds the system rules so addRule leaves other realms' indexes alone
+    private boolean reloadingSystemRules = false;
+
     public long getPolicyVersion() { return policyVersion; }
 
     /**
@@ -766,7 +859,12 @@ public class RuleContext {
         // Reset and reload default system rules only (these are shared across realms)
         // ConcurrentHashMap.clear() is atomic, safe for concurrent readers
         defaultSystemRules.clear();
-        addSystemRules();
+        reloadingSystemRules = true;
+        try {
+            addSystemRules();
+        } finally {
+            reloadingSystemRules = false;
+        }
 
         // Invalidate ONLY the specified realm's cache since only that realm's
         // database policies may have changed. Other realms keep their cache.
@@ -793,6 +891,7 @@ public class RuleContext {
         compiledIndex = null;
         compiledIndexRealm = null;
         policyVersion = System.nanoTime();
+        invalidateDecisionCache(null);
         clearRequestCache();
         Log.info("RuleContext: invalidated all caches");
     }
@@ -853,6 +952,7 @@ public class RuleContext {
 
                 // Build the index (this is the expensive operation)
                 RuleIndex newIndex = RuleIndex.build(allRules);
+                RuleScriptCompiler.precompile(allRules);
 
                 // Store in per-realm cache (atomic put)
                 compiledIndexes.put(realm, newIndex);
@@ -905,6 +1005,7 @@ public class RuleContext {
      */
     public void addRule(@NotNull @Valid SecurityURIHeader key, @Valid @NotNull Rule rule) {
         fireVocabularyCheck(key, rule);
+        RuleScriptCompiler.precompile(List.of(rule));
         // Store rules by identity in default system rules
         List<Rule> list = defaultSystemRules.get(key.getIdentity());
 
@@ -915,6 +1016,21 @@ public class RuleContext {
 
         list.add(rule);
 
+        // Compiled indexes embed the default rules; rebuild them lazily on the next lookup.
+        // A reload re-adds the same system rules and invalidates the affected realm itself.
+        if (!reloadingSystemRules) {
+            invalidateCompiledIndexes();
+        }
+    }
+
+    private void invalidateCompiledIndexes() {
+        if (!compiledIndexes.isEmpty() || compiledIndex != null) {
+            compiledIndexes.clear();
+            compiledIndex = null;
+            compiledIndexRealm = null;
+            invalidateDecisionCache(null);
+            clearRequestCache();
+        }
     }
 
     /**
@@ -985,6 +1101,20 @@ public class RuleContext {
         return new RuleScriptExecutor(labelService).runScript(scriptingTimeoutMillis, pcontext, rcontext, script);
     }
 
+    /**
+     * Metrics for rule script evaluation: compiled vs. interpreted evaluations plus the shared
+     * script engine pool (evaluations, parsed-source cache hits/misses, context churn and timeouts).
+     * Pool entries are absent until the pool has been started.
+     */
+    public Map<String, Object> getScriptEngineMetrics() {
+        Map<String, Object> metrics = new HashMap<>(RuleScriptCompiler.getSummary());
+        RuleScriptEnginePool pool = RuleScriptEnginePool.sharedIfStarted();
+        if (pool != null) {
+            metrics.putAll(pool.getSummary());
+        }
+        return metrics;
+    }
+
     /**
      * Create a new Header from the given identity and resource context
      *
@@ -1005,37 +1135,58 @@ public class RuleContext {
 
 
 
+    /**
+     * True when permission checks in the principal's realm could give different answers for two
+     * resources that differ only in their resource id: a rule there names specific resource ids
+     * or runs a script. Bulk callers (e.g. UI action computation for list responses) may share one
+     * decision across resources when this is false. Returns true when the realm has no index.
+     */
+    public boolean isResourceIdSensitive(PrincipalContext pcontext) {
+        String realm = pcontext != null && pcontext.getDefaultRealm() != null
+            ? pcontext.getDefaultRealm()
+            : defaultRealm;
+        RuleIndex realmIndex = indexForRealm(realm);
+        return realmIndex == null || realmIndex.isResourceSpecific();
+    }
+
+    /**
+     * Returns the compiled index for the realm, building it on first use, or null when the index
+     * is disabled or could not be built (callers then fall back to list scanning).
+     */
+    RuleIndex indexForRealm(String realm) {
+        if (!indexEnabled) {
+            return null;
+        }
+        // Check per-realm cache first (atomic get from ConcurrentHashMap)
+        RuleIndex realmIndex = compiledIndexes.get(realm);
+        if (realmIndex == null) {
+            // No cached index for this realm - rebuild it
+            // rebuildIndex handles its own locking per-realm
+            Log.debugf("RuleContext: no cached index for realm=%s, building...", realm);
+            return rebuildIndex(realm);
+        }
+        // Update LRU tracking for cache hit (lightweight operation)
+        synchronized (evictionLock) {
+            // LinkedHashMap with accessOrder=true moves entry to end on access
+            realmAccessOrder.get(realm);
+        }
+        return realmIndex;
+    }
+
     List<Rule> getApplicableRulesForPrincipalAndAssociatedRoles(PrincipalContext pcontext, ResourceContext rcontext) {
         // Determine the request realm
         String requestRealm = pcontext != null && pcontext.getDefaultRealm() != null
             ? pcontext.getDefaultRealm()
             : defaultRealm;
 
-        // If the compiled index is enabled, try to use per-realm cached index
-        if (indexEnabled) {
-            // Check per-realm cache first (atomic get from ConcurrentHashMap)
-            RuleIndex realmIndex = compiledIndexes.get(requestRealm);
-
-            if (realmIndex == null) {
-                // No cached index for this realm - rebuild it
-                // rebuildIndex handles its own locking per-realm
-                Log.debugf("RuleContext: no cached index for realm=%s, building...", requestRealm);
-                realmIndex = rebuildIndex(requestRealm);
-            } else {
-                // Update LRU tracking for cache hit (lightweight operation)
-                synchronized (evictionLock) {
-                    // LinkedHashMap with accessOrder=true moves entry to end on access
-                    realmAccessOrder.get(requestRealm);
-                }
-            }
-
-            if (realmIndex != null) {
-                Log.debugf("RuleContext: using cached index for realm=%s", requestRealm);
-                try {
-                    return realmIndex.getApplicableRules(pcontext, rcontext);
-                } catch (Throwable t) {
-                    Log.warn("RuleContext: compiled index lookup failed; falling back to list scan", t);
-                }
+        // Use the per-realm compiled index unless it has been switched off
+        RuleIndex realmIndex = indexForRealm(requestRealm);
+        if (realmIndex != null) {
+            Log.debugf("RuleContext: using cached index for realm=%s", requestRealm);
+            try {
+                return realmIndex.getApplicableRules(pcontext, rcontext);
+            } catch (Throwable t) {
+                Log.warn("RuleContext: compiled index lookup failed; falling back to list scan", t);
             }
         }
 
@@ -1083,7 +1234,7 @@ public class RuleContext {
      * Used to filter database queries for policies.
      *
      * Wildcard matching for area/domain/action in the SecurityURI is handled at rule
-     * evaluation time via WildCardMatcher, not at the database query level.
+     * evaluation time via RuleUriMatcher, not at the database query level.
      *
      * @param pcontext the principal context
      * @return set of identities to query for
@@ -1166,6 +1317,9 @@ public class RuleContext {
             // Fetch from database
             List<Policy> defaults = getDefaultSystemPolicies();
             Map<String, List<Rule>> effectiveRules = policyRepo.getEffectiveRules(realm, defaults);
+            for (List<Rule> ruleList : effectiveRules.values()) {
+                RuleScriptCompiler.precompile(ruleList);
+            }
 
             // Store in cache
             cachedEffectiveRules.put(realm, effectiveRules);
@@ -1253,6 +1407,26 @@ public class RuleContext {
             }
         }
 
+        // Cross-request decision cache: only for checks without a concrete resource instance
+        RuleDecisionCache.Key decisionKey = null;
+        if (decisionCacheEnabled && resourceInstance == null) {
+            try {
+                decisionKey = buildDecisionCacheKey(pcontext, rcontext, defaultFinalEffect);
+                SecurityCheckResponse cached = decisionCache().get(decisionKey, pcontext, rcontext, this::expandURIPrincipalIdentities);
+                if (cached != null) {
+                    if (requestCacheEnabled && !shouldSkipRequestCache()) {
+                        RuleContextRequestCache.put(buildPermissionCacheKey(pcontext, rcontext, defaultFinalEffect), cached);
+                    }
+                    return cached;
+                }
+            } catch (Throwable t) {
+                // ignore cache issues and proceed
+                decisionKey = null;
+            }
+        }
+        // scripts may read any principal/resource attribute, so their outcomes are not shared
+        boolean scriptsEvaluated = false;
+
         if (Log.isDebugEnabled()) {
             Log.debug("####  checking Permissions for pcontext:" + pcontext.toString() + " resource context:" + rcontext.toString());
         }
@@ -1287,6 +1461,12 @@ public class RuleContext {
         List<SecurityURI> expandedUris = expandURIPrincipalIdentities(pcontext, rcontext);
         response.getApplicableSecurityURIs().addAll(expandedUris);
 
+        // split the principal URIs into matchable segments once for this request
+        List<PrincipalUri> principalUris = new ArrayList<>(expandedUris.size());
+        for (SecurityURI uri : expandedUris) {
+            principalUris.add(PrincipalUri.of(uri));
+        }
+
         if (Log.isDebugEnabled()) {
             Log.debug("");
             Log.debug("--- Extended Applicable rules:" + applicableRules.size());
@@ -1310,27 +1490,29 @@ public class RuleContext {
                 Log.debug(" rule:" + r.getName() + "compared to uris:" + expandedUris.size());
             }
 
+            // the rule's URI is compiled once and reused across requests
+            RuleUriMatcher ruleMatcher = RuleUriMatcher.forRule(r);
+
             // for each uri in the expanded set of uris which includes the principal userId and associated roles
-            for (SecurityURI uri : expandedUris) {
+            for (PrincipalUri uri : principalUris) {
 
                 if (Log.isDebugEnabled()) {
                     Log.debug("Comparing:" + uri.uriString());
-                    Log.debug("To ruleName:" + r.getName() + " URI:" + r.getSecurityURI().uriString());
+                    Log.debug("To ruleName:" + r.getName() + " URI:" + ruleMatcher.uriString());
                     Log.debug("");
                 }
 
                 // compare the uri to the rule uri to see if it matches ie. the rule is applicable
-                if (WildCardMatcher.wildcardMatch(uri.uriString(), r.getSecurityURI().uriString(),
-                        IOCase.INSENSITIVE)) {
+                if (ruleMatcher.matches(uri)) {
                     // the rule is applicable.  Check the precondition and post conditions scripts
                     RuleResult result = new RuleResult(r);
                     MatchEvent matchEvent =
                             MatchEvent.builder()
                                     .principalUriString(uri.uriString())
-                                    .ruleUriString(r.getSecurityURI().uriString())
+                                    .ruleUriString(ruleMatcher.uriString())
                                     .ruleName(r.getName())
                                     .matched(true)
-                                    .difference(StringUtils.difference(uri.uriString(), r.getSecurityURI().uriString()))
+                                    .difference(StringUtils.difference(uri.uriString(), ruleMatcher.uriString()))
                                     .build();
 
                     // Capture eval mode (may be provided by evalMode overload via TL)
@@ -1340,6 +1522,7 @@ public class RuleContext {
                     if (r.getPreconditionScript() != null && !r.getPreconditionScript().isBlank()) {
                         boolean preOk = false;
                         try {
+                            scriptsEvaluated = true;
                             preOk = runScript(pcontext, rcontext, r.getPreconditionScript());
                         } catch (Throwable t) {
                             // Treat failures as false and continue; script engines can throw
@@ -1545,6 +1728,7 @@ public class RuleContext {
                     if (r.getPostconditionScript() != null && !r.getPostconditionScript().isBlank()) {
                         boolean scriptResult = false;
                         try {
+                            scriptsEvaluated = true;
                             scriptResult = runScript(pcontext, rcontext, r.getPostconditionScript());
                         } catch (Throwable t) {
                             // Treat failures as false and continue; likely due to missing resource-only data
@@ -1601,16 +1785,16 @@ public class RuleContext {
                         break;
                     }
                 } else {
-                    String difference = StringUtils.difference(uri.uriString(), r.getSecurityURI().uriString());
+                    String difference = StringUtils.difference(uri.uriString(), ruleMatcher.uriString());
                     if (Log.isDebugEnabled()) {
                        Log.debug("Comparing:");
                        Log.debug(uri.uriString());
-                       Log.debug(r.getSecurityURI().uriString());
+                       Log.debug(ruleMatcher.uriString());
                     }
                     response.getMatchEvents().add(
                             MatchEvent.builder()
                                     .principalUriString(uri.uriString())
-                                    .ruleUriString(r.getSecurityURI().uriString())
+                                    .ruleUriString(ruleMatcher.uriString())
                                     .ruleName(r.getName())
                                     .matched(false)
                                     .difference(difference)
@@ -1744,6 +1928,16 @@ public class RuleContext {
                 RuleContextRequestCache.put(key, response);
             } catch (Throwable ignored) {}
         }
+        // Share the decision across requests unless a script took part in it
+        if (decisionKey != null) {
+            try {
+                if (scriptsEvaluated) {
+                    decisionCache().recordNonCacheable();
+                } else {
+                    decisionCache().put(decisionKey, response);
+                }
+            } catch (Throwable ignored) {}
+        }
         return response;
     }
 
@@ -1927,6 +2121,8 @@ public class RuleContext {
         List<Filter> orFilters = new ArrayList<>();
 
         MorphiaUtils.VariableBundle vars = resolveVariableBundle(pcontext, rcontext, modelClass);
+        // rule filter strings are compiled once per realm index; only the variables are bound here
+        RuleIndex templates = indexForRealm(pcontext.getDefaultRealm() != null ? pcontext.getDefaultRealm() : defaultRealm);
 
         List<SecurityCheckResponse.RuleFilterInfo> filterInfos = collectMatchedAllowFilterRules(response);
         if (response.getFilterConstraints() != null) {
@@ -1956,7 +2152,7 @@ public class RuleContext {
 
             if (info.getAndFilterString() != null && !info.getAndFilterString().isEmpty()) {
                 try {
-                    andFilters.add(MorphiaUtils.convertToFilter(info.getAndFilterString(), vars, modelClass));
+                    andFilters.add(filterTemplate(templates, info.getAndFilterString()).bind(vars, modelClass));
                 } catch (IllegalStateException e) {
                     // Filter string contains unresolved variables - this rule doesn't apply to this model class
                     if (e.getMessage() != null && e.getMessage().contains("Unresolved resolver variable")) {
@@ -1974,7 +2170,7 @@ public class RuleContext {
 
             if (!ruleFilterSkipped && info.getOrFilterString() != null && !info.getOrFilterString().isEmpty()) {
                 try {
-                    orFilters.add(MorphiaUtils.convertToFilter(info.getOrFilterString(), vars, modelClass));
+                    orFilters.add(filterTemplate(templates, info.getOrFilterString()).bind(vars, modelClass));
                 } catch (IllegalStateException e) {
                     // Filter string contains unresolved variables - this rule doesn't apply to this model class
                     if (e.getMessage() != null && e.getMessage().contains("Unresolved resolver variable")) {
@@ -2040,6 +2236,10 @@ public class RuleContext {
     }
 
 
+    private static FilterTemplate filterTemplate(RuleIndex index, String filterString) {
+        return index != null ? index.filterTemplate(filterString) : FilterTemplate.compile(filterString);
+    }
+
     public String getRealmId(PrincipalContext principalContext, ResourceContext resourceContext) {
         if (principalContext != null)
             return principalContext.getDefaultRealm();
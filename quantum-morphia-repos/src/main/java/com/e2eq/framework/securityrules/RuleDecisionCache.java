@@ -0,0 +1,252 @@
+package com.e2eq.framework.security.runtime;
+
+import com.e2eq.framework.model.persistent.base.DataDomain;
+import com.e2eq.framework.model.securityrules.EvalMode;
+import com.e2eq.framework.model.securityrules.PrincipalContext;
+import com.e2eq.framework.model.securityrules.ResourceContext;
+import com.e2eq.framework.model.securityrules.RuleEffect;
+import com.e2eq.framework.model.securityrules.SecurityCheckResponse;
+import com.e2eq.framework.model.securityrules.SecurityURI;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiFunction;
+
+/**
+ * Bounded decision cache for {@link RuleContext#checkRules} shared across requests.
+ *
+ * Decisions are keyed by the shape of the principal (realm, scope, roles and data domain) plus the
+ * resource context, eval mode, default effect and policy version - not by the user - so every user
+ * with the same role set and data domain shares one entry. When the realm's rule index holds rules
+ * that only apply to a particular user (see {@link RuleIndex#isUserSpecific}), the user id becomes
+ * part of the key. Decisions that ran a rule script or evaluated filters against a resource instance
+ * are never stored.
+ *
+ * Entries are handed out as copies bound to the caller's principal and resource contexts so cached
+ * responses are never shared or mutated across requests.
+ */
+final class RuleDecisionCache {
+
+    private final Cache<Key, Entry> cache;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong stores = new AtomicLong();
+    private final AtomicLong nonCacheable = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    RuleDecisionCache(long maxEntries, long ttlSeconds) {
+        CacheBuilder<Object, Object> builder = CacheBuilder.newBuilder()
+                .maximumSize(Math.max(1L, maxEntries));
+        if (ttlSeconds > 0) {
+            builder.expireAfterWrite(ttlSeconds, TimeUnit.SECONDS);
+        }
+        this.cache = builder.build();
+    }
+
+    /**
+     * Builds the lookup key for a check.
+     *
+     * @param userSpecific include the user id; required when the realm has rules for this user
+     */
+    static Key key(String realm, PrincipalContext pc, ResourceContext rc, RuleEffect defaultEffect,
+                   EvalMode evalMode, long policyVersion, boolean userSpecific) {
+        DataDomain dd = pc.getDataDomain();
+        return new Key(
+                realm,
+                userSpecific ? pc.getUserId() : null,
+                pc.getScope(),
+                pc.getRoles() != null ? pc.getRoles().clone() : new String[0],
+                dd != null ? dd.getOrgRefName() : null,
+                dd != null ? dd.getAccountNum() : null,
+                dd != null ? dd.getTenantId() : null,
+                dd != null ? dd.getDataSegment() : -1,
+                rc.getArea(),
+                rc.getFunctionalDomain(),
+                rc.getAction(),
+                rc.getResourceId(),
+                defaultEffect,
+                evalMode,
+                policyVersion);
+    }
+
+    /**
+     * Returns a copy of the cached decision bound to the given contexts, or null on a miss.
+     *
+     * @param expandUris recomputes the principal URIs for a different user than the one the
+     *                   decision was computed for
+     */
+    SecurityCheckResponse get(Key key, PrincipalContext pc, ResourceContext rc,
+                              BiFunction<PrincipalContext, ResourceContext, List<SecurityURI>> expandUris) {
+        Entry entry = cache.getIfPresent(key);
+        if (entry == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        boolean sameUser = Objects.equals(entry.userId, pc.getUserId());
+        SecurityCheckResponse copy = copy(entry.response, pc, rc, sameUser);
+        if (!sameUser) {
+            copy.getApplicableSecurityURIs().addAll(expandUris.apply(pc, rc));
+        }
+        return copy;
+    }
+
+    void put(Key key, SecurityCheckResponse response) {
+        PrincipalContext pc = response.getPrincipalContext();
+        cache.put(key, new Entry(pc != null ? pc.getUserId() : null,
+                copy(response, pc, response.getResourceContext(), true)));
+        stores.incrementAndGet();
+    }
+
+    void recordNonCacheable() {
+        nonCacheable.incrementAndGet();
+    }
+
+    void invalidateRealm(String realm) {
+        cache.asMap().keySet().removeIf(k -> Objects.equals(k.realm, realm));
+        invalidations.incrementAndGet();
+    }
+
+    void invalidateAll() {
+        cache.invalidateAll();
+        invalidations.incrementAndGet();
+    }
+
+    /**
+     * Gets decision cache metrics as a map.
+     *
+     * @return map of metric names to values
+     */
+    Map<String, Object> getSummary() {
+        Map<String, Object> summary = new HashMap<>();
+        long h = hits.get();
+        long m = misses.get();
+        summary.put("decisionCacheSize", cache.size());
+        summary.put("decisionCacheHits", h);
+        summary.put("decisionCacheMisses", m);
+        summary.put("decisionCacheHitRatio", (h + m) == 0 ? 0.0d : (double) h / (h + m));
+        summary.put("decisionCacheStores", stores.get());
+        summary.put("decisionCacheNonCacheable", nonCacheable.get());
+        summary.put("decisionCacheInvalidations", invalidations.get());
+        return summary;
+    }
+
+    /**
+     * Shallow copy of a response with fresh collections. Match events and principal URIs carry the
+     * identity of the user the decision was computed for, so they are only kept for that user.
+     */
+    private static SecurityCheckResponse copy(SecurityCheckResponse source, PrincipalContext pc, ResourceContext rc, boolean sameUser) {
+        SecurityCheckResponse copy = new SecurityCheckResponse(pc, rc);
+        if (sameUser) {
+            copy.setMatchEvents(new ArrayList<>(source.getMatchEvents()));
+            copy.setApplicableSecurityURIs(new ArrayList<>(source.getApplicableSecurityURIs()));
+        }
+        copy.setEvaluatedRules(new ArrayList<>(source.getEvaluatedRules()));
+        copy.setMatchedRuleResults(new ArrayList<>(source.getMatchedRuleResults()));
+        copy.setFinalEffect(source.getFinalEffect());
+        copy.setDecision(source.getDecision());
+        copy.setDecisionScope(source.getDecisionScope());
+        copy.setEvalModeUsed(source.getEvalModeUsed());
+        copy.setScopedConstraintsPresent(source.isScopedConstraintsPresent());
+        copy.setScopedConstraints(new ArrayList<>(source.getScopedConstraints()));
+        copy.setNaLabel(source.getNaLabel());
+        copy.setWinningRuleName(source.getWinningRuleName());
+        copy.setWinningRulePriority(source.getWinningRulePriority());
+        copy.setWinningRuleFinal(source.getWinningRuleFinal());
+        copy.setFilterConstraintsPresent(source.isFilterConstraintsPresent());
+        copy.setFilterConstraints(new ArrayList<>(source.getFilterConstraints()));
+        copy.setNotApplicable(new ArrayList<>(source.getNotApplicable()));
+        return copy;
+    }
+
+    private static final class Entry {
+        final String userId;
+        final SecurityCheckResponse response;
+
+        Entry(String userId, SecurityCheckResponse response) {
+            this.userId = userId;
+            this.response = response;
+        }
+    }
+
+    /**
+     * Principal-shape + resource-context tuple; the hash is computed once at construction.
+     */
+    static final class Key {
+        final String realm;
+        final String userId;
+        final String scope;
+        final String[] roles;
+        final String orgRefName;
+        final String accountNum;
+        final String tenantId;
+        final int dataSegment;
+        final String area;
+        final String functionalDomain;
+        final String action;
+        final String resourceId;
+        final RuleEffect defaultEffect;
+        final EvalMode evalMode;
+        final long policyVersion;
+        private final int hash;
+
+        Key(String realm, String userId, String scope, String[] roles, String orgRefName, String accountNum,
+            String tenantId, int dataSegment, String area, String functionalDomain, String action,
+            String resourceId, RuleEffect defaultEffect, EvalMode evalMode, long policyVersion) {
+            this.realm = realm;
+            this.userId = userId;
+            this.scope = scope;
+            this.roles = roles;
+            this.orgRefName = orgRefName;
+            this.accountNum = accountNum;
+            this.tenantId = tenantId;
+            this.dataSegment = dataSegment;
+            this.area = area;
+            this.functionalDomain = functionalDomain;
+            this.action = action;
+            this.resourceId = resourceId;
+            this.defaultEffect = defaultEffect;
+            this.evalMode = evalMode;
+            this.policyVersion = policyVersion;
+            int h = Objects.hash(realm, userId, scope, orgRefName, accountNum, tenantId, dataSegment,
+                    area, functionalDomain, action, resourceId, defaultEffect, evalMode, policyVersion);
+            this.hash = 31 * h + Arrays.hashCode(roles);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key k)) return false;
+            return hash == k.hash
+                    && dataSegment == k.dataSegment
+                    && policyVersion == k.policyVersion
+                    && defaultEffect == k.defaultEffect
+                    && evalMode == k.evalMode
+                    && Objects.equals(action, k.action)
+                    && Objects.equals(functionalDomain, k.functionalDomain)
+                    && Objects.equals(area, k.area)
+                    && Objects.equals(resourceId, k.resourceId)
+                    && Objects.equals(tenantId, k.tenantId)
+                    && Objects.equals(accountNum, k.accountNum)
+                    && Objects.equals(orgRefName, k.orgRefName)
+                    && Objects.equals(userId, k.userId)
+                    && Objects.equals(scope, k.scope)
+                    && Objects.equals(realm, k.realm)
+                    && Arrays.equals(roles, k.roles);
+        }
+    }
+}
@@ -1,36 +1,69 @@
 package com.e2eq.framework.security.runtime;
 
+import com.e2eq.framework.model.persistent.morphia.FilterTemplate;
 import com.e2eq.framework.model.security.Rule;
 import com.e2eq.framework.model.securityrules.PrincipalContext;
 import com.e2eq.framework.model.securityrules.ResourceContext;
+import com.e2eq.framework.model.securityrules.SecurityURIBody;
 import com.e2eq.framework.model.securityrules.SecurityURIHeader;
-import com.e2eq.framework.util.IOCase;
-import com.e2eq.framework.util.WildCardMatcher;
 import io.quarkus.logging.Log;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
- * Optional precompiled rule discrimination index. This is intentionally simple and
- * conservative for an initial opt-in release. It indexes rules by the stable
- * header dimensions (identity, area, functionalDomain, action) with wildcard support.
+ * Precompiled rule discrimination index; the lookup path RuleContext uses to gather candidate
+ * rules for a request.
  *
- * When disabled, RuleContext falls back to legacy list scanning. When enabled, this
- * index is used to quickly gather a smaller, prioritized candidate list.
+ * Rules are indexed along a trie with two tiers: the header dimensions (identity, area,
+ * functionalDomain, action) followed by the body dimensions (realm, orgRefName, accountNumber,
+ * tenantId, dataSegment). Every level has an exact branch per literal value and a single
+ * wildcard branch for {@code *}; values carrying embedded wildcards are filed under the wildcard
+ * branch as well, so the index only ever narrows the candidates and the final decision is left
+ * to the rule's {@link RuleUriMatcher}. Realms with many per-tenant policies therefore only visit
+ * the rules of the tenant being asked for.
+ *
+ * Values are compared lower-cased, the same way RuleUriMatcher compares them.
+ *
+ * The index also holds the compiled {@link FilterTemplate}s of its rules' andFilter/orFilter
+ * strings, so they are parsed once per policy version rather than on every secured query.
  */
 final class RuleIndex {
 
+    /** identity, area, domain, action | realm, org, account, tenant, dataSegment */
+    static final int LEVELS = 9;
+
     static final class Node {
         // exact value children for this level
         final Map<String, Node> exact = new HashMap<>();
-        // wildcard branch for "*"
+        // wildcard branch for "*" (and for values carrying embedded wildcards)
         Node wildcard;
-        // rules terminated at this node
-        List<Rule> rules; // stored sorted by priority asc
+        // rules terminated at this node (leaf level only), stored in build order
+        List<Entry> rules;
+    }
+
+    /** A rule plus its position in the collection the index was built from. */
+    static final class Entry {
+        final Rule rule;
+        final int ordinal;
+
+        Entry(Rule rule, int ordinal) {
+            this.rule = rule;
+            this.ordinal = ordinal;
+        }
     }
 
+    private static final Comparator<Entry> BY_ORDINAL = Comparator.comparingInt(e -> e.ordinal);
+
     private final Node root = new Node();
     private final long version;
+    private int size;
+    // true when a wildcard-branch rule has an identity or owner pattern other than a bare "*"
+    private boolean userPatterns;
+    // true when a rule names resource ids or runs a script (scripts see the resource context)
+    private boolean resourceSpecific;
+    // compiled rule filter strings, keyed by source text
+    private final Map<String, FilterTemplate> filterTemplates = new ConcurrentHashMap<>();
 
     private RuleIndex(long version) {
         this.version = version;
@@ -38,59 +71,104 @@ final class RuleIndex {
 
     long getVersion() { return version; }
 
+    /**
+     * @return the number of rules held by the index
+     */
+    int size() { return size; }
+
+    /**
+     * @return the compiled template for a rule filter string, compiling it on first use
+     * @throws IllegalArgumentException when the string is not valid BIAPI syntax
+     */
+    FilterTemplate filterTemplate(String filterString) {
+        FilterTemplate template = filterTemplates.get(filterString);
+        if (template == null) {
+            // compile outside computeIfAbsent: parse errors must not be cached, and the parse is the slow part
+            template = FilterTemplate.compile(filterString);
+            FilterTemplate existing = filterTemplates.putIfAbsent(filterString, template);
+            if (existing != null) template = existing;
+        }
+        return template;
+    }
+
+    /**
+     * @return the number of compiled filter templates held by the index
+     */
+    int filterTemplateCount() { return filterTemplates.size(); }
+
     static RuleIndex build(Collection<Rule> rules) {
         long v = System.nanoTime();
         RuleIndex idx = new RuleIndex(v);
-        int added = 0;
+        int ordinal = 0;
         for (Rule r : rules) {
             try {
                 if (r == null || r.getSecurityURI() == null || r.getSecurityURI().getHeader() == null) continue;
                 SecurityURIHeader h = r.getSecurityURI().getHeader();
-                String identity = n(h.getIdentity());
-                String area = n(h.getArea());
-                String domain = n(h.getFunctionalDomain());
-                String action = n(h.getAction());
-                // Insert along the path identity/area/domain/action
+                SecurityURIBody b = r.getSecurityURI().getBody();
+                // Insert along the path identity/area/domain/action/realm/org/account/tenant/segment
+                if (key(h.getIdentity()) == null
+                        && (!isBareStar(h.getIdentity()) || b == null || !isBareStar(b.getOwnerId()))) {
+                    idx.userPatterns = true;
+                }
+                if ((b != null && b.getResourceId() != null && !isBareStar(b.getResourceId()))
+                        || hasText(r.getPreconditionScript()) || hasText(r.getPostconditionScript())) {
+                    idx.resourceSpecific = true;
+                }
                 Node node = idx.root;
-                node = step(node, identity);
-                node = step(node, area);
-                node = step(node, domain);
-                node = step(node, action);
-                if (node.rules == null) node.rules = new ArrayList<>();
-                node.rules.add(r);
-                added++;
+                node = step(node, h.getIdentity());
+                node = step(node, h.getArea());
+                node = step(node, h.getFunctionalDomain());
+                node = step(node, h.getAction());
+                node = step(node, b != null ? b.getRealm() : null);
+                node = step(node, b != null ? b.getOrgRefName() : null);
+                node = step(node, b != null ? b.getAccountNumber() : null);
+                node = step(node, b != null ? b.getTenantId() : null);
+                node = step(node, b != null ? b.getDataSegment() : null);
+                if (node.rules == null) node.rules = new ArrayList<>(2);
+                node.rules.add(new Entry(r, ordinal++));
+                RuleUriMatcher.forRule(r);
             } catch (Exception e) {
                 Log.warnf(e, "RuleIndex: skipping rule due to error during indexing: %s", String.valueOf(r));
             }
         }
-        // sort each node's rule list by priority asc to match existing behavior
-        sortAll(idx.root);
-        Log.debugf("RuleIndex built with %d rules, version=%d", added, v);
+        idx.size = ordinal;
+        Log.debugf("RuleIndex built with %d rules, version=%d", ordinal, v);
         return idx;
     }
 
-    private static String n(String s) { return (s == null || s.isBlank()) ? "*" : s; }
+    /**
+     * Maps a rule value to its branch key: null, blank and any value carrying a wildcard go to the
+     * wildcard branch (null), everything else to its lower-cased exact branch.
+     */
+    private static String key(String s) {
+        if (s == null || s.isBlank() || s.indexOf('*') >= 0 || s.indexOf('?') >= 0) {
+            return null;
+        }
+        return PrincipalUri.fold(s, null);
+    }
+
+    private static boolean isBareStar(String s) {
+        return s != null && RuleUriMatcher.isAllStars(s);
+    }
 
-    private static Node step(Node node, String key) {
-        if ("*".equals(key)) {
+    private static boolean hasText(String s) {
+        return s != null && !s.isBlank();
+    }
+
+    private static Node step(Node node, String value) {
+        String key = key(value);
+        if (key == null) {
             if (node.wildcard == null) node.wildcard = new Node();
             return node.wildcard;
         }
         return node.exact.computeIfAbsent(key, k -> new Node());
     }
 
-    private static void sortAll(Node node) {
-        if (node == null) return;
-        if (node.rules != null && node.rules.size() > 1) {
-            node.rules.sort(Comparator.comparingInt(Rule::getPriority));
-        }
-        if (node.wildcard != null) sortAll(node.wildcard);
-        for (Node child : node.exact.values()) sortAll(child);
-    }
-
     /**
-     * Collects applicable rules for the given principal/resource contexts.
-     * This will traverse exact and wildcard branches to honor both specific and generic rules.
+     * Collects applicable rules for the given principal/resource contexts: the rules whose URI
+     * matches the principal URI of the user or one of its roles. Rules are returned in priority
+     * order; rules of equal priority keep the order of the identities (user first, then roles)
+     * and, per identity, the order they were indexed in.
      */
     List<Rule> getApplicableRules(PrincipalContext pc, ResourceContext rc) {
         // identities include the principalId and associated roles
@@ -98,80 +176,90 @@ final class RuleIndex {
         if (pc.getUserId() != null) identities.add(pc.getUserId());
         identities.addAll(Arrays.asList(pc.getRoles()));
 
-        String area = rc.getArea() == null ? "*" : rc.getArea();
-        String domain = rc.getFunctionalDomain() == null ? "*" : rc.getFunctionalDomain();
-        String action = rc.getAction() == null ? "*" : rc.getAction();
-
-        // Use a linked hash set to preserve insertion order and avoid duplicates
-        LinkedHashSet<Rule> out = new LinkedHashSet<>();
+        List<Rule> list = new ArrayList<>();
+        // Rule.equals/hashCode cover every field, so de-duplicate on identity
+        Set<Rule> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+        List<Entry> hits = new ArrayList<>();
         for (String id : identities) {
-            collect(root, id, area, domain, action, pc, rc, out);
+            // principal URI is built once per identity, not once per candidate rule
+            PrincipalUri principal = PrincipalUri.of(id, rc.getArea(), rc.getFunctionalDomain(), rc.getAction(), pc, rc);
+            hits.clear();
+            collect(root, 0, principal, hits);
+            hits.sort(BY_ORDINAL);
+            for (Entry e : hits) {
+                if (seen.add(e.rule)) list.add(e.rule);
+            }
         }
-        // As a final safety, ensure priority ordering overall
-        List<Rule> list = new ArrayList<>(out);
+        // stable sort: equal priorities keep the order gathered above
         list.sort(Comparator.comparingInt(Rule::getPriority));
         return list;
     }
 
-    private void collect(Node node, String identity, String area, String domain, String action, PrincipalContext pc, ResourceContext rc, LinkedHashSet<Rule> out) {
-        if (node == null) return;
-        // Traverse identity level (exact and wildcard)
-        List<Node> idNodes = childrenFor(node, identity);
-        for (Node idNode : idNodes) {
-            // area level
-            List<Node> areaNodes = childrenFor(idNode, area);
-            for (Node aNode : areaNodes) {
-                // domain level
-                List<Node> domNodes = childrenFor(aNode, domain);
-                for (Node dNode : domNodes) {
-                    // action level
-                    List<Node> actNodes = childrenFor(dNode, action);
-                    for (Node actNode : actNodes) {
-                        if (actNode.rules != null) {
-                            // Additional safety: verify full URI wildcard match using full principal URI shape
-                            for (Rule r : actNode.rules) {
-                                try {
-                                    String lhs = buildPrincipalUri(identity, area, domain, action, pc, rc);
-                                    String rhs = r.getSecurityURI().uriString();
-                                    if (WildCardMatcher.wildcardMatch(lhs, rhs, IOCase.INSENSITIVE)) {
-                                        out.add(r);
-                                    }
-                                } catch (Exception e) {
-                                    out.add(r); // be permissive on errors; ordering maintained
-                                }
-                            }
-                        }
+    private static void collect(Node node, int level, PrincipalUri principal, List<Entry> out) {
+        if (level == LEVELS) {
+            if (node.rules == null) return;
+            // Verify the full URI (owner and resourceId included) against the principal
+            for (Entry e : node.rules) {
+                try {
+                    if (RuleUriMatcher.forRule(e.rule).matches(principal)) {
+                        out.add(e);
                     }
+                } catch (Exception ex) {
+                    out.add(e); // be permissive on errors; ordering maintained
                 }
             }
+            return;
         }
+        Node exact = node.exact.get(principal.segment(level));
+        if (exact != null) collect(exact, level + 1, principal, out);
+        if (node.wildcard != null) collect(node.wildcard, level + 1, principal, out);
     }
 
-    private static List<Node> childrenFor(Node node, String key) {
-        List<Node> res = new ArrayList<>(2);
-        if (node == null) return res;
-        Node exact = node.exact.get(key);
-        if (exact != null) res.add(exact);
-        if (node.wildcard != null) res.add(node.wildcard);
-        return res;
+    /**
+     * True when a lookup for this user could return rules that another principal with the same
+     * roles and data domain would not get: rules registered for the user id itself, or
+     * wildcard-identity rules whose identity or owner is a pattern rather than a bare {@code *}
+     * (the owner segment of a principal URI is its identity).
+     */
+    boolean isUserSpecific(String userId) {
+        if (userPatterns) return true;
+        String key = key(userId);
+        return key == null || root.exact.containsKey(key);
+    }
+
+    /**
+     * True when the decision for a resource could depend on its resource id: some rule names
+     * specific resource ids (a null resource id counts as {@code *}) or runs a pre/postcondition
+     * script, which sees the resource context.
+     */
+    boolean isResourceSpecific() {
+        return resourceSpecific;
+    }
+
+    /**
+     * Returns every indexed rule whose header identity is exactly one of the given identities
+     * (case-insensitive), in index build order. Wildcard-identity rules are not included.
+     */
+    List<Rule> rulesForIdentities(Collection<String> identities) {
+        List<Rule> list = new ArrayList<>();
+        if (identities == null) return list;
+        Set<Node> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+        List<Entry> hits = new ArrayList<>();
+        for (String id : identities) {
+            String key = key(id);
+            Node node = key != null ? root.exact.get(key) : null;
+            if (node == null || !visited.add(node)) continue;
+            hits.clear();
+            gather(node, hits);
+            hits.sort(BY_ORDINAL);
+            for (Entry e : hits) list.add(e.rule);
+        }
+        return list;
     }
 
-    private static String buildPrincipalUri(String identity, String area, String domain, String action, PrincipalContext pc, ResourceContext rc) {
-        // Build a URI string that matches SecurityURI.getURIString(): "header|body"
-        String header = (identity == null ? "*" : identity.toLowerCase()) + ":"
-                + (area == null ? "*" : area.toLowerCase()) + ":"
-                + (domain == null ? "*" : domain.toLowerCase()) + ":"
-                + (action == null ? "*" : action.toLowerCase());
-
-        String realm = pc != null && pc.getDefaultRealm() != null ? pc.getDefaultRealm().toLowerCase() : "*";
-        String orgRef = pc != null && pc.getDataDomain() != null && pc.getDataDomain().getOrgRefName() != null ? pc.getDataDomain().getOrgRefName().toLowerCase() : "*";
-        String acct = pc != null && pc.getDataDomain() != null && pc.getDataDomain().getAccountNum() != null ? pc.getDataDomain().getAccountNum().toLowerCase() : "*";
-        String tenant = pc != null && pc.getDataDomain() != null && pc.getDataDomain().getTenantId() != null ? pc.getDataDomain().getTenantId().toLowerCase() : "*";
-        String dataSeg = pc != null && pc.getDataDomain() != null ? Integer.toString(pc.getDataDomain().getDataSegment()) : "*";
-        String owner = identity == null ? "*" : identity.toLowerCase();
-        String resourceId = rc != null && rc.getResourceId() != null ? rc.getResourceId().toLowerCase() : "*";
-
-        String body = realm + ":" + orgRef + ":" + acct + ":" + tenant + ":" + dataSeg + ":" + owner + ":" + resourceId;
-        return header + "|" + body;
+    private static void gather(Node node, List<Entry> out) {
+        if (node.rules != null) out.addAll(node.rules);
+        for (Node child : node.exact.values()) gather(child, out);
+        if (node.wildcard != null) gather(node.wildcard, out);
     }
 }
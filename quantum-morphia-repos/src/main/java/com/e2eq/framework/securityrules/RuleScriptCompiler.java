@@ -0,0 +1,582 @@
+package com.e2eq.framework.security.runtime;
+
+import com.e2eq.framework.model.persistent.base.DataDomain;
+import com.e2eq.framework.model.security.Rule;
+import com.e2eq.framework.model.securityrules.PrincipalContext;
+import com.e2eq.framework.model.securityrules.ResourceContext;
+import io.quarkus.logging.Log;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Compiles the common, trivially safe shapes of rule pre/postcondition scripts into Java
+ * predicates so they can be evaluated without entering the JS engine.
+ *
+ * The recognised subset is:
+ * <ul>
+ *     <li>property access on {@code pctx}/{@code pcontext}, {@code rctx}/{@code rcontext} and
+ *     {@code identityInfo} for the scalar values bound by {@link RuleScriptExecutor}, including the
+ *     zero-argument getter forms (e.g. {@code pcontext.getUserId()})</li>
+ *     <li>string, number, boolean, {@code null} and {@code undefined} literals</li>
+ *     <li>{@code ==}, {@code ===}, {@code !=}, {@code !==}, {@code &&}, {@code ||}, {@code !} and parentheses</li>
+ *     <li>the {@code hasLabel(...)} helper when the ontology script helpers are on the classpath</li>
+ * </ul>
+ * Evaluation follows JavaScript semantics for equality, truthiness and short-circuit operators so
+ * results are identical to the engine; anything outside the subset (including list-valued bindings
+ * and the edge helpers, whose inputs are not bound by the executor) is left to the JS engine.
+ */
+final class RuleScriptCompiler {
+
+    /** JavaScript {@code undefined}, distinct from {@code null}. */
+    private static final Object UNDEFINED = new Object() {
+        @Override
+        public String toString() {
+            return "undefined";
+        }
+    };
+
+    private static final int MAX_CACHED_SCRIPTS = 4096;
+
+    private static final Map<String, Optional<Predicate<ScriptInput>>> CACHE = new ConcurrentHashMap<>();
+    private static final AtomicLong COMPILED_EVALUATIONS = new AtomicLong();
+    private static final AtomicLong INTERPRETED_EVALUATIONS = new AtomicLong();
+
+    private static final boolean HELPERS_AVAILABLE = helpersAvailable();
+
+    private RuleScriptCompiler() {
+    }
+
+    /**
+     * Returns the compiled predicate for the script, compiling and caching it on first use.
+     *
+     * @param script the script text
+     * @return the predicate, or {@code null} when the script is outside the compilable subset
+     */
+    static Predicate<ScriptInput> compiled(String script) {
+        if (script == null || script.isBlank()) {
+            return null;
+        }
+        Optional<Predicate<ScriptInput>> cached = CACHE.get(script);
+        if (cached == null) {
+            cached = Optional.ofNullable(compile(script));
+            if (CACHE.size() < MAX_CACHED_SCRIPTS) {
+                CACHE.putIfAbsent(script, cached);
+            }
+        }
+        return cached.orElse(null);
+    }
+
+    /**
+     * Compiles the pre/postcondition scripts of the given rules ahead of evaluation.
+     */
+    static void precompile(Collection<Rule> rules) {
+        if (rules == null) {
+            return;
+        }
+        for (Rule rule : rules) {
+            if (rule == null) {
+                continue;
+            }
+            compiled(rule.getPreconditionScript());
+            compiled(rule.getPostconditionScript());
+        }
+    }
+
+    static void recordCompiledEvaluation() {
+        COMPILED_EVALUATIONS.incrementAndGet();
+    }
+
+    static void recordInterpretedEvaluation() {
+        INTERPRETED_EVALUATIONS.incrementAndGet();
+    }
+
+    /**
+     * Gets compiler metrics as a map.
+     *
+     * @return map of metric names to values
+     */
+    static Map<String, Object> getSummary() {
+        Map<String, Object> summary = new HashMap<>();
+        long compiledScripts = CACHE.values().stream().filter(Optional::isPresent).count();
+        summary.put("compiledScripts", compiledScripts);
+        summary.put("interpretedScripts", CACHE.size() - compiledScripts);
+        summary.put("compiledEvaluations", COMPILED_EVALUATIONS.get());
+        summary.put("interpretedEvaluations", INTERPRETED_EVALUATIONS.get());
+        return summary;
+    }
+
+    /**
+     * Compiles the script without caching.
+     *
+     * @return the predicate, or {@code null} when the script is outside the compilable subset
+     */
+    static Predicate<ScriptInput> compile(String script) {
+        try {
+            Parser parser = new Parser(tokenize(script));
+            Expr expr = parser.parseProgram();
+            if (expr == null) {
+                return null;
+            }
+            return input -> {
+                try {
+                    return Boolean.TRUE.equals(expr.eval(input));
+                } catch (ScriptError e) {
+                    // the engine would raise a TypeError here; failed scripts evaluate to false
+                    return false;
+                }
+            };
+        } catch (RuntimeException e) {
+            if (Log.isDebugEnabled()) {
+                Log.debugf("Rule script not compilable, will use the script engine: %s", script);
+            }
+            return null;
+        }
+    }
+
+    private static boolean helpersAvailable() {
+        try {
+            Class.forName("com.e2eq.ontology.policy.ScriptHelpers");
+            return true;
+        } catch (Throwable t) {
+            return false;
+        }
+    }
+
+    // ------------------------------------------------------------------ evaluation
+
+    @FunctionalInterface
+    private interface Expr {
+        Object eval(ScriptInput input);
+    }
+
+    /** Raised where the script engine would throw (e.g. calling an undefined getter). */
+    private static final class ScriptError extends RuntimeException {
+        ScriptError() {
+            super(null, null, false, false);
+        }
+    }
+
+    private static boolean truthy(Object v) {
+        if (v == null || v == UNDEFINED) return false;
+        if (v instanceof Boolean b) return b;
+        if (v instanceof Number n) {
+            double d = n.doubleValue();
+            return d != 0d && !Double.isNaN(d);
+        }
+        if (v instanceof String s) return !s.isEmpty();
+        return true;
+    }
+
+    private static boolean strictEquals(Object a, Object b) {
+        if (a == UNDEFINED || b == UNDEFINED || a == null || b == null) {
+            return a == b;
+        }
+        if (a instanceof Number na && b instanceof Number nb) {
+            return na.doubleValue() == nb.doubleValue();
+        }
+        if (a instanceof String || a instanceof Boolean) {
+            return a.equals(b);
+        }
+        return a == b;
+    }
+
+    private static boolean looseEquals(Object a, Object b) {
+        boolean aNullish = a == null || a == UNDEFINED;
+        boolean bNullish = b == null || b == UNDEFINED;
+        if (aNullish || bNullish) {
+            return aNullish && bNullish;
+        }
+        if (a instanceof Boolean ab) {
+            return looseEquals(ab ? 1d : 0d, b);
+        }
+        if (b instanceof Boolean bb) {
+            return looseEquals(a, bb ? 1d : 0d);
+        }
+        if (a instanceof Number na && b instanceof String sb) {
+            return na.doubleValue() == toNumber(sb);
+        }
+        if (a instanceof String sa && b instanceof Number nb) {
+            return toNumber(sa) == nb.doubleValue();
+        }
+        return strictEquals(a, b);
+    }
+
+    private static double toNumber(String s) {
+        String t = s.trim();
+        if (t.isEmpty()) return 0d;
+        try {
+            return Double.parseDouble(t);
+        } catch (NumberFormatException e) {
+            return Double.NaN;
+        }
+    }
+
+    // ------------------------------------------------------------------ bindings
+
+    private static Expr principalProperty(String name) {
+        Function<PrincipalContext, Object> getter = switch (name) {
+            case "userId" -> PrincipalContext::getUserId;
+            case "defaultRealm" -> PrincipalContext::getDefaultRealm;
+            case "scope" -> PrincipalContext::getScope;
+            default -> null;
+        };
+        if (getter == null) {
+            return null;
+        }
+        return in -> in.principal() != null ? getter.apply(in.principal()) : null;
+    }
+
+    private static Expr dataDomainProperty(String name) {
+        Function<DataDomain, Object> getter = switch (name) {
+            case "orgRefName" -> DataDomain::getOrgRefName;
+            case "accountNum" -> DataDomain::getAccountNum;
+            case "tenantId" -> DataDomain::getTenantId;
+            case "dataSegment" -> DataDomain::getDataSegment;
+            case "ownerId" -> DataDomain::getOwnerId;
+            default -> null;
+        };
+        if (getter == null) {
+            return null;
+        }
+        return in -> {
+            DataDomain dd = in.principal() != null ? in.principal().getDataDomain() : null;
+            return dd != null ? getter.apply(dd) : UNDEFINED;
+        };
+    }
+
+    private static Expr dataDomainGetter(String name) {
+        Expr property = dataDomainProperty(name);
+        if (property == null) {
+            return null;
+        }
+        return in -> {
+            Object v = property.eval(in);
+            if (v == UNDEFINED) {
+                // the getter is only bound when a data domain is present
+                throw new ScriptError();
+            }
+            return v;
+        };
+    }
+
+    private static Expr resourceProperty(String name) {
+        Function<ResourceContext, Object> getter = switch (name) {
+            case "area" -> ResourceContext::getArea;
+            case "functionalDomain" -> ResourceContext::getFunctionalDomain;
+            case "action" -> ResourceContext::getAction;
+            case "resourceId" -> ResourceContext::getResourceId;
+            case "ownerId" -> ResourceContext::getOwnerId;
+            case "realm" -> ResourceContext::getRealm;
+            default -> null;
+        };
+        if (getter == null) {
+            return null;
+        }
+        return in -> in.resource() != null ? getter.apply(in.resource()) : null;
+    }
+
+    private static Expr identityInfoProperty(String name) {
+        if (!"userId".equals(name) && !"currentIdentity".equals(name)) {
+            return null;
+        }
+        return in -> in.principal() != null ? in.principal().getUserId() : UNDEFINED;
+    }
+
+    /** Maps {@code getFoo} to {@code foo}; returns null for non-getter names. */
+    private static String propertyForGetter(String name) {
+        if (name.length() > 3 && name.startsWith("get") && Character.isUpperCase(name.charAt(3))) {
+            return Character.toLowerCase(name.charAt(3)) + name.substring(4);
+        }
+        return null;
+    }
+
+    // ------------------------------------------------------------------ parsing
+
+    private enum Kind { IDENT, STRING, NUMBER, OP, END }
+
+    private record Token(Kind kind, String text) {
+    }
+
+    private static List<Token> tokenize(String src) {
+        List<Token> tokens = new ArrayList<>();
+        int i = 0;
+        int n = src.length();
+        while (i < n) {
+            char c = src.charAt(i);
+            if (Character.isWhitespace(c)) {
+                i++;
+            } else if (Character.isJavaIdentifierStart(c) && c < 128) {
+                int j = i + 1;
+                while (j < n && Character.isJavaIdentifierPart(src.charAt(j)) && src.charAt(j) < 128) j++;
+                tokens.add(new Token(Kind.IDENT, src.substring(i, j)));
+                i = j;
+            } else if (Character.isDigit(c)) {
+                int j = i + 1;
+                while (j < n && (Character.isDigit(src.charAt(j)) || src.charAt(j) == '.')) j++;
+                tokens.add(new Token(Kind.NUMBER, src.substring(i, j)));
+                i = j;
+            } else if (c == '\'' || c == '"') {
+                StringBuilder sb = new StringBuilder();
+                int j = i + 1;
+                while (true) {
+                    if (j >= n) throw new IllegalArgumentException("unterminated string");
+                    char d = src.charAt(j);
+                    if (d == c) break;
+                    if (d == '\\') {
+                        if (j + 1 >= n) throw new IllegalArgumentException("bad escape");
+                        char e = src.charAt(j + 1);
+                        switch (e) {
+                            case '\\', '\'', '"' -> sb.append(e);
+                            case 'n' -> sb.append('\n');
+                            case 't' -> sb.append('\t');
+                            default -> throw new IllegalArgumentException("unsupported escape");
+                        }
+                        j += 2;
+                    } else {
+                        sb.append(d);
+                        j++;
+                    }
+                }
+                tokens.add(new Token(Kind.STRING, sb.toString()));
+                i = j + 1;
+            } else if (src.startsWith("===", i) || src.startsWith("!==", i)) {
+                tokens.add(new Token(Kind.OP, src.substring(i, i + 3)));
+                i += 3;
+            } else if (src.startsWith("==", i) || src.startsWith("!=", i)
+                    || src.startsWith("&&", i) || src.startsWith("||", i)) {
+                tokens.add(new Token(Kind.OP, src.substring(i, i + 2)));
+                i += 2;
+            } else if (c == '!' || c == '(' || c == ')' || c == '.' || c == ',' || c == ';') {
+                tokens.add(new Token(Kind.OP, String.valueOf(c)));
+                i++;
+            } else {
+                throw new IllegalArgumentException("unsupported character '" + c + "'");
+            }
+        }
+        tokens.add(new Token(Kind.END, ""));
+        return tokens;
+    }
+
+    private static final class Parser {
+        private final List<Token> tokens;
+        private int pos;
+
+        Parser(List<Token> tokens) {
+            this.tokens = tokens;
+        }
+
+        Expr parseProgram() {
+            Expr expr = parseOr();
+            if (expr == null) return null;
+            while (accept(";")) {
+                // a trailing semicolon is allowed; a second statement is not
+            }
+            return peek().kind() == Kind.END ? expr : null;
+        }
+
+        private Expr parseOr() {
+            Expr left = parseAnd();
+            while (left != null && accept("||")) {
+                Expr l = left;
+                Expr r = parseAnd();
+                if (r == null) return null;
+                left = in -> {
+                    Object v = l.eval(in);
+                    return truthy(v) ? v : r.eval(in);
+                };
+            }
+            return left;
+        }
+
+        private Expr parseAnd() {
+            Expr left = parseEquality();
+            while (left != null && accept("&&")) {
+                Expr l = left;
+                Expr r = parseEquality();
+                if (r == null) return null;
+                left = in -> {
+                    Object v = l.eval(in);
+                    return truthy(v) ? r.eval(in) : v;
+                };
+            }
+            return left;
+        }
+
+        private Expr parseEquality() {
+            Expr left = parseUnary();
+            while (left != null && peek().kind() == Kind.OP) {
+                String op = peek().text();
+                if (!op.equals("==") && !op.equals("===") && !op.equals("!=") && !op.equals("!==")) break;
+                pos++;
+                Expr l = left;
+                Expr r = parseUnary();
+                if (r == null) return null;
+                left = switch (op) {
+                    case "===" -> in -> strictEquals(l.eval(in), r.eval(in));
+                    case "!==" -> in -> !strictEquals(l.eval(in), r.eval(in));
+                    case "==" -> in -> looseEquals(l.eval(in), r.eval(in));
+                    default -> in -> !looseEquals(l.eval(in), r.eval(in));
+                };
+            }
+            return left;
+        }
+
+        private Expr parseUnary() {
+            if (accept("!")) {
+                Expr operand = parseUnary();
+                if (operand == null) return null;
+                return in -> !truthy(operand.eval(in));
+            }
+            return parsePrimary();
+        }
+
+        private Expr parsePrimary() {
+            Token t = next();
+            switch (t.kind()) {
+                case STRING: {
+                    String s = t.text();
+                    return in -> s;
+                }
+                case NUMBER: {
+                    double d = Double.parseDouble(t.text());
+                    return in -> d;
+                }
+                case OP:
+                    if (t.text().equals("(")) {
+                        Expr inner = parseOr();
+                        return inner != null && accept(")") ? inner : null;
+                    }
+                    return null;
+                case IDENT:
+                    return parseIdentifier(t.text());
+                default:
+                    return null;
+            }
+        }
+
+        private Expr parseIdentifier(String name) {
+            switch (name) {
+                case "true":
+                    return in -> Boolean.TRUE;
+                case "false":
+                    return in -> Boolean.FALSE;
+                case "null":
+                    return in -> null;
+                case "undefined":
+                    return in -> UNDEFINED;
+                case "pctx":
+                case "pcontext":
+                    return parsePrincipalPath();
+                case "rctx":
+                case "rcontext":
+                    return parseMember(RuleScriptCompiler::resourceProperty, RuleScriptCompiler::resourceProperty);
+                case "identityInfo":
+                    return parseMember(RuleScriptCompiler::identityInfoProperty, null);
+                case "hasLabel":
+                    return HELPERS_AVAILABLE ? parseHasLabel() : null;
+                default:
+                    return null;
+            }
+        }
+
+        private Expr parsePrincipalPath() {
+            if (!accept(".")) return null;
+            Token member = next();
+            if (member.kind() != Kind.IDENT) return null;
+            String name = member.text();
+            if (name.equals("dataDomain") && !isNext("(")) {
+                return parseMember(RuleScriptCompiler::dataDomainProperty, RuleScriptCompiler::dataDomainGetter);
+            }
+            if (name.equals("getDataDomain")) {
+                if (!accept("(") || !accept(")")) return null;
+                return parseMember(RuleScriptCompiler::dataDomainProperty, RuleScriptCompiler::dataDomainGetter);
+            }
+            return finishMember(name, RuleScriptCompiler::principalProperty, RuleScriptCompiler::principalProperty);
+        }
+
+        /**
+         * Parses {@code .name} or {@code .getName()} against the given bindings; {@code getters}
+         * is null when the binding object exposes no getter functions.
+         */
+        private Expr parseMember(Function<String, Expr> properties, Function<String, Expr> getters) {
+            if (!accept(".")) return null;
+            Token member = next();
+            if (member.kind() != Kind.IDENT) return null;
+            return finishMember(member.text(), properties, getters);
+        }
+
+        private Expr finishMember(String name, Function<String, Expr> properties, Function<String, Expr> getters) {
+            if (accept("(")) {
+                String property = propertyForGetter(name);
+                if (getters == null || property == null || !accept(")")) return null;
+                return terminal(getters.apply(property));
+            }
+            return terminal(properties.apply(name));
+        }
+
+        /** Scalar values only: a further member access or call leaves the subset. */
+        private Expr terminal(Expr expr) {
+            if (expr == null) return null;
+            Token t = peek();
+            if (t.kind() == Kind.OP && (t.text().equals(".") || t.text().equals("("))) return null;
+            return expr;
+        }
+
+        private Expr parseHasLabel() {
+            if (!accept("(")) return null;
+            if (accept(")")) {
+                return in -> Boolean.FALSE;
+            }
+            Expr arg = parseOr();
+            if (arg == null) return null;
+            // extra arguments are evaluated by the engine but ignored by the helper
+            List<Expr> ignored = new ArrayList<>();
+            while (accept(",")) {
+                Expr extra = parseOr();
+                if (extra == null) return null;
+                ignored.add(extra);
+            }
+            if (!accept(")")) return null;
+            return in -> {
+                Object v = arg.eval(in);
+                for (Expr extra : ignored) {
+                    extra.eval(in);
+                }
+                return v instanceof String label && in.resourceLabels().contains(label);
+            };
+        }
+
+        private Token peek() {
+            return tokens.get(pos);
+        }
+
+        private Token next() {
+            Token t = tokens.get(pos);
+            if (t.kind() != Kind.END) pos++;
+            return t;
+        }
+
+        private boolean isNext(String op) {
+            Token t = peek();
+            return t.kind() == Kind.OP && t.text().equals(op);
+        }
+
+        private boolean accept(String op) {
+            Token t = peek();
+            if (t.kind() == Kind.OP && t.text().equals(op)) {
+                pos++;
+                return true;
+            }
+            return false;
+        }
+    }
+}
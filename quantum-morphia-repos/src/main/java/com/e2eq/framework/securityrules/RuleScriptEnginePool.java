@@ -0,0 +1,274 @@
+package com.e2eq.framework.security.runtime;
+
+import io.quarkus.logging.Log;
+import org.eclipse.microprofile.config.Config;
+import org.eclipse.microprofile.config.ConfigProvider;
+import org.graalvm.polyglot.Context;
+import org.graalvm.polyglot.Engine;
+import org.graalvm.polyglot.HostAccess;
+import org.graalvm.polyglot.Source;
+import org.graalvm.polyglot.Value;
+import org.graalvm.polyglot.io.IOAccess;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Shared, pre-warmed GraalJS runtime for rule pre/postcondition scripts.
+ *
+ * A single polyglot {@link Engine} is kept for the life of the JVM so its code cache is reused
+ * across evaluations, and parsed {@link Source} objects are cached per script text. Each evaluation
+ * runs in a fresh sandboxed {@link Context} on that engine, so top-level {@code let}/{@code const}/
+ * {@code class} declarations and globals of one rule never reach the next; the cached sources make
+ * a new context cheap. The number of concurrent evaluations is bounded by the pool size, and
+ * execution happens on a bounded watchdog executor so that a run-away script can be cancelled once
+ * the configured timeout elapses.
+ *
+ * Settings (read once when the pool is first used):
+ * <ul>
+ *     <li>{@code quantum.security.scripting.pool.size} - maximum number of concurrent evaluations (default 4)</li>
+ *     <li>{@code quantum.security.scripting.pool.warmup} - prime the engine on startup (default true)</li>
+ *     <li>{@code quantum.security.scripting.sourceCache.maxEntries} - parsed script cache size (default 512)</li>
+ * </ul>
+ */
+final class RuleScriptEnginePool {
+
+    private static final String LANGUAGE = "js";
+
+    private static volatile RuleScriptEnginePool shared;
+
+    private final Engine engine;
+    private final int poolSize;
+    private final Semaphore leases;
+    private final ThreadPoolExecutor watchdog;
+    private final Map<String, Source> sourceCache;
+    private final Object sourceCacheLock = new Object();
+
+    private final AtomicLong evaluations = new AtomicLong();
+    private final AtomicLong evaluationNanos = new AtomicLong();
+    private final AtomicLong sourceCacheHits = new AtomicLong();
+    private final AtomicLong sourceCacheMisses = new AtomicLong();
+    private final AtomicLong contextsCreated = new AtomicLong();
+    private final AtomicLong timeouts = new AtomicLong();
+    private final AtomicLong leaseTimeouts = new AtomicLong();
+
+    private RuleScriptEnginePool(int poolSize, int sourceCacheMaxEntries) {
+        this.poolSize = poolSize;
+        this.engine = Engine.newBuilder().build();
+        this.leases = new Semaphore(poolSize, true);
+        this.sourceCache = new LinkedHashMap<>(64, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Source> eldest) {
+                return size() > sourceCacheMaxEntries;
+            }
+        };
+        AtomicInteger threadSeq = new AtomicInteger();
+        // Concurrency is already bounded by the lease semaphore; the queue only absorbs the hand-off.
+        this.watchdog = new ThreadPoolExecutor(poolSize, poolSize, 60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(poolSize * 2),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "rule-script-worker-" + threadSeq.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        this.watchdog.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Returns the JVM-wide pool, creating (and optionally warming) it on first use.
+     */
+    static RuleScriptEnginePool shared() {
+        RuleScriptEnginePool pool = shared;
+        if (pool == null) {
+            synchronized (RuleScriptEnginePool.class) {
+                pool = shared;
+                if (pool == null) {
+                    int size = 4;
+                    int sourceCacheMax = 512;
+                    boolean warmup = true;
+                    try {
+                        Config cfg = ConfigProvider.getConfig();
+                        if (cfg != null) {
+                            size = cfg.getOptionalValue("quantum.security.scripting.pool.size", Integer.class).orElse(size);
+                            sourceCacheMax = cfg.getOptionalValue("quantum.security.scripting.sourceCache.maxEntries", Integer.class).orElse(sourceCacheMax);
+                            warmup = cfg.getOptionalValue("quantum.security.scripting.pool.warmup", Boolean.class).orElse(warmup);
+                        }
+                    } catch (Throwable ignored) {
+                    }
+                    pool = new RuleScriptEnginePool(Math.max(1, size), Math.max(16, sourceCacheMax));
+                    if (warmup) {
+                        pool.warmUp();
+                    }
+                    shared = pool;
+                }
+            }
+        }
+        return pool;
+    }
+
+    /**
+     * Returns the pool if it has already been started, without forcing engine creation.
+     */
+    static RuleScriptEnginePool sharedIfStarted() {
+        return shared;
+    }
+
+    /**
+     * Evaluates a trivial script in a throw-away context so the first permission checks do not pay
+     * for engine and language bootstrap.
+     */
+    void warmUp() {
+        long start = System.nanoTime();
+        try (Context context = newContext()) {
+            context.eval(sourceFor("true"));
+        } catch (Throwable t) {
+            Log.warn("RuleScriptEnginePool: warmup failed; the engine will be initialized on first use", t);
+            return;
+        }
+        Log.infof("RuleScriptEnginePool: warmed the script engine in %d ms",
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    /**
+     * Evaluates the script in a fresh sandboxed context.
+     *
+     * @param script    the script text; parsed once and cached
+     * @param binder    installs per-evaluation bindings (pctx/rctx/helpers) into the context
+     * @param timeoutMs upper bound for waiting on a lease and for the evaluation itself
+     * @return the boolean result of the script; false on non-boolean results, errors or timeouts
+     */
+    boolean evaluate(String script, Consumer<Context> binder, long timeoutMs) {
+        long start = System.nanoTime();
+        boolean leased = false;
+        Context context = null;
+        try {
+            if (!leases.tryAcquire(timeoutMs, TimeUnit.MILLISECONDS)) {
+                leaseTimeouts.incrementAndGet();
+                Log.warnf("Script context pool exhausted after waiting %d ms; returning false", timeoutMs);
+                return false;
+            }
+            leased = true;
+            context = newContext();
+            Source source = sourceFor(script);
+            final Context lease = context;
+            Future<Boolean> future = watchdog.submit(() -> {
+                binder.accept(lease);
+                if (Log.isDebugEnabled()) {
+                    Log.debugf("Executing script: %s", script);
+                }
+                Value value = lease.eval(source);
+                return value.isBoolean() && value.asBoolean();
+            });
+            long remaining = timeoutMs - TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            try {
+                return future.get(Math.max(1L, remaining), TimeUnit.MILLISECONDS);
+            } catch (TimeoutException timeoutException) {
+                timeouts.incrementAndGet();
+                // cancel the running guest code
+                close(lease);
+                future.cancel(true);
+                Log.warnf("Script timed out after %d ms; returning false", timeoutMs);
+                return false;
+            } catch (ExecutionException executionException) {
+                Log.warn("Script execution failed; returning false", executionException.getCause());
+                return false;
+            }
+        } catch (InterruptedException interruptedException) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (Throwable t) {
+            Log.warn("Script execution failed; returning false", t);
+            return false;
+        } finally {
+            if (context != null) {
+                close(context);
+            }
+            if (leased) {
+                leases.release();
+            }
+            evaluations.incrementAndGet();
+            evaluationNanos.addAndGet(System.nanoTime() - start);
+        }
+    }
+
+    Source sourceFor(String script) {
+        synchronized (sourceCacheLock) {
+            Source source = sourceCache.get(script);
+            if (source != null) {
+                sourceCacheHits.incrementAndGet();
+                return source;
+            }
+        }
+        sourceCacheMisses.incrementAndGet();
+        Source parsed = Source.newBuilder(LANGUAGE, script, "rule-script-" + Integer.toHexString(script.hashCode()))
+                .cached(true)
+                .buildLiteral();
+        synchronized (sourceCacheLock) {
+            Source raced = sourceCache.putIfAbsent(script, parsed);
+            return raced != null ? raced : parsed;
+        }
+    }
+
+    long getSourceCacheHits() {
+        return sourceCacheHits.get();
+    }
+
+    long getSourceCacheMisses() {
+        return sourceCacheMisses.get();
+    }
+
+    /**
+     * Gets pool metrics as a map.
+     *
+     * @return map of metric names to values
+     */
+    Map<String, Object> getSummary() {
+        Map<String, Object> summary = new HashMap<>();
+        long evals = evaluations.get();
+        long hits = sourceCacheHits.get();
+        long misses = sourceCacheMisses.get();
+        summary.put("poolSize", poolSize);
+        summary.put("activeLeases", poolSize - leases.availablePermits());
+        summary.put("evaluations", evals);
+        summary.put("avgEvaluationMicros", evals == 0 ? 0L : TimeUnit.NANOSECONDS.toMicros(evaluationNanos.get()) / evals);
+        summary.put("sourceCacheHits", hits);
+        summary.put("sourceCacheMisses", misses);
+        summary.put("sourceCacheHitRatio", (hits + misses) == 0 ? 0.0d : (double) hits / (hits + misses));
+        summary.put("contextsCreated", contextsCreated.get());
+        summary.put("timeouts", timeouts.get());
+        summary.put("leaseTimeouts", leaseTimeouts.get());
+        return summary;
+    }
+
+    private Context newContext() {
+        Context context = Context.newBuilder(LANGUAGE)
+                .engine(engine)
+                .allowAllAccess(false)
+                .allowHostAccess(HostAccess.NONE)
+                .allowHostClassLookup(className -> false)
+                .allowIO(IOAccess.NONE)
+                .option("js.ecmascript-version", "2021")
+                .build();
+        contextsCreated.incrementAndGet();
+        return context;
+    }
+
+    private static void close(Context context) {
+        try {
+            context.close(true);
+        } catch (Throwable ignored) {
+        }
+    }
+}
@@ -6,10 +6,7 @@ import io.quarkus.logging.Log;
 import org.eclipse.microprofile.config.Config;
 import org.eclipse.microprofile.config.ConfigProvider;
 import org.graalvm.polyglot.Context;
-import org.graalvm.polyglot.Engine;
-import org.graalvm.polyglot.HostAccess;
 import org.graalvm.polyglot.Value;
-import org.graalvm.polyglot.io.IOAccess;
 import org.graalvm.polyglot.proxy.ProxyExecutable;
 import org.graalvm.polyglot.proxy.ProxyObject;
 
@@ -19,12 +16,8 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
-import java.util.concurrent.TimeUnit;
-import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Predicate;
 
 final class RuleScriptExecutor {
 
@@ -43,6 +36,7 @@ final class RuleScriptExecutor {
 
         boolean enabled = true;
         boolean allowAll = false;
+        boolean compiledEnabled = true;
         long timeoutMs = 1500L;
         if (configuredTimeoutMillis > 0) {
             timeoutMs = configuredTimeoutMillis;
@@ -54,6 +48,7 @@ final class RuleScriptExecutor {
                 enabled = cfg.getOptionalValue("quantum.security.scripting.enabled", Boolean.class).orElse(Boolean.TRUE);
                 allowAll = cfg.getOptionalValue("quantum.security.scripting.allowAllAccess", Boolean.class).orElse(Boolean.FALSE);
                 timeoutMs = cfg.getOptionalValue("quantum.security.scripting.timeout.millis", Long.class).orElse(timeoutMs);
+                compiledEnabled = cfg.getOptionalValue("quantum.security.scripting.compiled.enabled", Boolean.class).orElse(Boolean.TRUE);
             }
         } catch (Throwable ignored) {
             if (timeoutMs <= 0) {
@@ -86,40 +81,19 @@ final class RuleScriptExecutor {
             }
         }
 
-        ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
-            Thread thread = new Thread(runnable, "rule-script-worker");
-            thread.setDaemon(true);
-            return thread;
-        });
-        try {
-            Future<Boolean> future = executor.submit(() -> {
-                Engine engine = Engine.newBuilder().build();
-                try (Context context = Context.newBuilder("js")
-                        .engine(engine)
-                        .allowAllAccess(false)
-                        .allowHostAccess(HostAccess.NONE)
-                        .allowHostClassLookup(className -> false)
-                        .allowIO(IOAccess.NONE)
-                        .option("js.ecmascript-version", "2021")
-                        .build()) {
-                    installHelpersAndBindings(context, pcontext, rcontext, false);
-                    if (Log.isDebugEnabled()) {
-                        Log.debugf("Executing script: %s", script);
-                    }
-                    Value value = context.eval("js", script);
-                    return value.isBoolean() && value.asBoolean();
-                }
-            });
-            return future.get(Math.max(1L, timeoutMs), TimeUnit.MILLISECONDS);
-        } catch (TimeoutException timeoutException) {
-            Log.warnf("Script timed out after %d ms; returning false", timeoutMs <= 0 ? 250L : timeoutMs);
-            return false;
-        } catch (Throwable t) {
-            Log.warn("Script execution failed; returning false", t);
-            return false;
-        } finally {
-            executor.shutdownNow();
+        // Common expression shapes run as precompiled Java predicates; the rest go to the engine
+        if (compiledEnabled) {
+            Predicate<ScriptInput> compiled = RuleScriptCompiler.compiled(script);
+            if (compiled != null) {
+                RuleScriptCompiler.recordCompiledEvaluation();
+                return compiled.test(new ScriptInput(pcontext, rcontext, labelService));
+            }
         }
+        RuleScriptCompiler.recordInterpretedEvaluation();
+
+        return RuleScriptEnginePool.shared().evaluate(script,
+                context -> installHelpersAndBindings(context, pcontext, rcontext, false),
+                Math.max(1L, timeoutMs));
     }
 
     private void installHelpersAndBindings(Context context, PrincipalContext pcontext, ResourceContext rcontext, boolean bindRawContexts) {
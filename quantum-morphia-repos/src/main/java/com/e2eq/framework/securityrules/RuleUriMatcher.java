@@ -0,0 +1,134 @@
+package com.e2eq.framework.security.runtime;
+
+import com.e2eq.framework.model.security.Rule;
+import com.e2eq.framework.model.securityrules.SecurityURI;
+import com.e2eq.framework.model.securityrules.SecurityURIBody;
+import com.e2eq.framework.model.securityrules.SecurityURIHeader;
+import com.e2eq.framework.util.IOCase;
+import com.e2eq.framework.util.WildCardMatcher;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+/**
+ * A rule's {@link SecurityURI} compiled once into a segment-wise matcher: lower-cased, interned
+ * segments plus bit masks marking which segments are a bare {@code *} (always match) and which are
+ * exact literals (plain equality). Only segments carrying embedded wildcards fall back to glob
+ * matching, and only within that segment.
+ *
+ * Segment-wise matching gives the same answer as {@code WildCardMatcher.wildcardMatch(principal,
+ * rule, IOCase.INSENSITIVE)} on the flat {@code header|body} strings as long as no value contains a
+ * separator; when one does, the matcher falls back to matching the flat strings.
+ *
+ * Compiled matchers are cached per {@link Rule} instance (identity, weakly held) so rules are
+ * compiled once when they are first evaluated and released together with the rule set.
+ */
+final class RuleUriMatcher {
+
+    private static final Cache<Rule, RuleUriMatcher> COMPILED = CacheBuilder.newBuilder().weakKeys().build();
+
+    private final SecurityURI source;
+    private final String[] segments;
+    private final String uriString;
+    private final boolean plain;
+    private final int anyMask;
+    private final int exactMask;
+
+    private RuleUriMatcher(SecurityURI source, String[] segments) {
+        this.source = source;
+        this.segments = segments;
+        this.uriString = PrincipalUri.join(segments);
+        boolean noSeparators = true;
+        int any = 0;
+        int exact = 0;
+        for (int i = 0; i < segments.length; i++) {
+            String s = segments[i];
+            if (s.indexOf(':') >= 0 || s.indexOf('|') >= 0) {
+                noSeparators = false;
+            }
+            if (isAllStars(s)) {
+                any |= 1 << i;
+            } else if (s.indexOf('*') < 0 && s.indexOf('?') < 0) {
+                exact |= 1 << i;
+            }
+        }
+        this.plain = noSeparators;
+        this.anyMask = any;
+        this.exactMask = exact;
+    }
+
+    /**
+     * Returns the compiled matcher for the rule, compiling it on first use or when the rule's
+     * SecurityURI has been replaced.
+     */
+    static RuleUriMatcher forRule(Rule rule) {
+        SecurityURI uri = rule.getSecurityURI();
+        RuleUriMatcher matcher = COMPILED.getIfPresent(rule);
+        if (matcher == null || matcher.source != uri) {
+            matcher = compile(uri);
+            COMPILED.put(rule, matcher);
+        }
+        return matcher;
+    }
+
+    static RuleUriMatcher compile(SecurityURI uri) {
+        SecurityURIHeader h = uri.getHeader();
+        SecurityURIBody b = uri.getBody();
+        String[] segments = new String[PrincipalUri.SEGMENTS];
+        segments[0] = intern(h.getIdentity(), "null");
+        segments[1] = intern(h.getArea(), "null");
+        segments[2] = intern(h.getFunctionalDomain(), "null");
+        segments[3] = intern(h.getAction(), "null");
+        segments[4] = intern(b.getRealm(), "null");
+        segments[5] = intern(b.getOrgRefName(), "null");
+        segments[6] = intern(b.getAccountNumber(), "null");
+        segments[7] = intern(b.getTenantId(), "null");
+        segments[8] = intern(b.getDataSegment(), "null");
+        segments[9] = intern(b.getOwnerId(), "null");
+        segments[10] = intern(b.getResourceId(), "*");
+        return new RuleUriMatcher(uri, segments);
+    }
+
+    /**
+     * The flat, lower-cased {@code header|body} form of the rule URI, computed once.
+     */
+    String uriString() {
+        return uriString;
+    }
+
+    boolean matches(PrincipalUri principal) {
+        if (!plain || !principal.isPlain()) {
+            return WildCardMatcher.wildcardMatch(principal.uriString(), uriString, IOCase.INSENSITIVE);
+        }
+        for (int i = 0; i < PrincipalUri.SEGMENTS; i++) {
+            int bit = 1 << i;
+            if ((anyMask & bit) != 0) {
+                continue;
+            }
+            String value = principal.segment(i);
+            if ((exactMask & bit) != 0) {
+                if (!segments[i].equals(value)) {
+                    return false;
+                }
+            } else if (!WildCardMatcher.wildcardMatch(value, segments[i], IOCase.SENSITIVE)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    static boolean isAllStars(String s) {
+        if (s.isEmpty()) {
+            return false;
+        }
+        for (int i = 0; i < s.length(); i++) {
+            if (s.charAt(i) != '*') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String intern(String value, String ifNull) {
+        return PrincipalUri.fold(value, ifNull).intern();
+    }
+}
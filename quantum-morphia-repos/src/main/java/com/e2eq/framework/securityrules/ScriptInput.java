@@ -0,0 +1,50 @@
+package com.e2eq.framework.security.runtime;
+
+import com.e2eq.framework.model.securityrules.PrincipalContext;
+import com.e2eq.framework.model.securityrules.ResourceContext;
+
+import java.util.Set;
+
+/**
+ * Per-evaluation input handed to rule scripts that were compiled into Java predicates by
+ * {@link RuleScriptCompiler}. Values are read straight from the principal/resource contexts;
+ * resource labels are resolved lazily so scripts that never call {@code hasLabel} pay nothing.
+ */
+final class ScriptInput {
+
+    private final PrincipalContext pcontext;
+    private final ResourceContext rcontext;
+    private final LabelService labelService;
+    private Set<String> resourceLabels;
+
+    ScriptInput(PrincipalContext pcontext, ResourceContext rcontext, LabelService labelService) {
+        this.pcontext = pcontext;
+        this.rcontext = rcontext;
+        this.labelService = labelService;
+    }
+
+    PrincipalContext principal() {
+        return pcontext;
+    }
+
+    ResourceContext resource() {
+        return rcontext;
+    }
+
+    /**
+     * Mirrors the {@code rcontext.labels} binding of the script engine: labels from the
+     * {@link LabelService}, or an empty set when none are available or resolution fails.
+     */
+    Set<String> resourceLabels() {
+        if (resourceLabels == null) {
+            Set<String> labels;
+            try {
+                labels = labelService != null ? labelService.labelsFor(rcontext) : Set.of();
+            } catch (Throwable ignored) {
+                labels = Set.of();
+            }
+            resourceLabels = labels != null ? labels : Set.of();
+        }
+        return resourceLabels;
+    }
+}
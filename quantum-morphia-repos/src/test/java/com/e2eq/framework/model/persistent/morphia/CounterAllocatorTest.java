@@ -0,0 +1,121 @@
+package com.e2eq.framework.model.persistent.morphia;
+
+import com.e2eq.framework.model.persistent.base.DataDomain;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CounterAllocatorTest {
+
+    /** Stands in for the Counter collection: one atomic increment per call. */
+    static class FakeCounterRepo extends CounterRepo {
+        final Map<String, Long> values = new HashMap<>();
+        int calls;
+
+        @Override
+        public synchronized long getAndIncrement(String realmId, String name, DataDomain dataDomain, long incrementAmount) {
+            calls++;
+            String key = realmId + "|" + name + "|" + dataDomain.getTenantId();
+            long previous = values.getOrDefault(key, 0L);
+            values.put(key, previous + incrementAmount);
+            return previous;
+        }
+
+        @Override
+        public String getSecurityContextRealmId() {
+            return "test-realm";
+        }
+    }
+
+    private static CounterAllocator allocator(FakeCounterRepo repo, int blockSize, boolean gapFree) {
+        CounterAllocator allocator = new CounterAllocator();
+        allocator.counterRepo = repo;
+        allocator.blockSize = blockSize;
+        allocator.gapFree = gapFree;
+        return allocator;
+    }
+
+    private static DataDomain domain(String tenantId) {
+        return new DataDomain("end2endlogic", "0000000001", tenantId, 0, "owner");
+    }
+
+    @Test
+    void valuesComeFromReservedBlocks() {
+        FakeCounterRepo repo = new FakeCounterRepo();
+        CounterAllocator allocator = allocator(repo, 10, false);
+
+        for (long expected = 0; expected < 25; expected++) {
+            assertEquals(expected, allocator.next("orderNumber", domain("t1")));
+        }
+        assertEquals(3, repo.calls);
+        assertEquals(30L, repo.values.get("test-realm|orderNumber|t1"));
+    }
+
+    @Test
+    void countersAreSeparatedByDataDomain() {
+        FakeCounterRepo repo = new FakeCounterRepo();
+        CounterAllocator allocator = allocator(repo, 10, false);
+
+        assertEquals(0, allocator.next("orderNumber", domain("t1")));
+        assertEquals(0, allocator.next("orderNumber", domain("t2")));
+        assertEquals(1, allocator.next("orderNumber", domain("t1")));
+    }
+
+    @Test
+    void gapFreeReservesEachValue() {
+        FakeCounterRepo repo = new FakeCounterRepo();
+        CounterAllocator allocator = allocator(repo, 10, true);
+
+        assertEquals(0, allocator.next("invoice", domain("t1")));
+        assertEquals(1, allocator.next("invoice", domain("t1")));
+        assertEquals(2, repo.calls);
+        assertEquals(2L, repo.values.get("test-realm|invoice|t1"));
+    }
+
+    @Test
+    void encodedValuesUseTheRequestedBase() {
+        CounterAllocator allocator = allocator(new FakeCounterRepo(), 50, false);
+        for (int i = 0; i < 35; i++) {
+            allocator.next("code", domain("t1"));
+        }
+        CounterValue cv = allocator.nextEncoded("code", domain("t1"), 36);
+        assertEquals(35, cv.getValue());
+        assertEquals("z", cv.getEncodedValue());
+        assertThrows(IllegalArgumentException.class, () -> allocator.nextEncoded("code", domain("t1"), 99));
+    }
+
+    @Test
+    void concurrentCallersNeverShareAValue() throws Exception {
+        CounterAllocator allocator = allocator(new FakeCounterRepo(), 7, false);
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<List<Long>>> futures = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                futures.add(pool.submit(() -> {
+                    List<Long> got = new ArrayList<>();
+                    for (int i = 0; i < 500; i++) {
+                        got.add(allocator.next("orderNumber", domain("t1")));
+                    }
+                    return got;
+                }));
+            }
+            Set<Long> all = new HashSet<>();
+            for (Future<List<Long>> f : futures) {
+                all.addAll(f.get());
+            }
+            assertEquals(4000, all.size());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.e2eq.framework.model.persistent.morphia;
+
+import com.e2eq.framework.model.persistent.base.DataDomain;
+import com.e2eq.framework.model.securityrules.PrincipalContext;
+import com.e2eq.framework.model.securityrules.ResourceContext;
+import dev.morphia.query.filters.Filter;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FilterTemplateTest {
+
+    private static PrincipalContext principal(String userId, String tenantId) {
+        return new PrincipalContext.Builder()
+                .withUserId(userId)
+                .withDefaultRealm("test-realm")
+                .withDataDomain(new DataDomain("end2endlogic", "0000000001", tenantId, 0, userId))
+                .build();
+    }
+
+    private static ResourceContext resource() {
+        return new ResourceContext.Builder()
+                .withArea("sales")
+                .withFunctionalDomain("order")
+                .withAction("view")
+                .build();
+    }
+
+    private static MorphiaUtils.VariableBundle vars(String userId, String tenantId) {
+        return MorphiaUtils.buildVariableBundle(principal(userId, tenantId), resource(), new HashMap<>());
+    }
+
+    @Test
+    void oneTemplateBindsEachRequestsVariables() {
+        FilterTemplate template = FilterTemplate.compile(
+                "dataDomain.ownerId:${principalId}&&dataDomain.tenantId:${pTenantId}");
+
+        Filter alice = template.bind(vars("alice", "tenant-a"), QueryToFilterListenerInClauseTest.DummyModel.class);
+        Filter bob = template.bind(vars("bob", "tenant-b"), QueryToFilterListenerInClauseTest.DummyModel.class);
+
+        assertTrue(alice.toString().contains("alice") && alice.toString().contains("tenant-a"));
+        assertTrue(bob.toString().contains("bob") && bob.toString().contains("tenant-b"));
+        assertFalse(bob.toString().contains("alice"));
+    }
+
+    @Test
+    void bindingMatchesOneShotConversion() {
+        String q = "status:ACTIVE&&dataDomain.ownerId:${principalId}";
+        MorphiaUtils.VariableBundle v = vars("alice", "tenant-a");
+        Filter compiled = FilterTemplate.compile(q).bind(v, QueryToFilterListenerInClauseTest.DummyModel.class);
+        Filter oneShot = MorphiaUtils.convertToFilter(q, v, QueryToFilterListenerInClauseTest.DummyModel.class);
+        assertEquals(oneShot.toString(), compiled.toString());
+    }
+
+    @Test
+    void syntaxErrorsFailAtCompileTime() {
+        assertThrows(IllegalArgumentException.class, () -> FilterTemplate.compile("status:&&("));
+        assertThrows(IllegalArgumentException.class, () -> FilterTemplate.compile(""));
+    }
+}
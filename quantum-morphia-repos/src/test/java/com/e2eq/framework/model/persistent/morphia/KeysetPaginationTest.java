@@ -0,0 +1,66 @@
+package com.e2eq.framework.model.persistent.morphia;
+
+import com.e2eq.framework.model.persistent.base.ProjectionField;
+import com.e2eq.framework.model.persistent.base.SortField;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KeysetPaginationTest {
+
+    private static final List<SortField> BY_NAME_DESC =
+            List.of(new SortField("refName", SortField.SortDirection.DESC));
+
+    @Test
+    void sortIsMadeTotalWithId() {
+        assertEquals("[-refName, +_id]", KeysetPagination.normalizeSort(BY_NAME_DESC).toString());
+        assertEquals("[+_id]", KeysetPagination.normalizeSort(null).toString());
+        assertEquals("[-_id]", KeysetPagination.normalizeSort(List.of(
+                new SortField("id", SortField.SortDirection.DESC),
+                new SortField("refName", SortField.SortDirection.ASC))).toString());
+    }
+
+    @Test
+    void tokenRoundTripsIntoAnAfterPredicate() {
+        List<SortField> sort = KeysetPagination.normalizeSort(BY_NAME_DESC);
+        ObjectId id = new ObjectId();
+        String token = KeysetPagination.nextToken(sort, new Document("refName", "m").append("_id", id));
+
+        Document match = KeysetPagination.toMatch(sort, token);
+        List<?> branches = match.getList("$or", Document.class);
+        assertEquals(2, branches.size());
+        // refName < "m" (or null, which sorts last when descending)
+        assertEquals(List.of(new Document("refName", new Document("$lt", "m")),
+                        new Document("refName", new Document("$eq", null))),
+                ((Document) branches.get(0)).getList("$or", Document.class));
+        // refName == "m" and _id > id
+        Document tie = (Document) branches.get(1);
+        assertEquals(List.of(new Document("refName", new Document("$eq", "m")),
+                        new Document("_id", new Document("$gt", id))),
+                tie.getList("$and", Document.class));
+    }
+
+    @Test
+    void tokensAreBoundToTheirSort() {
+        List<SortField> sort = KeysetPagination.normalizeSort(BY_NAME_DESC);
+        String token = KeysetPagination.nextToken(sort, new Document("refName", "m").append("_id", new ObjectId()));
+
+        List<SortField> other = KeysetPagination.normalizeSort(List.of(new SortField("refName", SortField.SortDirection.ASC)));
+        assertThrows(IllegalArgumentException.class, () -> KeysetPagination.toMatch(other, token));
+        assertThrows(IllegalArgumentException.class, () -> KeysetPagination.toMatch(sort, "not-a-token"));
+    }
+
+    @Test
+    void includeProjectionKeepsSortFields() {
+        List<SortField> sort = KeysetPagination.normalizeSort(BY_NAME_DESC);
+        List<ProjectionField> include = List.of(new ProjectionField("displayName", ProjectionField.ProjectionType.INCLUDE));
+        List<ProjectionField> effective = KeysetPagination.ensureProjected(include, sort);
+        assertTrue(effective.stream().anyMatch(pf -> "refName".equals(pf.getFieldName())));
+        assertEquals(2, effective.size());
+        assertNull(KeysetPagination.ensureProjected(null, sort));
+    }
+}
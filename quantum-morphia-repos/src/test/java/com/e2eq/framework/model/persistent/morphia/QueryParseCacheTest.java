@@ -0,0 +1,49 @@
+package com.e2eq.framework.model.persistent.morphia;
+
+import com.e2eq.framework.model.persistent.morphia.planner.PlannerResult;
+import com.e2eq.framework.model.persistent.morphia.planner.QueryPlanner;
+import org.antlr.v4.runtime.tree.ParseTree;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class QueryParseCacheTest {
+
+    private static long metric(String name) {
+        return ((Number) QueryParseCache.getSummary().get(name)).longValue();
+    }
+
+    @Test
+    void repeatedQueriesShareOneTree() {
+        String q = "refName:parse-cache-" + System.nanoTime() + "&&status:ACTIVE";
+        long misses = metric("misses");
+        long hits = metric("hits");
+
+        ParseTree first = QueryParseCache.parse(q);
+        ParseTree second = QueryParseCache.parse(q);
+
+        assertSame(first, second);
+        assertEquals(misses + 1, metric("misses"));
+        assertEquals(hits + 1, metric("hits"));
+    }
+
+    @Test
+    void planParsesTheQueryOnce() {
+        String q = "refName:plan-" + System.nanoTime();
+        long misses = metric("misses");
+
+        PlannerResult result = new QueryPlanner().analyze(q);
+        MorphiaUtils.convertToFilter(q, QueryToFilterListenerInClauseTest.DummyModel.class);
+
+        assertEquals(PlannerResult.Mode.FILTER, result.getMode());
+        assertEquals(misses + 1, metric("misses"));
+    }
+
+    @Test
+    void syntaxErrorsKeepEachCallersExceptionType() {
+        String bad = "status:&&(";
+        assertThrows(QueryParseCache.QuerySyntaxException.class, () -> QueryParseCache.parse(bad));
+        assertThrows(IllegalArgumentException.class, () -> MorphiaUtils.validateQueryString(bad));
+        assertThrows(IllegalStateException.class, () -> new QueryPlanner().analyze(bad));
+    }
+}
@@ -0,0 +1,55 @@
+package com.e2eq.framework.model.persistent.morphia;
+
+import com.e2eq.framework.model.security.DomainContext;
+import com.e2eq.framework.model.security.Realm;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RealmCatalogTest {
+
+    private RealmCatalog catalog;
+
+    private static Realm realm(String refName, String databaseName, String emailDomain, String tenantId) {
+        return Realm.builder()
+                .refName(refName)
+                .databaseName(databaseName)
+                .emailDomain(emailDomain)
+                .domainContext(DomainContext.builder()
+                        .tenantId(tenantId)
+                        .defaultRealm(refName)
+                        .orgRefName("org")
+                        .accountId("acct")
+                        .build())
+                .build();
+    }
+
+    @BeforeEach
+    void setUp() {
+        catalog = new RealmCatalog();
+        catalog.setSnapshot(RealmCatalog.snapshotOf(List.of(
+                realm("system-com", "system-com", "system.com", "system-com"),
+                realm("acme", "acme-db", "acme.com", "acme-tenant"),
+                realm("globex", "globex-db", "globex.com", "globex-tenant"))));
+    }
+
+    @Test
+    void lookupsHitEveryIndex() {
+        assertEquals("acme", catalog.findByRefName("acme").orElseThrow().getRefName());
+        assertEquals("acme", catalog.findByDatabaseName("acme-db").orElseThrow().getRefName());
+        assertEquals("acme", catalog.findByEmailDomain("acme.com").orElseThrow().getRefName());
+        assertEquals("globex", catalog.findByTenantId("globex-tenant").orElseThrow().getRefName());
+        assertTrue(catalog.findByRefName("acme-db").isEmpty());
+        assertTrue(catalog.findByEmailDomain(null).isEmpty());
+    }
+
+    @Test
+    void refNamesKeepCollectionOrderAndAreImmutable() {
+        assertEquals(List.of("system-com", "acme", "globex"), catalog.getRefNames());
+        assertThrows(UnsupportedOperationException.class, () -> catalog.getRefNames().add("other"));
+        assertThrows(UnsupportedOperationException.class, () -> catalog.getAll().clear());
+    }
+}
@@ -0,0 +1,136 @@
+package com.e2eq.framework.security.runtime;
+
+import com.e2eq.framework.model.persistent.base.DataDomain;
+import com.e2eq.framework.model.security.Rule;
+import com.e2eq.framework.model.securityrules.PrincipalContext;
+import com.e2eq.framework.model.securityrules.ResourceContext;
+import com.e2eq.framework.model.securityrules.RuleEffect;
+import com.e2eq.framework.model.securityrules.SecurityCheckResponse;
+import com.e2eq.framework.model.securityrules.SecurityURI;
+import com.e2eq.framework.model.securityrules.SecurityURIBody;
+import com.e2eq.framework.model.securityrules.SecurityURIHeader;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class RuleDecisionCacheTest {
+
+    RuleContext ruleContext;
+
+    @BeforeEach
+    void setUp() {
+        ruleContext = new RuleContext();
+        ruleContext.clear();
+    }
+
+    private static Rule rule(String name, String identity, String action, RuleEffect effect, int priority, String postScript) {
+        SecurityURIHeader header = new SecurityURIHeader.Builder()
+                .withIdentity(identity)
+                .withArea("orders")
+                .withFunctionalDomain("order")
+                .withAction(action)
+                .build();
+        SecurityURIBody body = new SecurityURIBody.Builder()
+                .withRealm("*")
+                .withOrgRefName("*")
+                .withAccountNumber("*")
+                .withTenantId("*")
+                .withOwnerId("*")
+                .withDataSegment("*")
+                .withResourceId("*")
+                .build();
+        return new Rule.Builder()
+                .withName(name)
+                .withSecurityURI(new SecurityURI(header, body))
+                .withEffect(effect)
+                .withPriority(priority)
+                .withPostconditionScript(postScript)
+                .withFinalRule(true)
+                .build();
+    }
+
+    private void add(Rule rule) {
+        ruleContext.addRule(rule.getSecurityURI().getHeader(), rule);
+    }
+
+    private static PrincipalContext principal(String userId) {
+        DataDomain dd = new DataDomain("acme.com", "0000000001", "acme.com", 0, userId);
+        return new PrincipalContext.Builder()
+                .withDefaultRealm("b2bi")
+                .withDataDomain(dd)
+                .withUserId(userId)
+                .withRoles(new String[]{"user"})
+                .build();
+    }
+
+    private static ResourceContext resource(String action) {
+        return new ResourceContext.Builder()
+                .withArea("orders")
+                .withFunctionalDomain("order")
+                .withAction(action)
+                .withResourceId("order-1")
+                .build();
+    }
+
+    private SecurityCheckResponse check(PrincipalContext pc, String action) {
+        // each check simulates a separate request
+        RuleContext.clearRequestCache();
+        return ruleContext.checkRules(pc, resource(action));
+    }
+
+    private long metric(String name) {
+        return ((Number) ruleContext.getDecisionCacheMetrics().get(name)).longValue();
+    }
+
+    @Test
+    void usersWithTheSamePrincipalShapeShareOneDecision() {
+        add(rule("user-view", "user", "view", RuleEffect.ALLOW, 10, null));
+
+        PrincipalContext alice = principal("alice@acme.com");
+        PrincipalContext bob = principal("bob@acme.com");
+
+        SecurityCheckResponse first = check(alice, "view");
+        SecurityCheckResponse second = check(bob, "view");
+
+        assertEquals(RuleEffect.ALLOW, first.getFinalEffect());
+        assertEquals(RuleEffect.ALLOW, second.getFinalEffect());
+        assertEquals("user-view", second.getWinningRuleName());
+        assertSame(bob, second.getPrincipalContext());
+        assertNotSame(first, second);
+        assertEquals(1, metric("decisionCacheHits"));
+        assertEquals(1, metric("decisionCacheStores"));
+    }
+
+    @Test
+    void userSpecificRulesAreNotShared() {
+        add(rule("user-view", "user", "view", RuleEffect.ALLOW, 10, null));
+        add(rule("alice-deny", "alice@acme.com", "view", RuleEffect.DENY, 1, null));
+
+        assertEquals(RuleEffect.DENY, check(principal("alice@acme.com"), "view").getFinalEffect());
+        assertEquals(RuleEffect.ALLOW, check(principal("bob@acme.com"), "view").getFinalEffect());
+        assertEquals(RuleEffect.DENY, check(principal("alice@acme.com"), "view").getFinalEffect());
+    }
+
+    @Test
+    void scriptedDecisionsAreNotCached() {
+        add(rule("scripted", "user", "view", RuleEffect.ALLOW, 10, "pcontext.userId === 'alice@acme.com'"));
+
+        check(principal("alice@acme.com"), "view");
+        check(principal("bob@acme.com"), "view");
+
+        assertEquals(0, metric("decisionCacheHits"));
+        assertEquals(2, metric("decisionCacheNonCacheable"));
+    }
+
+    @Test
+    void addingARuleInvalidatesCachedDecisions() {
+        add(rule("user-view", "user", "view", RuleEffect.ALLOW, 10, null));
+        assertEquals(RuleEffect.ALLOW, check(principal("alice@acme.com"), "view").getFinalEffect());
+
+        add(rule("user-view-deny", "user", "view", RuleEffect.DENY, 1, null));
+        assertEquals(RuleEffect.DENY, check(principal("bob@acme.com"), "view").getFinalEffect());
+    }
+}
@@ -0,0 +1,177 @@
+package com.e2eq.framework.security.runtime;
+
+import com.e2eq.framework.model.persistent.base.DataDomain;
+import com.e2eq.framework.model.security.Rule;
+import com.e2eq.framework.model.securityrules.PrincipalContext;
+import com.e2eq.framework.model.securityrules.ResourceContext;
+import com.e2eq.framework.model.securityrules.RuleEffect;
+import com.e2eq.framework.model.securityrules.SecurityCheckResponse;
+import com.e2eq.framework.model.securityrules.SecurityURI;
+import com.e2eq.framework.model.securityrules.SecurityURIBody;
+import com.e2eq.framework.model.securityrules.SecurityURIHeader;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RuleIndexTest {
+
+    private static Rule rule(String name, String identity, String action, String realm, String tenant, int priority, RuleEffect effect) {
+        SecurityURIHeader header = new SecurityURIHeader.Builder()
+                .withIdentity(identity)
+                .withArea("orders")
+                .withFunctionalDomain("order")
+                .withAction(action)
+                .build();
+        SecurityURIBody body = new SecurityURIBody.Builder()
+                .withRealm(realm)
+                .withOrgRefName("*")
+                .withAccountNumber("*")
+                .withTenantId(tenant)
+                .withOwnerId("*")
+                .withDataSegment("*")
+                .withResourceId("*")
+                .build();
+        return new Rule.Builder()
+                .withName(name)
+                .withSecurityURI(new SecurityURI(header, body))
+                .withEffect(effect)
+                .withPriority(priority)
+                .withFinalRule(false)
+                .build();
+    }
+
+    private static PrincipalContext principal(String realm, String tenant) {
+        DataDomain dd = new DataDomain("acme.com", "0000000001", tenant, 0, "u1@acme.com");
+        return new PrincipalContext.Builder()
+                .withDefaultRealm(realm)
+                .withDataDomain(dd)
+                .withUserId("u1@acme.com")
+                .withRoles(new String[]{"user"})
+                .build();
+    }
+
+    private static ResourceContext resource(String action) {
+        return new ResourceContext.Builder()
+                .withArea("orders")
+                .withFunctionalDomain("order")
+                .withAction(action)
+                .withResourceId("order-1")
+                .build();
+    }
+
+    private static List<String> names(List<Rule> rules) {
+        List<String> names = new ArrayList<>();
+        for (Rule r : rules) {
+            names.add(r.getName());
+        }
+        return names;
+    }
+
+    @Test
+    void bodyTierOnlyReturnsRulesForThePrincipalsTenant() {
+        List<Rule> rules = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            rules.add(rule("tenant-" + i, "user", "view", "b2bi", "tenant-" + i, 10, RuleEffect.ALLOW));
+        }
+        rules.add(rule("any-tenant", "user", "view", "*", "*", 5, RuleEffect.ALLOW));
+        rules.add(rule("tenant-glob", "user", "view", "b2bi", "tenant-1*", 20, RuleEffect.DENY));
+        rules.add(rule("other-realm", "user", "view", "other", "tenant-7", 1, RuleEffect.DENY));
+        RuleIndex index = RuleIndex.build(rules);
+
+        assertEquals(53, index.size());
+        assertEquals(List.of("any-tenant", "tenant-7"),
+                names(index.getApplicableRules(principal("b2bi", "tenant-7"), resource("view"))));
+        assertEquals(List.of("any-tenant", "tenant-12", "tenant-glob"),
+                names(index.getApplicableRules(principal("B2BI", "TENANT-12"), resource("view"))));
+        assertEquals(List.of(), names(index.getApplicableRules(principal("b2bi", "tenant-7"), resource("delete"))));
+    }
+
+    @Test
+    void equalPrioritiesKeepIdentityThenIndexOrder() {
+        List<Rule> rules = new ArrayList<>();
+        rules.add(rule("role-b", "user", "*", "*", "*", 5, RuleEffect.ALLOW));
+        rules.add(rule("user-a", "u1@acme.com", "*", "*", "*", 5, RuleEffect.ALLOW));
+        rules.add(rule("role-a", "user", "view", "*", "*", 5, RuleEffect.ALLOW));
+        rules.add(rule("role-first", "user", "view", "*", "*", 1, RuleEffect.DENY));
+        RuleIndex index = RuleIndex.build(rules);
+
+        assertEquals(List.of("role-first", "user-a", "role-b", "role-a"),
+                names(index.getApplicableRules(principal("b2bi", "tenant-1"), resource("view"))));
+        assertEquals(List.of("user-a", "role-b", "role-a", "role-first"),
+                names(index.rulesForIdentities(List.of("u1@acme.com", "USER", "user"))));
+    }
+
+    @Test
+    void addingARuleInvalidatesTheCompiledIndex() {
+        RuleContext ruleContext = new RuleContext();
+        ruleContext.clear();
+        Rule allow = rule("allow-view", "user", "view", "*", "*", 10, RuleEffect.ALLOW);
+        ruleContext.addRule(allow.getSecurityURI().getHeader(), allow);
+
+        PrincipalContext pc = principal("b2bi", "tenant-1");
+        SecurityCheckResponse first = ruleContext.checkRules(pc, resource("view"));
+        assertEquals(RuleEffect.ALLOW, first.getFinalEffect());
+        assertTrue(ruleContext.indexForRealm("b2bi") != null, "index should be built on first lookup");
+
+        Rule deny = rule("deny-view", "user", "view", "*", "*", 1, RuleEffect.DENY);
+        deny.setFinalRule(true);
+        ruleContext.addRule(deny.getSecurityURI().getHeader(), deny);
+
+        SecurityCheckResponse second = ruleContext.checkRules(pc, resource("view"));
+        assertEquals(RuleEffect.DENY, second.getFinalEffect());
+    }
+
+    @Test
+    void rulesWithNullIdentityOrOwnerAreIndexed() throws Exception {
+        Rule anyone = rule("anyone", "*", "view", "*", "*", 10, RuleEffect.ALLOW);
+        // a stored null is mapped straight onto the field, bypassing the null-rejecting setters
+        Rule noOwner = rule("no-owner", "*", "view", "*", "*", 20, RuleEffect.ALLOW);
+        Field owner = SecurityURIBody.class.getDeclaredField("ownerId");
+        owner.setAccessible(true);
+        owner.set(noOwner.getSecurityURI().getBody(), null);
+        Rule noIdentity = rule("no-identity", "*", "view", "*", "*", 30, RuleEffect.ALLOW);
+        Field identity = SecurityURIHeader.class.getDeclaredField("identity");
+        identity.setAccessible(true);
+        identity.set(noIdentity.getSecurityURI().getHeader(), null);
+
+        assertFalse(RuleIndex.build(List.of(anyone)).isUserSpecific("u1@acme.com"));
+
+        RuleIndex index = RuleIndex.build(List.of(anyone, noOwner, noIdentity));
+        assertEquals(3, index.size());
+        // a missing identity or owner is not a bare "*": decisions must not be shared across users
+        assertTrue(index.isUserSpecific("u1@acme.com"));
+    }
+
+    @Test
+    void resourceSpecificOnlyWhenARuleNamesResourcesOrRunsAScript() {
+        List<Rule> rules = new ArrayList<>();
+        rules.add(rule("any", "user", "view", "*", "*", 10, RuleEffect.ALLOW));
+        assertFalse(RuleIndex.build(rules).isResourceSpecific());
+
+        Rule scripted = rule("scripted", "user", "view", "*", "*", 10, RuleEffect.ALLOW);
+        scripted.setPostconditionScript("rcontext.resourceId !== 'locked'");
+        assertTrue(RuleIndex.build(List.of(rules.get(0), scripted)).isResourceSpecific());
+
+        Rule single = rule("single", "user", "view", "*", "*", 10, RuleEffect.DENY);
+        single.getSecurityURI().getBody().setResourceId("order-1");
+        assertTrue(RuleIndex.build(List.of(rules.get(0), single)).isResourceSpecific());
+    }
+
+    @Test
+    void filterTemplatesAreCompiledOncePerIndex() {
+        RuleIndex index = RuleIndex.build(List.of(rule("any", "user", "view", "*", "*", 10, RuleEffect.ALLOW)));
+        String filter = "dataDomain.ownerId:${principalId}";
+        assertSame(index.filterTemplate(filter), index.filterTemplate(filter));
+        assertEquals(1, index.filterTemplateCount());
+
+        // a rebuilt index (policy change) starts with no templates
+        assertEquals(0, RuleIndex.build(List.of()).filterTemplateCount());
+    }
+}
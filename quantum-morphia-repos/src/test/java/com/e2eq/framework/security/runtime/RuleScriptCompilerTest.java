@@ -0,0 +1,70 @@
+package com.e2eq.framework.security.runtime;
+
+import com.e2eq.framework.model.persistent.base.DataDomain;
+import com.e2eq.framework.model.securityrules.PrincipalContext;
+import com.e2eq.framework.model.securityrules.ResourceContext;
+import org.junit.jupiter.api.Test;
+
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class RuleScriptCompilerTest {
+
+    private final PrincipalContext principalContext = new PrincipalContext.Builder()
+            .withDefaultRealm("system-com")
+            .withDataDomain(new DataDomain("org", "acct", "tenant", 0, "alice@example.com"))
+            .withUserId("alice@example.com")
+            .withRoles(new String[]{"admin"})
+            .withScope("access")
+            .build();
+
+    private final ResourceContext resourceContext = new ResourceContext.Builder()
+            .withRealm("system-com")
+            .withArea("ops")
+            .withFunctionalDomain("orders")
+            .withAction("view")
+            .withResourceId("order-1")
+            .withOwnerId("alice@example.com")
+            .build();
+
+    private boolean eval(String script) {
+        Predicate<ScriptInput> predicate = RuleScriptCompiler.compile(script);
+        assertNotNull(predicate, "expected script to be compilable: " + script);
+        return predicate.test(new ScriptInput(principalContext, resourceContext, null));
+    }
+
+    @Test
+    void compilesPropertyComparisonsAndBooleanOperators() {
+        assertEquals(true, eval("pcontext.userId == rcontext.ownerId"));
+        assertEquals(true, eval("pctx.userId === rctx.ownerId && rctx.action === 'view'"));
+        assertEquals(false, eval("pctx.userId !== rctx.ownerId || rctx.area == \"billing\""));
+        assertEquals(true, eval("!(rctx.action === 'delete');"));
+        assertEquals(true, eval("pcontext.getUserId() === identityInfo.userId"));
+        assertEquals(true, eval("pctx.dataDomain.tenantId === 'tenant' && pctx.getDataDomain().getOrgRefName() === 'org'"));
+    }
+
+    @Test
+    void followsJavaScriptEqualityAndTruthiness() {
+        assertEquals(true, eval("pctx.dataDomain.dataSegment == '0'"));
+        assertEquals(false, eval("pctx.dataDomain.dataSegment === '0'"));
+        assertEquals(true, eval("pctx.dataDomain.dataSegment === 0"));
+        assertEquals(true, eval("rctx.resourceId != null"));
+        // && / || return operand values; a non-boolean script result evaluates to false
+        assertEquals(false, eval("rctx.area || false"));
+        assertEquals(true, eval("rctx.area && true"));
+        assertEquals(true, eval("!!rctx.area"));
+    }
+
+    @Test
+    void leavesScriptsOutsideTheSubsetToTheEngine() {
+        assertNull(RuleScriptCompiler.compile("typeof pcontext.getClass === 'undefined'"));
+        assertNull(RuleScriptCompiler.compile("pctx.roles.includes('admin')"));
+        assertNull(RuleScriptCompiler.compile("pctx.unknownProperty === 'x'"));
+        assertNull(RuleScriptCompiler.compile("isA('Order')"));
+        assertNull(RuleScriptCompiler.compile("var x = 1; x === 1"));
+        assertNull(RuleScriptCompiler.compile("rctx.area.length > 0"));
+    }
+}
@@ -5,6 +5,7 @@ import com.e2eq.framework.model.securityrules.PrincipalContext;
 import com.e2eq.framework.model.securityrules.ResourceContext;
 import org.junit.jupiter.api.Test;
 
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class RuleScriptExecutorTest {
@@ -41,4 +42,66 @@ class RuleScriptExecutorTest {
 
         assertTrue(result);
     }
+
+    @Test
+    void pooledContextsReuseParsedSourcesAndDoNotLeakGlobals() {
+        System.setProperty("quantum.security.scripting.enabled", "true");
+        System.setProperty("quantum.security.scripting.allowAllAccess", "false");
+
+        PrincipalContext principalContext = new PrincipalContext.Builder()
+                .withDefaultRealm("system-com")
+                .withDataDomain(new DataDomain("org", "acct", "tenant", 0, "bob@example.com"))
+                .withUserId("bob@example.com")
+                .withRoles(new String[]{"user"})
+                .withScope("access")
+                .build();
+        ResourceContext resourceContext = new ResourceContext.Builder()
+                .withRealm("system-com")
+                .withArea("ops")
+                .withFunctionalDomain("orders")
+                .withAction("view")
+                .withOwnerId("bob@example.com")
+                .build();
+
+        RuleScriptExecutor executor = new RuleScriptExecutor(null);
+        String script = "typeof pctx.userId === 'string' && pctx.userId === rctx.ownerId";
+        assertTrue(executor.runScript(1500L, principalContext, resourceContext, script));
+        long hitsBefore = RuleScriptEnginePool.shared().getSourceCacheHits();
+        assertTrue(executor.runScript(1500L, principalContext, resourceContext, script));
+        assertTrue(RuleScriptEnginePool.shared().getSourceCacheHits() > hitsBefore);
+
+        // a global declared by one evaluation must not be visible to the next one
+        assertTrue(executor.runScript(1500L, principalContext, resourceContext, "leaked = true; leaked"));
+        assertFalse(executor.runScript(1500L, principalContext, resourceContext, "typeof leaked !== 'undefined'"));
+    }
+
+    @Test
+    void lexicalDeclarationsDoNotSurviveAcrossEvaluations() {
+        System.setProperty("quantum.security.scripting.enabled", "true");
+        System.setProperty("quantum.security.scripting.allowAllAccess", "false");
+
+        PrincipalContext principalContext = new PrincipalContext.Builder()
+                .withDefaultRealm("system-com")
+                .withDataDomain(new DataDomain("org", "acct", "tenant", 0, "carol@example.com"))
+                .withUserId("carol@example.com")
+                .withRoles(new String[]{"user"})
+                .withScope("access")
+                .build();
+        ResourceContext resourceContext = new ResourceContext.Builder()
+                .withRealm("system-com")
+                .withArea("ops")
+                .withFunctionalDomain("orders")
+                .withAction("view")
+                .withOwnerId("carol@example.com")
+                .build();
+
+        RuleScriptExecutor executor = new RuleScriptExecutor(null);
+        // run more times than there are concurrent slots so every slot is reused
+        String script = "const owner = rctx.ownerId; let same = owner === pctx.userId; class Seen {}; same";
+        for (int i = 0; i < 10; i++) {
+            assertTrue(executor.runScript(1500L, principalContext, resourceContext, script),
+                    "redeclaring const/let/class must not fail on evaluation " + i);
+        }
+        assertFalse(executor.runScript(1500L, principalContext, resourceContext, "typeof owner !== 'undefined'"));
+    }
 }
@@ -0,0 +1,65 @@
+package com.e2eq.framework.security.runtime;
+
+import com.e2eq.framework.model.securityrules.SecurityURI;
+import com.e2eq.framework.model.securityrules.SecurityURIBody;
+import com.e2eq.framework.model.securityrules.SecurityURIHeader;
+import com.e2eq.framework.util.IOCase;
+import com.e2eq.framework.util.WildCardMatcher;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RuleUriMatcherTest {
+
+    private static SecurityURI uri(String identity, String area, String domain, String action,
+                                   String realm, String org, String tenant, String resourceId) {
+        SecurityURIHeader header = new SecurityURIHeader.Builder()
+                .withIdentity(identity)
+                .withArea(area)
+                .withFunctionalDomain(domain)
+                .withAction(action)
+                .build();
+        SecurityURIBody body = new SecurityURIBody.Builder()
+                .withRealm(realm)
+                .withOrgRefName(org)
+                .withAccountNumber("*")
+                .withTenantId(tenant)
+                .withOwnerId(identity)
+                .withDataSegment("0")
+                .withResourceId(resourceId)
+                .build();
+        return new SecurityURI(header, body);
+    }
+
+    private static void assertSameAsWildcardMatch(SecurityURI principal, SecurityURI rule) {
+        boolean expected = WildCardMatcher.wildcardMatch(principal.uriString(), rule.uriString(), IOCase.INSENSITIVE);
+        boolean actual = RuleUriMatcher.compile(rule).matches(PrincipalUri.of(principal));
+        assertEquals(expected, actual, principal.uriString() + " vs " + rule.uriString());
+    }
+
+    @Test
+    void segmentMatchingAgreesWithFlatWildcardMatching() {
+        SecurityURI principal = uri("user", "Orders", "order", "view", "b2bi", "acme.com", "acme.com", "order-1");
+
+        assertSameAsWildcardMatch(principal, uri("user", "orders", "order", "view", "b2bi", "acme.com", "acme.com", "order-1"));
+        assertSameAsWildcardMatch(principal, uri("user", "*", "*", "*", "*", "*", "*", "*"));
+        assertSameAsWildcardMatch(principal, uri("user", "orders", "*", "delete", "*", "*", "*", "*"));
+        assertSameAsWildcardMatch(principal, uri("admin", "*", "*", "*", "*", "*", "*", "*"));
+        assertSameAsWildcardMatch(principal, uri("user", "ord*", "ord?r", "v*", "b2bi", "*.com", "*", "*"));
+        assertSameAsWildcardMatch(principal, uri("user", "orders", "order", "view", "other", "*", "*", "*"));
+        assertSameAsWildcardMatch(principal, uri("user", "orders", "order", "view", "b2bi", "*", "*", null));
+    }
+
+    @Test
+    void fallsBackToFlatMatchingWhenValuesContainSeparators() {
+        SecurityURI principal = uri("urn:user:1", "orders", "order", "view", "b2bi", "acme", "acme", null);
+
+        assertTrue(RuleUriMatcher.compile(uri("urn:*", "orders", "*", "*", "*", "*", "*", "*"))
+                .matches(PrincipalUri.of(principal)));
+        assertSameAsWildcardMatch(principal, uri("urn:user:2", "*", "*", "*", "*", "*", "*", "*"));
+        assertFalse(RuleUriMatcher.compile(uri("urn:user:2", "*", "*", "*", "*", "*", "*", "*"))
+                .matches(PrincipalUri.of(principal)));
+    }
+}
@@ -11,6 +11,7 @@ import java.util.Map;
  */
 public class EdgeRecord {
     private DataDomainInfo dataDomainInfo;
+    private String ownerId; // owner written on insert; DataDomainInfo does not carry it
     private String src;
     private String srcType;
     private String p;
@@ -70,6 +71,8 @@ public class EdgeRecord {
         return dataDomainInfo != null ? dataDomainInfo.tenantId() : null; 
     }
     
+    public String getOwnerId() { return ownerId; }
+    public void setOwnerId(String ownerId) { this.ownerId = ownerId; }
     public String getSrc() { return src; }
     public void setSrc(String src) { this.src = src; }
     public String getSrcType() { return srcType; }
@@ -51,7 +51,15 @@ public final class ForwardChainingReasoner implements Reasoner {
         //    Integrate transitive expansion for predicates marked transitive and make newly implied
         //    edges available to subsequent chain evaluations within this pass by updating adjacency.
         final int MAX_TRANSITIVE_STEP_VISITS = 10_000;
-        for (PropertyChainDef ch : reg.propertyChains()) {
+        // A chain can only fire when a snapshot predicate starts one; implied edges come from chains
+        boolean chainCanFire = false;
+        for (String p : outByP.keySet()) {
+            if (!reg.chainsStartingWith(p).isEmpty()) {
+                chainCanFire = true;
+                break;
+            }
+        }
+        for (PropertyChainDef ch : chainCanFire ? reg.propertyChains() : List.<PropertyChainDef>of()) {
             List<String> chain = ch.chain();
             if (chain == null || chain.size() < 2) continue;
             String implies = ch.implies();
@@ -175,16 +183,8 @@ public final class ForwardChainingReasoner implements Reasoner {
             String p = entry.getKey();
             Optional<PropertyDef> pDef = reg.propertyOf(p);
             if (pDef.isEmpty()) continue;
-            Optional<String> inv = pDef.get().inverseOf();
-            // If no direct inverse is declared on this property, search for a property that declares this as its inverse
-            if (inv.isEmpty()) {
-                for (PropertyDef q : reg.properties().values()) {
-                    if (q.inverseOf().isPresent() && q.inverseOf().get().equals(p)) {
-                        inv = Optional.of(q.name());
-                        break;
-                    }
-                }
-            }
+            // The declared inverse, or else the property declaring this one as its inverse
+            Optional<String> inv = reg.inverseOf(p);
             boolean symmetric = pDef.get().symmetric();
             for (Map.Entry<String, Set<String>> e1 : entry.getValue().entrySet()) {
                 String x = e1.getKey();
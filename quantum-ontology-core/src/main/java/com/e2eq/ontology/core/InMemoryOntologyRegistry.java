@@ -8,15 +8,23 @@ public final class InMemoryOntologyRegistry implements OntologyRegistry {
     private final Map<String, ClassDef> classes;
     private final Map<String, PropertyDef> properties;
     private final List<PropertyChainDef> chains;
+    private final OntologyClosureTables closures;
 
     public InMemoryOntologyRegistry(TBox tbox) {
         this.classes = tbox.classes();
         this.properties = tbox.properties();
         this.chains = tbox.propertyChains();
+        this.closures = new OntologyClosureTables(classes, properties, chains);
     }
     public Optional<ClassDef> classOf(String name){ return Optional.ofNullable(classes.get(name)); }
     public Optional<PropertyDef> propertyOf(String name){ return Optional.ofNullable(properties.get(name)); }
     public List<PropertyChainDef> propertyChains(){ return chains; }
     public Map<String, PropertyDef> properties(){ return properties; }
     public Map<String, ClassDef> classes(){ return classes; }
+    public Set<String> superPropertiesOf(String propertyName){ return closures.superPropertiesOf(propertyName); }
+    public Set<String> subPropertiesOf(String propertyName){ return closures.subPropertiesOf(propertyName); }
+    public Set<String> ancestorsOf(String className){ return closures.ancestorsOf(className); }
+    public Set<String> descendantsOf(String className){ return closures.descendantsOf(className); }
+    public Optional<String> inverseOf(String propertyName){ return closures.inverseOf(propertyName); }
+    public List<PropertyChainDef> chainsStartingWith(String propertyName){ return closures.chainsStartingWith(propertyName); }
 }
@@ -0,0 +1,128 @@
+package com.e2eq.ontology.core;
+
+import com.e2eq.ontology.core.OntologyRegistry.*;
+
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Immutable closure tables of a TBox, built once when a registry is created so the closure
+ * methods of {@link OntologyRegistry} are map lookups that allocate nothing.
+ *
+ * The tables hold the same results as {@link OntologyClosures} computed on demand. Equal sets
+ * are interned, so the many leaf properties and classes share one empty set.
+ */
+final class OntologyClosureTables {
+
+    private final Map<String, Set<String>> superProperties;
+    private final Map<String, Set<String>> subProperties;
+    private final Map<String, Set<String>> ancestors;
+    private final Map<String, Set<String>> descendants;
+    private final Map<String, Optional<String>> inverses;
+    private final Map<String, List<PropertyChainDef>> chainsByFirst;
+
+    OntologyClosureTables(Map<String, ClassDef> classes, Map<String, PropertyDef> properties, List<PropertyChainDef> chains) {
+        Map<String, ClassDef> cls = classes != null ? classes : Map.of();
+        Map<String, PropertyDef> props = properties != null ? properties : Map.of();
+        Map<Set<String>, Set<String>> interned = new HashMap<>();
+
+        Map<String, Set<String>> childProperties = new HashMap<>();
+        for (PropertyDef p : props.values()) {
+            for (String parent : parentsOf(p.subPropertyOf())) {
+                childProperties.computeIfAbsent(parent, k -> new LinkedHashSet<>()).add(p.name());
+            }
+        }
+        Map<String, Set<String>> childClasses = new HashMap<>();
+        for (ClassDef c : cls.values()) {
+            for (String parent : parentsOf(c.parents())) {
+                childClasses.computeIfAbsent(parent, k -> new LinkedHashSet<>()).add(c.name());
+            }
+        }
+
+        this.superProperties = closure(props.keySet(),
+                n -> Optional.ofNullable(props.get(n)).map(p -> parentsOf(p.subPropertyOf())).orElse(Set.of()), interned);
+        this.subProperties = closure(childProperties.keySet(),
+                n -> childProperties.getOrDefault(n, Set.of()), interned);
+        this.ancestors = closure(cls.keySet(),
+                n -> Optional.ofNullable(cls.get(n)).map(c -> parentsOf(c.parents())).orElse(Set.of()), interned);
+        this.descendants = closure(childClasses.keySet(),
+                n -> childClasses.getOrDefault(n, Set.of()), interned);
+
+        // A declared inverseOf wins; otherwise the first property declaring this one as its inverse
+        Map<String, String> declaredBy = new HashMap<>();
+        for (PropertyDef p : props.values()) {
+            p.inverseOf().ifPresent(inv -> declaredBy.putIfAbsent(inv, p.name()));
+        }
+        Map<String, Optional<String>> inv = new HashMap<>();
+        for (PropertyDef p : props.values()) {
+            inv.put(p.name(), p.inverseOf().isPresent() ? p.inverseOf() : Optional.ofNullable(declaredBy.get(p.name())));
+        }
+        this.inverses = Map.copyOf(inv);
+
+        Map<String, List<PropertyChainDef>> byFirst = new HashMap<>();
+        for (PropertyChainDef ch : chains != null ? chains : List.<PropertyChainDef>of()) {
+            if (ch.chain() != null && !ch.chain().isEmpty() && ch.chain().get(0) != null) {
+                byFirst.computeIfAbsent(ch.chain().get(0), k -> new ArrayList<>()).add(ch);
+            }
+        }
+        Map<String, List<PropertyChainDef>> frozen = new HashMap<>();
+        byFirst.forEach((p, list) -> frozen.put(p, List.copyOf(list)));
+        this.chainsByFirst = Map.copyOf(frozen);
+    }
+
+    Set<String> superPropertiesOf(String propertyName) {
+        return lookup(superProperties, propertyName);
+    }
+
+    Set<String> subPropertiesOf(String propertyName) {
+        return lookup(subProperties, propertyName);
+    }
+
+    Set<String> ancestorsOf(String className) {
+        return lookup(ancestors, className);
+    }
+
+    Set<String> descendantsOf(String className) {
+        return lookup(descendants, className);
+    }
+
+    Optional<String> inverseOf(String propertyName) {
+        return propertyName == null ? Optional.empty() : inverses.getOrDefault(propertyName, Optional.empty());
+    }
+
+    List<PropertyChainDef> chainsStartingWith(String propertyName) {
+        return propertyName == null ? List.of() : chainsByFirst.getOrDefault(propertyName, List.of());
+    }
+
+    private static Set<String> lookup(Map<String, Set<String>> table, String name) {
+        return name == null ? Set.of() : table.getOrDefault(name, Set.of());
+    }
+
+    private static Set<String> parentsOf(Set<String> parents) {
+        return parents != null ? parents : Set.of();
+    }
+
+    /**
+     * Breadth-first closure of {@code next} from each key, in the order OntologyClosures visits
+     * nodes; cycles are cut by the visited set.
+     */
+    private static Map<String, Set<String>> closure(Set<String> keys, Function<String, Set<String>> next,
+                                                    Map<Set<String>, Set<String>> interned) {
+        Map<String, Set<String>> table = new HashMap<>();
+        for (String key : keys) {
+            Set<String> result = new LinkedHashSet<>();
+            Deque<String> queue = new ArrayDeque<>();
+            queue.add(key);
+            while (!queue.isEmpty()) {
+                for (String n : next.apply(queue.poll())) {
+                    if (result.add(n)) {
+                        queue.add(n);
+                    }
+                }
+            }
+            Set<String> frozen = result.isEmpty() ? Set.of() : Collections.unmodifiableSet(result);
+            table.put(key, interned.computeIfAbsent(frozen, s -> s));
+        }
+        return Map.copyOf(table);
+    }
+}
@@ -18,7 +18,8 @@ public interface OntologyRegistry {
     default Flow.Publisher<Long> versionPublisher() { return subscriber -> subscriber.onComplete(); }
     default boolean needsReindex() { return false; }
     
-    // Closure methods for hierarchy navigation (precomputed for efficiency)
+    // Closure methods for hierarchy navigation; the built-in registries answer them from
+    // tables precomputed when the TBox is loaded (OntologyClosureTables)
     default Set<String> superPropertiesOf(String propertyName) {
         return OntologyClosures.computeSuperProperties(propertyName, this);
     }
@@ -34,6 +35,15 @@ public interface OntologyRegistry {
     default Optional<String> inverseOf(String propertyName) {
         return OntologyClosures.computeInverse(propertyName, this);
     }
+    default List<PropertyChainDef> chainsStartingWith(String propertyName) {
+        List<PropertyChainDef> result = new ArrayList<>();
+        for (PropertyChainDef ch : propertyChains()) {
+            if (ch.chain() != null && !ch.chain().isEmpty() && Objects.equals(ch.chain().get(0), propertyName)) {
+                result.add(ch);
+            }
+        }
+        return result;
+    }
 
     static OntologyRegistry inMemory(TBox tbox) { return new InMemoryOntologyRegistry(tbox); }
     // label/aliases/metadata carry pack presentation metadata (the unified ontology design
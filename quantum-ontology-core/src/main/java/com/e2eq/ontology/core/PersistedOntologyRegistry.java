@@ -19,6 +19,7 @@ public final class PersistedOntologyRegistry implements OntologyRegistry {
     private final Map<String, ClassDef> classes;
     private final Map<String, PropertyDef> properties;
     private final List<PropertyChainDef> chains;
+    private final OntologyClosureTables closures;
     private final String tboxHash;
     private final String yamlHash;
     private final boolean needsReindex;
@@ -31,6 +32,7 @@ public final class PersistedOntologyRegistry implements OntologyRegistry {
         this.classes = tbox.classes();
         this.properties = tbox.properties();
         this.chains = tbox.propertyChains();
+        this.closures = new OntologyClosureTables(classes, properties, chains);
         this.tboxHash = tboxHash;
         this.yamlHash = yamlHash;
         this.needsReindex = needsReindex;
@@ -63,6 +65,36 @@ public final class PersistedOntologyRegistry implements OntologyRegistry {
         return classes;
     }
 
+    @Override
+    public Set<String> superPropertiesOf(String propertyName) {
+        return closures.superPropertiesOf(propertyName);
+    }
+
+    @Override
+    public Set<String> subPropertiesOf(String propertyName) {
+        return closures.subPropertiesOf(propertyName);
+    }
+
+    @Override
+    public Set<String> ancestorsOf(String className) {
+        return closures.ancestorsOf(className);
+    }
+
+    @Override
+    public Set<String> descendantsOf(String className) {
+        return closures.descendantsOf(className);
+    }
+
+    @Override
+    public Optional<String> inverseOf(String propertyName) {
+        return closures.inverseOf(propertyName);
+    }
+
+    @Override
+    public List<PropertyChainDef> chainsStartingWith(String propertyName) {
+        return closures.chainsStartingWith(propertyName);
+    }
+
     @Override
     public TBox getCurrentTBox() {
         return new TBox(classes, properties, chains);
@@ -109,4 +109,61 @@ class OntologyClosuresTest {
         assertEquals(Optional.of("hasParent"), registry.inverseOf("hasChild"));
         assertEquals(Optional.of("hasChild"), registry.inverseOf("hasParent"));
     }
+
+    @Test
+    void testClosureTablesMatchOnDemandClosures() {
+        Map<String, PropertyDef> props = Map.of(
+            "relatedTo", new PropertyDef("relatedTo", Optional.empty(), Optional.empty(),
+                false, Optional.empty(), false, false, false, Set.of(), false),
+            "hasChild", new PropertyDef("hasChild", Optional.empty(), Optional.empty(),
+                false, Optional.of("hasParent"), false, false, false, Set.of("relatedTo"), false),
+            "hasParent", new PropertyDef("hasParent", Optional.empty(), Optional.empty(),
+                false, Optional.empty(), false, false, false, Set.of("relatedTo"), false)
+        );
+        Map<String, ClassDef> classes = Map.of(
+            "Agent", new ClassDef("Agent", Set.of(), Set.of(), Set.of()),
+            "Person", new ClassDef("Person", Set.of("Agent"), Set.of(), Set.of())
+        );
+        OntologyRegistry registry = OntologyRegistry.inMemory(new TBox(classes, props, List.of()));
+
+        for (String p : List.of("relatedTo", "hasChild", "hasParent", "unknown")) {
+            assertEquals(OntologyClosures.computeSuperProperties(p, registry), registry.superPropertiesOf(p));
+            assertEquals(OntologyClosures.computeSubProperties(p, registry), registry.subPropertiesOf(p));
+            assertEquals(OntologyClosures.computeInverse(p, registry), registry.inverseOf(p));
+        }
+        for (String c : List.of("Agent", "Person", "unknown")) {
+            assertEquals(OntologyClosures.computeAncestors(c, registry), registry.ancestorsOf(c));
+            assertEquals(OntologyClosures.computeDescendants(c, registry), registry.descendantsOf(c));
+        }
+        // tables are built once: repeated lookups return the same immutable set
+        assertSame(registry.subPropertiesOf("relatedTo"), registry.subPropertiesOf("relatedTo"));
+        assertThrows(UnsupportedOperationException.class, () -> registry.subPropertiesOf("relatedTo").add("x"));
+    }
+
+    @Test
+    void testCyclicHierarchyTerminates() {
+        Map<String, PropertyDef> props = Map.of(
+            "a", new PropertyDef("a", Optional.empty(), Optional.empty(),
+                false, Optional.empty(), false, false, false, Set.of("b"), false),
+            "b", new PropertyDef("b", Optional.empty(), Optional.empty(),
+                false, Optional.empty(), false, false, false, Set.of("a"), false)
+        );
+        OntologyRegistry registry = OntologyRegistry.inMemory(new TBox(Map.of(), props, List.of()));
+
+        assertEquals(Set.of("a", "b"), registry.superPropertiesOf("a"));
+        assertEquals(Set.of("a", "b"), registry.subPropertiesOf("a"));
+    }
+
+    @Test
+    void testChainsStartingWith() {
+        PropertyChainDef viaOrg = new PropertyChainDef(List.of("memberOf", "locatedIn"), "basedIn");
+        PropertyChainDef viaOrgParent = new PropertyChainDef(List.of("memberOf", "partOf"), "memberOf");
+        PropertyChainDef other = new PropertyChainDef(List.of("placedBy", "memberOf"), "orderOfOrg");
+        OntologyRegistry registry = OntologyRegistry.inMemory(
+            new TBox(Map.of(), Map.of(), List.of(viaOrg, viaOrgParent, other)));
+
+        assertEquals(List.of(viaOrg, viaOrgParent), registry.chainsStartingWith("memberOf"));
+        assertEquals(List.of(other), registry.chainsStartingWith("placedBy"));
+        assertTrue(registry.chainsStartingWith("locatedIn").isEmpty());
+    }
 }
@@ -87,6 +87,9 @@ public class OntologyDeleteHook implements PreDeleteHook, PostDeleteHook {
             // Execute cascade operations with full DataDomain scoping
             cascadeExecutor.onAfterDelete(dataDomain, entityType, idAsString);
             
+            // Drop the entity's support from edges it derived for other sources; derived edges left without support are deleted
+            edgeRepo.releaseSupport(realmId, dataDomain, idAsString);
+
             // Remove any edges that still have this node as src
             edgeRepo.deleteBySrc(dataDomain, idAsString, false);
         } catch (Throwable t) {
@@ -0,0 +1,28 @@
+package com.e2eq.ontology.mongo;
+
+import com.e2eq.framework.service.health.RuntimeCachesHealthCheck;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.health.HealthCheck;
+import org.eclipse.microprofile.health.HealthCheckResponse;
+import org.eclipse.microprofile.health.HealthCheckResponseBuilder;
+import org.eclipse.microprofile.health.Readiness;
+
+/**
+ * Publishes the write-time materialization metrics of {@link OntologyWriteHook} (e.g. saves skipped
+ * because no explicit edge changed) on the readiness endpoint. Informational; always up.
+ */
+@Readiness
+@ApplicationScoped
+public class OntologyMaterializationHealthCheck implements HealthCheck {
+
+    @Inject
+    OntologyWriteHook writeHook;
+
+    @Override
+    public HealthCheckResponse call() {
+        HealthCheckResponseBuilder builder = HealthCheckResponse.named("Ontology Materialization").up();
+        RuntimeCachesHealthCheck.withSummary(builder, "writeHook", writeHook.getSummary());
+        return builder.build();
+    }
+}
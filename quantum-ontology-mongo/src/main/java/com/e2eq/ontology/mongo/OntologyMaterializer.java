@@ -8,9 +8,11 @@ import com.e2eq.ontology.core.DataDomainInfo;
 import com.e2eq.ontology.core.EdgeRecord;
 import com.e2eq.ontology.model.OntologyEdge;
 import com.e2eq.ontology.repo.OntologyEdgeRepo;
+import io.quarkus.logging.Log;
 import jakarta.inject.Inject;
 import com.e2eq.ontology.core.*;
 import jakarta.enterprise.context.ApplicationScoped;
+import org.bson.types.ObjectId;
 
 /**
  * Materializes ontology edges for entities, including both explicit and inferred edges.
@@ -43,6 +45,23 @@ public class OntologyMaterializer {
     }
 
     public EdgeChanges apply(String realmId, DataDomain dataDomain, String entityId, String entityType, List<Reasoner.Edge> explicitEdges) {
+        return apply(realmId, dataDomain, entityId, entityType, explicitEdges, null);
+    }
+
+    /**
+     * Apply materialization for an entity whose explicit edges changed only in the given predicates.
+     *
+     * Only the rules reachable from a changed predicate are re-evaluated: neighbors are fetched only when
+     * such a rule is a property chain or a transitive property, and inferred edges of the entity whose
+     * predicate is not affected are left as they are. Inverse and symmetric edges the entity derives for
+     * other sources carry a support entry of the entity, so they are removed once their last supporter
+     * stops deriving them.
+     *
+     * @param changedPredicates predicates added to or removed from the entity's explicit edges;
+     *                          null re-evaluates every rule
+     */
+    public EdgeChanges apply(String realmId, DataDomain dataDomain, String entityId, String entityType,
+                             List<Reasoner.Edge> explicitEdges, Set<String> changedPredicates) {
         if (dataDomain == null) {
             throw new IllegalArgumentException("DataDomain must be provided for materialization");
         }
@@ -53,229 +72,254 @@ public class OntologyMaterializer {
         // Resolve registry for the given DataDomain
         OntologyRegistry registry = registryProvider.getRegistryForTenant(dataDomain);
 
-        // Build an extended snapshot that includes neighbor edges for chain inference.
-        // For each explicit edge A->B, fetch B's outgoing edges so chains like [refersToB, refersToC]
-        // can be evaluated to produce A->C inferred edges.
-        //
-        // CYCLE DETECTION: We track visited nodes to prevent infinite loops in cyclic graphs (A→B→C→A).
-        // We also limit the depth of neighbor expansion to prevent excessive traversal.
-        List<Reasoner.Edge> extendedEdges = new ArrayList<>(explicitEdges != null ? explicitEdges : List.of());
-        if (explicitEdges != null && !registry.propertyChains().isEmpty()) {
-            // Track visited nodes to detect cycles: start with the source entity
-            Set<String> visitedNodes = new HashSet<>();
-            visitedNodes.add(entityId); // Don't fetch edges back to the source entity
-
-            // Determine max chain length to limit neighbor expansion depth
-            int maxChainLength = registry.propertyChains().stream()
-                    .mapToInt(ch -> ch.chain() != null ? ch.chain().size() : 0)
-                    .max()
-                    .orElse(2);
-
-            // BFS-style expansion with depth limit to support multi-hop chains
-            // while preventing cycles
-            Set<String> currentFrontier = new HashSet<>();
-            for (var edge : explicitEdges) {
-                currentFrontier.add(edge.dstId());
-            }
-
-            for (int depth = 0; depth < maxChainLength - 1 && !currentFrontier.isEmpty(); depth++) {
-                Set<String> nextFrontier = new HashSet<>();
-
-                for (String neighborId : currentFrontier) {
-                    // Skip if already visited (cycle detection)
-                    if (!visitedNodes.add(neighborId)) {
-                        continue;
-                    }
+        Set<String> affected = changedPredicates == null ? null : affectedPredicates(changedPredicates, registry);
+        List<Reasoner.Edge> extendedEdges = affected == null || needsNeighbors(affected, registry)
+                ? expandNeighbors(realmId, dataDomain, entityId, explicitEdges, registry)
+                : new ArrayList<>(explicitEdges != null ? explicitEdges : List.of());
+        var snap = new Reasoner.EntitySnapshot(tenantId, entityId, entityType, extendedEdges);
+        var out = reasoner.infer(snap, registry);
 
-                    // Fetch neighbor's outgoing edges from the edge repo
-                    List<OntologyEdge> neighborEdges = edgeRepo.findBySrc(realmId, dataDomain, neighborId);
-                    for (OntologyEdge ne : neighborEdges) {
-                        // Convert OntologyEdge to Reasoner.Edge
-                        extendedEdges.add(new Reasoner.Edge(
-                                ne.getSrc(), ne.getSrcType(), ne.getP(),
-                                ne.getDst(), ne.getDstType(), ne.isInferred(),
-                                Optional.empty()
-                        ));
-
-                        // Add destination to next frontier for deeper expansion
-                        // (only if not already visited - cycle detection)
-                        if (!visitedNodes.contains(ne.getDst())) {
-                            nextFrontier.add(ne.getDst());
-                        }
-                    }
+        // Existing edges of every source written below, and the edges the entity supports, indexed by
+        // (src, p, dst), in one query
+        Set<String> srcs = new LinkedHashSet<>();
+        srcs.add(entityId);
+        if (explicitEdges != null) {
+            for (var e : explicitEdges) {
+                if (e.srcId() != null && !e.srcId().isBlank()) {
+                    srcs.add(e.srcId());
                 }
-
-                currentFrontier = nextFrontier;
             }
         }
+        Map<EdgeKey, OntologyEdge> existing = new HashMap<>();
+        Map<EdgeKey, Set<String>> dstsBySrcAndP = new HashMap<>();
+        for (OntologyEdge ex : edgeRepo.findBySrcInOrSupportedBy(realmId, dataDomain, srcs, entityId)) {
+            existing.put(new EdgeKey(ex.getSrc(), ex.getP(), ex.getDst()), ex);
+            dstsBySrcAndP.computeIfAbsent(new EdgeKey(ex.getSrc(), ex.getP(), null), k -> new HashSet<>()).add(ex.getDst());
+        }
 
-        var snap = new Reasoner.EntitySnapshot(tenantId, entityId, entityType, extendedEdges);
-        var out = reasoner.infer(snap, registry);
-
-        List<OntologyEdge> existingAll = edgeRepo.findBySrc(realmId, dataDomain, entityId);
+        // Desired state: the last record staged for an edge wins, as the last upsert did before
+        Map<EdgeKey, EdgeRecord> desired = new LinkedHashMap<>();
+        // (p, dst) pairs of the entity that stay; its other edges are pruned
+        Set<EdgeKey> keep = new HashSet<>();
+        DataDomainInfo dataDomainInfo = DataDomainConverter.toInfo(dataDomain);
+        Date now = new Date();
 
-        // 1) Upsert EXPLICIT edges as-is for traversal and cascade logic
-        // Separate computed edges (from ComputedEdgeProvider) from regular explicit edges
-        Map<String, Set<String>> explicitByP = new HashMap<>();
-        Map<String, Set<String>> computedByP = new HashMap<>();
+        // 1) EXPLICIT edges as-is for traversal and cascade logic; computed edges (from
+        // ComputedEdgeProvider) are stored as derived
         if (explicitEdges != null) {
             for (var e : explicitEdges) {
-                // Check if this is a computed edge (from ComputedEdgeProvider)
+                if (e.srcType() == null || e.srcType().isBlank()) {
+                    throw new IllegalArgumentException("srcType must be provided for edge " + e.srcId() + "-" + e.p() + "-" + e.dstId());
+                }
+                if (e.dstType() == null || e.dstType().isBlank()) {
+                    throw new IllegalArgumentException("dstType must be provided for edge " + e.srcId() + "-" + e.p() + "-" + e.dstId());
+                }
+                if (e.srcId() == null || e.srcId().isBlank()) {
+                    Log.warn("src id is null or blank can not create edge");
+                    continue;
+                }
+                if (e.dstId() == null || e.dstId().isBlank()) {
+                    Log.warn("dst id is null or blank can not create edge");
+                    continue;
+                }
                 boolean isComputed = e.prov().map(p -> "computed".equals(p.rule())).orElse(false);
-
                 Map<String, Object> prov = e.prov()
                         .map(p -> Map.<String, Object>of("rule", p.rule(), "inputs", p.inputs()))
                         .orElse(Map.of());
 
-                OntologyEdge existing = existingAll.stream()
-                        .filter(ex -> Objects.equals(ex.getP(), e.p()) && Objects.equals(ex.getDst(), e.dstId()))
-                        .findFirst().orElse(null);
-
-                if (isComputed) {
-                    // Computed edges are tracked separately and stored as derived
-                    computedByP.computeIfAbsent(e.p(), k -> new HashSet<>()).add(e.dstId());
-                    // Use upsertDerived for computed edges so they get derived=true flag
-                    edgeRepo.upsertDerived(realmId, dataDomain, e.srcType(), e.srcId(), e.p(), e.dstType(), e.dstId(), List.of(), prov);
+                // functional properties: checked against stored edges plus those staged so far
+                Set<String> dsts = dstsBySrcAndP.computeIfAbsent(new EdgeKey(e.srcId(), e.p(), null), k -> new HashSet<>());
+                edgeRepo.validateFunctionalConstraint(dataDomain, e.srcType(), e.srcId(), e.p(), e.dstId(), dsts);
+                dsts.add(e.dstId());
 
-                    OntologyEdge updated = findEdge(realmId, dataDomain, e.srcId(), e.p(), e.dstId());
-                    if (existing == null) {
-                        changes.added().add(toEdgeRecord(updated, dataDomain));
-                    } else if (isModified(existing, updated)) {
-                        changes.modified().add(toEdgeRecord(updated, dataDomain));
-                    }
-                } else {
-                    // Regular explicit edges
-                    explicitByP.computeIfAbsent(e.p(), k -> new HashSet<>()).add(e.dstId());
-                    edgeRepo.upsert(realmId, dataDomain, e.srcType(), e.srcId(), e.p(), e.dstType(), e.dstId(), false, prov);
-
-                    OntologyEdge updated = findEdge(realmId, dataDomain, e.srcId(), e.p(), e.dstId());
-                    if (existing == null) {
-                        changes.added().add(toEdgeRecord(updated, dataDomain));
-                    } else if (isModified(existing, updated)) {
-                        changes.modified().add(toEdgeRecord(updated, dataDomain));
-                    }
-                }
+                EdgeRecord rec = new EdgeRecord(dataDomainInfo, e.srcType(), e.srcId(), e.p(), e.dstType(), e.dstId(), false, prov, now);
+                rec.setOwnerId(dataDomain.getOwnerId());
+                rec.setDerived(isComputed);
+                desired.put(new EdgeKey(e.srcId(), e.p(), e.dstId()), rec);
+                keep.add(new EdgeKey(entityId, e.p(), e.dstId()));
             }
         }
 
-        // 2) Collect new INFERRED edges by predicate
-        Map<String, Set<String>> newByP = new HashMap<>();
-        List<EdgeRecord> upserts = new ArrayList<>();
-        DataDomainInfo dataDomainInfo = DataDomainConverter.toInfo(dataDomain);
+        // 2) INFERRED edges
         for (var e : out.addEdges()) {
-            newByP.computeIfAbsent(e.p(), k -> new HashSet<>()).add(e.dstId());
             Map<String,Object> prov = e.prov().map(p -> Map.<String,Object>of(
                     "rule", p.rule(),
                     "inputs", p.inputs()
             )).orElse(Map.of());
-
-            EdgeRecord rec = new EdgeRecord(dataDomainInfo, e.srcType(), e.srcId(), e.p(), e.dstType(), e.dstId(), true, prov, new Date());
-            upserts.add(rec);
-
-            // Check if inferred edge is already present for change tracking
-            OntologyEdge existing = existingAll.stream()
-                    .filter(ex -> Objects.equals(ex.getP(), e.p()) && Objects.equals(ex.getDst(), e.dstId()))
-                    .findFirst().orElse(null);
-
-            if (existing == null) {
-                changes.added().add(rec);
-            } else if (isModifiedRecord(existing, rec)) {
-                changes.modified().add(rec);
+            EdgeKey key = new EdgeKey(e.srcId(), e.p(), e.dstId());
+            EdgeRecord rec = new EdgeRecord(dataDomainInfo, e.srcType(), e.srcId(), e.p(), e.dstType(), e.dstId(), true, prov, now);
+            rec.setOwnerId(dataDomain.getOwnerId());
+            if (!entityId.equals(e.srcId())) {
+                OntologyEdge current = existing.get(key);
+                if (current != null && !current.isInferred()) {
+                    continue; // stated explicitly by its own source; nothing to derive
+                }
+                if (entityId.equals(e.dstId())) {
+                    // inverse/symmetric edge of one of the entity's edges: counted as supported by the entity
+                    rec.setSupport(List.of(new EdgeRecord.Support(e.prov().map(Reasoner.Provenance::rule).orElse("inferred"),
+                            List.of(entityId))));
+                }
             }
-        }
-        if (!upserts.isEmpty()) {
-            edgeRepo.bulkUpsertEdgeRecords(realmId, upserts);
+            desired.put(key, rec);
+            keep.add(new EdgeKey(entityId, e.p(), e.dstId()));
         }
 
-        // 3) Prune inferred edges no longer justified
-        List<OntologyEdge> existingAfterUpsert = edgeRepo.findBySrc(realmId, dataDomain, entityId);
-        Map<String, Set<String>> existingInfByP = new HashMap<>();
-        for (OntologyEdge e : existingAfterUpsert) {
-            if (!e.isInferred()) continue;
-            existingInfByP.computeIfAbsent(e.getP(), k -> new HashSet<>()).add(e.getDst());
-        }
-        for (Map.Entry<String, Set<String>> en : existingInfByP.entrySet()) {
-            String p = en.getKey();
-            Set<String> keep = newByP.getOrDefault(p, Set.of());
-
-            for (String dst : en.getValue()) {
-                if (!keep.contains(dst)) {
-                    existingAfterUpsert.stream()
-                            .filter(ex -> Objects.equals(ex.getP(), p) && Objects.equals(ex.getDst(), dst) && ex.isInferred())
-                            .findFirst().ifPresent(ex -> changes.removed().add(toEdgeRecord(ex, dataDomain)));
-                }
+        // 3) Diff: write only new or changed edges
+        List<EdgeRecord> upserts = new ArrayList<>();
+        for (Map.Entry<EdgeKey, EdgeRecord> en : desired.entrySet()) {
+            OntologyEdge current = existing.get(en.getKey());
+            if (current == null) {
+                changes.added().add(en.getValue());
+            } else if (isModifiedRecord(current, en.getValue())
+                    || (en.getValue().getSupport() != null && !isSupportedBy(current, entityId))) {
+                changes.modified().add(en.getValue());
+            } else {
+                continue;
             }
-
-            // delete inferred edges not in keep for predicate p
-            edgeRepo.deleteInferredBySrcNotIn(realmId, dataDomain, entityId, p, keep);
+            upserts.add(en.getValue());
         }
 
-        // 4) Prune explicit edges that are no longer present in the entity snapshot
-        // Determine all predicates that currently exist for this source
-        Set<String> existingExplicitPreds = new HashSet<>();
-        for (OntologyEdge e : existingAfterUpsert) {
-            if (!e.isInferred() && !Boolean.TRUE.equals(e.isDerived())) existingExplicitPreds.add(e.getP());
+        // 4) Prune the entity's explicit, inferred and computed edges that are no longer produced; inferred
+        // edges of unaffected predicates were not re-derived, and edges other entities support stay
+        List<ObjectId> deletes = new ArrayList<>();
+        List<ObjectId> released = new ArrayList<>();
+        for (OntologyEdge ex : existing.values()) {
+            if (Objects.equals(ex.getSrc(), entityId)) {
+                if (keep.contains(new EdgeKey(entityId, ex.getP(), ex.getDst()))
+                        || (ex.isInferred() && affected != null && !affected.contains(ex.getP()))
+                        || (ex.isInferred() && hasOtherSupport(ex, entityId))) {
+                    continue;
+                }
+                deletes.add(ex.getId());
+                changes.removed().add(toEdgeRecord(ex, dataDomain));
+            } else if (isSupportedBy(ex, entityId) && !desired.containsKey(new EdgeKey(ex.getSrc(), ex.getP(), ex.getDst()))) {
+                // 5) The entity no longer derives an edge it supported: drop its support entry
+                released.add(ex.getId());
+                if (Boolean.TRUE.equals(ex.isDerived()) && !hasOtherSupport(ex, entityId)) {
+                    changes.removed().add(toEdgeRecord(ex, dataDomain));
+                }
+            }
         }
-        // For predicates present in snapshot: keep only dsts that remain
-        for (Map.Entry<String, Set<String>> en : explicitByP.entrySet()) {
-            String p = en.getKey();
-            Set<String> keep = en.getValue();
 
-            existingAfterUpsert.stream()
-                    .filter(ex -> Objects.equals(ex.getP(), p) && !ex.isInferred() && !Boolean.TRUE.equals(ex.isDerived()) && !keep.contains(ex.getDst()))
-                    .forEach(ex -> changes.removed().add(toEdgeRecord(ex, dataDomain)));
+        edgeRepo.bulkWriteEdges(realmId, upserts, deletes);
+        edgeRepo.releaseSupport(realmId, dataDomain, entityId, released);
+        return changes;
+    }
 
-            edgeRepo.deleteExplicitBySrcNotIn(realmId, dataDomain, entityId, p, keep);
-            existingExplicitPreds.remove(p);
-        }
-        // For predicates absent now: remove all explicit edges for those predicates
-        for (String pAbsent : existingExplicitPreds) {
-            existingAfterUpsert.stream()
-                    .filter(ex -> Objects.equals(ex.getP(), pAbsent) && !ex.isInferred() && !Boolean.TRUE.equals(ex.isDerived()))
-                    .forEach(ex -> changes.removed().add(toEdgeRecord(ex, dataDomain)));
-            edgeRepo.deleteExplicitBySrcNotIn(realmId, dataDomain, entityId, pAbsent, Set.of());
+    /**
+     * Predicates whose inferred edges can change when the given predicates change: their super
+     * properties and inverses, and the implied predicate of every chain using them, transitively.
+     */
+    static Set<String> affectedPredicates(Set<String> changed, OntologyRegistry registry) {
+        Set<String> affected = new HashSet<>();
+        Deque<String> work = new ArrayDeque<>(changed);
+        while (!work.isEmpty()) {
+            String p = work.removeFirst();
+            if (p == null || !affected.add(p)) continue;
+            work.addAll(registry.superPropertiesOf(p));
+            registry.inverseOf(p).ifPresent(work::add);
+            for (OntologyRegistry.PropertyChainDef ch : registry.propertyChains()) {
+                if (ch.chain() != null && ch.chain().contains(p)) {
+                    work.add(ch.implies());
+                }
+            }
         }
+        return affected;
+    }
 
-        // 5) Prune derived/computed edges that are no longer present in the provider output
-        // Determine existing derived predicates
-        Map<String, Set<String>> existingDerivedByP = new HashMap<>();
-        for (OntologyEdge e : existingAfterUpsert) {
-            if (Boolean.TRUE.equals(e.isDerived()) && !e.isInferred()) { // derived but not inferred = computed edges
-                existingDerivedByP.computeIfAbsent(e.getP(), k -> new HashSet<>()).add(e.getDst());
+    /**
+     * Neighbor edges only feed property chains and transitive closures; other rules work on the
+     * entity's own edges.
+     */
+    private static boolean needsNeighbors(Set<String> affected, OntologyRegistry registry) {
+        for (OntologyRegistry.PropertyChainDef ch : registry.propertyChains()) {
+            if (affected.contains(ch.implies()) || (ch.chain() != null && !Collections.disjoint(ch.chain(), affected))) {
+                return true;
             }
         }
-        // For predicates present in computed snapshot: keep only dsts that remain
-        for (Map.Entry<String, Set<String>> en : computedByP.entrySet()) {
-            String p = en.getKey();
-            Set<String> keep = en.getValue();
-
-            existingAfterUpsert.stream()
-                    .filter(ex -> Objects.equals(ex.getP(), p) && Boolean.TRUE.equals(ex.isDerived()) && !ex.isInferred() && !keep.contains(ex.getDst()))
-                    .forEach(ex -> changes.removed().add(toEdgeRecord(ex, dataDomain)));
+        for (String p : affected) {
+            if (registry.propertyOf(p).map(OntologyRegistry.PropertyDef::transitive).orElse(false)) {
+                return true;
+            }
+        }
+        return false;
+    }
 
-            edgeRepo.deleteDerivedBySrcNotIn(realmId, dataDomain, entityId, p, keep);
-            existingDerivedByP.remove(p);
+    private static boolean isSupportedBy(OntologyEdge edge, String supporterId) {
+        if (edge.getSupport() == null) return false;
+        for (OntologyEdge.Support s : edge.getSupport()) {
+            if (s.getPathEdgeIds() != null && s.getPathEdgeIds().contains(supporterId)) return true;
         }
-        // For predicates with no computed edges now: remove all derived edges for those predicates
-        for (String pAbsent : existingDerivedByP.keySet()) {
-            existingAfterUpsert.stream()
-                    .filter(ex -> Objects.equals(ex.getP(), pAbsent) && Boolean.TRUE.equals(ex.isDerived()) && !ex.isInferred())
-                    .forEach(ex -> changes.removed().add(toEdgeRecord(ex, dataDomain)));
-            edgeRepo.deleteDerivedBySrcNotIn(realmId, dataDomain, entityId, pAbsent, Set.of());
+        return false;
+    }
+
+    private static boolean hasOtherSupport(OntologyEdge edge, String supporterId) {
+        if (edge.getSupport() == null) return false;
+        for (OntologyEdge.Support s : edge.getSupport()) {
+            if (s.getPathEdgeIds() != null && !s.getPathEdgeIds().contains(supporterId)) return true;
         }
+        return false;
+    }
 
-        return changes;
+    /** Identity of an edge within a DataDomain; dst is null when keying by (src, p) only. */
+    private record EdgeKey(String src, String p, String dst) {
     }
 
     /**
-     * Find a specific edge by its key (src, p, dst) within the DataDomain.
+     * Builds the snapshot edges used for chain inference: the explicit edges plus, for each explicit
+     * edge A->B, B's outgoing edges (and theirs, up to the longest chain) so chains like
+     * [refersToB, refersToC] can be evaluated to produce A->C inferred edges. Each level of the
+     * expansion is fetched with a single {@code $in} query.
+     *
+     * CYCLE DETECTION: visited nodes are tracked to prevent infinite loops in cyclic graphs (A→B→C→A),
+     * and the depth is limited by the longest property chain.
      */
-    private OntologyEdge findEdge(String realmId, DataDomain dataDomain, String src, String p, String dst) {
-        List<OntologyEdge> edges = edgeRepo.findBySrcAndP(realmId, dataDomain, src, p);
-        return edges.stream()
-                .filter(e -> Objects.equals(e.getDst(), dst))
-                .findFirst()
-                .orElse(null);
+    private List<Reasoner.Edge> expandNeighbors(String realmId,
+                                                DataDomain dataDomain,
+                                                String entityId,
+                                                List<Reasoner.Edge> explicitEdges,
+                                                OntologyRegistry registry) {
+        List<Reasoner.Edge> extendedEdges = new ArrayList<>(explicitEdges != null ? explicitEdges : List.of());
+        if (explicitEdges == null || registry.propertyChains().isEmpty()) {
+            return extendedEdges;
+        }
+        // Track visited nodes to detect cycles: start with the source entity
+        Set<String> visitedNodes = new HashSet<>();
+        visitedNodes.add(entityId); // Don't fetch edges back to the source entity
+
+        // Determine max chain length to limit neighbor expansion depth
+        int maxChainLength = registry.propertyChains().stream()
+                .mapToInt(ch -> ch.chain() != null ? ch.chain().size() : 0)
+                .max()
+                .orElse(2);
+
+        Set<String> currentFrontier = new HashSet<>();
+        for (var edge : explicitEdges) {
+            currentFrontier.add(edge.dstId());
+        }
+        for (int depth = 0; depth < maxChainLength - 1 && !currentFrontier.isEmpty(); depth++) {
+            List<String> level = new ArrayList<>();
+            for (String neighborId : currentFrontier) {
+                // Skip if already visited (cycle detection)
+                if (neighborId != null && visitedNodes.add(neighborId)) {
+                    level.add(neighborId);
+                }
+            }
+            Set<String> nextFrontier = new HashSet<>();
+            for (OntologyEdge ne : edgeRepo.findBySrcIn(realmId, dataDomain, level)) {
+                extendedEdges.add(new Reasoner.Edge(
+                        ne.getSrc(), ne.getSrcType(), ne.getP(),
+                        ne.getDst(), ne.getDstType(), ne.isInferred(),
+                        Optional.empty()
+                ));
+                // Add destination to next frontier for deeper expansion (cycle detection)
+                if (!visitedNodes.contains(ne.getDst())) {
+                    nextFrontier.add(ne.getDst());
+                }
+            }
+            currentFrontier = nextFrontier;
+        }
+        return extendedEdges;
     }
 
     /**
@@ -286,6 +330,7 @@ public class OntologyMaterializer {
         DataDomainInfo ddi = DataDomainConverter.toInfo(dataDomain);
         EdgeRecord rec = new EdgeRecord();
         rec.setDataDomainInfo(ddi);
+        rec.setOwnerId(e.getDataDomain() != null ? e.getDataDomain().getOwnerId() : dataDomain.getOwnerId());
         rec.setSrc(e.getSrc());
         rec.setSrcType(e.getSrcType());
         rec.setP(e.getP());
@@ -305,20 +350,13 @@ public class OntologyMaterializer {
         return rec;
     }
 
-    private boolean isModified(OntologyEdge existing, OntologyEdge updated) {
-        if (existing == null || updated == null) return existing != updated;
-        if (existing.isInferred() != updated.isInferred()) return true;
-        if (!Objects.equals(existing.isDerived(), updated.isDerived())) return true;
-        if (!Objects.equals(existing.getProv(), updated.getProv())) return true;
-        if (!Objects.equals(existing.getSupport(), updated.getSupport())) return true;
-        return false;
-    }
-
     private boolean isModifiedRecord(OntologyEdge existing, EdgeRecord updated) {
         if (existing == null || updated == null) return existing != null || updated != null;
         if (existing.isInferred() != updated.isInferred()) return true;
-        if (!Objects.equals(existing.isDerived(), updated.isDerived())) return true;
+        if (Boolean.TRUE.equals(existing.isDerived()) != updated.isDerived()) return true;
         if (!Objects.equals(existing.getProv(), updated.getProv())) return true;
+        if (!Objects.equals(existing.getSrcType(), updated.getSrcType())) return true;
+        if (!Objects.equals(existing.getDstType(), updated.getDstType())) return true;
         return false;
     }
 
@@ -393,36 +431,7 @@ public class OntologyMaterializer {
             Map<String, OntologyEdge> existingForEntity = existingEdgesByEntity.getOrDefault(entityId, Map.of());
 
             // Build extended edges for chain inference (same logic as single apply)
-            List<Reasoner.Edge> extendedEdges = new ArrayList<>(explicitEdges != null ? explicitEdges : List.of());
-            if (explicitEdges != null && !registry.propertyChains().isEmpty()) {
-                Set<String> visitedNodes = new HashSet<>();
-                visitedNodes.add(entityId);
-                int maxChainLength = registry.propertyChains().stream()
-                        .mapToInt(ch -> ch.chain() != null ? ch.chain().size() : 0)
-                        .max().orElse(2);
-                Set<String> currentFrontier = new HashSet<>();
-                for (var edge : explicitEdges) {
-                    currentFrontier.add(edge.dstId());
-                }
-                for (int depth = 0; depth < maxChainLength - 1 && !currentFrontier.isEmpty(); depth++) {
-                    Set<String> nextFrontier = new HashSet<>();
-                    for (String neighborId : currentFrontier) {
-                        if (!visitedNodes.add(neighborId)) continue;
-                        List<OntologyEdge> neighborEdges = edgeRepo.findBySrc(realmId, dataDomain, neighborId);
-                        for (OntologyEdge ne : neighborEdges) {
-                            extendedEdges.add(new Reasoner.Edge(
-                                    ne.getSrc(), ne.getSrcType(), ne.getP(),
-                                    ne.getDst(), ne.getDstType(), ne.isInferred(),
-                                    Optional.empty()
-                            ));
-                            if (!visitedNodes.contains(ne.getDst())) {
-                                nextFrontier.add(ne.getDst());
-                            }
-                        }
-                    }
-                    currentFrontier = nextFrontier;
-                }
-            }
+            List<Reasoner.Edge> extendedEdges = expandNeighbors(realmId, dataDomain, entityId, explicitEdges, registry);
 
             // Run reasoner to get inferred edges
             var snap = new Reasoner.EntitySnapshot(dataDomain.getTenantId(), entityId, entityType, extendedEdges);
@@ -462,6 +471,7 @@ public class OntologyMaterializer {
                     // Edge is new or changed - add to upsert list
                     EdgeRecord rec = new EdgeRecord();
                     rec.setDataDomainInfo(dataDomainInfo);
+                    rec.setOwnerId(dataDomain.getOwnerId());
                     rec.setSrc(e.srcId());
                     rec.setSrcType(e.srcType());
                     rec.setP(e.p());
@@ -505,6 +515,7 @@ public class OntologyMaterializer {
                 }
 
                 EdgeRecord rec = new EdgeRecord(dataDomainInfo, e.srcType(), e.srcId(), e.p(), e.dstType(), e.dstId(), true, prov, new Date());
+                rec.setOwnerId(dataDomain.getOwnerId());
                 edgesToUpsert.add(rec);
 
                 if (existing == null) {
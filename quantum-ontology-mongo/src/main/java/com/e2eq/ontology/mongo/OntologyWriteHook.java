@@ -13,9 +13,16 @@ import com.e2eq.ontology.spi.OntologyEdgeProvider;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.enterprise.inject.Instance;
 import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Post-persist hook that auto-materializes ontology edges for annotated entities.
@@ -30,6 +37,12 @@ public class OntologyWriteHook implements PostPersistHook {
     @Inject OntologyEdgeRepo edgeRepo;
     @Inject Instance<OntologyEdgeProvider> providers;
 
+    // When false every save re-derives all of the entity's edges
+    @ConfigProperty(name = "ontology.incremental-materialize", defaultValue = "true")
+    boolean incrementalMaterialize = true;
+
+    private final AtomicLong skippedUnchanged = new AtomicLong();
+
     @Override
     public void afterPersist(String realmId, Object entity) {
         Class<?> entityClass = entity.getClass();
@@ -71,12 +84,81 @@ public class OntologyWriteHook implements PostPersistHook {
         java.util.List<OntologyEdge> priorAll = edgeRepo.findBySrc(dataDomain, srcId);
         java.util.List<OntologyEdge> priorExplicit = new java.util.ArrayList<>();
         for (OntologyEdge e : priorAll) if (!e.isInferred()) priorExplicit.add(e);
+
+        Set<String> changedPredicates = null;
+        if (incrementalMaterialize) {
+            changedPredicates = changedPredicates(srcId, priorExplicit, explicit);
+            if (changedPredicates.isEmpty()) {
+                skippedUnchanged.incrementAndGet();
+                return; // no explicit edge changed: derived edges are still current
+            }
+        }
         // First, apply materialization so explicit edges are upserted and stale ones pruned
-        materializer.apply(realmId, dataDomain, srcId, entityType, explicit);
+        materializer.apply(realmId, dataDomain, srcId, entityType, explicit, changedPredicates);
         // Then handle ORPHAN_REMOVE cascade based on prior vs new state and repo contents
         try { cascadeExecutor.onAfterPersist(realmId, dataDomain, srcId, entity, priorExplicit, explicit); } catch (Throwable ignored) {}
     }
 
+    /**
+     * Gets write hook metrics as a map.
+     *
+     * @return map of metric names to values
+     */
+    public Map<String, Object> getSummary() {
+        Map<String, Object> summary = new HashMap<>();
+        summary.put("skippedUnchanged", skippedUnchanged.get());
+        return summary;
+    }
+
+    /**
+     * The explicit edge delta of a save: predicates of edges that were added, removed or changed
+     * between explicit and computed. A computed edge also changes with its provenance, since its
+     * inputs can change while its (p, dst) stays the same. Edges of other sources cannot be compared
+     * with the prior snapshot, so their predicates always count as changed.
+     */
+    static Set<String> changedPredicates(String srcId, List<OntologyEdge> priorExplicit, List<Reasoner.Edge> explicit) {
+        Map<String, OntologyEdge> prior = new HashMap<>();
+        for (OntologyEdge e : priorExplicit) {
+            prior.put(deltaKey(e.getP(), e.getDst(), e.isDerived()), e);
+        }
+        Set<String> changed = new HashSet<>();
+        Set<String> current = new HashSet<>();
+        for (Reasoner.Edge e : explicit) {
+            if (e.dstId() == null || e.dstId().isBlank()) {
+                continue; // never stored by the materializer
+            }
+            if (!srcId.equals(e.srcId())) {
+                changed.add(e.p());
+                continue;
+            }
+            boolean computed = e.prov().map(p -> "computed".equals(p.rule())).orElse(false);
+            String key = deltaKey(e.p(), e.dstId(), computed);
+            current.add(key);
+            OntologyEdge stored = prior.get(key);
+            // compared the way the materializer compares the stored prov
+            if (stored == null || (computed && !Objects.equals(stored.getProv(), provOf(e)))) {
+                changed.add(e.p());
+            }
+        }
+        for (OntologyEdge e : priorExplicit) {
+            if (!current.contains(deltaKey(e.getP(), e.getDst(), e.isDerived()))) {
+                changed.add(e.getP());
+            }
+        }
+        return changed;
+    }
+
+    private static String deltaKey(String p, String dst, boolean computed) {
+        return p + "|" + dst + "|" + computed;
+    }
+
+    // the prov the materializer stores for an explicit edge
+    private static Map<String, Object> provOf(Reasoner.Edge e) {
+        return e.prov()
+                .map(p -> Map.<String, Object>of("rule", p.rule(), "inputs", p.inputs()))
+                .orElse(Map.of());
+    }
+
     /**
      * Extracts DataDomain from an entity. If the entity doesn't have a DataDomain,
      * creates a fallback one using the realmId as tenantId with default values.
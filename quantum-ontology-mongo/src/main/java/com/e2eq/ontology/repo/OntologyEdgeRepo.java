@@ -17,10 +17,16 @@ import jakarta.enterprise.inject.Instance;
 import jakarta.inject.Inject;
 
 import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.CountOptions;
+import com.mongodb.client.model.DeleteManyModel;
+import com.mongodb.client.model.DeleteOneModel;
+import com.mongodb.client.model.UpdateManyModel;
 import com.mongodb.client.model.UpdateOneModel;
 import com.mongodb.client.model.UpdateOptions;
 import com.mongodb.client.model.WriteModel;
 import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.bson.types.ObjectId;
 
 import java.util.*;
 import java.util.Optional;
@@ -33,6 +39,12 @@ import java.util.Optional;
 @ApplicationScoped
 public class OntologyEdgeRepo extends MorphiaRepo<OntologyEdge> {
 
+    // Temporary fields added by semiJoinStages(..) and removed again before its last stage
+    private static final String SEMI_JOIN_KEYS = "__edgeKeys";
+    private static final String SEMI_JOIN_MATCHES = "__edgeMatches";
+    // Ids of the entities supporting a derived edge
+    private static final String SUPPORTERS = "support.pathEdgeIds";
+
    // Optional injection to avoid circular dependency issues during startup
    // Uses Instance<> for lazy resolution
    @Inject
@@ -195,18 +207,28 @@ public class OntologyEdgeRepo extends MorphiaRepo<OntologyEdge> {
         if (!isFunctionalProperty(dataDomain, p)) {
             return; // Not a functional property, no constraint to check
         }
+        validateFunctionalConstraint(dataDomain, srcType, src, p, dst, dstIdsBySrc(dataDomain, p, src));
+    }
 
-        // Check if an existing edge already points to a DIFFERENT destination
-        Set<String> existingDsts = dstIdsBySrc(dataDomain, p, src);
-        if (!existingDsts.isEmpty()) {
-            // If the only existing destination is the same as what we're trying to add, that's fine (idempotent upsert)
-            if (existingDsts.size() == 1 && existingDsts.contains(dst)) {
-                return;
-            }
-            // Violation: trying to add edge to different destination
-            String existingDst = existingDsts.iterator().next();
-            throw new CardinalityViolationException(p, src, srcType, existingDst, dst);
+    /**
+     * Same check as {@link #validateFunctionalConstraint(String, DataDomain, String, String, String, String)}
+     * against destinations the caller already knows, for callers that have loaded the source's edges.
+     *
+     * @param existingDsts destinations the source currently has for the predicate
+     * @throws CardinalityViolationException if the edge would violate a functional constraint
+     */
+    public void validateFunctionalConstraint(DataDomain dataDomain, String srcType, String src, String p, String dst,
+                                             Collection<String> existingDsts) {
+        if (existingDsts == null || existingDsts.isEmpty() || !isFunctionalProperty(dataDomain, p)) {
+            return;
+        }
+        // If the only existing destination is the same as what we're trying to add, that's fine (idempotent upsert)
+        if (existingDsts.size() == 1 && existingDsts.contains(dst)) {
+            return;
         }
+        // Violation: trying to add edge to different destination
+        String existingDst = existingDsts.stream().filter(d -> !Objects.equals(d, dst)).findFirst().orElse(dst);
+        throw new CardinalityViolationException(p, src, srcType, existingDst, dst);
     }
 
     /**
@@ -385,7 +407,8 @@ public class OntologyEdgeRepo extends MorphiaRepo<OntologyEdge> {
 
     /**
      * Bulk upsert edge records. Each EdgeRecord must have its DataDomainInfo set.
-     * This method converts DataDomainInfo to DataDomain internally.
+     * This method converts DataDomainInfo to DataDomain internally; a new edge is owned by the
+     * record's ownerId, or "system" when it has none.
      */
     public void bulkUpsertEdgeRecords(Collection<EdgeRecord> edges) {
         if (edges == null || edges.isEmpty()) return;
@@ -398,58 +421,95 @@ public class OntologyEdgeRepo extends MorphiaRepo<OntologyEdge> {
 
     public void bulkUpsertEdgeRecords(String realmId, Collection<EdgeRecord> edges) {
         if (edges == null || edges.isEmpty()) return;
-        List<WriteModel<OntologyEdge>> ops = new ArrayList<>(edges.size());
+        bulkWriteEdges(realmId, edges, List.of());
+    }
+
+    /**
+     * Upserts edge records and deletes edges by id in one unordered bulkWrite. The upserts and deletes
+     * must not target the same edge, since an unordered write does not order them.
+     *
+     * @param upserts edge records to insert or update, each with its DataDomainInfo set
+     * @param deleteIds ids of edges to delete
+     */
+    public void bulkWriteEdges(String realmId, Collection<EdgeRecord> upserts, Collection<ObjectId> deleteIds) {
+        List<WriteModel<OntologyEdge>> ops = new ArrayList<>(
+                (upserts == null ? 0 : upserts.size()) + (deleteIds == null ? 0 : deleteIds.size()));
         Date now = new Date();
-        for (EdgeRecord e : edges) {
-            com.e2eq.ontology.core.DataDomainInfo ddi = e.getDataDomainInfo();
-            if (ddi == null) {
-                Log.warnf("Skipping edge with null DataDomainInfo: %s", e);
-                continue;
-            }
-            DataDomain dd = new DataDomain();
-            dd.setOrgRefName(ddi.orgRefName());
-            dd.setAccountNum(ddi.accountNum());
-            dd.setTenantId(ddi.tenantId());
-            dd.setDataSegment(ddi.dataSegment());
-            dd.setOwnerId("system"); // default ownerId for edges
-            if (dd.getOrgRefName() == null || dd.getAccountNum() == null ||
-                dd.getTenantId() == null || e.getSrc() == null || e.getP() == null || e.getDst() == null) {
-                Log.warnf("Skipping edge with incomplete DataDomain or missing src/p/dst: %s", e);
-                continue;
+        // new edges carry the audit info save() would give them
+        Document auditInfo = new Document("creationTs", now)
+                .append("creationIdentity", SecurityContext.getPrincipalContext().isPresent()
+                        ? SecurityContext.getPrincipalContext().get().getUserId() : "ANONYMOUS");
+        if (upserts != null) {
+            for (EdgeRecord e : upserts) {
+                WriteModel<OntologyEdge> op = upsertModel(e, now, auditInfo);
+                if (op != null) {
+                    ops.add(op);
+                }
             }
-            // Full DataDomain-scoped filter for uniqueness
-            Document filter = dataDomainDocFilter(dd)
-                    .append("src", e.getSrc())
-                    .append("p", e.getP())
-                    .append("dst", e.getDst());
-            Document setOnInsert = new Document("refName", e.getSrc() + "|" + e.getP() + "|" + e.getDst())
-                    .append("dataDomain", dataDomainDoc(dd))
-                    .append("src", e.getSrc())
-                    .append("srcType", e.getSrcType())
-                    .append("p", e.getP())
-                    .append("dst", e.getDst())
-                    .append("dstType", e.getDstType());
-            Document update = new Document("$setOnInsert", setOnInsert)
-                    .append("$set", new Document("inferred", e.isInferred())
-                            .append("derived", e.isDerived())
-                            .append("prov", e.getProv() == null ? new Document() : new Document(e.getProv()))
-                            .append("ts", e.getTs() == null ? now : e.getTs()));
-            if (e.getSupport() != null) {
-                List<Document> sup = new ArrayList<>();
-                for (EdgeRecord.Support s : e.getSupport()) {
-                    sup.add(new Document("ruleId", s.getRuleId()).append("pathEdgeIds", s.getPathEdgeIds()));
+        }
+        if (deleteIds != null) {
+            for (ObjectId id : deleteIds) {
+                if (id != null) {
+                    ops.add(new DeleteOneModel<>(new Document("_id", id)));
                 }
-                ((Document)update.get("$set")).append("support", sup);
-                ((Document)update.get("$set")).append("derived", true);
-                ((Document)update.get("$set")).append("inferred", true);
             }
-            ops.add(new UpdateOneModel<>(filter, update, new UpdateOptions().upsert(true)));
         }
         if (!ops.isEmpty()) {
             ds(realmId).getCollection(OntologyEdge.class).bulkWrite(ops, new BulkWriteOptions().ordered(false));
         }
     }
 
+    private WriteModel<OntologyEdge> upsertModel(EdgeRecord e, Date now, Document auditInfo) {
+        com.e2eq.ontology.core.DataDomainInfo ddi = e.getDataDomainInfo();
+        if (ddi == null) {
+            Log.warnf("Skipping edge with null DataDomainInfo: %s", e);
+            return null;
+        }
+        DataDomain dd = new DataDomain();
+        dd.setOrgRefName(ddi.orgRefName());
+        dd.setAccountNum(ddi.accountNum());
+        dd.setTenantId(ddi.tenantId());
+        dd.setDataSegment(ddi.dataSegment());
+        dd.setOwnerId(e.getOwnerId() != null ? e.getOwnerId() : "system");
+        if (dd.getOrgRefName() == null || dd.getAccountNum() == null ||
+            dd.getTenantId() == null || e.getSrc() == null || e.getP() == null || e.getDst() == null) {
+            Log.warnf("Skipping edge with incomplete DataDomain or missing src/p/dst: %s", e);
+            return null;
+        }
+        // Full DataDomain-scoped filter for uniqueness
+        Document filter = dataDomainDocFilter(dd)
+                .append("src", e.getSrc())
+                .append("p", e.getP())
+                .append("dst", e.getDst());
+        Document setOnInsert = new Document("refName", e.getSrc() + "|" + e.getP() + "|" + e.getDst())
+                .append("dataDomain", dataDomainDoc(dd))
+                .append("auditInfo", auditInfo)
+                .append("src", e.getSrc())
+                .append("p", e.getP())
+                .append("dst", e.getDst());
+        Document set = new Document("inferred", e.isInferred())
+                .append("derived", e.isDerived())
+                .append("prov", e.getProv() == null ? new Document() : new Document(e.getProv()))
+                .append("ts", e.getTs() == null ? now : e.getTs());
+        // types follow the latest write, as the single-edge upsert does; unknown types are only set on insert
+        (e.getSrcType() != null ? set : setOnInsert).append("srcType", e.getSrcType());
+        (e.getDstType() != null ? set : setOnInsert).append("dstType", e.getDstType());
+        if (e.getSupport() != null) {
+            set.append("derived", true);
+            set.append("inferred", true);
+        }
+        Document update = new Document("$setOnInsert", setOnInsert).append("$set", set);
+        if (e.getSupport() != null) {
+            // support accumulates: each supporter adds its entry and releases it with releaseSupport(..)
+            List<Document> sup = new ArrayList<>();
+            for (EdgeRecord.Support s : e.getSupport()) {
+                sup.add(new Document("ruleId", s.getRuleId()).append("pathEdgeIds", s.getPathEdgeIds()));
+            }
+            update.append("$addToSet", new Document("support", new Document("$each", sup)));
+        }
+        return new UpdateOneModel<>(filter, update, new UpdateOptions().upsert(true));
+    }
+
     /**
      * Upsert multiple edges. Each edge must have its DataDomain set.
      */
@@ -712,6 +772,51 @@ public class OntologyEdgeRepo extends MorphiaRepo<OntologyEdge> {
         return ids;
     }
 
+    /**
+     * Counts the edges with the given predicate pointing to any of the destinations (or, when
+     * {@code incoming}, originating from any of the sources), stopping once {@code limit} is reached.
+     * Used to estimate how many ids an edge predicate would materialize without reading them.
+     */
+    public long countEdges(DataDomain dataDomain, String p, Collection<String> otherIds, boolean incoming, int limit) {
+        if (otherIds == null || otherIds.isEmpty()) return 0L;
+        validateDataDomain(dataDomain);
+        Document filter = dataDomainDocFilter(dataDomain)
+                .append("p", p)
+                .append(incoming ? "src" : "dst", new Document("$in", new ArrayList<>(otherIds)));
+        return ds(resolveRealmId(dataDomain)).getCollection(OntologyEdge.class)
+                .withDocumentClass(Document.class)
+                .countDocuments(filter, new CountOptions().limit(Math.max(1, limit)));
+    }
+
+    /**
+     * Builds aggregation stages that keep only the documents having an edge with the given predicate
+     * to any of {@code otherIds} (or, when {@code incoming}, being the destination of such an edge
+     * from any of them). The edge collection is joined with a correlated {@code $lookup} on the
+     * document's id and refName, so matching ids are never returned to the application; each lookup
+     * stops at the first edge and is served by the DataDomain/src/p/dst indexes.
+     * Requires MongoDB 5.0 or later ({@code $lookup} with both {@code localField} and {@code pipeline}).
+     */
+    public List<Bson> semiJoinStages(DataDomain dataDomain, String p, Collection<String> otherIds, boolean incoming) {
+        validateDataDomain(dataDomain);
+        Document edgeMatch = dataDomainDocFilter(dataDomain)
+                .append("p", p)
+                .append(incoming ? "src" : "dst", new Document("$in", new ArrayList<>(otherIds == null ? List.of() : otherIds)));
+        // Edge ends hold either the ObjectId hex string or the refName of the entity
+        Document keys = new Document("$addFields", new Document(SEMI_JOIN_KEYS,
+                List.of(new Document("$toString", "$_id"), "$refName")));
+        Document lookup = new Document("$lookup", new Document("from", "edges")
+                .append("localField", SEMI_JOIN_KEYS)
+                .append("foreignField", incoming ? "dst" : "src")
+                .append("pipeline", List.of(
+                        new Document("$match", edgeMatch),
+                        new Document("$limit", 1),
+                        new Document("$project", new Document("_id", 1))))
+                .append("as", SEMI_JOIN_MATCHES));
+        Document matched = new Document("$match", new Document(SEMI_JOIN_MATCHES + ".0", new Document("$exists", true)));
+        Document cleanup = new Document("$project", new Document(SEMI_JOIN_KEYS, 0).append(SEMI_JOIN_MATCHES, 0));
+        return List.of(keys, lookup, matched, cleanup);
+    }
+
     /**
      * Group source IDs by destination for edges with given predicate, within the DataDomain.
      */
@@ -745,6 +850,71 @@ public class OntologyEdgeRepo extends MorphiaRepo<OntologyEdge> {
         return q.filter(Filters.eq("src", src)).iterator().toList();
     }
 
+    /**
+     * Find all edges from any of the given sources within the DataDomain, with a single {@code $in} query.
+     */
+    public List<OntologyEdge> findBySrcIn(String realmId, DataDomain dataDomain, Collection<String> srcs) {
+        if (srcs == null || srcs.isEmpty()) return List.of();
+        validateDataDomain(dataDomain);
+        Query<OntologyEdge> q = ds(realmId).find(OntologyEdge.class);
+        for (Filter f : dataDomainFilters(dataDomain)) {
+            q.filter(f);
+        }
+        return q.filter(Filters.in("src", srcs)).iterator().toList();
+    }
+
+    /**
+     * Find all edges originating from any of the given sources, plus the edges pointing to
+     * {@code supporterId} that it supports (inverse/symmetric edges it derived for other sources),
+     * within the DataDomain, in one query.
+     */
+    public List<OntologyEdge> findBySrcInOrSupportedBy(String realmId, DataDomain dataDomain, Collection<String> srcs, String supporterId) {
+        validateDataDomain(dataDomain);
+        Query<OntologyEdge> q = ds(realmId).find(OntologyEdge.class);
+        for (Filter f : dataDomainFilters(dataDomain)) {
+            q.filter(f);
+        }
+        return q.filter(Filters.or(
+                Filters.in("src", srcs == null ? List.of() : srcs),
+                Filters.and(Filters.eq("dst", supporterId), Filters.eq(SUPPORTERS, supporterId))))
+                .iterator().toList();
+    }
+
+    /**
+     * Removes {@code supporterId}'s support entries from the given edges and deletes those of them that
+     * are derived and left without support. Derived edges shared by several entities therefore survive
+     * until their last supporter stops deriving them, without recomputing the other supporters.
+     */
+    public void releaseSupport(String realmId, DataDomain dataDomain, String supporterId, Collection<ObjectId> edgeIds) {
+        if (edgeIds == null || edgeIds.isEmpty()) return;
+        validateDataDomain(dataDomain);
+        Document byIds = dataDomainDocFilter(dataDomain).append("_id", new Document("$in", new ArrayList<>(edgeIds)));
+        List<WriteModel<Document>> ops = List.of(
+                new UpdateManyModel<>(byIds, new Document("$pull",
+                        new Document("support", new Document("pathEdgeIds", supporterId)))),
+                new DeleteManyModel<>(new Document(byIds).append("derived", true)
+                        .append("support", new Document("$size", 0))));
+        // ordered: the delete must see the pulled support
+        ds(realmId).getCollection(OntologyEdge.class).withDocumentClass(Document.class)
+                .bulkWrite(ops, new BulkWriteOptions().ordered(true));
+    }
+
+    /**
+     * Releases every edge supported by {@code supporterId}, e.g. after the supporting entity was deleted.
+     */
+    public void releaseSupport(String realmId, DataDomain dataDomain, String supporterId) {
+        validateDataDomain(dataDomain);
+        Query<OntologyEdge> q = ds(realmId).find(OntologyEdge.class);
+        for (Filter f : dataDomainFilters(dataDomain)) {
+            q.filter(f);
+        }
+        List<ObjectId> ids = new ArrayList<>();
+        for (OntologyEdge e : q.filter(Filters.eq("dst", supporterId), Filters.eq(SUPPORTERS, supporterId))) {
+            ids.add(e.getId());
+        }
+        releaseSupport(realmId, dataDomain, supporterId, ids);
+    }
+
     /**
      * Find all edges pointing to the given destination within the DataDomain.
      */
@@ -6,28 +6,53 @@ import com.e2eq.framework.model.persistent.morphia.MorphiaDataStoreWrapper;
 import com.e2eq.framework.model.securityrules.PrincipalContext;
 import com.e2eq.framework.model.securityrules.ResourceContext;
 import com.e2eq.framework.model.securityrules.SecurityCallScope;
+import com.e2eq.framework.model.securityrules.SecurityContext;
 import com.e2eq.ontology.annotations.OntologyClass;
 import com.e2eq.ontology.core.DataDomainInfo;
 import com.e2eq.ontology.core.EdgeChanges;
+import com.e2eq.ontology.core.EdgeRecord;
 import com.e2eq.ontology.core.Reasoner;
 import com.e2eq.ontology.mongo.AnnotatedEdgeExtractor;
 import com.e2eq.ontology.mongo.DataDomainConverter;
 import com.e2eq.ontology.mongo.OntologyMaterializer;
 import com.e2eq.ontology.spi.OntologyEdgeProvider;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.ReplaceOptions;
+import dev.morphia.query.FindOptions;
+import dev.morphia.query.MorphiaCursor;
+import dev.morphia.query.Query;
+import dev.morphia.query.Sort;
+import dev.morphia.query.filters.Filters;
 import io.quarkus.logging.Log;
 import io.smallrye.mutiny.subscription.MultiEmitter;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.enterprise.inject.Instance;
 import jakarta.inject.Inject;
+import org.bson.Document;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
 
 /**
  * Background/full reindex service that recomputes ontology edges for all participating entities.
+ *
+ * Entities are streamed per class with a cursor in {@code _id} order and materialized on a bounded
+ * worker pool ({@code quantum.ontology.reindex.parallelism}) in batches of
+ * {@code quantum.ontology.reindex.batch-size}. Progress is checkpointed per class in
+ * {@value #CHECKPOINT_COLLECTION}, so a run that stops is resumed by the next non-forced run. The
+ * checkpoint only advances over windows whose batches all succeeded; a run with failed batches keeps
+ * its checkpoints so the next run retries them.
+ *
+ * Edge changes are counted rather than kept: {@link #lastChanges()} retains at most
+ * {@code quantum.ontology.reindex.retained-changes} records of each kind, the summary has the totals.
  */
 @ApplicationScoped
 public class OntologyReindexer {
@@ -66,35 +91,48 @@ public class OntologyReindexer {
             Map<String, Integer> removedByOrigin
     ) {
         public static EdgeChangeSummary from(com.e2eq.ontology.core.EdgeChanges changes) {
-            Map<String, Integer> addedByP = new HashMap<>();
-            Map<String, Integer> removedByP = new HashMap<>();
-            Map<String, Integer> addedByO = new HashMap<>();
-            Map<String, Integer> removedByO = new HashMap<>();
+            ChangeCounts counts = new ChangeCounts();
+            counts.add(changes);
+            return counts.summary();
+        }
 
+        private static String classifyOrigin(com.e2eq.ontology.core.EdgeRecord e) {
+            if (e.isDerived() && !e.isInferred()) return "computed";
+            if (e.isInferred()) return "inferred";
+            return "explicit";
+        }
+    }
+
+    /**
+     * Running totals of the edge changes of a reindex, by predicate and origin.
+     */
+    static final class ChangeCounts {
+        private int added;
+        private int modified;
+        private int removed;
+        private final Map<String, Integer> addedByPredicate = new HashMap<>();
+        private final Map<String, Integer> removedByPredicate = new HashMap<>();
+        private final Map<String, Integer> addedByOrigin = new HashMap<>();
+        private final Map<String, Integer> removedByOrigin = new HashMap<>();
+
+        synchronized void add(EdgeChanges changes) {
+            added += changes.added().size();
+            modified += changes.modified().size();
+            removed += changes.removed().size();
             for (var e : changes.added()) {
-                addedByP.merge(e.getP(), 1, Integer::sum);
-                addedByO.merge(classifyOrigin(e), 1, Integer::sum);
+                addedByPredicate.merge(e.getP(), 1, Integer::sum);
+                addedByOrigin.merge(EdgeChangeSummary.classifyOrigin(e), 1, Integer::sum);
             }
             for (var e : changes.removed()) {
-                removedByP.merge(e.getP(), 1, Integer::sum);
-                removedByO.merge(classifyOrigin(e), 1, Integer::sum);
+                removedByPredicate.merge(e.getP(), 1, Integer::sum);
+                removedByOrigin.merge(EdgeChangeSummary.classifyOrigin(e), 1, Integer::sum);
             }
-
-            return new EdgeChangeSummary(
-                    changes.added().size(),
-                    changes.modified().size(),
-                    changes.removed().size(),
-                    addedByP,
-                    removedByP,
-                    addedByO,
-                    removedByO
-            );
         }
 
-        private static String classifyOrigin(com.e2eq.ontology.core.EdgeRecord e) {
-            if (e.isDerived() && !e.isInferred()) return "computed";
-            if (e.isInferred()) return "inferred";
-            return "explicit";
+        synchronized EdgeChangeSummary summary() {
+            return new EdgeChangeSummary(added, modified, removed,
+                    new HashMap<>(addedByPredicate), new HashMap<>(removedByPredicate),
+                    new HashMap<>(addedByOrigin), new HashMap<>(removedByOrigin));
         }
     }
 
@@ -114,9 +152,24 @@ public class OntologyReindexer {
         }
     }
 
+    /** Realm collection holding the (class, last _id) checkpoints of an unfinished reindex. */
+    public static final String CHECKPOINT_COLLECTION = "ontology_reindex_checkpoint";
+
+    @ConfigProperty(name = "quantum.ontology.reindex.batch-size", defaultValue = "100")
+    int batchSize = 100;
+
+    @ConfigProperty(name = "quantum.ontology.reindex.parallelism", defaultValue = "4")
+    int parallelism = 4;
+
+    @ConfigProperty(name = "quantum.ontology.reindex.retained-changes", defaultValue = "1000")
+    int retainedChanges = 1000;
+
     private final AtomicBoolean running = new AtomicBoolean(false);
+    private final Object changesLock = new Object();
+    private final AtomicInteger failures = new AtomicInteger();
     private volatile String status = "IDLE";
     private volatile EdgeChanges lastChanges = EdgeChanges.empty();
+    private volatile ChangeCounts changeCounts = new ChangeCounts();
     private volatile int entitiesProcessed = 0;
     private volatile List<String> participatingClasses = new ArrayList<>();
 
@@ -128,7 +181,7 @@ public class OntologyReindexer {
         return new ReindexResult(
                 status,
                 lastChanges,
-                EdgeChangeSummary.from(lastChanges),
+                changeCounts.summary(),
                 entitiesProcessed,
                 participatingClasses
         );
@@ -161,6 +214,8 @@ public class OntologyReindexer {
         }
         status = "RUNNING";
         lastChanges = EdgeChanges.empty();
+        changeCounts = new ChangeCounts();
+        failures.set(0);
         entitiesProcessed = 0;
         participatingClasses = new ArrayList<>();
 
@@ -210,11 +265,14 @@ public class OntologyReindexer {
                                     appliedRegistry.classes(), appliedRegistry.properties(), appliedRegistry.propertyChains()),
                             packIdFromSource(res.meta().getSource()), yamlVersion);
                 });
-                status = "COMPLETED";
+                EdgeChangeSummary totals = changeCounts.summary();
+                int failed = failures.get();
+                status = failed == 0 ? "COMPLETED"
+                        : "COMPLETED_WITH_ERRORS: " + failed + " failures; the next run resumes from the last checkpoint";
 
                 // Emit final summary
-                String summary = String.format("Reindex completed: %d entities processed, %d edges added, %d edges removed",
-                        entitiesProcessed, lastChanges.added().size(), lastChanges.removed().size());
+                String summary = String.format("Reindex completed: %d entities processed, %d edges added, %d edges removed, %d failures",
+                        entitiesProcessed, totals.totalAdded(), totals.totalRemoved(), failed);
                 messageConsumer.accept(summary);
 
                 if (emitter != null) {
@@ -233,13 +291,20 @@ public class OntologyReindexer {
     }
 
     private void runInternal(String realmId, boolean force, Consumer<String> messageConsumer) {
+        if (force) {
+            // a forced run purges derived edges, so it never resumes an earlier run
+            clearCheckpoints(realmId);
+        }
         // First pass: materialize explicit edges and direct inferences
         messageConsumer.accept("Starting first pass: materializing explicit edges and direct inferences");
-        processAll(realmId, force, messageConsumer);
+        processAll(realmId, force, 1, messageConsumer);
         messageConsumer.accept("First pass complete. Starting second pass for inverses and complex inferences");
         // Second pass: catch inverses and more complex inferences that depend on the first pass
-        processAll(realmId, false, messageConsumer);
+        processAll(realmId, false, 2, messageConsumer);
         messageConsumer.accept("Second pass complete");
+        if (failures.get() == 0) {
+            clearCheckpoints(realmId);
+        }
     }
 
     // Keep the old signature for backward compatibility (internal use)
@@ -247,16 +312,17 @@ public class OntologyReindexer {
         runInternal(realmId, force, (msg) -> Log.info(msg));
     }
 
-    private void processAll(String realmId, boolean force, Consumer<String> messageConsumer) {
-        // Configurable batch size for bulk operations
-        final int BATCH_SIZE = 100;
+    private void processAll(String realmId, boolean force, int pass, Consumer<String> messageConsumer) {
+        int size = Math.max(1, batchSize);
+        int threads = Math.max(1, parallelism);
 
         // Discover ontology participant classes from Morphia mapper
         var datastore = morphiaDataStoreWrapper.getDataStore(realmId);
         Collection<Class<?>> entityClasses = discoverEntityClasses(datastore.getMapper());
         List<Class<?>> participants = new ArrayList<>();
         for (Class<?> c : entityClasses) if (c.isAnnotationPresent(OntologyClass.class)) participants.add(c);
-        messageConsumer.accept(String.format("Found %d ontology participant classes", participants.size()));
+        messageConsumer.accept(String.format("Found %d ontology participant classes (batch size: %d, parallelism: %d)",
+                participants.size(), size, threads));
 
         // Track participating classes (only add on first pass to avoid duplicates)
         if (participatingClasses.isEmpty()) {
@@ -269,43 +335,91 @@ public class OntologyReindexer {
             messageConsumer.accept("Participating classes: " + String.join(", ", participatingClasses));
         }
 
-        // If force, collect all unique DataDomains we'll encounter and purge derived edges for each
+        Map<String, Document> checkpoints = loadCheckpoints(realmId, pass);
+        // If force, purge derived edges for each DataDomain the first time it is encountered
         Set<DataDomain> processedDataDomains = new HashSet<>();
 
-        // For each class, load all instances and process in batches
-        int classIndex = 0;
-        for (Class<?> clazz : participants) {
-            classIndex++;
-            String classStatus = String.format("Processing class %d/%d: %s", classIndex, participants.size(), clazz.getSimpleName());
-            status = classStatus;
-            messageConsumer.accept(classStatus);
-
-            var ds = morphiaDataStoreWrapper.getDataStore(realmId);
-            var q = ds.find(clazz);
-            int processed = 0;
-            var list = q.iterator().toList();
-            int totalForClass = list.size();
-            messageConsumer.accept(String.format("  Found %d entities of type %s (batch size: %d)", totalForClass, clazz.getSimpleName(), BATCH_SIZE));
-
-            // Collect entity contexts in batches
-            List<OntologyMaterializer.EntityEdgeContext> batch = new ArrayList<>(BATCH_SIZE);
-
-            for (Object entity : list) {
+        ExecutorService pool = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "ontology-reindex-worker");
+            t.setDaemon(true);
+            return t;
+        });
+        try {
+            int classIndex = 0;
+            for (Class<?> clazz : participants) {
+                classIndex++;
+                String classStatus = String.format("Processing class %d/%d: %s", classIndex, participants.size(), clazz.getSimpleName());
+                status = classStatus;
+                messageConsumer.accept(classStatus);
+                processClass(realmId, clazz, force, pass, checkpoints.get(checkpointId(pass, clazz)),
+                        processedDataDomains, pool, messageConsumer);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    // Keep old signature for backward compatibility
+    private void processAll(String realmId, boolean force) {
+        processAll(realmId, force, 1, (msg) -> Log.info(msg));
+    }
+
+    /**
+     * Streams the entities of one class in {@code _id} order and materializes them window by window.
+     * A window holds {@code batchSize * parallelism} entities; its entities are grouped by DataDomain
+     * and each group is applied by one worker, so two workers never write edges of the same DataDomain.
+     * Once a window is written its last {@code _id} is saved as the class checkpoint. After a window
+     * with a failed batch the checkpoint stays where it was: the remaining windows are still applied,
+     * but the next run starts again after the last window that was fully written.
+     */
+    <T> void processClass(String realmId,
+                                  Class<T> clazz,
+                                  boolean force,
+                                  int pass,
+                                  Document checkpoint,
+                                  Set<DataDomain> processedDataDomains,
+                                  ExecutorService pool,
+                                  Consumer<String> messageConsumer) {
+        if (checkpoint != null && checkpoint.getBoolean("completed", false)) {
+            messageConsumer.accept(String.format("  Skipping %s: completed before the last run stopped", clazz.getSimpleName()));
+            return;
+        }
+        int size = Math.max(1, batchSize);
+        int windowSize = size * Math.max(1, parallelism);
+        String entityType = extractor.metaOf(clazz).map(m -> m.classId).orElse(clazz.getSimpleName());
+
+        var ds = morphiaDataStoreWrapper.getDataStore(realmId);
+        Query<T> q = ds.find(clazz);
+        Object lastId = checkpoint != null ? checkpoint.get("lastId") : null;
+        if (lastId != null) {
+            q = q.filter(Filters.gt("_id", lastId));
+            messageConsumer.accept(String.format("  Resuming %s after _id %s", clazz.getSimpleName(), lastId));
+        }
+
+        int processed = 0;
+        // whether every window so far was fully written; only then may the checkpoint advance
+        boolean clean = true;
+        boolean windowFailed = false;
+        long started = System.nanoTime();
+        List<OntologyMaterializer.EntityEdgeContext> window = new ArrayList<>(windowSize);
+        try (MorphiaCursor<T> cursor = q.iterator(new FindOptions().sort(Sort.ascending("_id")).batchSize(size))) {
+            while (cursor.hasNext()) {
+                T entity = cursor.next();
+                if (entity instanceof UnversionedBaseModel model && model.getId() != null) {
+                    lastId = model.getId();
+                }
                 try {
                     String srcId = extractor.idOf(entity);
-                    String entityType = extractor.metaOf(clazz).map(m -> m.classId).orElse(clazz.getSimpleName());
 
                     // Extract DataDomain from entity
                     DataDomain dataDomain = extractDataDomain(entity, realmId);
 
                     // If force mode and first time seeing this DataDomain, purge derived edges
                     if (force && processedDataDomains.add(dataDomain)) {
-                        // Flush current batch before purging to avoid data loss
-                        if (!batch.isEmpty()) {
-                            EdgeChanges batchChanges = materializer.applyBulk(batch);
-                            lastChanges.addAll(batchChanges);
-                            batch.clear();
-                        }
+                        // Flush current window before purging to avoid data loss
+                        clean &= applyWindow(window, pool, messageConsumer) && !windowFailed;
+                        windowFailed = false;
+                        window.clear();
                         try {
                             String purgeMsg = "  Purging derived edges for DataDomain: " + dataDomain.getTenantId();
                             status = purgeMsg;
@@ -334,47 +448,159 @@ public class OntologyReindexer {
                         messageConsumer.accept("  Warning: Provider extension failed for " + clazz.getSimpleName() + ": " + t.getMessage());
                     }
 
-                    // Add to batch
-                    batch.add(new OntologyMaterializer.EntityEdgeContext(realmId, dataDomain, srcId, entityType, explicit));
+                    window.add(new OntologyMaterializer.EntityEdgeContext(realmId, dataDomain, srcId, entityType, explicit));
                     processed++;
                     entitiesProcessed++;
-
-                    // Process batch when full
-                    if (batch.size() >= BATCH_SIZE) {
-                        EdgeChanges batchChanges = materializer.applyBulk(batch);
-                        lastChanges.addAll(batchChanges);
-                        batch.clear();
-
-                        String progressMsg = String.format("  Materialized %d/%d %s (total: %d, edges: +%d/~%d)",
-                                processed, totalForClass, clazz.getSimpleName(), entitiesProcessed,
-                                batchChanges.added().size(), batchChanges.modified().size());
-                        status = progressMsg;
-                        messageConsumer.accept(progressMsg);
-                    }
                 } catch (Throwable t) {
+                    windowFailed = true;
+                    failures.incrementAndGet();
                     messageConsumer.accept(String.format("  Warning: Failed to prepare %s for materialization: %s", clazz.getSimpleName(), t.getMessage()));
                 }
+
+                if (window.size() >= windowSize) {
+                    clean &= applyWindow(window, pool, messageConsumer) && !windowFailed;
+                    windowFailed = false;
+                    window.clear();
+                    if (clean) {
+                        saveCheckpoint(realmId, pass, clazz, lastId, false);
+                    }
+
+                    String progressMsg = String.format("  Materialized %d %s (total: %d, %.1f entities/s)",
+                            processed, clazz.getSimpleName(), entitiesProcessed, rate(processed, started));
+                    status = progressMsg;
+                    messageConsumer.accept(progressMsg);
+                }
             }
+        }
 
-            // Process remaining batch
-            if (!batch.isEmpty()) {
-                try {
-                    EdgeChanges batchChanges = materializer.applyBulk(batch);
-                    lastChanges.addAll(batchChanges);
-                    batch.clear();
-                } catch (Throwable t) {
-                    messageConsumer.accept(String.format("  Warning: Failed to process final batch for %s: %s", clazz.getSimpleName(), t.getMessage()));
+        // Process remaining window
+        clean &= applyWindow(window, pool, messageConsumer) && !windowFailed;
+        if (clean) {
+            saveCheckpoint(realmId, pass, clazz, lastId, true);
+        } else {
+            messageConsumer.accept(String.format("  %s had failures; its checkpoint stays at the last fully written window",
+                    clazz.getSimpleName()));
+        }
+
+        String completedMsg = String.format("  Completed %s: %d entities processed (%.1f entities/s)",
+                clazz.getSimpleName(), processed, rate(processed, started));
+        messageConsumer.accept(completedMsg);
+    }
+
+    /**
+     * Applies a window of entity contexts on the worker pool, one task per DataDomain, and waits for all of them.
+     *
+     * @return whether every batch of the window was written
+     */
+    boolean applyWindow(List<OntologyMaterializer.EntityEdgeContext> window,
+                             ExecutorService pool,
+                             Consumer<String> messageConsumer) {
+        if (window.isEmpty()) {
+            return true;
+        }
+        Map<DataDomain, List<OntologyMaterializer.EntityEdgeContext>> byDataDomain = new LinkedHashMap<>();
+        for (var ctx : window) {
+            byDataDomain.computeIfAbsent(ctx.dataDomain(), d -> new ArrayList<>()).add(ctx);
+        }
+        // workers run with the reindexer's security contexts
+        PrincipalContext principal = SecurityContext.getPrincipalContext().orElse(null);
+        ResourceContext resource = SecurityContext.getResourceContext().orElse(null);
+        AtomicBoolean written = new AtomicBoolean(true);
+        List<CompletableFuture<Void>> tasks = new ArrayList<>(byDataDomain.size());
+        for (List<OntologyMaterializer.EntityEdgeContext> group : byDataDomain.values()) {
+            List<OntologyMaterializer.EntityEdgeContext> contexts = List.copyOf(group);
+            Runnable apply = () -> {
+                if (!applyGroup(contexts, messageConsumer)) {
+                    written.set(false);
+                }
+            };
+            tasks.add(CompletableFuture.runAsync(principal == null ? apply
+                    : () -> SecurityCallScope.runWithContexts(principal, resource, apply), pool));
+        }
+        CompletableFuture.allOf(tasks.toArray(new CompletableFuture[0])).join();
+        return written.get();
+    }
+
+    private boolean applyGroup(List<OntologyMaterializer.EntityEdgeContext> contexts, Consumer<String> messageConsumer) {
+        int size = Math.max(1, batchSize);
+        boolean written = true;
+        for (int from = 0; from < contexts.size(); from += size) {
+            List<OntologyMaterializer.EntityEdgeContext> batch = contexts.subList(from, Math.min(from + size, contexts.size()));
+            try {
+                EdgeChanges batchChanges = materializer.applyBulk(batch);
+                changeCounts.add(batchChanges);
+                synchronized (changesLock) {
+                    retain(lastChanges.added(), batchChanges.added());
+                    retain(lastChanges.modified(), batchChanges.modified());
+                    retain(lastChanges.removed(), batchChanges.removed());
                 }
+            } catch (Throwable t) {
+                written = false;
+                failures.incrementAndGet();
+                messageConsumer.accept(String.format("  Warning: Failed to materialize batch of %d %s entities: %s",
+                        batch.size(), batch.get(0).entityType(), t.getMessage()));
+            }
+        }
+        return written;
+    }
+
+    // keeps a sample of the changes for lastChanges(); the totals are in changeCounts
+    private void retain(List<EdgeRecord> retained, List<EdgeRecord> changes) {
+        int room = retainedChanges - retained.size();
+        if (room > 0) {
+            retained.addAll(changes.size() <= room ? changes : changes.subList(0, room));
+        }
+    }
+
+    private static double rate(int processed, long startedNanos) {
+        double seconds = (System.nanoTime() - startedNanos) / 1_000_000_000d;
+        return seconds > 0 ? processed / seconds : 0d;
+    }
+
+    private static String checkpointId(int pass, Class<?> clazz) {
+        return pass + ":" + clazz.getName();
+    }
+
+    private MongoCollection<Document> checkpointCollection(String realmId) {
+        return morphiaDataStoreWrapper.getDataStore(realmId).getDatabase().getCollection(CHECKPOINT_COLLECTION);
+    }
+
+    /**
+     * Loads the checkpoints a stopped run left for the given pass, keyed by {@link #checkpointId}.
+     */
+    private Map<String, Document> loadCheckpoints(String realmId, int pass) {
+        Map<String, Document> checkpoints = new HashMap<>();
+        try {
+            for (Document doc : checkpointCollection(realmId).find(com.mongodb.client.model.Filters.eq("pass", pass))) {
+                checkpoints.put(doc.getString("_id"), doc);
             }
+        } catch (RuntimeException e) {
+            Log.warnf(e, "OntologyReindexer: could not read checkpoints of realm %s; starting from the beginning", realmId);
+        }
+        return checkpoints;
+    }
 
-            String completedMsg = String.format("  Completed %s: %d entities processed", clazz.getSimpleName(), processed);
-            messageConsumer.accept(completedMsg);
+    private void saveCheckpoint(String realmId, int pass, Class<?> clazz, Object lastId, boolean completed) {
+        Document doc = new Document("_id", checkpointId(pass, clazz))
+                .append("pass", pass)
+                .append("className", clazz.getName())
+                .append("lastId", lastId)
+                .append("completed", completed)
+                .append("updatedAt", new Date());
+        try {
+            checkpointCollection(realmId).replaceOne(com.mongodb.client.model.Filters.eq("_id", doc.get("_id")), doc,
+                    new ReplaceOptions().upsert(true));
+        } catch (RuntimeException e) {
+            Log.warnf(e, "OntologyReindexer: could not save checkpoint of %s in realm %s", clazz.getSimpleName(), realmId);
         }
     }
 
-    // Keep old signature for backward compatibility
-    private void processAll(String realmId, boolean force) {
-        processAll(realmId, force, (msg) -> Log.info(msg));
+    private void clearCheckpoints(String realmId) {
+        try {
+            checkpointCollection(realmId).deleteMany(new Document());
+        } catch (RuntimeException e) {
+            Log.warnf(e, "OntologyReindexer: could not clear checkpoints of realm %s", realmId);
+        }
     }
 
     /**
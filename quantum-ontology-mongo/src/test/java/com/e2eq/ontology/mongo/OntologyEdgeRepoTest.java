@@ -5,18 +5,29 @@ import com.e2eq.framework.model.security.DomainContext;
 import com.e2eq.framework.model.securityrules.PrincipalContext;
 import com.e2eq.framework.model.securityrules.ResourceContext;
 import com.e2eq.framework.model.securityrules.SecurityContext;
+import com.e2eq.ontology.core.EdgeRecord;
 import com.e2eq.ontology.exceptions.CardinalityViolationException;
 import com.e2eq.ontology.repo.OntologyEdgeRepo;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.Filters;
 import dev.morphia.MorphiaDatastore;
 import io.quarkus.test.junit.QuarkusTest;
 import jakarta.inject.Inject;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.bson.types.ObjectId;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
+import java.util.Date;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -28,7 +39,7 @@ public class OntologyEdgeRepoTest {
 
     @Inject
     MorphiaDatastore datastore;
-    
+
     private DataDomain testDataDomain;
     private DataDomain testDataDomainOrgB;
 
@@ -149,6 +160,100 @@ public class OntologyEdgeRepoTest {
         assertEquals(2, edges.size(), "Non-functional property should allow multiple edges");
     }
 
+    // ========================================================================
+    // Batched Materialization Tests
+    // ========================================================================
+
+    @Test
+    void bulkWriteEdges_upsertsAndDeletesInOneCall() {
+        edgeRepo.upsert(testDataDomain, "Customer", "CUST-1", "memberOf", "Organization", "ORG-1", false, Map.of());
+        edgeRepo.upsert(testDataDomain, "Customer", "CUST-2", "memberOf", "Organization", "ORG-1", false, Map.of());
+        edgeRepo.upsert(testDataDomainOrgB, "Customer", "CUST-1", "memberOf", "Organization", "ORG-9", false, Map.of());
+        com.e2eq.ontology.model.OntologyEdge stale = edgeRepo.findBySrc(testDataDomain, "CUST-1").get(0);
+
+        EdgeRecord added = new EdgeRecord(DataDomainConverter.toInfo(testDataDomain), "Customer", "CUST-1", "memberOf",
+                "Organization", "ORG-2", false, Map.of(), new Date());
+        edgeRepo.bulkWriteEdges("types-test", List.of(added), List.of(stale.getId()));
+
+        List<com.e2eq.ontology.model.OntologyEdge> edges = edgeRepo.findBySrcIn("types-test", testDataDomain, List.of("CUST-1", "CUST-2"));
+        assertEquals(2, edges.size(), "findBySrcIn should only return edges of the given DataDomain");
+        assertTrue(edges.stream().anyMatch(e -> "CUST-1".equals(e.getSrc()) && "ORG-2".equals(e.getDst())));
+        assertTrue(edges.stream().anyMatch(e -> "CUST-2".equals(e.getSrc()) && "ORG-1".equals(e.getDst())));
+    }
+
+    @Test
+    void releaseSupport_deletesDerivedEdgeOnlyWhenUnsupported() {
+        for (String supporter : List.of("ORG-1", "ORG-2")) {
+            EdgeRecord rec = new EdgeRecord(DataDomainConverter.toInfo(testDataDomain), "Customer", "CUST-1", "memberOf",
+                    "Organization", supporter, true, Map.of(), new Date());
+            rec.setSupport(List.of(new EdgeRecord.Support("inverse", List.of(supporter))));
+            edgeRepo.bulkWriteEdges("types-test", List.of(rec), List.of());
+        }
+        // a second supporter of the same (src, p, dst) adds its entry instead of replacing the first
+        EdgeRecord shared = new EdgeRecord(DataDomainConverter.toInfo(testDataDomain), "Customer", "CUST-1", "memberOf",
+                "Organization", "ORG-1", true, Map.of(), new Date());
+        shared.setSupport(List.of(new EdgeRecord.Support("symmetric", List.of("CUST-9"))));
+        edgeRepo.bulkWriteEdges("types-test", List.of(shared), List.of());
+
+        edgeRepo.releaseSupport("types-test", testDataDomain, "ORG-1");
+        edgeRepo.releaseSupport("types-test", testDataDomain, "ORG-2");
+
+        List<com.e2eq.ontology.model.OntologyEdge> edges = edgeRepo.findBySrc(testDataDomain, "CUST-1");
+        assertEquals(1, edges.size(), "Only the edge with support left should remain");
+        assertEquals("ORG-1", edges.get(0).getDst());
+        assertEquals(1, edges.get(0).getSupport().size());
+    }
+
+    @Test
+    void semiJoinStages_keepOnlyDocumentsWithAMatchingEdge() {
+        MongoCollection<Document> orders = edgeRepo.ds("types-test").getDatabase().getCollection("semi_join_orders");
+        orders.deleteMany(new Document());
+        ObjectId byId = new ObjectId();
+        ObjectId byRefName = new ObjectId();
+        ObjectId otherCustomer = new ObjectId();
+        ObjectId otherOrg = new ObjectId();
+        orders.insertMany(List.of(
+                new Document("_id", byId).append("refName", "ORDER-1").append("status", "OPEN"),
+                new Document("_id", byRefName).append("refName", "ORDER-2").append("status", "OPEN"),
+                new Document("_id", otherCustomer).append("refName", "ORDER-3").append("status", "OPEN"),
+                new Document("_id", otherOrg).append("refName", "ORDER-4").append("status", "OPEN"),
+                new Document("_id", new ObjectId()).append("refName", "ORDER-5").append("status", "CLOSED")));
+        // edge ends hold either the ObjectId hex string or the refName of the entity
+        edgeRepo.upsert(testDataDomain, "Order", byId.toHexString(), "placedBy", "Customer", "CUST-1", false, Map.of());
+        edgeRepo.upsert(testDataDomain, "Order", "ORDER-2", "placedBy", "Customer", "CUST-1", false, Map.of());
+        edgeRepo.upsert(testDataDomain, "Order", "ORDER-3", "placedBy", "Customer", "CUST-2", false, Map.of());
+        edgeRepo.upsert(testDataDomainOrgB, "Order", "ORDER-4", "placedBy", "Customer", "CUST-1", false, Map.of());
+        edgeRepo.upsert(testDataDomain, "Order", "ORDER-5", "placedBy", "Customer", "CUST-1", false, Map.of());
+
+        List<Bson> pipeline = new ArrayList<>();
+        pipeline.add(Aggregates.match(Filters.eq("status", "OPEN")));
+        pipeline.addAll(edgeRepo.semiJoinStages(testDataDomain, "placedBy", List.of("CUST-1"), false));
+        List<Document> matched = orders.aggregate(pipeline).into(new ArrayList<>());
+
+        assertEquals(Set.of("ORDER-1", "ORDER-2"), matched.stream().map(d -> d.getString("refName")).collect(Collectors.toSet()));
+        assertTrue(matched.stream().allMatch(d -> d.keySet().equals(Set.of("_id", "refName", "status"))),
+                "the temporary join fields are removed again");
+
+        // incoming: the customers placed-by edges point to
+        MongoCollection<Document> customers = edgeRepo.ds("types-test").getDatabase().getCollection("semi_join_customers");
+        customers.deleteMany(new Document());
+        customers.insertMany(List.of(new Document("refName", "CUST-1"), new Document("refName", "CUST-2")));
+        List<Document> targets = customers.aggregate(
+                edgeRepo.semiJoinStages(testDataDomain, "placedBy", List.of("ORDER-3"), true)).into(new ArrayList<>());
+        assertEquals(List.of("CUST-2"), targets.stream().map(d -> d.getString("refName")).toList());
+    }
+
+    @Test
+    void countEdges_stopsAtTheLimit() {
+        for (int i = 0; i < 5; i++) {
+            edgeRepo.upsert(testDataDomain, "Customer", "CUST-" + i, "memberOf", "Organization", "ORG-1", false, Map.of());
+        }
+
+        assertEquals(5, edgeRepo.countEdges(testDataDomain, "memberOf", List.of("ORG-1"), false, 100));
+        assertEquals(3, edgeRepo.countEdges(testDataDomain, "memberOf", List.of("ORG-1"), false, 3));
+        assertEquals(1, edgeRepo.countEdges(testDataDomain, "memberOf", List.of("CUST-0"), true, 100));
+    }
+
     // ========================================================================
     // Single-Value Convenience Method Tests
     // ========================================================================
@@ -0,0 +1,125 @@
+package com.e2eq.ontology.mongo;
+
+import com.e2eq.framework.model.persistent.base.DataDomain;
+import com.e2eq.framework.model.securityrules.SecurityContext;
+import com.e2eq.ontology.core.EdgeChanges;
+import com.e2eq.ontology.core.EdgeRecord;
+import com.e2eq.ontology.core.OntologyRegistry;
+import com.e2eq.ontology.core.Reasoner;
+import com.e2eq.ontology.exceptions.CardinalityViolationException;
+import com.e2eq.ontology.model.OntologyEdge;
+import com.e2eq.ontology.repo.OntologyEdgeRepo;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@QuarkusTest
+public class OntologyMaterializerTest {
+
+    @Inject
+    OntologyEdgeRepo edgeRepo;
+
+    @Inject
+    OntologyMaterializer materializer;
+
+    private DataDomain testDataDomain;
+
+    @AfterEach
+    void clearSecurityContext() {
+        SecurityContext.clear();
+    }
+
+    @BeforeEach
+    void clean() {
+        edgeRepo.deleteAll("types-test");
+        testDataDomain = new DataDomain();
+        testDataDomain.setOrgRefName("test-org-a");
+        testDataDomain.setAccountNum("1111111111");
+        testDataDomain.setTenantId("types-test");
+        testDataDomain.setOwnerId("owner-a");
+        testDataDomain.setDataSegment(0);
+    }
+
+    @Test
+    void materializerApply_reportsChangesFromDiff() {
+        List<Reasoner.Edge> first = List.of(
+                new Reasoner.Edge("CUST-1", "Customer", "memberOf", "ORG-1", "Organization", false, Optional.empty()),
+                new Reasoner.Edge("CUST-1", "Customer", "memberOf", "ORG-2", "Organization", false, Optional.empty()));
+        EdgeChanges created = materializer.apply("types-test", testDataDomain, "CUST-1", "Customer", first);
+        assertEquals(2, created.added().size());
+
+        List<Reasoner.Edge> second = List.of(
+                new Reasoner.Edge("CUST-1", "Customer", "memberOf", "ORG-2", "Organization", false, Optional.empty()),
+                new Reasoner.Edge("CUST-1", "Customer", "memberOf", "ORG-3", "Organization", false, Optional.empty()));
+        EdgeChanges changed = materializer.apply("types-test", testDataDomain, "CUST-1", "Customer", second);
+
+        assertEquals(List.of("ORG-3"), changed.added().stream().map(EdgeRecord::getDst).toList());
+        assertEquals(List.of("ORG-1"), changed.removed().stream().map(EdgeRecord::getDst).toList());
+        assertTrue(changed.modified().isEmpty(), "Unchanged edges should not be rewritten");
+        assertEquals(Set.of("ORG-2", "ORG-3"), edgeRepo.dstIdsBySrc(testDataDomain, "memberOf", "CUST-1"));
+    }
+
+    @Test
+    void materializerApply_enforcesFunctionalProperties() {
+        materializer.apply("types-test", testDataDomain, "ORDER-1", "Order", List.of(
+                new Reasoner.Edge("ORDER-1", "Order", "placedBy", "CUST-1", "Customer", false, Optional.empty())));
+
+        assertThrows(CardinalityViolationException.class, () ->
+                materializer.apply("types-test", testDataDomain, "ORDER-1", "Order", List.of(
+                        new Reasoner.Edge("ORDER-1", "Order", "placedBy", "CUST-2", "Customer", false, Optional.empty()))));
+    }
+
+    @Test
+    void materializerApply_keepsTheOwnerAndAuditInfoOfTheDataDomain() {
+        materializer.apply("types-test", testDataDomain, "CUST-1", "Customer", List.of(
+                new Reasoner.Edge("CUST-1", "Customer", "memberOf", "ORG-1", "Organization", false, Optional.empty())));
+
+        List<OntologyEdge> edges = edgeRepo.findBySrc(testDataDomain, "CUST-1");
+        assertEquals(1, edges.size());
+        assertEquals("owner-a", edges.get(0).getDataDomain().getOwnerId());
+        assertNotNull(edges.get(0).getAuditInfo());
+        assertNotNull(edges.get(0).getAuditInfo().getCreationTs());
+    }
+
+    @Test
+    void affectedPredicates_followInversesSuperPropertiesAndChains() {
+        Map<String, OntologyRegistry.PropertyDef> props = Map.of(
+                "placedBy", new OntologyRegistry.PropertyDef("placedBy", Optional.of("Order"), Optional.of("Customer"), false, Optional.of("placed"), false, false, true, Set.of()),
+                "placedInOrg", new OntologyRegistry.PropertyDef("placedInOrg", Optional.of("Order"), Optional.of("Organization"), false, Optional.empty(), false, false, false, Set.of("inOrg")));
+        OntologyRegistry registry = OntologyRegistry.inMemory(new OntologyRegistry.TBox(Map.of(), props, List.of(
+                new OntologyRegistry.PropertyChainDef(List.of("placedBy", "memberOf"), "placedInOrg"),
+                new OntologyRegistry.PropertyChainDef(List.of("orderHasShipment", "shipsTo"), "orderShipsTo"))));
+
+        assertEquals(Set.of("placedBy", "placed", "placedInOrg", "inOrg"),
+                OntologyMaterializer.affectedPredicates(Set.of("placedBy"), registry));
+    }
+
+    @Test
+    void materializerApply_keepsInferredEdgesOfUnaffectedPredicates() {
+        materializer.apply("types-test", testDataDomain, "CUST-1", "Customer", List.of(
+                new Reasoner.Edge("CUST-1", "Customer", "memberOf", "ORG-1", "Organization", false, Optional.empty())));
+        // inferred from a rule that a memberOf change cannot reach
+        edgeRepo.upsert("types-test", testDataDomain, "Customer", "CUST-1", "orderShipsTo", "Address", "ADDR-1", true, Map.of());
+
+        List<Reasoner.Edge> moved = List.of(
+                new Reasoner.Edge("CUST-1", "Customer", "memberOf", "ORG-2", "Organization", false, Optional.empty()));
+        EdgeChanges changes = materializer.apply("types-test", testDataDomain, "CUST-1", "Customer", moved, Set.of("memberOf"));
+
+        assertEquals(Set.of("ORG-2"), edgeRepo.dstIdsBySrc(testDataDomain, "memberOf", "CUST-1"));
+        assertEquals(Set.of("ADDR-1"), edgeRepo.dstIdsBySrc(testDataDomain, "orderShipsTo", "CUST-1"));
+        assertTrue(changes.removed().stream().noneMatch(r -> "orderShipsTo".equals(r.getP())));
+
+        // a full re-evaluation no longer derives it
+        materializer.apply("types-test", testDataDomain, "CUST-1", "Customer", moved, null);
+        assertTrue(edgeRepo.dstIdsBySrc(testDataDomain, "orderShipsTo", "CUST-1").isEmpty());
+    }
+}
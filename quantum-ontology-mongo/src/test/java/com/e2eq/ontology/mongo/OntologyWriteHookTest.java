@@ -0,0 +1,77 @@
+package com.e2eq.ontology.mongo;
+
+import com.e2eq.ontology.core.Reasoner;
+import com.e2eq.ontology.model.OntologyEdge;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the explicit edge delta computed by {@link OntologyWriteHook}.
+ */
+public class OntologyWriteHookTest {
+
+    @Test
+    void changedPredicates_emptyWhenNothingChanged() {
+        List<OntologyEdge> prior = List.of(stored("placedBy", "CUST-1", false, Map.of()));
+        List<Reasoner.Edge> explicit = List.of(explicit("placedBy", "CUST-1", Optional.empty()));
+
+        assertTrue(OntologyWriteHook.changedPredicates("ORDER-1", prior, explicit).isEmpty());
+    }
+
+    @Test
+    void changedPredicates_reportsAddedAndRemovedPredicates() {
+        List<OntologyEdge> prior = List.of(
+                stored("placedBy", "CUST-1", false, Map.of()),
+                stored("placedInOrg", "ORG-1", false, Map.of()));
+        List<Reasoner.Edge> explicit = List.of(
+                explicit("placedBy", "CUST-1", Optional.empty()),
+                explicit("orderHasShipment", "SHIP-1", Optional.empty()));
+
+        assertEquals(Set.of("placedInOrg", "orderHasShipment"),
+                OntologyWriteHook.changedPredicates("ORDER-1", prior, explicit));
+    }
+
+    @Test
+    void changedPredicates_comparesTheProvenanceOfComputedEdges() {
+        Map<String, Object> inputs = Map.of("path", List.of("TERR-1"));
+        List<OntologyEdge> prior = List.of(stored("canSeeLocation", "LOC-1", true,
+                Map.of("rule", "computed", "inputs", inputs)));
+
+        List<Reasoner.Edge> same = List.of(explicit("canSeeLocation", "LOC-1",
+                Optional.of(new Reasoner.Provenance("computed", inputs))));
+        assertTrue(OntologyWriteHook.changedPredicates("ORDER-1", prior, same).isEmpty());
+
+        // same (p, dst), but computed from other inputs
+        List<Reasoner.Edge> recomputed = List.of(explicit("canSeeLocation", "LOC-1",
+                Optional.of(new Reasoner.Provenance("computed", Map.of("path", List.of("TERR-2"))))));
+        assertEquals(Set.of("canSeeLocation"), OntologyWriteHook.changedPredicates("ORDER-1", prior, recomputed));
+    }
+
+    @Test
+    void changedPredicates_alwaysCountsEdgesOfOtherSources() {
+        List<Reasoner.Edge> explicit = List.of(new Reasoner.Edge("CUST-1", "Customer", "memberOf", "ORG-1",
+                "Organization", false, Optional.empty()));
+
+        assertEquals(Set.of("memberOf"), OntologyWriteHook.changedPredicates("ORDER-1", List.of(), explicit));
+    }
+
+    private static OntologyEdge stored(String p, String dst, boolean derived, Map<String, Object> prov) {
+        OntologyEdge e = new OntologyEdge();
+        e.setSrc("ORDER-1");
+        e.setP(p);
+        e.setDst(dst);
+        e.setDerived(derived);
+        e.setProv(prov);
+        return e;
+    }
+
+    private static Reasoner.Edge explicit(String p, String dst, Optional<Reasoner.Provenance> prov) {
+        return new Reasoner.Edge("ORDER-1", "Order", p, dst, "Target", false, prov);
+    }
+}
@@ -10,6 +10,9 @@ import org.bson.Document;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.util.Map;
+import java.util.Set;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 @QuarkusTest
@@ -74,4 +77,60 @@ public class AutoMaterializationIT {
         boolean hasInverse = invEdges.stream().anyMatch(e -> e.getP().equals("placed") && e.getDst().equals(order.getId().toString()));
         assertTrue(hasInverse, "inverse edge 'placed' should be inferred for customer -> order");
     }
+
+    @Test
+    public void resavingAnUnchangedOrder_skipsMaterialization() {
+        ItCustomer cust = new ItCustomer();
+        cust.setRefName("CUST-1");
+        cust.setDataDomain(testDataDomain);
+        datastore.save(cust);
+
+        ItOrder order = new ItOrder();
+        order.setRefName("ORDER-1");
+        order.setDataDomain(testDataDomain);
+        order.setPlacedBy(cust);
+        datastore.save(order);
+        writeHook.afterPersist(TENANT, order);
+        var edges = edgeRepo.findBySrc(testDataDomain, order.getId().toString());
+
+        // When: the order is saved again without an edge change
+        long skipped = (Long) writeHook.getSummary().get("skippedUnchanged");
+        order.setRefName("ORDER-1-RENAMED");
+        datastore.save(order);
+        writeHook.afterPersist(TENANT, order);
+
+        // Then: the save is skipped and its edges stay as they were
+        assertEquals(skipped + 1, writeHook.getSummary().get("skippedUnchanged"));
+        assertEquals(edges, edgeRepo.findBySrc(testDataDomain, order.getId().toString()));
+    }
+
+    @Test
+    public void droppingPlacedBy_removesTheInverseButKeepsUnaffectedInferredEdges() {
+        ItCustomer cust = new ItCustomer();
+        cust.setRefName("CUST-1");
+        cust.setDataDomain(testDataDomain);
+        datastore.save(cust);
+
+        ItOrder order = new ItOrder();
+        order.setRefName("ORDER-1");
+        order.setDataDomain(testDataDomain);
+        order.setPlacedBy(cust);
+        datastore.save(order);
+        writeHook.afterPersist(TENANT, order);
+        String orderId = order.getId().toString();
+        String custId = cust.getId().toString();
+        assertEquals(Set.of(orderId), edgeRepo.dstIdsBySrc(testDataDomain, "placed", custId));
+        // inferred from a rule that placedBy does not feed
+        edgeRepo.upsert(testDataDomain, "Order", orderId, "orderShipsTo", "Address", "ADDR-1", true, Map.of());
+
+        // When: the order no longer references the customer
+        order.setPlacedBy(null);
+        datastore.save(order);
+        writeHook.afterPersist(TENANT, order);
+
+        // Then: the inverse loses its only supporter and is removed; the unaffected edge stays
+        assertTrue(edgeRepo.dstIdsBySrc(testDataDomain, "placed", custId).isEmpty(),
+                "inverse edge 'placed' should be released once the order stops deriving it");
+        assertEquals(Set.of("ADDR-1"), edgeRepo.dstIdsBySrc(testDataDomain, "orderShipsTo", orderId));
+    }
 }
@@ -0,0 +1,222 @@
+package com.e2eq.ontology.service;
+
+import com.e2eq.framework.model.persistent.base.DataDomain;
+import com.e2eq.framework.model.persistent.morphia.MorphiaDataStoreWrapper;
+import com.e2eq.framework.model.securityrules.ResourceContext;
+import com.e2eq.framework.model.securityrules.SecurityContext;
+import com.e2eq.ontology.core.EdgeChanges;
+import com.e2eq.ontology.core.EdgeRecord;
+import com.e2eq.ontology.mongo.AnnotatedEdgeExtractor;
+import com.e2eq.ontology.mongo.OntologyMaterializer;
+import com.e2eq.ontology.mongo.it.ItOrg;
+import com.e2eq.ontology.repo.OntologyEdgeRepo;
+import com.e2eq.ontology.spi.OntologyEdgeProvider;
+import com.mongodb.client.MongoCollection;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.enterprise.inject.Instance;
+import jakarta.inject.Inject;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@QuarkusTest
+public class OntologyReindexerTest {
+
+    private static final String REALM = "reindexer-test";
+
+    @Inject
+    MorphiaDataStoreWrapper morphiaDataStoreWrapper;
+
+    @Inject
+    AnnotatedEdgeExtractor extractor;
+
+    @Inject
+    OntologyEdgeRepo edgeRepo;
+
+    @Inject
+    Instance<OntologyEdgeProvider> providers;
+
+    private final List<ObjectId> ids = new ArrayList<>();
+
+    @AfterEach
+    void clearSecurityContext() {
+        SecurityContext.clear();
+    }
+
+    @BeforeEach
+    void clean() {
+        SecurityContext.setResourceContext(ResourceContext.DEFAULT_ANONYMOUS_CONTEXT);
+        morphiaDataStoreWrapper.getDataStore(REALM).getDatabase().getCollection("it_orgs").deleteMany(new Document());
+        checkpoints().deleteMany(new Document());
+        ids.clear();
+    }
+
+    @Test
+    void windowsAreSplitIntoBatchesPerDataDomain() {
+        saveOrgs(10, "org-a", "org-b");
+        RecordingMaterializer materializer = new RecordingMaterializer();
+
+        processClass(reindexer(materializer, 2, 2), null);
+
+        // windows of 4 entities, each split into one batch per DataDomain
+        assertEquals(6, materializer.batches.size());
+        for (List<OntologyMaterializer.EntityEdgeContext> batch : materializer.batches) {
+            assertTrue(batch.size() <= 2, "a batch holds at most batch-size entities");
+            assertEquals(1, batch.stream().map(c -> c.dataDomain().getOrgRefName()).distinct().count(),
+                    "a batch never mixes DataDomains");
+        }
+        assertEquals(idStrings(0, 10), materializer.entityIds());
+
+        Document checkpoint = checkpoint();
+        assertTrue(checkpoint.getBoolean("completed"));
+        assertEquals(ids.get(9), checkpoint.get("lastId"));
+    }
+
+    @Test
+    void resumesAfterTheCheckpointOfAStoppedRun() {
+        saveOrgs(10, "org-a");
+        RecordingMaterializer materializer = new RecordingMaterializer();
+        Document stopped = new Document("_id", "1:" + ItOrg.class.getName())
+                .append("pass", 1)
+                .append("lastId", ids.get(3))
+                .append("completed", false);
+
+        processClass(reindexer(materializer, 2, 1), stopped);
+
+        assertEquals(idStrings(4, 10), materializer.entityIds());
+        assertTrue(checkpoint().getBoolean("completed"));
+
+        // a class completed before the stop is skipped
+        RecordingMaterializer again = new RecordingMaterializer();
+        processClass(reindexer(again, 2, 1), checkpoint());
+        assertTrue(again.batches.isEmpty());
+    }
+
+    @Test
+    void failedBatchHoldsTheCheckpointUntilItIsRetried() {
+        saveOrgs(10, "org-a");
+        RecordingMaterializer failing = new RecordingMaterializer();
+        failing.failOn.add(ids.get(4).toString());
+        OntologyReindexer reindexer = reindexer(failing, 2, 1);
+
+        processClass(reindexer, null);
+
+        // the windows after the failure are still applied, but the checkpoint stays before it
+        assertEquals(5, failing.batches.size());
+        Document checkpoint = checkpoint();
+        assertFalse(checkpoint.getBoolean("completed"));
+        assertEquals(ids.get(3), checkpoint.get("lastId"));
+
+        RecordingMaterializer retry = new RecordingMaterializer();
+        processClass(reindexer(retry, 2, 1), checkpoint);
+        assertEquals(idStrings(4, 10), retry.entityIds());
+        assertTrue(checkpoint().getBoolean("completed"));
+    }
+
+    @Test
+    void changesAreCountedButOnlyASampleIsRetained() {
+        saveOrgs(6, "org-a");
+        RecordingMaterializer materializer = new RecordingMaterializer();
+        materializer.addedPerBatch = 3;
+        OntologyReindexer reindexer = reindexer(materializer, 2, 1);
+        reindexer.retainedChanges = 4;
+
+        processClass(reindexer, null);
+
+        assertEquals(9, reindexer.getResult().summary().totalAdded());
+        assertEquals(4, reindexer.lastChanges().added().size());
+    }
+
+    private OntologyReindexer reindexer(OntologyMaterializer materializer, int batchSize, int parallelism) {
+        OntologyReindexer reindexer = new OntologyReindexer();
+        reindexer.morphiaDataStoreWrapper = morphiaDataStoreWrapper;
+        reindexer.extractor = extractor;
+        reindexer.edgeRepo = edgeRepo;
+        reindexer.providers = providers;
+        reindexer.materializer = materializer;
+        reindexer.batchSize = batchSize;
+        reindexer.parallelism = parallelism;
+        return reindexer;
+    }
+
+    private void processClass(OntologyReindexer reindexer, Document checkpoint) {
+        ExecutorService pool = Executors.newFixedThreadPool(reindexer.parallelism);
+        try {
+            reindexer.processClass(REALM, ItOrg.class, false, 1, checkpoint, new HashSet<>(), pool, msg -> { });
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private void saveOrgs(int count, String... orgRefNames) {
+        for (int i = 0; i < count; i++) {
+            DataDomain dd = new DataDomain();
+            dd.setOrgRefName(orgRefNames[i % orgRefNames.length]);
+            dd.setAccountNum("1111111111");
+            dd.setTenantId(REALM);
+            dd.setOwnerId("system");
+            dd.setDataSegment(0);
+            ItOrg org = new ItOrg();
+            org.setRefName("ORG-" + i);
+            org.setDataDomain(dd);
+            morphiaDataStoreWrapper.getDataStore(REALM).save(org);
+            ids.add(org.getId());
+        }
+    }
+
+    private Set<String> idStrings(int from, int to) {
+        Set<String> result = new TreeSet<>();
+        for (ObjectId id : ids.subList(from, to)) {
+            result.add(id.toString());
+        }
+        return result;
+    }
+
+    private MongoCollection<Document> checkpoints() {
+        return morphiaDataStoreWrapper.getDataStore(REALM).getDatabase()
+                .getCollection(OntologyReindexer.CHECKPOINT_COLLECTION);
+    }
+
+    private Document checkpoint() {
+        return checkpoints().find(new Document("_id", "1:" + ItOrg.class.getName())).first();
+    }
+
+    /** Records the batches it is given; fails a batch holding one of {@link #failOn}. */
+    static class RecordingMaterializer extends OntologyMaterializer {
+        final List<List<OntologyMaterializer.EntityEdgeContext>> batches = Collections.synchronizedList(new ArrayList<>());
+        final Set<String> failOn = ConcurrentHashMap.newKeySet();
+        int addedPerBatch;
+
+        @Override
+        public EdgeChanges applyBulk(List<OntologyMaterializer.EntityEdgeContext> entities) {
+            batches.add(List.copyOf(entities));
+            if (entities.stream().anyMatch(c -> failOn.contains(c.entityId()))) {
+                throw new IllegalStateException("batch failed");
+            }
+            EdgeChanges changes = EdgeChanges.empty();
+            for (int i = 0; i < addedPerBatch; i++) {
+                EdgeRecord added = new EdgeRecord();
+                added.setP("memberOf");
+                changes.added().add(added);
+            }
+            return changes;
+        }
+
+        Set<String> entityIds() {
+            Set<String> result = new TreeSet<>();
+            synchronized (batches) {
+                batches.forEach(b -> b.forEach(c -> result.add(c.entityId())));
+            }
+            return result;
+        }
+    }
+}
@@ -8,14 +8,24 @@ import jakarta.inject.Inject;
 import com.e2eq.framework.model.persistent.base.DataDomain;
 import com.e2eq.ontology.repo.OntologyEdgeRepo;
 import com.e2eq.ontology.core.OntologyAliasResolver;
+import com.mongodb.client.model.Aggregates;
 import dev.morphia.query.filters.Filter;
 import dev.morphia.query.filters.Filters;
+import io.quarkus.logging.Log;
 import org.bson.conversions.Bson;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 
 /**
  * Rewrites list queries to incorporate ontology edge constraints.
  * All operations are scoped by DataDomain (orgRefName, accountNum, tenantId, dataSegment)
  * to ensure proper isolation across organizations and accounts.
+ *
+ * The {@code Filter} methods materialize the matching ids and filter with {@code $in}; a find
+ * query cannot join the edge collection, so they do so at any size and log a warning above
+ * {@code quantum.ontology.query.edge-join.max-ids}. The {@code plan*} methods choose per predicate
+ * between that and a server-side {@code $lookup} semi-join against the edge collection, based on
+ * the estimated number of matching edges ({@code quantum.ontology.query.edge-join.mode} =
+ * auto | ids | lookup).
  */
 @ApplicationScoped
 public class ListQueryRewriter {
@@ -28,9 +38,44 @@ public class ListQueryRewriter {
     @Inject
     Instance<OntologyAliasResolver> aliasResolverInstance;
 
+    @ConfigProperty(name = "quantum.ontology.query.edge-join.mode", defaultValue = "auto")
+    String edgeJoinMode = "auto";
+
+    // Above this many matching edges a predicate is joined server-side instead of materialized
+    @ConfigProperty(name = "quantum.ontology.query.edge-join.max-ids", defaultValue = "10000")
+    int maxMaterializedIds = 10000;
+
     // Testing/legacy convenience: allow manual construction with a provided repo
     private OntologyEdgeRepo edgeRepo;
 
+    /** How an edge predicate is executed. */
+    public enum EdgeJoinMode {
+        /** matching ids are read and applied as an {@code _id}/{@code refName} {@code $in} filter */
+        IDS,
+        /** the edge collection is joined server-side with a {@code $lookup} */
+        LOOKUP
+    }
+
+    /**
+     * An edge predicate compiled for one execution mode. {@code filter} is the id filter for find
+     * queries and is only set in {@link EdgeJoinMode#IDS} mode; {@code stages} applies the predicate
+     * in an aggregation pipeline in either mode.
+     */
+    public record EdgeJoinPlan(EdgeJoinMode mode, Filter filter, List<Bson> stages) {
+
+        /**
+         * Returns the pipeline that matches {@code base} and then applies this predicate.
+         */
+        public List<Bson> pipeline(Bson base) {
+            List<Bson> pipeline = new ArrayList<>(stages.size() + 1);
+            if (base != null) {
+                pipeline.add(Aggregates.match(base));
+            }
+            pipeline.addAll(stages);
+            return pipeline;
+        }
+    }
+
     public ListQueryRewriter() { }
     
     public ListQueryRewriter(OntologyEdgeRepo edgeRepo) {
@@ -56,17 +101,27 @@ public class ListQueryRewriter {
 
     private Set<String> srcIdsByDst(DataDomain dataDomain, String predicate, String dstId) {
         String p = canon(predicate);
-        return getRepo().srcIdsByDst(dataDomain, p, dstId);
+        return warnAboveLimit("hasEdge", p, getRepo().srcIdsByDst(dataDomain, p, dstId));
     }
 
     private Set<String> srcIdsByDstIn(DataDomain dataDomain, String predicate, Collection<String> dstIds) {
         String p = canon(predicate);
-        return getRepo().srcIdsByDstIn(dataDomain, p, dstIds);
+        return warnAboveLimit("hasEdgeAny", p, getRepo().srcIdsByDstIn(dataDomain, p, dstIds));
     }
 
     private Set<String> dstIdsBySrc(DataDomain dataDomain, String predicate, String srcId) {
         String p = canon(predicate);
-        return getRepo().dstIdsBySrc(dataDomain, p, srcId);
+        return warnAboveLimit("hasIncomingEdge", p, getRepo().dstIdsBySrc(dataDomain, p, srcId));
+    }
+
+    // The Filter and id methods have no server-side join to switch to; a fan-out the plan methods
+    // would join server-side is still materialized, and flagged unless the mode is forced to ids
+    private Set<String> warnAboveLimit(String function, String p, Set<String> ids) {
+        if (ids != null && ids.size() > maxMaterializedIds && !"ids".equals(mode())) {
+            Log.warnf("%s('%s') materialized %d ids, above quantum.ontology.query.edge-join.max-ids=%d; "
+                    + "an aggregation with a plan*(..) semi-join avoids shipping them", function, p, ids.size(), maxMaterializedIds);
+        }
+        return ids;
     }
 
     /**
@@ -126,6 +181,94 @@ public class ListQueryRewriter {
         return idsFilter(dstIds);
     }
 
+    /**
+     * Plans hasEdge(predicate, dstId); see {@link #planHasEdgeAny}.
+     */
+    public EdgeJoinPlan planHasEdge(DataDomain dataDomain, String predicate, String dstId) {
+        return planHasEdgeAny(dataDomain, predicate, dstId == null ? List.of() : List.of(dstId));
+    }
+
+    /**
+     * Plans a constraint for entities that have an edge with the given predicate pointing to any of the dstIds.
+     * The ids are materialized when at most {@code max-ids} edges match; otherwise the edge collection is
+     * joined server-side.
+     *
+     * @param dataDomain the DataDomain context
+     * @param predicate  the edge predicate/property
+     * @param dstIds     the set of destination entity IDs (OR semantics)
+     * @return the plan for the chosen execution mode
+     */
+    public EdgeJoinPlan planHasEdgeAny(DataDomain dataDomain, String predicate, Collection<String> dstIds) {
+        if (dstIds == null || dstIds.isEmpty()) {
+            return noneMatch();
+        }
+        String p = canon(predicate);
+        if (chooseMode(dataDomain, p, dstIds, false) == EdgeJoinMode.LOOKUP) {
+            return new EdgeJoinPlan(EdgeJoinMode.LOOKUP, null, getRepo().semiJoinStages(dataDomain, p, dstIds, false));
+        }
+        return idsPlan(getRepo().srcIdsByDstIn(dataDomain, p, dstIds));
+    }
+
+    /**
+     * Plans hasIncomingEdge(predicate, srcId): entities that are the target of an edge from srcId.
+     */
+    public EdgeJoinPlan planHasIncomingEdge(DataDomain dataDomain, String predicate, String srcId) {
+        if (srcId == null) {
+            return noneMatch();
+        }
+        String p = canon(predicate);
+        if (chooseMode(dataDomain, p, List.of(srcId), true) == EdgeJoinMode.LOOKUP) {
+            return new EdgeJoinPlan(EdgeJoinMode.LOOKUP, null, getRepo().semiJoinStages(dataDomain, p, List.of(srcId), true));
+        }
+        return idsPlan(getRepo().dstIdsBySrc(dataDomain, p, srcId));
+    }
+
+    private EdgeJoinMode chooseMode(DataDomain dataDomain, String p, Collection<String> otherIds, boolean incoming) {
+        String mode = mode();
+        if ("ids".equals(mode)) return EdgeJoinMode.IDS;
+        if ("lookup".equals(mode)) return EdgeJoinMode.LOOKUP;
+        // auto: the count stops just past the threshold, so estimating stays cheap for large fan-outs
+        long estimate = getRepo().countEdges(dataDomain, p, otherIds, incoming, maxMaterializedIds + 1);
+        return estimate > maxMaterializedIds ? EdgeJoinMode.LOOKUP : EdgeJoinMode.IDS;
+    }
+
+    private String mode() {
+        return edgeJoinMode == null ? "auto" : edgeJoinMode.trim().toLowerCase();
+    }
+
+    private static EdgeJoinPlan idsPlan(Set<String> ids) {
+        if (ids.isEmpty()) {
+            return noneMatch();
+        }
+        return new EdgeJoinPlan(EdgeJoinMode.IDS, idsFilter(ids), List.of(Aggregates.match(idsBson(ids))));
+    }
+
+    private static EdgeJoinPlan noneMatch() {
+        return new EdgeJoinPlan(EdgeJoinMode.IDS, Filters.eq("_id", "__none__"),
+                List.of(Aggregates.match(com.mongodb.client.model.Filters.eq("_id", "__none__"))));
+    }
+
+    /** BSON form of {@link #idsFilter(Set)} for aggregation stages. */
+    static Bson idsBson(Set<String> ids) {
+        List<Object> objectIds = new ArrayList<>();
+        List<String> refNames = new ArrayList<>();
+        for (String id : ids) {
+            if (org.bson.types.ObjectId.isValid(id)) {
+                objectIds.add(new org.bson.types.ObjectId(id));
+            } else {
+                refNames.add(id);
+            }
+        }
+        if (!objectIds.isEmpty() && !refNames.isEmpty()) {
+            return com.mongodb.client.model.Filters.or(com.mongodb.client.model.Filters.in("_id", objectIds),
+                    com.mongodb.client.model.Filters.in("refName", refNames));
+        }
+        if (!refNames.isEmpty()) {
+            return com.mongodb.client.model.Filters.in("refName", refNames);
+        }
+        return com.mongodb.client.model.Filters.in("_id", objectIds);
+    }
+
     /**
      * Rewrites a base BSON filter to include a hasEdge constraint.
      */
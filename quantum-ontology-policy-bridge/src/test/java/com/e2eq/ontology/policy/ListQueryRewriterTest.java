@@ -77,6 +77,11 @@ public class ListQueryRewriterTest {
         public List<OntologyEdge> findBySrc(DataDomain dataDomain, String src) {
             return List.of();
         }
+
+        @Override
+        public long countEdges(DataDomain dataDomain, String p, Collection<String> otherIds, boolean incoming, int limit) {
+            return Math.min(limit, srcIdsByDstIn(dataDomain, p, otherIds).size());
+        }
     }
 
     @Test
@@ -153,4 +158,58 @@ public class ListQueryRewriterTest {
         // Only O2 satisfies both predicates with ALL destinations
         assertTrue(s.contains("O2"));
     }
+
+    @Test
+    public void testPlanMaterializesIdsBelowThreshold() {
+        FakeEdgeRepo repo = new FakeEdgeRepo();
+        repo.put("placedInOrg", "OrgA", "O1", "O2");
+        ListQueryRewriter rw = new ListQueryRewriter(repo);
+
+        ListQueryRewriter.EdgeJoinPlan plan = rw.planHasEdgeAny(testDataDomain, "placedInOrg", List.of("OrgA"));
+        assertEquals(ListQueryRewriter.EdgeJoinMode.IDS, plan.mode());
+        String s = String.valueOf(plan.filter());
+        assertTrue(s.contains("O1") && s.contains("O2"));
+        assertEquals(1, plan.stages().size());
+    }
+
+    @Test
+    public void testPlanSwitchesToLookupAboveThreshold() {
+        FakeEdgeRepo repo = new FakeEdgeRepo();
+        repo.put("placedInOrg", "OrgA", "O1", "O2", "O3");
+        ListQueryRewriter rw = new ListQueryRewriter(repo);
+        rw.maxMaterializedIds = 2;
+
+        ListQueryRewriter.EdgeJoinPlan plan = rw.planHasEdgeAny(testDataDomain, "placedInOrg", List.of("OrgA"));
+        assertEquals(ListQueryRewriter.EdgeJoinMode.LOOKUP, plan.mode());
+        assertNull(plan.filter());
+        String stages = plan.pipeline(new org.bson.Document("status", "OPEN")).toString();
+        assertTrue(stages.contains("$lookup"));
+        assertTrue(stages.contains("from=edges"));
+        assertTrue(stages.contains("foreignField=src"));
+        assertTrue(stages.contains("OrgA"));
+        assertFalse(stages.contains("O1"), "ids must not be materialized in lookup mode");
+    }
+
+    @Test
+    public void testFilterMaterializesAboveThreshold() {
+        FakeEdgeRepo repo = new FakeEdgeRepo();
+        repo.put("placedInOrg", "OrgA", "O1", "O2", "O3");
+        ListQueryRewriter rw = new ListQueryRewriter(repo);
+        rw.maxMaterializedIds = 2;
+
+        // a find filter cannot join the edges server-side, so it keeps the ids above the threshold
+        String s = String.valueOf(rw.hasEdgeAny(testDataDomain, "placedInOrg", List.of("OrgA")));
+        assertTrue(s.contains("O1") && s.contains("O2") && s.contains("O3"));
+        assertEquals(Set.of("O1", "O2", "O3"), rw.idsForHasEdge(testDataDomain, "placedInOrg", "OrgA"));
+    }
+
+    @Test
+    public void testPlanIncomingEdgeJoinsOnDst() {
+        ListQueryRewriter rw = new ListQueryRewriter(new FakeEdgeRepo());
+        rw.edgeJoinMode = "lookup";
+
+        ListQueryRewriter.EdgeJoinPlan plan = rw.planHasIncomingEdge(testDataDomain, "canSeeLocation", "A1");
+        assertEquals(ListQueryRewriter.EdgeJoinMode.LOOKUP, plan.mode());
+        assertTrue(plan.stages().toString().contains("foreignField=dst"));
+    }
 }